@@ -21,6 +21,7 @@ dependencies {
 
     // Jackson for JSON types (version managed by Spring Boot BOM)
     implementation("com.fasterxml.jackson.core:jackson-annotations")
+    implementation("tools.jackson.core:jackson-databind")
 
     // Swagger for enum documentation
     compileOnly("io.swagger.core.v3:swagger-annotations")
@@ -29,11 +30,18 @@ dependencies {
     compileOnly("jakarta.servlet:jakarta.servlet-api")
     compileOnly("org.springframework:spring-web")
 
+    // For RedisEndpoint (optional - only used by services that talk to Redis)
+    compileOnly("io.lettuce:lettuce-core")
+
     // Validation (version managed by Spring Boot BOM)
     implementation("jakarta.validation:jakarta.validation-api")
 
     // Testing
     testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("org.testcontainers:testcontainers-postgresql")
+    testImplementation("org.testcontainers:testcontainers-junit-jupiter")
+    testImplementation("io.lettuce:lettuce-core")
+    testRuntimeOnly("org.postgresql:postgresql")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
@@ -0,0 +1,123 @@
+package io.hephaistos.flagforge.common.cache;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reduces a batch of invalidation events to the smallest set that invalidates at least the same
+ * cache entries. Every event selects entries by (application, environment, template type,
+ * identifier), where a null environment or identifier matches all; SCHEMA_CHANGE matches every
+ * environment and identifier of its template type. For the USER template, OVERRIDE_CHANGE and
+ * USER_CHANGE select the same entries.
+ */
+public final class CacheInvalidationCoalescer {
+
+    private CacheInvalidationCoalescer() {
+    }
+
+    /**
+     * Replaces the identifier-specific events of any (application, environment, template type)
+     * namespace with more than {@code maxIdentifiersPerNamespace} distinct identifiers by one
+     * OVERRIDE_CHANGE for the whole namespace, then drops duplicates and events covered by a
+     * broader event in the batch. Remaining events keep the order of their first occurrence.
+     *
+     * @param events                     The events to coalesce
+     * @param maxIdentifiersPerNamespace How many identifiers of one namespace are published
+     *                                   individually before the namespace is invalidated as a
+     *                                   whole
+     * @return The coalesced events
+     */
+    public static List<CacheInvalidationEvent> coalesce(Collection<CacheInvalidationEvent> events,
+            int maxIdentifiersPerNamespace) {
+        // Collapse crowded namespaces first so their wildcard event can absorb the rest
+        Map<Namespace, Set<String>> identifiers = new HashMap<>();
+        for (var event : events) {
+            if (event.envId() != null && event.identifier() != null) {
+                identifiers.computeIfAbsent(Namespace.of(event), key -> new HashSet<>())
+                        .add(event.identifier());
+            }
+        }
+
+        Set<CacheInvalidationEvent> distinct = new LinkedHashSet<>();
+        for (var event : events) {
+            if (event.envId() != null && event.identifier() != null &&
+                    identifiers.get(Namespace.of(event)).size() > maxIdentifiersPerNamespace) {
+                distinct.add(Namespace.of(event).wildcard());
+            }
+            else {
+                distinct.add(event);
+            }
+        }
+
+        List<CacheInvalidationEvent> candidates = new ArrayList<>(distinct);
+        List<CacheInvalidationEvent> result = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!isCovered(i, candidates)) {
+                result.add(candidates.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether {@code covering} invalidates every cache entry {@code covered} does.
+     */
+    public static boolean covers(CacheInvalidationEvent covering, CacheInvalidationEvent covered) {
+        if (!covering.appId().equals(covered.appId()) ||
+                covering.templateType() != covered.templateType()) {
+            return false;
+        }
+        if (covering.type() == CacheInvalidationType.SCHEMA_CHANGE) {
+            return true;
+        }
+        if (covered.type() == CacheInvalidationType.SCHEMA_CHANGE) {
+            return false;
+        }
+        return matches(covering.envId(), covered.envId()) &&
+                matches(covering.identifier(), covered.identifier());
+    }
+
+    /**
+     * An event is dropped if another one covers it, except that of two events covering each other
+     * only the first is kept.
+     */
+    private static boolean isCovered(int index, List<CacheInvalidationEvent> candidates) {
+        var event = candidates.get(index);
+        for (int j = 0; j < candidates.size(); j++) {
+            var other = candidates.get(j);
+            if (j == index || !covers(other, event)) {
+                continue;
+            }
+            if (!covers(event, other) || j < index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(@Nullable Object covering, @Nullable Object covered) {
+        return covering == null || covering.equals(covered);
+    }
+
+    private record Namespace(UUID appId, UUID envId, TemplateType templateType) {
+
+        static Namespace of(CacheInvalidationEvent event) {
+            return new Namespace(event.appId(), event.envId(), event.templateType());
+        }
+
+        CacheInvalidationEvent wildcard() {
+            return new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
+                    templateType, null);
+        }
+    }
+}
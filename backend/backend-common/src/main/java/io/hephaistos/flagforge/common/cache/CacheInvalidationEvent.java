@@ -6,8 +6,9 @@ import org.jspecify.annotations.Nullable;
 import java.util.UUID;
 
 /**
- * Event published to Redis pub/sub channel when template data changes. Used to invalidate cached
- * template responses in customer-api.
+ * Event published when template data changes, on the Redis invalidation stream or as a Postgres
+ * notification. Used to invalidate cached template responses in customer-api. Every stream entry
+ * carries the next value of {@link #SEQUENCE_KEY}, so a reader can tell whether it missed entries.
  *
  * @param type         Type of change that occurred
  * @param appId        Application UUID
@@ -20,7 +21,28 @@ public record CacheInvalidationEvent(CacheInvalidationType type, UUID appId, @Nu
                                      TemplateType templateType, @Nullable String identifier) {
 
     /**
-     * Redis pub/sub channel for cache invalidation messages.
+     * Redis stream carrying cache invalidation messages. Shares its hash tag with
+     * {@link #SEQUENCE_KEY}, which the same script updates.
      */
-    public static final String CHANNEL = "template:invalidate";
+    public static final String STREAM = "template:{invalidate}";
+
+    /**
+     * Counter numbering the stream entries without gaps.
+     */
+    public static final String SEQUENCE_KEY = "template:{invalidate}:seq";
+
+    /**
+     * Stream entry field holding the entry's sequence number.
+     */
+    public static final String FIELD_SEQUENCE = "seq";
+
+    /**
+     * Stream entry field holding the serialized event.
+     */
+    public static final String FIELD_EVENT = "event";
+
+    /**
+     * Postgres NOTIFY channel carrying serialized events when Redis is not used.
+     */
+    public static final String NOTIFY_CHANNEL = "template_invalidate";
 }
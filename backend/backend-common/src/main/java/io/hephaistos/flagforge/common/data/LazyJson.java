@@ -0,0 +1,154 @@
+package io.hephaistos.flagforge.common.data;
+
+import org.jspecify.annotations.Nullable;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A JSONB document held as raw UTF-8 bytes and parsed only on first access. Instances are
+ * immutable; equality is byte equality, which is what Hibernate uses for dirty checking through
+ * {@link LazyJsonType}. Pass-through code (copying, caching, comparing) can use {@link #raw()}
+ * without ever building the object tree.
+ * <p>
+ * The parsed document is kept for the type it was last read as; reading it as another type parses
+ * the bytes again. Maps and lists are unmodifiable all the way down, since changes to them would
+ * never reach the bytes. Other parsed objects are shared between callers and must not be changed.
+ */
+public final class LazyJson {
+
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private final byte[] raw;
+    private volatile @Nullable Parsed parsed;
+
+    private LazyJson(byte[] raw, @Nullable Parsed parsed) {
+        this.raw = raw;
+        this.parsed = parsed;
+    }
+
+    /**
+     * Wrap JSON text as read from the database. Nothing is parsed.
+     */
+    public static LazyJson ofJson(String json) {
+        return new LazyJson(json.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * Wrap raw JSON bytes, e.g. copied from another document. Nothing is parsed.
+     */
+    public static LazyJson ofBytes(byte[] json) {
+        return new LazyJson(json.clone(), null);
+    }
+
+    /**
+     * Serialize a value, which is kept as the parsed form for reads as its own class. Callers must
+     * not mutate it afterwards.
+     */
+    public static LazyJson of(Object value) {
+        return new LazyJson(JSON_MAPPER.writeValueAsBytes(value),
+                new Parsed(value.getClass(), freeze(value)));
+    }
+
+    /**
+     * Serialize a value, which is kept as the parsed form for reads as {@code type}. Maps and
+     * lists are copied, so the caller may keep changing its own.
+     */
+    public static <T> LazyJson of(T value, TypeReference<T> type) {
+        return new LazyJson(JSON_MAPPER.writeValueAsBytes(value),
+                new Parsed(type.getType(), freeze(value)));
+    }
+
+    /**
+     * @return The parsed document, deserialized on the first call for this type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> type) {
+        Parsed current = parsed;
+        if (current == null || !current.type().equals(type)) {
+            current = new Parsed(type, freeze(JSON_MAPPER.readValue(raw, type)));
+            parsed = current;
+        }
+        return (T) current.value();
+    }
+
+    /**
+     * @return The parsed document, deserialized on the first call for this type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(TypeReference<T> type) {
+        Parsed current = parsed;
+        if (current == null || !current.type().equals(type.getType())) {
+            current = new Parsed(type.getType(), freeze(JSON_MAPPER.readValue(raw, type)));
+            parsed = current;
+        }
+        return (T) current.value();
+    }
+
+    public boolean isParsed() {
+        return parsed != null;
+    }
+
+    /**
+     * @return A copy of the raw UTF-8 JSON bytes
+     */
+    public byte[] raw() {
+        return raw.clone();
+    }
+
+    public String json() {
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof LazyJson that))
+            return false;
+        return Arrays.equals(raw, that.raw);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(raw);
+    }
+
+    @Override
+    public String toString() {
+        return json();
+    }
+
+    /**
+     * Unmodifiable deep copy of maps and lists; any other value is returned as is.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        return (T) freezeValue(value);
+    }
+
+    private static @Nullable Object freezeValue(@Nullable Object value) {
+        if (value instanceof Map<?, ?> map) {
+            var copy = new LinkedHashMap<Object, Object>();
+            map.forEach((key, entry) -> copy.put(key, freezeValue(entry)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List<?> list) {
+            var copy = new ArrayList<>(list.size());
+            list.forEach(entry -> copy.add(freezeValue(entry)));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    private record Parsed(Type type, @Nullable Object value) {
+    }
+}
@@ -0,0 +1,77 @@
+package io.hephaistos.flagforge.common.data;
+
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Hibernate type mapping a JSONB column to {@link LazyJson}. Reads keep the JSON text unparsed,
+ * writes bind it as an untyped parameter so PostgreSQL casts it to jsonb, and dirty checking
+ * compares bytes instead of object trees.
+ */
+public class LazyJsonType implements UserType<LazyJson> {
+
+    @Override
+    public int getSqlType() {
+        return Types.OTHER;
+    }
+
+    @Override
+    public Class<LazyJson> returnedClass() {
+        return LazyJson.class;
+    }
+
+    @Override
+    public boolean equals(LazyJson x, LazyJson y) {
+        return x == y || (x != null && x.equals(y));
+    }
+
+    @Override
+    public int hashCode(LazyJson x) {
+        return x.hashCode();
+    }
+
+    @Override
+    public LazyJson nullSafeGet(ResultSet rs, int position, WrapperOptions options)
+            throws SQLException {
+        String json = rs.getString(position);
+        return json != null ? LazyJson.ofJson(json) : null;
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, LazyJson value, int position,
+            WrapperOptions options) throws SQLException {
+        if (value == null) {
+            st.setNull(position, Types.OTHER);
+        }
+        else {
+            st.setObject(position, value.json(), Types.OTHER);
+        }
+    }
+
+    @Override
+    public LazyJson deepCopy(LazyJson value) {
+        // Immutable
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(LazyJson value) {
+        return value != null ? value.json() : null;
+    }
+
+    @Override
+    public LazyJson assemble(Serializable cached, Object owner) {
+        return cached != null ? LazyJson.ofJson((String) cached) : null;
+    }
+}
@@ -13,6 +13,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.Filter;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
 
@@ -46,9 +47,9 @@ public class TemplateEntity extends CompanyOwnedEntity {
     @Column(nullable = false)
     private TemplateType type;
 
-    @JdbcTypeCode(SqlTypes.JSON)
+    @Type(LazyJsonType.class)
     @Column(columnDefinition = "jsonb", nullable = false)
-    private TemplateSchema schema;
+    private LazyJson schema;
 
     // Audit fields (createdAt, updatedAt, createdBy, updatedBy) inherited from CompanyOwnedEntity
 
@@ -91,12 +92,23 @@ public class TemplateEntity extends CompanyOwnedEntity {
         this.type = type;
     }
 
+    /**
+     * @return The schema, parsed on first access. Shared by every read of this entity, so changes
+     * to it are not persisted; pass a changed schema to {@link #setSchema(TemplateSchema)} instead
+     */
     public TemplateSchema getSchema() {
-        return schema;
+        return schema != null ? schema.get(TemplateSchema.class) : null;
     }
 
     public void setSchema(TemplateSchema schema) {
-        this.schema = schema;
+        this.schema = schema != null ? LazyJson.of(schema) : null;
+    }
+
+    /**
+     * @return The schema as unparsed JSONB, for copying and caching
+     */
+    public LazyJson getRawSchema() {
+        return schema;
     }
 
     // getCreatedAt(), getUpdatedAt(), getCreatedBy(), getUpdatedBy() inherited from AuditableEntity
@@ -9,8 +9,10 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.Filter;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
+import tools.jackson.core.type.TypeReference;
 
 import java.util.Map;
 import java.util.Objects;
@@ -28,6 +30,9 @@ import java.util.UUID;
         condition = "application_id IN (:accessibleAppIds)")
 public class TemplateValuesEntity extends AuditableEntity {
 
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<>() {
+    };
+
     @Id
     @UuidGenerator(style = UuidGenerator.Style.TIME)
     private UUID id;
@@ -46,9 +51,9 @@ public class TemplateValuesEntity extends AuditableEntity {
     @Column(nullable = false)
     private String identifier;
 
-    @JdbcTypeCode(SqlTypes.JSON)
+    @Type(LazyJsonType.class)
     @Column(columnDefinition = "jsonb", nullable = false)
-    private Map<String, Object> values;
+    private LazyJson values;
 
     // Audit fields (createdAt, updatedAt, createdBy, updatedBy) inherited from AuditableEntity
 
@@ -92,11 +97,26 @@ public class TemplateValuesEntity extends AuditableEntity {
         this.identifier = identifier;
     }
 
+    /**
+     * @return The override values, parsed on first access. Unmodifiable, including nested maps and
+     * lists; pass changed values to {@link #setValues(Map)} to persist them
+     */
     public Map<String, Object> getValues() {
-        return values;
+        return values != null ? values.get(VALUES_TYPE) : null;
     }
 
     public void setValues(Map<String, Object> values) {
+        this.values = values != null ? LazyJson.of(values, VALUES_TYPE) : null;
+    }
+
+    /**
+     * @return The override values as unparsed JSONB, for copying and caching
+     */
+    public LazyJson getRawValues() {
+        return values;
+    }
+
+    public void setRawValues(LazyJson values) {
         this.values = values;
     }
 
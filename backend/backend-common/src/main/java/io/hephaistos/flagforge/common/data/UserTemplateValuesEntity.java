@@ -4,10 +4,11 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import org.hibernate.annotations.Filter;
-import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UuidGenerator;
-import org.hibernate.type.SqlTypes;
+import tools.jackson.core.type.TypeReference;
 
 import java.util.Map;
 import java.util.Objects;
@@ -26,6 +27,9 @@ import java.util.UUID;
         condition = "application_id IN (:accessibleAppIds)")
 public class UserTemplateValuesEntity extends AuditableEntity {
 
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<>() {
+    };
+
     @Id
     @UuidGenerator(style = UuidGenerator.Style.TIME)
     private UUID id;
@@ -39,9 +43,13 @@ public class UserTemplateValuesEntity extends AuditableEntity {
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
-    @JdbcTypeCode(SqlTypes.JSON)
+    @Type(LazyJsonType.class)
     @Column(columnDefinition = "jsonb", nullable = false)
-    private Map<String, Object> values;
+    private LazyJson values;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
 
     // Audit fields (createdAt, updatedAt, createdBy, updatedBy) inherited from AuditableEntity
 
@@ -77,14 +85,36 @@ public class UserTemplateValuesEntity extends AuditableEntity {
         this.userId = userId;
     }
 
+    /**
+     * @return The override values, parsed on first access. Unmodifiable, including nested maps and
+     * lists; pass changed values to {@link #setValues(Map)} to persist them
+     */
     public Map<String, Object> getValues() {
-        return values;
+        return values != null ? values.get(VALUES_TYPE) : null;
     }
 
     public void setValues(Map<String, Object> values) {
+        this.values = values != null ? LazyJson.of(values, VALUES_TYPE) : null;
+    }
+
+    /**
+     * @return The override values as unparsed JSONB, for copying and caching
+     */
+    public LazyJson getRawValues() {
+        return values;
+    }
+
+    public void setRawValues(LazyJson values) {
         this.values = values;
     }
 
+    /**
+     * @return Row version, incremented on every change to the values
+     */
+    public long getVersion() {
+        return version;
+    }
+
     // getCreatedAt(), getUpdatedAt(), getCreatedBy(), getUpdatedBy() inherited from AuditableEntity
 
     @Override
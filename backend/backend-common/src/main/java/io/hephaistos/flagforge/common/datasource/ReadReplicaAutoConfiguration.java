@@ -0,0 +1,68 @@
+package io.hephaistos.flagforge.common.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Auto-configuration for read replica routing. Wraps the application's {@code dataSource} bean so
+ * that {@code @Transactional(readOnly = true)} work is served by a healthy replica. Only activates
+ * when {@code flagforge.datasource.read-replicas.enabled=true}.
+ * <p>
+ * Routing is decided when a session first acquires its connection, so it needs Spring Boot's
+ * default delayed connection acquisition and {@code spring.jpa.open-in-view=false}; an
+ * open-in-view session would keep whichever connection its first transaction picked, so startup
+ * fails while open-in-view is on (Spring Boot's default).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "flagforge.datasource.read-replicas", name = "enabled",
+        havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaAutoConfiguration {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+    private static final String OPEN_IN_VIEW = "spring.jpa.open-in-view";
+
+    @Bean
+    public static BeanPostProcessor readReplicaDataSourcePostProcessor(
+            ObjectProvider<ReplicaLagMonitor> monitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && DATA_SOURCE_BEAN.equals(beanName)) {
+                    return ReplicaRoutingDataSource.wrap(dataSource, monitor.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReadReplicaProperties properties,
+            Environment environment) {
+        if (environment.getProperty(OPEN_IN_VIEW, Boolean.class, true)) {
+            throw new IllegalStateException("Read replica routing requires " + OPEN_IN_VIEW +
+                    "=false; an open-in-view session runs every transaction of a request on " +
+                    "the connection its first transaction picked");
+        }
+        return new ReplicaLagMonitor(properties,
+                environment.getProperty("spring.datasource.username"),
+                environment.getProperty("spring.datasource.password"));
+    }
+
+    /**
+     * Picked up by Spring Boot's transaction manager customization, which registers every
+     * {@code TransactionExecutionListener} bean with the auto-configured transaction manager.
+     */
+    @Bean
+    public ReadYourWritesTransactionListener readYourWritesTransactionListener(
+            ReadReplicaProperties properties) {
+        return new ReadYourWritesTransactionListener(properties.readYourWritesWindow());
+    }
+}
@@ -0,0 +1,44 @@
+package io.hephaistos.flagforge.common.datasource;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration properties for routing read-only transactions to Postgres read replicas.
+ *
+ * @param enabled              Whether replica routing is enabled (default: false)
+ * @param replicas             Replica connection settings; credentials default to the primary's
+ * @param maxLag               Replicas lagging further behind the primary are skipped (default: 5s)
+ * @param lagCheckInterval     How often replica lag is sampled (default: 5s)
+ * @param readYourWritesWindow How long a thread keeps reading from the primary after it committed
+ *                             a write (default: 5s)
+ */
+@ConfigurationProperties(prefix = "flagforge.datasource.read-replicas")
+public record ReadReplicaProperties(boolean enabled, List<Replica> replicas, Duration maxLag,
+                                    Duration lagCheckInterval, Duration readYourWritesWindow) {
+    public ReadReplicaProperties {
+        if (replicas == null) {
+            replicas = List.of();
+        }
+        if (maxLag == null) {
+            maxLag = Duration.ofSeconds(5);
+        }
+        if (lagCheckInterval == null || lagCheckInterval.isZero() || lagCheckInterval.isNegative()) {
+            lagCheckInterval = Duration.ofSeconds(5);
+        }
+        if (readYourWritesWindow == null) {
+            readYourWritesWindow = Duration.ofSeconds(5);
+        }
+    }
+
+    /**
+     * @param url      JDBC URL of the replica
+     * @param username Username, or {@code null} to reuse {@code spring.datasource.username}
+     * @param password Password, or {@code null} to reuse {@code spring.datasource.password}
+     */
+    public record Replica(String url, @Nullable String username, @Nullable String password) {
+    }
+}
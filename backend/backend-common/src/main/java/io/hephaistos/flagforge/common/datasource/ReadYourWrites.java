@@ -0,0 +1,78 @@
+package io.hephaistos.flagforge.common.datasource;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound switch that keeps read-only transactions on the primary when the caller has to see
+ * its own writes. A thread is pinned either explicitly via {@link #onPrimary(Supplier)} or for a
+ * short window after it committed a read-write transaction (see
+ * {@link ReadYourWritesTransactionListener}).
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Integer> PIN_DEPTH = ThreadLocal.withInitial(() -> 0);
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Runs the given action with all reads, including read-only transactions started inside it,
+     * routed to the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        PIN_DEPTH.set(PIN_DEPTH.get() + 1);
+        try {
+            return action.get();
+        }
+        finally {
+            int depth = PIN_DEPTH.get() - 1;
+            if (depth == 0) {
+                PIN_DEPTH.remove();
+            }
+            else {
+                PIN_DEPTH.set(depth);
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Pins the current thread to the primary for the given window.
+     */
+    public static void pinFor(Duration window) {
+        if (window.isZero() || window.isNegative()) {
+            return;
+        }
+        PINNED_UNTIL.set(System.nanoTime() + window.toNanos());
+    }
+
+    public static boolean isPinnedToPrimary() {
+        if (PIN_DEPTH.get() > 0) {
+            return true;
+        }
+        Long until = PINNED_UNTIL.get();
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        PINNED_UNTIL.remove();
+        return false;
+    }
+
+    /**
+     * Drops any time-based pin on the current thread.
+     */
+    public static void clear() {
+        PINNED_UNTIL.remove();
+    }
+}
@@ -0,0 +1,28 @@
+package io.hephaistos.flagforge.common.datasource;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Pins the committing thread to the primary for {@code readYourWritesWindow} after every
+ * successful read-write transaction, so a follow-up read-only transaction does not hit a replica
+ * that has not replayed the write yet.
+ */
+public class ReadYourWritesTransactionListener implements TransactionExecutionListener {
+
+    private final Duration window;
+
+    public ReadYourWritesTransactionListener(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure == null && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            ReadYourWrites.pinFor(window);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.hephaistos.flagforge.common.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the replica connection pools and periodically samples their replay lag. Only replicas that
+ * answered the last probe within {@code maxLag} are offered to {@link ReplicaRoutingDataSource};
+ * until the first probe completes no replica is considered healthy, so reads start on the primary.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    /**
+     * Replay lag in seconds. A replica that is streaming from the primary and has replayed
+     * everything it received reports zero even when the primary has been idle for a while; a server
+     * that is not in recovery reports zero. Without a running WAL receiver the replica cannot know
+     * what it is missing, so the age of the last replayed transaction is reported instead, and a
+     * replica that has not replayed any transaction yet counts as infinitely behind. The receiver
+     * status is only visible with pg_read_all_stats; without it a running receiver is trusted.
+     */
+    static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN EXISTS (SELECT 1 FROM pg_stat_wal_receiver
+                             WHERE COALESCE(status, 'streaming') = 'streaming')
+                    AND pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()),
+                              'Infinity')
+            END""";
+
+    private static final int PROBE_TIMEOUT_SECONDS = 2;
+    private static final long CONNECTION_TIMEOUT_MILLIS = 2000;
+
+    private final Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-lag-monitor").daemon().factory());
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaLagMonitor(ReadReplicaProperties properties, String defaultUsername,
+            String defaultPassword) {
+        this.maxLag = properties.maxLag();
+        this.checkInterval = properties.lagCheckInterval();
+        for (int i = 0; i < properties.replicas().size(); i++) {
+            var replica = properties.replicas().get(i);
+            String key = "replica-" + i;
+            var config = new HikariConfig();
+            config.setPoolName(key);
+            config.setJdbcUrl(replica.url());
+            config.setUsername(replica.username() != null ? replica.username() : defaultUsername);
+            config.setPassword(replica.password() != null ? replica.password() : defaultPassword);
+            config.setReadOnly(true);
+            config.setConnectionTimeout(CONNECTION_TIMEOUT_MILLIS);
+            // Do not fail startup when a replica is down; the probe keeps it out of rotation
+            config.setInitializationFailTimeout(-1);
+            replicas.put(key, new HikariDataSource(config));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        LOGGER.info("Read replica routing enabled for {} replica(s), max lag {}", replicas.size(),
+                maxLag);
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replica data sources keyed by their routing key.
+     */
+    public Map<String, DataSource> replicas() {
+        return Collections.unmodifiableMap(replicas);
+    }
+
+    /**
+     * Routing keys of the replicas that passed the most recent lag probe.
+     */
+    public List<String> healthyReplicas() {
+        return healthyReplicas;
+    }
+
+    /**
+     * Probes every replica once and swaps in the new healthy set.
+     */
+    public void refresh() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        replicas.forEach((key, dataSource) -> {
+            try {
+                Duration lag = probe(dataSource);
+                if (lag.compareTo(maxLag) <= 0) {
+                    healthy.add(key);
+                }
+                else {
+                    LOGGER.warn("Replica {} is {} behind the primary - routing reads to primary",
+                            key, lag);
+                }
+            }
+            catch (SQLException e) {
+                LOGGER.warn("Replica {} lag probe failed - routing reads to primary: {}", key,
+                        e.getMessage());
+            }
+        });
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        replicas.values().forEach(HikariDataSource::close);
+    }
+
+    private static Duration probe(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(PROBE_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                return Duration.ofMillis(Math.round(resultSet.getDouble(1) * 1000));
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.hephaistos.flagforge.common.datasource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only side of the replica routing: round-robins over the replicas the
+ * {@link ReplicaLagMonitor} currently considers healthy and falls back to the primary when none
+ * are, or when the thread is pinned by {@link ReadYourWrites}.
+ * <p>
+ * Use {@link #wrap(DataSource, ReplicaLagMonitor)} rather than this class directly: the
+ * read-only flag of a transaction is only known once the transaction manager has called
+ * {@code setReadOnly(true)} on the connection, so the physical connection has to be fetched
+ * lazily.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor monitor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor monitor) {
+        this.monitor = monitor;
+        Map<Object, Object> targets = new HashMap<>(monitor.replicas());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Wraps the primary so that read-only transactions obtain their connection from a healthy
+     * replica while everything else keeps using the primary.
+     */
+    public static DataSource wrap(DataSource primary, ReplicaLagMonitor monitor) {
+        var proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, monitor));
+        return proxy;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReadYourWrites.isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        List<String> healthy = monitor.healthyReplicas();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+}
@@ -0,0 +1,250 @@
+package io.hephaistos.flagforge.common.redis;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.masterreplica.MasterReplica;
+import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A Redis deployment, either a single node or a Redis Cluster, behind one connection API. Code
+ * written against {@link RedisClusterCommands} runs unchanged on both: on a cluster, Lettuce routes
+ * every command to the node owning its key, splits multi-key commands like DEL by slot and runs
+ * SCAN over all primaries. Scripts and other commands taking several keys still need keys of one
+ * slot; see {@link RedisKeys}.
+ * <p>
+ * Commands issued through {@link Connection#async()} without waiting in between are written to the
+ * socket back to back and share round trips, so independent commands of a request should be sent
+ * before any of them is awaited.
+ * <p>
+ * Connections opened with a {@link ReadFrom} send read-only commands to replicas: on a cluster to
+ * the replicas of the slot's primary, on a single node to the replicas it reports, to the nodes
+ * listed in the URI, or to the replicas a Sentinel URI resolves to. Writes always go to the
+ * primary.
+ */
+public class RedisEndpoint {
+
+    /**
+     * Codec for binary keys built by {@link RedisKeys} and UTF-8 text values.
+     */
+    public static final RedisCodec<String, String> STRING_CODEC =
+            RedisCodec.of(new StringCodec(RedisKeys.KEY_CHARSET), StringCodec.UTF8);
+
+    /**
+     * Codec for binary keys built by {@link RedisKeys} and byte[] values.
+     */
+    public static final RedisCodec<String, byte[]> BINARY_CODEC =
+            RedisCodec.of(new StringCodec(RedisKeys.KEY_CHARSET), ByteArrayCodec.INSTANCE);
+
+    private static final Duration TOPOLOGY_REFRESH_PERIOD = Duration.ofSeconds(30);
+
+    private final AbstractRedisClient client;
+    /**
+     * Nodes to discover replicas from when connecting to a single node; empty if unknown
+     */
+    private final List<RedisURI> nodes;
+
+    protected RedisEndpoint(AbstractRedisClient client, List<RedisURI> nodes) {
+        this.client = client;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Creates the client for an endpoint.
+     *
+     * @param uri     Redis URI; for a cluster a comma-separated list of seed node URIs. A single
+     *                node may list its replicas after it, or be a {@code redis-sentinel://} URI.
+     * @param cluster Whether the URI points at a Redis Cluster
+     */
+    public static RedisEndpoint create(String uri, boolean cluster) {
+        // Sentinel URIs separate their sentinels by commas themselves
+        boolean sentinel = uri.startsWith(RedisURI.URI_SCHEME_REDIS_SENTINEL + ":") ||
+                uri.startsWith(RedisURI.URI_SCHEME_REDIS_SENTINEL_SECURE + ":");
+        List<RedisURI> seeds = sentinel ? List.of(RedisURI.create(uri)) :
+                Arrays.stream(uri.split(",")).map(String::trim).map(RedisURI::create).toList();
+        if (!cluster) {
+            return new RedisEndpoint(RedisClient.create(seeds.getFirst()), seeds);
+        }
+        RedisClusterClient clusterClient = RedisClusterClient.create(seeds);
+        // Follow failovers and resharding without waiting for a MOVED error on every command
+        clusterClient.setOptions(ClusterClientOptions.builder()
+                .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                        .enableAllAdaptiveRefreshTriggers()
+                        .enablePeriodicRefresh(TOPOLOGY_REFRESH_PERIOD)
+                        .build())
+                .build());
+        return cluster(clusterClient);
+    }
+
+    public static RedisEndpoint standalone(RedisClient client) {
+        return new RedisEndpoint(client, List.of());
+    }
+
+    public static RedisEndpoint cluster(RedisClusterClient client) {
+        return new RedisEndpoint(client, List.of());
+    }
+
+    public boolean isCluster() {
+        return client instanceof RedisClusterClient;
+    }
+
+    /**
+     * Opens a connection with {@link #STRING_CODEC}.
+     */
+    public Connection<String> connect() {
+        return connect(STRING_CODEC);
+    }
+
+    /**
+     * Opens a connection with String keys and values encoded by {@code codec}, usually
+     * {@link #STRING_CODEC} or {@link #BINARY_CODEC}.
+     */
+    public <V> Connection<V> connect(RedisCodec<String, V> codec) {
+        if (client instanceof RedisClusterClient clusterClient) {
+            var connection = clusterClient.connect(codec);
+            return new LettuceConnection<>(connection, connection.sync(), connection.async());
+        }
+        var connection = ((RedisClient) client).connect(codec);
+        return new LettuceConnection<>(connection, connection.sync(), connection.async());
+    }
+
+    /**
+     * Opens a connection whose synchronous commands give up after {@code commandTimeout}, for
+     * workloads on a request path that rather degrade than wait. Connections for blocking reads
+     * like XREAD BLOCK must not use it.
+     */
+    public <V> Connection<V> connect(RedisCodec<String, V> codec, Duration commandTimeout) {
+        Connection<V> connection = connect(codec);
+        connection.stateful().setTimeout(commandTimeout);
+        return connection;
+    }
+
+    /**
+     * Opens a connection that sends read-only commands to the nodes selected by {@code readFrom},
+     * which can be changed later through {@link Connection#setReadFrom(ReadFrom)}. Without known
+     * nodes of a single-node endpoint, everything goes to that node.
+     */
+    public <V> Connection<V> connect(RedisCodec<String, V> codec, ReadFrom readFrom,
+            Duration commandTimeout) {
+        if (client instanceof RedisClusterClient || nodes.isEmpty()) {
+            Connection<V> connection = connect(codec, commandTimeout);
+            connection.setReadFrom(readFrom);
+            return connection;
+        }
+        RedisClient redisClient = (RedisClient) client;
+        // A single node reports its replicas; a list of nodes is taken as the full topology
+        StatefulRedisMasterReplicaConnection<String, V> connection = nodes.size() == 1 ?
+                MasterReplica.connect(redisClient, codec, nodes.getFirst()) :
+                MasterReplica.connect(redisClient, codec, nodes);
+        connection.setTimeout(commandTimeout);
+        connection.setReadFrom(readFrom);
+        return new LettuceConnection<>(connection, connection.sync(), connection.async());
+    }
+
+    /**
+     * Waits at most {@code timeout} for an asynchronous command. A command that runs out of time
+     * is cancelled, so its reply is discarded when it arrives.
+     *
+     * @throws RedisCommandTimeoutException if the command did not complete in time
+     * @throws RedisException               if the command failed
+     */
+    public static <T> T await(CompletionStage<T> command, Duration timeout) {
+        CompletableFuture<T> future = command.toCompletableFuture();
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RedisCommandTimeoutException(
+                    "Command timed out after " + timeout.toMillis() + " ms");
+        }
+        catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause :
+                    new RedisException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisException(e);
+        }
+    }
+
+    public void shutdown() {
+        client.shutdown();
+    }
+
+    /**
+     * A connection to a single node or a cluster.
+     *
+     * @param <V> Value type
+     */
+    public interface Connection<V> extends AutoCloseable {
+
+        /**
+         * Synchronous commands of this connection.
+         */
+        RedisClusterCommands<String, V> sync();
+
+        /**
+         * Asynchronous commands of this connection, sharing its socket with {@link #sync()}.
+         */
+        RedisClusterAsyncCommands<String, V> async();
+
+        /**
+         * The underlying Lettuce connection, a {@code StatefulRedisConnection} or a
+         * {@code StatefulRedisClusterConnection}.
+         */
+        StatefulConnection<String, V> stateful();
+
+        /**
+         * Selects the nodes read-only commands go to. Has no effect on a connection to a single
+         * node that was not opened with a {@link ReadFrom}.
+         */
+        void setReadFrom(ReadFrom readFrom);
+
+        @Override
+        void close();
+    }
+
+    private record LettuceConnection<V>(StatefulConnection<String, V> stateful,
+                                        RedisClusterCommands<String, V> sync,
+                                        RedisClusterAsyncCommands<String, V> async)
+            implements Connection<V> {
+
+        @Override
+        public void setReadFrom(ReadFrom readFrom) {
+            if (stateful instanceof StatefulRedisClusterConnection<String, V> cluster) {
+                cluster.setReadFrom(readFrom);
+            }
+            else if (stateful instanceof StatefulRedisMasterReplicaConnection<String, V> replica) {
+                replica.setReadFrom(readFrom);
+            }
+        }
+
+        @Override
+        public void close() {
+            stateful.close();
+        }
+    }
+}
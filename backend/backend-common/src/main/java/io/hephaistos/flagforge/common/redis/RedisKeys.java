@@ -0,0 +1,194 @@
+package io.hephaistos.flagforge.common.redis;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Builds the Redis keys shared by customer-api and webapp-api. Keys are binary: they hold one byte
+ * per char and go over the wire in {@link #KEY_CHARSET} (see {@link RedisEndpoint#STRING_CODEC}),
+ * so a UUID takes its 16 bytes instead of 36 chars. Text from outside, like user identifiers,
+ * enters a key through {@link #text(String)} and keeps its UTF-8 bytes.
+ * <p>
+ * Per-environment keys start with {@link #MARKER} and a type tag, then the environment ID as hash
+ * tag, so on a Redis Cluster all keys of an environment live in the same slot and can be used
+ * together in one script. The hash tag holds the ID in URL-safe Base64, as raw bytes could contain
+ * a closing brace, which would end the tag early. Structures that are not per environment keep
+ * readable names with a fixed tag per group of keys that scripts touch together, e.g.
+ * {@code template:{invalidate}} and {@code template:{invalidate}:seq}.
+ * <p>
+ * Layouts, with {E} the environment tag, A an application ID and periods in ASCII digits:
+ * <pre>
+ * rate limit bucket   \1 r {E}
+ * key registry        \1 k {E}
+ * usage counter       \1 u kind {E} period      kind: m(onthly) d(aily) p(eak) r(ejected) s(econd)
+ * cached template     \1 t {E} A S|U identifier
+ * template variants   \1 t {E} A s|u identifier
+ * </pre>
+ */
+public final class RedisKeys {
+
+    /**
+     * Charset of keys: maps every char of a key to the byte of the same value.
+     */
+    public static final Charset KEY_CHARSET = StandardCharsets.ISO_8859_1;
+
+    /**
+     * First byte of every compact key; text keys never start with it.
+     */
+    public static final char MARKER = '\u0001';
+
+    public static final String USAGE_MONTHLY = "monthly";
+    public static final String USAGE_DAILY = "daily";
+    public static final String USAGE_PEAK = "peak";
+    public static final String USAGE_SECOND = "second";
+    public static final String USAGE_REJECTED = "rejected";
+
+    private static final String RATE_LIMIT_PREFIX = MARKER + "r";
+    private static final String REGISTRY_PREFIX = MARKER + "k";
+    private static final String USAGE_PREFIX = MARKER + "u";
+    private static final String TEMPLATE_CACHE_PREFIX = MARKER + "t";
+    private static final String ANY = "*";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Base64.Encoder TAG_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private RedisKeys() {
+    }
+
+    /**
+     * Token bucket of an environment.
+     */
+    public static String rateLimit(UUID environmentId) {
+        return RATE_LIMIT_PREFIX + tag(environmentId);
+    }
+
+    public static String usageMonthly(UUID environmentId, YearMonth month) {
+        return usage(USAGE_MONTHLY, environmentId, month.format(MONTH));
+    }
+
+    public static String usageDaily(UUID environmentId, LocalDate date) {
+        return usage(USAGE_DAILY, environmentId, date.format(DateTimeFormatter.BASIC_ISO_DATE));
+    }
+
+    public static String usagePeak(UUID environmentId, LocalDate date) {
+        return usage(USAGE_PEAK, environmentId, date.format(DateTimeFormatter.BASIC_ISO_DATE));
+    }
+
+    public static String usageRejected(UUID environmentId, LocalDate date) {
+        return usage(USAGE_REJECTED, environmentId,
+                date.format(DateTimeFormatter.BASIC_ISO_DATE));
+    }
+
+    public static String usageSecond(UUID environmentId, long epochSecond) {
+        return usage(USAGE_SECOND, environmentId, String.valueOf(epochSecond));
+    }
+
+    private static String usage(String kind, UUID environmentId, String period) {
+        return USAGE_PREFIX + kind.charAt(0) + tag(environmentId) + period;
+    }
+
+    /**
+     * Cached template response; a null identifier stands for the template defaults.
+     */
+    public static String templateCache(UUID environmentId, UUID applicationId, TemplateType type,
+            @Nullable String identifier) {
+        return TEMPLATE_CACHE_PREFIX + tag(environmentId) + raw(applicationId) + typeTag(type) +
+                (identifier != null ? text(identifier) : "");
+    }
+
+    /**
+     * Hash of the binary representations of a cached template response.
+     */
+    public static String templateVariants(UUID environmentId, UUID applicationId,
+            TemplateType type, @Nullable String identifier) {
+        return TEMPLATE_CACHE_PREFIX + tag(environmentId) + raw(applicationId) +
+                Character.toLowerCase(typeTag(type)) +
+                (identifier != null ? text(identifier) : "");
+    }
+
+    /**
+     * SCAN pattern matching cached template responses and their variants.
+     *
+     * @param environmentId Environment ID, or null for any environment
+     * @param identifier    Identifier, or null for any identifier including the defaults
+     */
+    public static String templateCachePattern(@Nullable UUID environmentId, UUID applicationId,
+            TemplateType type, @Nullable String identifier) {
+        char typeTag = typeTag(type);
+        return TEMPLATE_CACHE_PREFIX + (environmentId != null ? tag(environmentId) : "{*}") +
+                glob(raw(applicationId)) + "[" + typeTag + Character.toLowerCase(typeTag) + "]" +
+                (identifier != null ? glob(text(identifier)) : ANY);
+    }
+
+    /**
+     * Pattern matching every cached template response and variant.
+     */
+    public static String templateCacheAll() {
+        return TEMPLATE_CACHE_PREFIX + ANY;
+    }
+
+    /**
+     * Sorted set of the usage counters of an environment, scored by the epoch second they expire
+     * at, so deleting an environment does not need to scan the keyspace. Per-second counters
+     * expire within seconds and are not registered.
+     */
+    public static String environmentKeys(UUID environmentId) {
+        return REGISTRY_PREFIX + tag(environmentId);
+    }
+
+    /**
+     * Text as key chars: its UTF-8 bytes, one per char. Such a key has the same bytes as the
+     * text would have had in a UTF-8 key.
+     */
+    public static String text(String value) {
+        return new String(value.getBytes(StandardCharsets.UTF_8), KEY_CHARSET);
+    }
+
+    /**
+     * Hash tag placing a key in the slot of an environment.
+     */
+    private static String tag(UUID id) {
+        return "{" + TAG_ENCODER.encodeToString(bytes(id)) + "}";
+    }
+
+    private static String raw(UUID id) {
+        return new String(bytes(id), KEY_CHARSET);
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static char typeTag(TemplateType type) {
+        return switch (type) {
+            case SYSTEM -> 'S';
+            case USER -> 'U';
+        };
+    }
+
+    /**
+     * Escapes glob characters, so raw bytes only match themselves in a SCAN pattern.
+     */
+    private static String glob(String literal) {
+        StringBuilder escaped = new StringBuilder(literal.length() + 4);
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
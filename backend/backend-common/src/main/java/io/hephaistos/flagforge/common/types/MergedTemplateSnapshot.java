@@ -0,0 +1,21 @@
+package io.hephaistos.flagforge.common.types;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * A fully merged template as served to SDK clients. Serializes to the same JSON shape as the
+ * customer-api template responses, so documents rendered by webapp-api can be handed to clients
+ * as-is.
+ *
+ * @param type              The template type
+ * @param schema            The template schema definition
+ * @param values            The merged values (defaults + override if applied)
+ * @param appliedIdentifier The identifier whose override was applied, or null if none
+ */
+public record MergedTemplateSnapshot(TemplateType type, TemplateSchema schema,
+                                     Map<String, Object> values,
+                                     @Nullable String appliedIdentifier) {
+}
@@ -0,0 +1,94 @@
+package io.hephaistos.flagforge.common.cache;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class CacheInvalidationCoalescerTest {
+
+    private final UUID appId = UUID.randomUUID();
+    private final UUID envId = UUID.randomUUID();
+
+    @Test
+    void removesDuplicates() {
+        var event = override(TemplateType.SYSTEM, "region-eu");
+
+        var result = CacheInvalidationCoalescer.coalesce(List.of(event, event), 16);
+
+        assertThat(result).containsExactly(event);
+    }
+
+    @Test
+    void schemaChangeSubsumesOverridesOfSameType() {
+        var schema = new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE, appId, null,
+                TemplateType.SYSTEM, null);
+        var systemOverride = override(TemplateType.SYSTEM, "region-eu");
+        var userOverride = override(TemplateType.USER, "user-1");
+
+        var result = CacheInvalidationCoalescer.coalesce(
+                List.of(systemOverride, schema, userOverride), 16);
+
+        assertThat(result).containsExactly(schema, userOverride);
+    }
+
+    @Test
+    void environmentWildcardSubsumesIdentifiersAndUserChanges() {
+        var wildcard = override(TemplateType.USER, null);
+        var userChange = new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE, appId, envId,
+                TemplateType.USER, "user-1");
+
+        var result = CacheInvalidationCoalescer.coalesce(
+                List.of(override(TemplateType.USER, "user-2"), userChange, wildcard), 16);
+
+        assertThat(result).containsExactly(wildcard);
+    }
+
+    @Test
+    void keepsEventsOfOtherEnvironmentsAndApplications() {
+        var otherEnv = new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId,
+                UUID.randomUUID(), TemplateType.SYSTEM, "region-eu");
+        var otherApp = new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE,
+                UUID.randomUUID(), null, TemplateType.SYSTEM, null);
+        var wildcard = override(TemplateType.SYSTEM, null);
+
+        var result = CacheInvalidationCoalescer.coalesce(List.of(wildcard, otherEnv, otherApp), 16);
+
+        assertThat(result).containsExactly(wildcard, otherEnv, otherApp);
+    }
+
+    @Test
+    void collapsesCrowdedNamespaceIntoOneEvent() {
+        List<CacheInvalidationEvent> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(override(TemplateType.SYSTEM, "id-" + i));
+        }
+        var user = override(TemplateType.USER, "user-1");
+        events.add(user);
+
+        var result = CacheInvalidationCoalescer.coalesce(events, 16);
+
+        assertThat(result).containsExactly(override(TemplateType.SYSTEM, null), user);
+    }
+
+    @Test
+    void keepsIdentifiersUpToThreshold() {
+        var first = override(TemplateType.SYSTEM, "a");
+        var second = override(TemplateType.SYSTEM, "b");
+
+        var result = CacheInvalidationCoalescer.coalesce(List.of(first, second, first), 2);
+
+        assertThat(result).containsExactly(first, second);
+    }
+
+    private CacheInvalidationEvent override(TemplateType type, String identifier) {
+        return new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId, type,
+                identifier);
+    }
+}
@@ -0,0 +1,99 @@
+package io.hephaistos.flagforge.common.data;
+
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+class LazyJsonTest {
+
+    @Test
+    void rawJsonIsNotParsedUntilAccessed() {
+        var json = LazyJson.ofJson("{\"api_url\": \"https://eu.api.com\"}");
+
+        assertThat(json.isParsed()).isFalse();
+        assertThat(json.get(Map.class)).containsEntry("api_url", "https://eu.api.com");
+        assertThat(json.isParsed()).isTrue();
+    }
+
+    @Test
+    void equalityComparesBytes() {
+        var first = LazyJson.ofJson("{\"a\": 1}");
+        var second = LazyJson.ofBytes("{\"a\": 1}".getBytes());
+        var differentFormatting = LazyJson.ofJson("{\"a\":1}");
+
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(first).isNotEqualTo(differentFormatting);
+    }
+
+    @Test
+    void typeDirtyCheckUsesByteEquality() {
+        var type = new LazyJsonType();
+
+        assertThat(type.equals(LazyJson.ofJson("{}"), LazyJson.ofJson("{}"))).isTrue();
+        assertThat(type.equals(LazyJson.ofJson("{}"), LazyJson.ofJson("{\"a\":1}"))).isFalse();
+        assertThat(type.equals(null, null)).isTrue();
+        assertThat(type.equals(LazyJson.ofJson("{}"), null)).isFalse();
+    }
+
+    @Test
+    void roundTripsPolymorphicSchema() {
+        var schema = new TemplateSchema(
+                List.of(new StringTemplateField("api_url", "API URL", false, "https://x", 0, 255)));
+
+        var reloaded = LazyJson.ofBytes(LazyJson.of(schema).raw());
+
+        assertThat(reloaded.get(TemplateSchema.class)).isEqualTo(schema);
+    }
+
+    @Test
+    void entityExposesUnmodifiableValuesAndSharesRawCopies() {
+        var source = new TemplateValuesEntity();
+        source.setValues(Map.of("api_url", "https://eu.api.com"));
+
+        var target = new TemplateValuesEntity();
+        target.setRawValues(source.getRawValues());
+
+        assertThat(target.getValues()).isEqualTo(source.getValues());
+        assertThatThrownBy(() -> target.getValues().put("x", "y")).isInstanceOf(
+                UnsupportedOperationException.class);
+    }
+
+    @Test
+    void readingAsAnotherTypeParsesAgain() {
+        var json = LazyJson.of(new TemplateSchema(List.of(
+                new StringTemplateField("api_url", "API URL", false, "https://x", 0, 255))));
+
+        assertThat(json.get(Map.class)).containsKey("fields");
+        assertThat(json.get(TemplateSchema.class).fields()).hasSize(1);
+    }
+
+    @Test
+    void entityValuesAreUnmodifiableAllTheWayDown() {
+        Map<String, Object> nested = new HashMap<>(Map.of("region", "eu"));
+        List<Object> tags = new ArrayList<>(List.of("a"));
+        var entity = new UserTemplateValuesEntity();
+        entity.setValues(Map.of("nested", nested, "tags", tags));
+        nested.put("region", "us");
+
+        var reloaded = new UserTemplateValuesEntity();
+        reloaded.setRawValues(LazyJson.ofJson(entity.getRawValues().json()));
+
+        for (var values : List.of(entity.getValues(), reloaded.getValues())) {
+            assertThat(values.get("nested")).isEqualTo(Map.of("region", "eu"));
+            assertThatThrownBy(() -> ((Map<String, Object>) values.get("nested")).put("x", "y"))
+                    .isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> ((List<Object>) values.get("tags")).add("b")).isInstanceOf(
+                    UnsupportedOperationException.class);
+        }
+    }
+}
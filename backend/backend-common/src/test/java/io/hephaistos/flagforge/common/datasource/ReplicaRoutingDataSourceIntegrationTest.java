@@ -0,0 +1,151 @@
+package io.hephaistos.flagforge.common.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Uses two independent Postgres containers as "primary" and "replica". Each holds a marker row
+ * naming itself, so a query reveals which server a transaction was routed to.
+ */
+@Tag("integration")
+@Testcontainers
+class ReplicaRoutingDataSourceIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer PRIMARY =
+            new PostgreSQLContainer("postgres:18.1-alpine");
+
+    @Container
+    private static final PostgreSQLContainer REPLICA =
+            new PostgreSQLContainer("postgres:18.1-alpine");
+
+    private static HikariDataSource primaryDataSource;
+    private static ReplicaLagMonitor monitor;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate readWriteTransaction;
+    private static TransactionTemplate readOnlyTransaction;
+
+    @BeforeAll
+    static void setUp() {
+        primaryDataSource = dataSource(PRIMARY);
+        mark(primaryDataSource, "primary");
+        try (HikariDataSource replica = dataSource(REPLICA)) {
+            mark(replica, "replica");
+        }
+
+        monitor = new ReplicaLagMonitor(properties(REPLICA.getJdbcUrl()), REPLICA.getUsername(),
+                REPLICA.getPassword());
+        monitor.refresh();
+
+        DataSource routing = ReplicaRoutingDataSource.wrap(primaryDataSource, monitor);
+        var transactionManager = new DataSourceTransactionManager(routing);
+        transactionManager.addListener(new ReadYourWritesTransactionListener(Duration.ofMinutes(1)));
+        jdbcTemplate = new JdbcTemplate(routing);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        monitor.close();
+        primaryDataSource.close();
+    }
+
+    @AfterEach
+    void clearPin() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void readOnlyTransactionIsRoutedToReplica() {
+        assertThat(nodeOf(readOnlyTransaction)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionStaysOnPrimary() {
+        assertThat(nodeOf(readWriteTransaction)).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionAfterCommittedWriteReadsFromPrimary() {
+        readWriteTransaction.executeWithoutResult(
+                status -> jdbcTemplate.update("UPDATE node SET touched = touched + 1"));
+
+        assertThat(nodeOf(readOnlyTransaction)).isEqualTo("primary");
+    }
+
+    @Test
+    void explicitPinKeepsReadOnlyTransactionOnPrimary() {
+        String node = ReadYourWrites.onPrimary(
+                () -> readOnlyTransaction.execute(status -> currentNode()));
+
+        assertThat(node).isEqualTo("primary");
+        assertThat(nodeOf(readOnlyTransaction)).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplicaIsSkipped() {
+        String unreachableUrl = "jdbc:postgresql://localhost:1/none";
+        try (var unhealthy = new ReplicaLagMonitor(properties(unreachableUrl), "none", "none")) {
+            unhealthy.refresh();
+            assertThat(unhealthy.healthyReplicas()).isEmpty();
+
+            var transactionManager = new DataSourceTransactionManager(
+                    ReplicaRoutingDataSource.wrap(primaryDataSource, unhealthy));
+            var transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            var template = new JdbcTemplate(transactionManager.getDataSource());
+
+            String node = transaction.execute(
+                    status -> template.queryForObject("SELECT name FROM node", String.class));
+            assertThat(node).isEqualTo("primary");
+        }
+    }
+
+    private static @Nullable String nodeOf(TransactionTemplate transaction) {
+        return transaction.execute(status -> currentNode());
+    }
+
+    private static String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static ReadReplicaProperties properties(String replicaUrl) {
+        return new ReadReplicaProperties(true,
+                List.of(new ReadReplicaProperties.Replica(replicaUrl, null, null)),
+                Duration.ofSeconds(5), null, null);
+    }
+
+    private static HikariDataSource dataSource(PostgreSQLContainer container) {
+        var config = new HikariConfig();
+        config.setJdbcUrl(container.getJdbcUrl());
+        config.setUsername(container.getUsername());
+        config.setPassword(container.getPassword());
+        return new HikariDataSource(config);
+    }
+
+    private static void mark(DataSource dataSource, String name) {
+        var template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE node (name text NOT NULL, touched int NOT NULL DEFAULT 0)");
+        template.update("INSERT INTO node (name) VALUES (?)", name);
+    }
+}
@@ -0,0 +1,51 @@
+package io.hephaistos.flagforge.common.redis;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+class RedisEndpointTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+    @Test
+    void awaitReturnsCompletedValue() {
+        assertThat(RedisEndpoint.await(CompletableFuture.completedFuture(42L), TIMEOUT)).isEqualTo(
+                42L);
+    }
+
+    @Test
+    void awaitCancelsCommandThatRunsOutOfTime() {
+        var command = new CompletableFuture<Long>();
+
+        assertThatThrownBy(() -> RedisEndpoint.await(command, TIMEOUT)).isInstanceOf(
+                RedisCommandTimeoutException.class);
+        assertThat(command).isCancelled();
+    }
+
+    @Test
+    void awaitRethrowsCommandFailure() {
+        var error = new RedisCommandExecutionException("NOSCRIPT");
+
+        assertThatThrownBy(
+                () -> RedisEndpoint.await(CompletableFuture.failedFuture(error), TIMEOUT)).isSameAs(
+                error);
+    }
+
+    @Test
+    void awaitWrapsCheckedFailure() {
+        var error = new Exception("connection reset");
+
+        assertThatThrownBy(() -> RedisEndpoint.await(CompletableFuture.failedFuture(error),
+                TIMEOUT)).isInstanceOf(RedisException.class).hasCause(error);
+    }
+}
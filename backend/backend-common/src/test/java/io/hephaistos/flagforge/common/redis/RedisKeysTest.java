@@ -0,0 +1,101 @@
+package io.hephaistos.flagforge.common.redis;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class RedisKeysTest {
+
+    private final UUID envId = UUID.randomUUID();
+    private final UUID appId = UUID.randomUUID();
+
+    @Test
+    void keysOfOneEnvironmentShareASlot() {
+        LocalDate today = LocalDate.of(2026, 10, 19);
+        int slot = slot(RedisKeys.rateLimit(envId));
+
+        assertThat(slot(RedisKeys.usageMonthly(envId, YearMonth.of(2026, 10)))).isEqualTo(slot);
+        assertThat(slot(RedisKeys.usageDaily(envId, today))).isEqualTo(slot);
+        assertThat(slot(RedisKeys.usagePeak(envId, today))).isEqualTo(slot);
+        assertThat(slot(RedisKeys.usageRejected(envId, today))).isEqualTo(slot);
+        assertThat(slot(RedisKeys.usageSecond(envId, 1_760_000_000L))).isEqualTo(slot);
+        assertThat(slot(RedisKeys.templateCache(envId, appId, TemplateType.USER, "user-1")))
+                .isEqualTo(slot);
+        assertThat(slot(RedisKeys.templateVariants(envId, appId, TemplateType.USER, "user-1")))
+                .isEqualTo(slot);
+        assertThat(slot(RedisKeys.environmentKeys(envId))).isEqualTo(slot);
+    }
+
+    @Test
+    void invalidationStreamSharesSlotWithItsSequence() {
+        assertThat(SlotHash.getSlot(CacheInvalidationEvent.STREAM)).isEqualTo(
+                SlotHash.getSlot(CacheInvalidationEvent.SEQUENCE_KEY));
+    }
+
+    @Test
+    void buildsCompactKeyFormats() {
+        String tag = "{" + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes(envId)) +
+                "}";
+
+        assertThat(RedisKeys.rateLimit(envId)).isEqualTo("\u0001r" + tag);
+        assertThat(RedisKeys.usageMonthly(envId, YearMonth.of(2026, 10))).isEqualTo(
+                "\u0001um" + tag + "202610");
+        assertThat(RedisKeys.usageDaily(envId, LocalDate.of(2026, 10, 19))).isEqualTo(
+                "\u0001ud" + tag + "20261019");
+        assertThat(RedisKeys.templateCache(envId, appId, TemplateType.SYSTEM, null)).isEqualTo(
+                "\u0001t" + tag + new String(bytes(appId), RedisKeys.KEY_CHARSET) + "S");
+        assertThat(RedisKeys.templateCache(envId, appId, TemplateType.SYSTEM, null)).hasSize(
+                2 + tag.length() + 16 + 1);
+    }
+
+    @Test
+    void variantsDifferFromTheirEntryOnlyInTheTypeTag() {
+        String entry = RedisKeys.templateCache(envId, appId, TemplateType.USER, "user-1");
+        String variants = RedisKeys.templateVariants(envId, appId, TemplateType.USER, "user-1");
+
+        assertThat(variants).hasSameSizeAs(entry).isNotEqualTo(entry);
+        assertThat(variants.toUpperCase(Locale.ROOT)).isEqualTo(
+                entry.toUpperCase(Locale.ROOT));
+    }
+
+    @Test
+    void textKeepsItsUtf8Bytes() {
+        String key = RedisKeys.text("usér-1");
+
+        assertThat(key.getBytes(RedisKeys.KEY_CHARSET)).isEqualTo(
+                "usér-1".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void patternEscapesGlobCharactersOfIdentifiers() {
+        assertThat(RedisKeys.templateCachePattern(envId, appId, TemplateType.USER, "a*b?[c]"))
+                .endsWith("[Uu]a\\*b\\?\\[c\\]");
+        assertThat(RedisKeys.templateCachePattern(null, appId, TemplateType.SYSTEM, null))
+                .startsWith("\u0001t{*}").endsWith("[Ss]*");
+        assertThat(RedisKeys.templateCacheAll()).isEqualTo("\u0001t*");
+    }
+
+    private static int slot(String key) {
+        return SlotHash.getSlot(key.getBytes(RedisKeys.KEY_CHARSET));
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
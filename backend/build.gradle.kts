@@ -27,6 +27,10 @@ subprojects {
             implementation("org.springframework.boot:spring-boot-starter-webmvc:4.0.0")
             implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:3.0.0")
 
+            // Declared without version by backend-common; needed by consumers without its BOM
+            implementation("org.springframework.security:spring-security-core:7.0.0")
+            implementation("jakarta.validation:jakarta.validation-api:3.1.1")
+
             implementation("io.jsonwebtoken:jjwt-api:0.13.0")
             implementation("io.jsonwebtoken:jjwt-impl:0.13.0")
             implementation("io.jsonwebtoken:jjwt-jackson:0.13.0")
@@ -36,9 +40,16 @@ subprojects {
             implementation("com.bucket4j:bucket4j-redis:8.10.1")
             implementation("io.lettuce:lettuce-core:6.5.2.RELEASE")
 
+            // Binary template encodings for customer-api
+            implementation("tools.jackson.dataformat:jackson-dataformat-cbor:3.0.2")
+            implementation("tools.jackson.dataformat:jackson-dataformat-smile:3.0.2")
+            implementation("com.google.protobuf:protobuf-java:4.31.1")
+
             implementation("org.springframework.boot:spring-boot-starter-flyway:4.0.0")
             implementation("org.springframework.boot:spring-boot-starter-mail:4.0.0")
+            implementation("org.springframework.boot:spring-boot-starter-actuator:4.0.0")
             implementation("org.flywaydb:flyway-database-postgresql:10.20.1")
+            implementation("org.postgresql:postgresql:42.7.4")
             runtimeOnly("org.postgresql:postgresql:42.7.4")
 
             // Stripe payment integration
@@ -64,7 +75,7 @@ subprojects {
 
     tasks.named<Test>("test") {
         useJUnitPlatform {
-            excludeTags("architecture")
+            excludeTags("architecture", "benchmark")
         }
     }
 
@@ -78,6 +89,17 @@ subprojects {
         }
     }
 
+    tasks.register<Test>("benchmarkTest") {
+        description = "Run micro-benchmarks (prints results, not part of the default build)"
+        group = "verification"
+        testClassesDirs = sourceSets["test"].output.classesDirs
+        classpath = sourceSets["test"].runtimeClasspath
+        testLogging.showStandardStreams = true
+        useJUnitPlatform {
+            includeTags("benchmark")
+        }
+    }
+
     tasks.register<Test>("integrationTest") {
         description = "Run integration tests (requires testcontainers)"
         group = "verification"
@@ -9,14 +9,20 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-webmvc")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
 
     // Rate limiting with Redis
     implementation("com.bucket4j:bucket4j-core")
     implementation("com.bucket4j:bucket4j-redis")
     implementation("io.lettuce:lettuce-core")
 
-    // Database
-    runtimeOnly("org.postgresql:postgresql")
+    // Binary response encodings (negotiated via Accept)
+    implementation("tools.jackson.dataformat:jackson-dataformat-cbor")
+    implementation("tools.jackson.dataformat:jackson-dataformat-smile")
+    implementation("com.google.protobuf:protobuf-java")
+
+    // Database (compile scope for LISTEN/NOTIFY invalidations)
+    implementation("org.postgresql:postgresql")
 
     // Testing
     testImplementation("org.springframework.boot:spring-boot-starter-test")
@@ -1,89 +1,350 @@
 package io.hephaistos.flagforge.customerapi.cache;
 
+import io.hephaistos.flagforge.common.cache.CacheInvalidationCoalescer;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
 import io.hephaistos.flagforge.customerapi.service.TemplateCacheService;
-import io.lettuce.core.RedisClient;
-import io.lettuce.core.pubsub.RedisPubSubAdapter;
-import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Subscribes to Redis pub/sub channel for cache invalidation messages. When a message is received,
- * it delegates to TemplateCacheService to invalidate matching cache entries.
+ * Reads cache invalidation messages from the Redis invalidation stream and delegates them to
+ * TemplateCacheService. The cache lives in Redis and is shared by all instances, so each entry is
+ * applied once: only the instance holding the reader lease ({@code template:{invalidate}:reader})
+ * reads the stream, and the others stand by to take over. The id and sequence number of the last
+ * applied entry are recorded in {@code template:{invalidate}:applied}, and the reader reads on from
+ * there, so entries published while no instance was reading are replayed. A sequence number that
+ * does not follow the last applied one means entries were trimmed before they were read; since
+ * their content is lost, the whole template cache is flushed.
+ * <p>
+ * Entries are applied in batches on a dedicated worker thread. Each batch is deduplicated and
+ * coalesced first, so e.g. a SCHEMA_CHANGE subsumes the OVERRIDE_CHANGEs of the same application
+ * and template type read with it, and a flush makes the rest of its batch unnecessary. The worker
+ * reports how many published entries it has not applied yet and how old the last applied entry was
+ * when it was applied.
+ * <p>
+ * The lease expires unless renewed, so a reader that stalls or dies is replaced. The position only
+ * moves in the same script that renews the lease, so a reader that lost it cannot move the
+ * position back; at worst a batch is applied twice, which deleting cache entries tolerates. The
+ * position is read again whenever an instance takes over the lease.
  */
 @Component
-@ConditionalOnProperty(name = "flagforge.cache.enabled", havingValue = "true",
-        matchIfMissing = true)
+@ConditionalOnExpression("${flagforge.cache.enabled:true} and " +
+        "'${flagforge.cache.invalidation-transport:redis}' == 'redis'")
 public class CacheInvalidationSubscriber {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheInvalidationSubscriber.class);
 
-    private final RedisClient redisClient;
+    static final String APPLIED_KEY = "template:{invalidate}:applied";
+    static final String APPLIED_ID = "id";
+    static final String APPLIED_SEQUENCE = "seq";
+    static final String LEASE_KEY = "template:{invalidate}:reader";
+    private static final Duration LEASE_TTL = Duration.ofSeconds(30);
+    private static final String STREAM_START = "0-0";
+    private static final long UNKNOWN_SEQUENCE = -1;
+    private static final Duration ERROR_BACKOFF = Duration.ofSeconds(1);
+
+    private static final String RENEW_LEASE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """;
+
+    /**
+     * Records the applied position and renews the lease, only while the caller still holds it.
+     * Lease and position share the {@code {invalidate}} hash tag, so this also runs on a Redis
+     * Cluster.
+     */
+    static final String ADVANCE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('HSET', KEYS[2], 'id', ARGV[2], 'seq', ARGV[3])
+                redis.call('PEXPIRE', KEYS[1], ARGV[4])
+                return 1
+            end
+            return 0
+            """;
+
+    private static final String RELEASE_LEASE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private final RedisEndpoint redisEndpoint;
     private final TemplateCacheService cacheService;
     private final JsonMapper jsonMapper;
+    private final CacheProperties properties;
+    private final Counter receivedCounter;
+    private final Counter appliedCounter;
+    private final String instanceId = UUID.randomUUID().toString();
 
-    private StatefulRedisPubSubConnection<String, String> pubSubConnection;
+    private RedisEndpoint.Connection<String> connection;
+    private RedisClusterCommands<String, String> commands;
+    private volatile boolean reading;
+    private String lastId = STREAM_START;
+    private long lastSequence = UNKNOWN_SEQUENCE;
+    private volatile long backlog;
+    private volatile long lagMillis;
+    private Thread worker;
+    private volatile boolean running;
 
-    public CacheInvalidationSubscriber(RedisClient redisClient, TemplateCacheService cacheService,
-            JsonMapper jsonMapper) {
-        this.redisClient = redisClient;
+    public CacheInvalidationSubscriber(@Qualifier("cacheRedisEndpoint") RedisEndpoint redisEndpoint,
+            TemplateCacheService cacheService, JsonMapper jsonMapper, CacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.redisEndpoint = redisEndpoint;
         this.cacheService = cacheService;
         this.jsonMapper = jsonMapper;
+        this.properties = properties;
+        this.receivedCounter = Counter.builder("flagforge.cache.invalidation.events")
+                .tag("outcome", "received")
+                .description("Invalidation stream entries read")
+                .register(meterRegistry);
+        this.appliedCounter = Counter.builder("flagforge.cache.invalidation.events")
+                .tag("outcome", "applied")
+                .description("Invalidations applied after coalescing")
+                .register(meterRegistry);
+        Gauge.builder("flagforge.cache.invalidation.backlog", this, s -> s.backlog)
+                .description("Published invalidations not applied yet")
+                .register(meterRegistry);
+        TimeGauge.builder("flagforge.cache.invalidation.lag", this, TimeUnit.MILLISECONDS,
+                        s -> s.lagMillis)
+                .description("Age of the last applied invalidation when it was applied")
+                .register(meterRegistry);
     }
 
     @PostConstruct
     public void subscribe() {
-        try {
-            pubSubConnection = redisClient.connectPubSub();
-
-            pubSubConnection.addListener(new RedisPubSubAdapter<>() {
-                @Override
-                public void message(String channel, String message) {
-                    handleMessage(channel, message);
-                }
-            });
+        running = true;
+        worker = Thread.ofPlatform().name("cache-invalidation-reader").daemon().start(this::run);
+    }
 
-            pubSubConnection.sync().subscribe(CacheInvalidationEvent.CHANNEL);
-            LOGGER.info("Subscribed to cache invalidation channel: {}",
-                    CacheInvalidationEvent.CHANNEL);
-        }
-        catch (Exception e) {
-            LOGGER.error("Failed to subscribe to cache invalidation channel: {}", e.getMessage());
-            // Fail-open: cache invalidation via pub/sub won't work, but TTL-based expiry
-            // will eventually clear stale entries
+    @PreDestroy
+    public void unsubscribe() throws InterruptedException {
+        running = false;
+        // The worker wakes up at the latest when its blocking read times out
+        worker.join(properties.invalidationPollTimeout().plus(ERROR_BACKOFF).toMillis());
+        if (connection != null) {
+            if (reading) {
+                releaseLease();
+                LOGGER.info("Stopped reading cache invalidation stream at {}", lastId);
+            }
+            connection.close();
         }
     }
 
-    @PreDestroy
-    public void unsubscribe() {
-        if (pubSubConnection != null) {
+    private void run() {
+        while (running) {
             try {
-                pubSubConnection.sync().unsubscribe(CacheInvalidationEvent.CHANNEL);
-                pubSubConnection.close();
-                LOGGER.info("Unsubscribed from cache invalidation channel");
+                pollOnce();
+                if (!reading) {
+                    // Another instance reads the stream; check again whether it still does
+                    Thread.sleep(properties.invalidationPollTimeout());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
             catch (Exception e) {
-                LOGGER.warn("Error during unsubscribe: {}", e.getMessage());
+                // Fail-open: Lettuce reconnects in the background and the next poll replays
+                // everything after the last applied entry
+                LOGGER.warn("Reading cache invalidation stream failed, retrying: {}",
+                        e.getMessage());
+                try {
+                    Thread.sleep(ERROR_BACKOFF);
+                }
+                catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
         }
     }
 
-    private void handleMessage(String channel, String message) {
+    /**
+     * Applies the entries following the last applied one, waiting for new entries if there are
+     * none. Does nothing while another instance holds the reader lease.
+     *
+     * @return Number of stream entries applied
+     */
+    int pollOnce() {
+        if (commands == null) {
+            connect();
+        }
+        if (!holdsLease()) {
+            lagMillis = 0;
+            updateBacklog();
+            return 0;
+        }
+        List<StreamMessage<String, String>> messages = commands.xread(
+                XReadArgs.Builder.count(properties.invalidationBatchSize())
+                        .block(properties.invalidationPollTimeout().toMillis()),
+                XReadArgs.StreamOffset.from(CacheInvalidationEvent.STREAM, lastId));
+        if (messages == null || messages.isEmpty()) {
+            // Caught up with the stream
+            lagMillis = 0;
+            updateBacklog();
+            return 0;
+        }
+
+        applyBatch(messages);
+        Long advanced = commands.eval(ADVANCE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{LEASE_KEY, APPLIED_KEY}, instanceId, lastId,
+                String.valueOf(lastSequence), String.valueOf(LEASE_TTL.toMillis()));
+        if (advanced == null || advanced != 1L) {
+            // Another instance took over and reads on from the position it found
+            LOGGER.info("Lost cache invalidation reader lease at {}", lastId);
+            reading = false;
+        }
+        lagMillis = System.currentTimeMillis() - publishedAt(lastId);
+        updateBacklog();
+        return messages.size();
+    }
+
+    private void connect() {
+        connection = redisEndpoint.connect();
+        commands = connection.sync();
+    }
+
+    /**
+     * Takes or renews the reader lease. Taking it over loads the position the previous reader
+     * recorded.
+     */
+    private boolean holdsLease() {
+        if ("OK".equals(commands.set(LEASE_KEY, instanceId,
+                SetArgs.Builder.nx().px(LEASE_TTL.toMillis())))) {
+            loadPosition();
+            reading = true;
+            return true;
+        }
+        Long renewed = commands.eval(RENEW_LEASE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{LEASE_KEY}, instanceId, String.valueOf(LEASE_TTL.toMillis()));
+        reading = renewed != null && renewed == 1L;
+        return reading;
+    }
+
+    private void loadPosition() {
+        Map<String, String> applied = commands.hgetall(APPLIED_KEY);
+        if (applied.containsKey(APPLIED_ID)) {
+            lastId = applied.get(APPLIED_ID);
+            lastSequence = parseSequence(applied.get(APPLIED_SEQUENCE));
+        }
+        else {
+            lastId = STREAM_START;
+            lastSequence = UNKNOWN_SEQUENCE;
+        }
+        LOGGER.info("Reading cache invalidation stream {} from {}", CacheInvalidationEvent.STREAM,
+                lastId);
+    }
+
+    private void releaseLease() {
         try {
+            commands.eval(RELEASE_LEASE_SCRIPT, ScriptOutputType.INTEGER,
+                    new String[]{LEASE_KEY}, instanceId);
+        }
+        catch (Exception e) {
+            LOGGER.debug("Could not release cache invalidation reader lease: {}",
+                    e.getMessage());
+        }
+    }
+
+    private void applyBatch(List<StreamMessage<String, String>> messages) {
+        boolean gap = false;
+        List<CacheInvalidationEvent> events = new ArrayList<>(messages.size());
+        for (StreamMessage<String, String> message : messages) {
+            long sequence =
+                    parseSequence(message.getBody().get(CacheInvalidationEvent.FIELD_SEQUENCE));
+            if (lastSequence != UNKNOWN_SEQUENCE && sequence != UNKNOWN_SEQUENCE &&
+                    sequence != lastSequence + 1) {
+                LOGGER.warn("Gap in cache invalidation stream: expected #{}, got #{}; " +
+                        "flushing cache", lastSequence + 1, sequence);
+                gap = true;
+            }
             CacheInvalidationEvent event =
-                    jsonMapper.readValue(message, CacheInvalidationEvent.class);
-            LOGGER.debug("Received cache invalidation: channel={}, event={}", channel, event);
+                    readEvent(message.getBody().get(CacheInvalidationEvent.FIELD_EVENT));
+            if (event != null) {
+                events.add(event);
+            }
+            lastId = message.getId();
+            lastSequence = sequence;
+        }
+        receivedCounter.increment(messages.size());
+
+        if (gap) {
+            // Everything read so far changed before the flush, so the flush covers it too
+            cacheService.invalidateAll();
+            return;
+        }
+        // Never widen identifiers to a namespace here: an exact DEL is cheaper than a SCAN
+        List<CacheInvalidationEvent> coalesced =
+                CacheInvalidationCoalescer.coalesce(events, Integer.MAX_VALUE);
+        for (CacheInvalidationEvent event : coalesced) {
+            LOGGER.debug("Applying cache invalidation: event={}", event);
             cacheService.invalidate(event);
         }
+        appliedCounter.increment(coalesced.size());
+    }
+
+    private @Nullable CacheInvalidationEvent readEvent(String message) {
+        try {
+            return jsonMapper.readValue(message, CacheInvalidationEvent.class);
+        }
         catch (Exception e) {
             LOGGER.warn("Failed to process cache invalidation message: {} - {}", message,
                     e.getMessage());
+            return null;
+        }
+    }
+
+    private void updateBacklog() {
+        String published = commands.get(CacheInvalidationEvent.SEQUENCE_KEY);
+        long publishedSequence = parseSequence(published);
+        // Instances standing by report the backlog of the reader
+        long appliedSequence = reading ? lastSequence :
+                parseSequence(commands.hget(APPLIED_KEY, APPLIED_SEQUENCE));
+        backlog = publishedSequence == UNKNOWN_SEQUENCE || appliedSequence == UNKNOWN_SEQUENCE ?
+                0 : Math.max(0, publishedSequence - appliedSequence);
+    }
+
+    /**
+     * Stream ids start with the Redis server time the entry was added at.
+     */
+    private static long publishedAt(String streamId) {
+        return Long.parseLong(streamId.substring(0, streamId.indexOf('-')));
+    }
+
+    private static long parseSequence(String sequence) {
+        try {
+            return Long.parseLong(sequence);
+        }
+        catch (NumberFormatException e) {
+            return UNKNOWN_SEQUENCE;
         }
     }
 }
@@ -0,0 +1,184 @@
+package io.hephaistos.flagforge.customerapi.cache;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationCoalescer;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
+import io.hephaistos.flagforge.customerapi.service.TemplateCacheService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives cache invalidations sent by webapp-api with Postgres NOTIFY, for deployments that do not
+ * use the Redis invalidation stream. Holds one connection that LISTENs on
+ * {@link CacheInvalidationEvent#NOTIFY_CHANNEL} and applies each batch of notifications
+ * deduplicated and coalesced. The connection is opened directly from the datasource settings,
+ * outside the pool: a listening connection is held for the lifetime of the instance and would
+ * otherwise take a request connection away for good.
+ * <p>
+ * Postgres does not keep notifications for disconnected listeners. After the connection was lost
+ * the whole template cache is flushed, since any invalidation in between may have been missed. A
+ * starting instance does not flush; invalidations sent while no instance was listening expire with
+ * the cache TTL.
+ */
+@Component
+@ConditionalOnExpression("${flagforge.cache.enabled:true} and " +
+        "'${flagforge.cache.invalidation-transport:redis}' == 'postgres'")
+public class PostgresInvalidationListener {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(PostgresInvalidationListener.class);
+
+    private static final Duration ERROR_BACKOFF = Duration.ofSeconds(1);
+
+    private final DataSource listenerDataSource;
+    private final TemplateCacheService cacheService;
+    private final JsonMapper jsonMapper;
+    private final CacheProperties properties;
+
+    private Connection connection;
+    private boolean connectionLost;
+    private Thread worker;
+    private volatile boolean running;
+
+    @Autowired
+    public PostgresInvalidationListener(JdbcConnectionDetails connectionDetails,
+            TemplateCacheService cacheService, JsonMapper jsonMapper, CacheProperties properties) {
+        this(new DriverManagerDataSource(connectionDetails.getJdbcUrl(),
+                connectionDetails.getUsername(), connectionDetails.getPassword()), cacheService,
+                jsonMapper, properties);
+    }
+
+    /**
+     * @param listenerDataSource Opens a new physical connection on every call
+     */
+    PostgresInvalidationListener(DataSource listenerDataSource, TemplateCacheService cacheService,
+            JsonMapper jsonMapper, CacheProperties properties) {
+        this.listenerDataSource = listenerDataSource;
+        this.cacheService = cacheService;
+        this.jsonMapper = jsonMapper;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("cache-invalidation-listener").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // The worker wakes up at the latest when its wait for notifications times out
+        worker.join(properties.invalidationPollTimeout().plus(ERROR_BACKOFF).toMillis());
+        closeConnection();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                pollOnce();
+            }
+            catch (SQLException e) {
+                LOGGER.warn("Listening for cache invalidations failed, reconnecting: {}",
+                        e.getMessage());
+                closeConnection();
+                connectionLost = true;
+                try {
+                    Thread.sleep(ERROR_BACKOFF);
+                }
+                catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the notifications received since the last call, waiting for some if there are none.
+     *
+     * @return Number of notifications received
+     */
+    int pollOnce() throws SQLException {
+        if (connection == null) {
+            listen();
+        }
+        PGNotification[] notifications = connection.unwrap(PGConnection.class)
+                .getNotifications((int) properties.invalidationPollTimeout().toMillis());
+        if (notifications == null || notifications.length == 0) {
+            return 0;
+        }
+
+        List<CacheInvalidationEvent> events = new ArrayList<>(notifications.length);
+        for (PGNotification notification : notifications) {
+            try {
+                events.add(jsonMapper.readValue(notification.getParameter(),
+                        CacheInvalidationEvent.class));
+            }
+            catch (Exception e) {
+                LOGGER.warn("Failed to process cache invalidation notification: {} - {}",
+                        notification.getParameter(), e.getMessage());
+            }
+        }
+        // Never widen identifiers to a namespace here: an exact DEL is cheaper than a SCAN
+        for (CacheInvalidationEvent event : CacheInvalidationCoalescer.coalesce(events,
+                Integer.MAX_VALUE)) {
+            LOGGER.debug("Applying cache invalidation: event={}", event);
+            cacheService.invalidate(event);
+        }
+        return notifications.length;
+    }
+
+    private void listen() throws SQLException {
+        Connection newConnection = listenerDataSource.getConnection();
+        try (Statement statement = newConnection.createStatement()) {
+            newConnection.setAutoCommit(true);
+            statement.execute("LISTEN " + CacheInvalidationEvent.NOTIFY_CHANNEL);
+        }
+        catch (SQLException e) {
+            newConnection.close();
+            throw e;
+        }
+        connection = newConnection;
+        LOGGER.info("Listening for cache invalidations on channel {}",
+                CacheInvalidationEvent.NOTIFY_CHANNEL);
+
+        if (connectionLost) {
+            cacheService.invalidateAll();
+            connectionLost = false;
+        }
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        // Closing ends the session, and with it the LISTEN
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            LOGGER.debug("Error closing cache invalidation listener connection: {}",
+                    e.getMessage());
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,166 @@
+package io.hephaistos.flagforge.customerapi.cache;
+
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
+import io.hephaistos.flagforge.customerapi.configuration.CacheRedisConfiguration;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SetArgs;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends cache reads back to the primary while replicas lag. The monitor writes a heartbeat to the
+ * primary several times per {@link CacheProperties#replicaMaxLag()} and reads it back through a
+ * connection with the configured read preference. The oldest heartbeat the replica has not seen
+ * yet bounds its lag; once that exceeds the limit, or the replica cannot be read, the cache read
+ * connections switch to the primary until the replica has caught up again.
+ * <p>
+ * Each instance uses its own heartbeat key, so clocks of different instances are never compared.
+ * On a Redis Cluster the heartbeats live in one slot and only measure the replicas of that slot.
+ */
+@Component
+@ConditionalOnExpression("${flagforge.cache.enabled:true} and " +
+        "!'${flagforge.cache.read-from:primary}'.equalsIgnoreCase('primary')")
+public class RedisReplicaLagMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisReplicaLagMonitor.class);
+
+    static final String HEARTBEAT_KEY_PREFIX = "template:{replica-heartbeat}:";
+    private static final Duration MIN_INTERVAL = Duration.ofMillis(50);
+
+    private final RedisEndpoint redisEndpoint;
+    private final List<RedisEndpoint.Connection<?>> readConnections;
+    private final CacheProperties properties;
+    private final ReadFrom readFrom;
+    private final String heartbeatKey = HEARTBEAT_KEY_PREFIX + UUID.randomUUID();
+    private final Duration interval;
+    /**
+     * Recently written heartbeats, oldest first
+     */
+    private final Deque<Long> written = new ArrayDeque<>();
+
+    private RedisEndpoint.Connection<String> probe;
+    private volatile long lagMillis;
+    private volatile boolean fallback;
+    private Thread worker;
+    private volatile boolean running;
+
+    public RedisReplicaLagMonitor(@Qualifier("cacheRedisEndpoint") RedisEndpoint redisEndpoint,
+            @Qualifier("cacheReadRedisConnection") RedisEndpoint.Connection<String> readConnection,
+            @Qualifier("cacheBinaryReadRedisConnection")
+            RedisEndpoint.Connection<byte[]> binaryReadConnection, CacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.redisEndpoint = redisEndpoint;
+        this.readConnections = List.of(readConnection, binaryReadConnection);
+        this.properties = properties;
+        this.readFrom = CacheRedisConfiguration.readFrom(properties.readFrom());
+        Duration quarter = properties.replicaMaxLag().dividedBy(4);
+        this.interval = quarter.compareTo(MIN_INTERVAL) > 0 ? quarter : MIN_INTERVAL;
+        TimeGauge.builder("flagforge.cache.replica.lag", this, TimeUnit.MILLISECONDS,
+                        m -> m.lagMillis)
+                .description("Age of the oldest heartbeat the cache read replica has not seen")
+                .register(meterRegistry);
+        Gauge.builder("flagforge.cache.replica.fallback", this, m -> m.fallback ? 1 : 0)
+                .description("1 while cache reads go to the primary because replicas lag")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        probe = CacheRedisConfiguration.connectForReads(redisEndpoint, RedisEndpoint.STRING_CODEC,
+                properties);
+        running = true;
+        worker = Thread.ofPlatform().name("cache-replica-lag-monitor").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(interval.toMillis());
+        probe.close();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                checkOnce(probe);
+            }
+            catch (Exception e) {
+                LOGGER.warn("Could not read replica heartbeat: {}", e.getMessage());
+                fallBack(true);
+            }
+            try {
+                Thread.sleep(interval);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the heartbeat from the replica, writes the next one to the primary and switches the
+     * read connections if the replica crossed the lag limit.
+     */
+    void checkOnce(RedisEndpoint.Connection<String> connection) {
+        var commands = connection.sync();
+        long now = System.currentTimeMillis();
+        String seen = commands.get(heartbeatKey);
+        long seenAt = seen != null ? Long.parseLong(seen) : 0;
+        while (!written.isEmpty() && written.peekFirst() <= seenAt) {
+            written.removeFirst();
+        }
+        lagMillis = written.isEmpty() ? 0 : now - written.peekFirst();
+
+        commands.set(heartbeatKey, String.valueOf(now),
+                SetArgs.Builder.px(properties.replicaMaxLag().multipliedBy(10)));
+        written.addLast(now);
+        // A replica missing even the oldest kept heartbeat is past the limit anyway
+        long kept = properties.replicaMaxLag().toMillis() / interval.toMillis() + 2;
+        while (written.size() > kept) {
+            written.removeFirst();
+        }
+
+        fallBack(lagMillis > properties.replicaMaxLag().toMillis());
+    }
+
+    private void fallBack(boolean lagging) {
+        if (lagging == fallback) {
+            return;
+        }
+        fallback = lagging;
+        ReadFrom target = lagging ? ReadFrom.UPSTREAM : readFrom;
+        readConnections.forEach(connection -> connection.setReadFrom(target));
+        if (lagging) {
+            LOGGER.warn("Cache read replica lags {} ms, reading from the primary", lagMillis);
+        }
+        else {
+            LOGGER.info("Cache read replica caught up, reading from replicas again");
+        }
+    }
+
+    long lagMillis() {
+        return lagMillis;
+    }
+
+    boolean fallback() {
+        return fallback;
+    }
+}
@@ -2,17 +2,63 @@ package io.hephaistos.flagforge.customerapi.configuration;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * Configuration properties for template caching.
  *
- * @param enabled    Whether caching is enabled (default: true)
- * @param ttlSeconds TTL for cache entries in seconds (default: 300 = 5 minutes)
+ * @param enabled                 Whether caching is enabled (default: true)
+ * @param ttlSeconds              TTL for cache entries in seconds (default: 300 = 5 minutes)
+ * @param invalidationBatchSize   Invalidation stream entries read per poll (default: 100)
+ * @param invalidationPollTimeout How long a poll of the invalidation stream blocks waiting for new
+ *                                entries (default: 1s)
+ * @param redisUri                Redis holding the template cache, the invalidation stream and the
+ *                                write-behind queue; for a cluster a comma-separated list of seed
+ *                                node URIs (default: redis://localhost:6379)
+ * @param redisCluster            Whether {@code redisUri} points at a Redis Cluster (default:
+ *                                false)
+ * @param commandTimeout          How long a request waits for a cache read or write before
+ *                                treating it as a miss (default: 100ms)
+ * @param readFrom                Which nodes serve cache reads (default: PRIMARY). Writes,
+ *                                invalidation and rate limiting always use the primary.
+ * @param replicaMaxLag           How far replicas may fall behind before cache reads go back to
+ *                                the primary until they caught up (default: 1s)
  */
 @ConfigurationProperties(prefix = "flagforge.cache")
-public record CacheProperties(boolean enabled, int ttlSeconds) {
+public record CacheProperties(boolean enabled, int ttlSeconds, int invalidationBatchSize,
+                              Duration invalidationPollTimeout, String redisUri,
+                              boolean redisCluster, Duration commandTimeout,
+                              ReadPreference readFrom, Duration replicaMaxLag) {
     public CacheProperties {
         if (ttlSeconds <= 0) {
             ttlSeconds = 300;
         }
+        if (invalidationBatchSize <= 0) {
+            invalidationBatchSize = 100;
+        }
+        if (invalidationPollTimeout == null || invalidationPollTimeout.isZero() ||
+                invalidationPollTimeout.isNegative()) {
+            invalidationPollTimeout = Duration.ofSeconds(1);
+        }
+        if (redisUri == null || redisUri.isBlank()) {
+            redisUri = "redis://localhost:6379";
+        }
+        if (commandTimeout == null || commandTimeout.isZero() || commandTimeout.isNegative()) {
+            commandTimeout = Duration.ofMillis(100);
+        }
+        if (readFrom == null) {
+            readFrom = ReadPreference.PRIMARY;
+        }
+        if (replicaMaxLag == null || replicaMaxLag.isZero() || replicaMaxLag.isNegative()) {
+            replicaMaxLag = Duration.ofSeconds(1);
+        }
+    }
+
+    public enum ReadPreference {
+        PRIMARY,
+        /**
+         * A replica, or the primary if no replica is available
+         */
+        REPLICA_PREFERRED
     }
 }
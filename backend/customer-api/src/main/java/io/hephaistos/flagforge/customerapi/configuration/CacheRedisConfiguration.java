@@ -0,0 +1,96 @@
+package io.hephaistos.flagforge.customerapi.configuration;
+
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties.ReadPreference;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.codec.RedisCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Redis configuration for template caching, cache invalidation and user write-behind. Active when
+ * caching or write-behind is enabled. The cache connections are on the request path and time out
+ * after {@link CacheProperties#commandTimeout()}; invalidation and write-behind open their own
+ * connections for their blocking stream reads. Cache reads have connections of their own, which
+ * read from replicas if {@link CacheProperties#readFrom()} says so.
+ */
+@Configuration
+@ConditionalOnExpression("${flagforge.cache.enabled:true} or " +
+        "${flagforge.write-behind.enabled:false}")
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheRedisConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheRedisConfiguration.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public RedisEndpoint cacheRedisEndpoint(CacheProperties properties) {
+        LOGGER.info("Creating template cache Redis client with URI: {} (cluster: {})",
+                properties.redisUri(), properties.redisCluster());
+        return RedisEndpoint.create(properties.redisUri(), properties.redisCluster());
+    }
+
+    /**
+     * Connection for template caching (uses String values for JSON).
+     */
+    @Bean(name = "cacheRedisConnection", destroyMethod = "close")
+    public RedisEndpoint.Connection<String> cacheRedisConnection(
+            @Qualifier("cacheRedisEndpoint") RedisEndpoint endpoint, CacheProperties properties) {
+        LOGGER.info("Establishing Redis connection for template caching (String codec)");
+        return endpoint.connect(RedisEndpoint.STRING_CODEC, properties.commandTimeout());
+    }
+
+    /**
+     * Connection for cached binary representations of templates (byte[] values).
+     */
+    @Bean(name = "cacheBinaryRedisConnection", destroyMethod = "close")
+    public RedisEndpoint.Connection<byte[]> cacheBinaryRedisConnection(
+            @Qualifier("cacheRedisEndpoint") RedisEndpoint endpoint, CacheProperties properties) {
+        LOGGER.info("Establishing Redis connection for template variants (byte[] codec)");
+        return endpoint.connect(RedisEndpoint.BINARY_CODEC,
+                properties.commandTimeout());
+    }
+
+    /**
+     * Connection for cache reads of JSON entries.
+     */
+    @Bean(name = "cacheReadRedisConnection", destroyMethod = "close")
+    public RedisEndpoint.Connection<String> cacheReadRedisConnection(
+            @Qualifier("cacheRedisEndpoint") RedisEndpoint endpoint, CacheProperties properties) {
+        LOGGER.info("Establishing Redis connection for template cache reads (from: {})",
+                properties.readFrom());
+        return connectForReads(endpoint, RedisEndpoint.STRING_CODEC, properties);
+    }
+
+    /**
+     * Connection for cache reads of binary representations.
+     */
+    @Bean(name = "cacheBinaryReadRedisConnection", destroyMethod = "close")
+    public RedisEndpoint.Connection<byte[]> cacheBinaryReadRedisConnection(
+            @Qualifier("cacheRedisEndpoint") RedisEndpoint endpoint, CacheProperties properties) {
+        LOGGER.info("Establishing Redis connection for template variant reads (from: {})",
+                properties.readFrom());
+        return connectForReads(endpoint,
+                RedisEndpoint.BINARY_CODEC, properties);
+    }
+
+    public static <V> RedisEndpoint.Connection<V> connectForReads(RedisEndpoint endpoint,
+            RedisCodec<String, V> codec, CacheProperties properties) {
+        if (properties.readFrom() == ReadPreference.PRIMARY) {
+            return endpoint.connect(codec, properties.commandTimeout());
+        }
+        return endpoint.connect(codec, readFrom(properties.readFrom()),
+                properties.commandTimeout());
+    }
+
+    public static ReadFrom readFrom(ReadPreference preference) {
+        return switch (preference) {
+            case PRIMARY -> ReadFrom.UPSTREAM;
+            case REPLICA_PREFERRED -> ReadFrom.REPLICA_PREFERRED;
+        };
+    }
+}
@@ -2,18 +2,28 @@ package io.hephaistos.flagforge.customerapi.configuration;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * Configuration properties for rate limiting.
  *
- * @param enabled  Whether rate limiting is enabled (default: true)
- * @param redisUri Redis connection URI (default: redis://localhost:6379)
- * @param failOpen If true, allow requests when Redis is unavailable (default: true)
+ * @param enabled        Whether rate limiting is enabled (default: true)
+ * @param redisUri       Redis connection URI; for a cluster a comma-separated list of seed node
+ *                       URIs (default: redis://localhost:6379)
+ * @param redisCluster   Whether {@code redisUri} points at a Redis Cluster (default: false)
+ * @param failOpen       If true, allow requests when Redis is unavailable (default: true)
+ * @param commandTimeout How long a request waits for the rate limit check or the usage counters
+ *                       before failing open or failing (default: 100ms)
  */
 @ConfigurationProperties(prefix = "flagforge.rate-limit")
-public record RateLimitProperties(boolean enabled, String redisUri, boolean failOpen) {
+public record RateLimitProperties(boolean enabled, String redisUri, boolean redisCluster,
+                                  boolean failOpen, Duration commandTimeout) {
     public RateLimitProperties {
         if (redisUri == null || redisUri.isBlank()) {
             redisUri = "redis://localhost:6379";
         }
+        if (commandTimeout == null || commandTimeout.isZero() || commandTimeout.isNegative()) {
+            commandTimeout = Duration.ofMillis(100);
+        }
     }
 }
@@ -1,13 +1,14 @@
 package io.hephaistos.flagforge.customerapi.configuration;
 
-import io.lettuce.core.RedisClient;
-import io.lettuce.core.RedisURI;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
 import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.codec.ByteArrayCodec;
-import io.lettuce.core.codec.RedisCodec;
-import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -15,7 +16,10 @@ import org.springframework.context.annotation.Configuration;
 
 /**
  * Redis configuration for rate limiting using Lettuce client. Only active when rate limiting is
- * enabled.
+ * enabled. The endpoint is configured separately from the template cache's
+ * ({@link CacheRedisConfiguration}), so rate limiting can use its own Redis or Redis Cluster.
+ * Both connections are on the request path and give up after
+ * {@link RateLimitProperties#commandTimeout()}.
  */
 @Configuration
 @ConditionalOnProperty(name = "flagforge.rate-limit.enabled", havingValue = "true",
@@ -26,36 +30,54 @@ public class RedisConfiguration {
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisConfiguration.class);
 
     @Bean(destroyMethod = "shutdown")
-    public RedisClient redisClient(RateLimitProperties properties) {
-        LOGGER.info("Creating Redis client with URI: {}", properties.redisUri());
-        return RedisClient.create(RedisURI.create(properties.redisUri()));
+    public RedisEndpoint rateLimitRedisEndpoint(RateLimitProperties properties) {
+        LOGGER.info("Creating rate limit Redis client with URI: {} (cluster: {})",
+                properties.redisUri(), properties.redisCluster());
+        return RedisEndpoint.create(properties.redisUri(), properties.redisCluster());
     }
 
     /**
      * Connection for bucket4j rate limiting (requires byte[] values).
      */
     @Bean(name = "rateLimitRedisConnection", destroyMethod = "close")
-    public StatefulRedisConnection<String, byte[]> rateLimitRedisConnection(
-            RedisClient redisClient) {
+    public RedisEndpoint.Connection<byte[]> rateLimitRedisConnection(
+            @Qualifier("rateLimitRedisEndpoint") RedisEndpoint endpoint,
+            RateLimitProperties properties) {
         LOGGER.info("Establishing Redis connection for rate limiting (byte[] codec)");
-        return redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        return endpoint.connect(RedisEndpoint.BINARY_CODEC,
+                properties.commandTimeout());
     }
 
     /**
-     * Connection for usage tracking (uses String values).
+     * Token buckets of bucket4j, stored through the rate limiting connection. bucket4j issues its
+     * commands asynchronously and waits for them with its own request timeout.
      */
-    @Bean(name = "usageRedisConnection", destroyMethod = "close")
-    public StatefulRedisConnection<String, String> usageRedisConnection(RedisClient redisClient) {
-        LOGGER.info("Establishing Redis connection for usage tracking (String codec)");
-        return redisClient.connect();
+    @Bean
+    public ProxyManager<String> rateLimitProxyManager(
+            @Qualifier("rateLimitRedisConnection") RedisEndpoint.Connection<byte[]> connection,
+            RateLimitProperties properties) {
+        var clientSideConfig =
+                ClientSideConfig.getDefault().withRequestTimeout(properties.commandTimeout());
+        var stateful = connection.stateful();
+        if (stateful instanceof StatefulRedisClusterConnection<String, byte[]> cluster) {
+            return LettuceBasedProxyManager.builderFor(cluster)
+                    .withClientSideConfig(clientSideConfig)
+                    .build();
+        }
+        return LettuceBasedProxyManager.builderFor(
+                        (StatefulRedisConnection<String, byte[]>) stateful)
+                .withClientSideConfig(clientSideConfig)
+                .build();
     }
 
     /**
-     * Connection for template caching (uses String values for JSON).
+     * Connection for usage tracking (uses String values).
      */
-    @Bean(name = "cacheRedisConnection", destroyMethod = "close")
-    public StatefulRedisConnection<String, String> cacheRedisConnection(RedisClient redisClient) {
-        LOGGER.info("Establishing Redis connection for template caching (String codec)");
-        return redisClient.connect();
+    @Bean(name = "usageRedisConnection", destroyMethod = "close")
+    public RedisEndpoint.Connection<String> usageRedisConnection(
+            @Qualifier("rateLimitRedisEndpoint") RedisEndpoint endpoint,
+            RateLimitProperties properties) {
+        LOGGER.info("Establishing Redis connection for usage tracking (String codec)");
+        return endpoint.connect(RedisEndpoint.STRING_CODEC, properties.commandTimeout());
     }
 }
@@ -0,0 +1,18 @@
+package io.hephaistos.flagforge.customerapi.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for precompressed template responses.
+ *
+ * @param enabled      Whether gzip representations are stored and served (default: false)
+ * @param minSizeBytes Smallest encoded payload worth compressing (default: 1024)
+ */
+@ConfigurationProperties(prefix = "flagforge.response-compression")
+public record ResponseCompressionProperties(boolean enabled, int minSizeBytes) {
+    public ResponseCompressionProperties {
+        if (minSizeBytes <= 0) {
+            minSizeBytes = 1024;
+        }
+    }
+}
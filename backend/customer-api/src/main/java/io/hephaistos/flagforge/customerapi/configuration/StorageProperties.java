@@ -0,0 +1,35 @@
+package io.hephaistos.flagforge.customerapi.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for how user overrides are stored.
+ *
+ * @param userValuesFormat Format of newly written user overrides (default: JSON). Rows are read in
+ *                         whichever format they were written in, so the setting can be changed at
+ *                         any time.
+ * @param deduplicateUserValues Whether newly written user overrides are stored once per distinct
+ *                              document in {@code user_override_payload} and referenced by hash
+ *                              (default: false). Like the format, rows are read however they were
+ *                              written.
+ */
+@ConfigurationProperties(prefix = "flagforge.storage")
+public record StorageProperties(UserValuesFormat userValuesFormat, boolean deduplicateUserValues) {
+    public StorageProperties {
+        if (userValuesFormat == null) {
+            userValuesFormat = UserValuesFormat.JSON;
+        }
+    }
+
+    public enum UserValuesFormat {
+        /**
+         * JSONB document in {@code values}
+         */
+        JSON,
+        /**
+         * Ordinal-keyed binary encoding in {@code values_bin}; falls back to JSON for values it
+         * cannot encode
+         */
+        BINARY
+    }
+}
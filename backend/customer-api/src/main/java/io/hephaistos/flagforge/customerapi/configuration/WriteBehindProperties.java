@@ -0,0 +1,26 @@
+package io.hephaistos.flagforge.customerapi.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for write-behind of USER override writes.
+ *
+ * @param enabled       Whether unconditional user writes are queued instead of written
+ *                      synchronously (default: false)
+ * @param batchSize     Maximum queued writes read per flush (default: 500)
+ * @param flushInterval How long the flusher waits for new writes before flushing what it has
+ *                      (default: 250ms)
+ */
+@ConfigurationProperties(prefix = "flagforge.write-behind")
+public record WriteBehindProperties(boolean enabled, int batchSize, Duration flushInterval) {
+    public WriteBehindProperties {
+        if (batchSize <= 0) {
+            batchSize = 500;
+        }
+        if (flushInterval == null || flushInterval.isZero() || flushInterval.isNegative()) {
+            flushInterval = Duration.ofMillis(250);
+        }
+    }
+}
@@ -2,8 +2,12 @@ package io.hephaistos.flagforge.customerapi.controller;
 
 import io.hephaistos.flagforge.customerapi.exception.ApiKeyExpiredException;
 import io.hephaistos.flagforge.customerapi.exception.InvalidApiKeyException;
+import io.hephaistos.flagforge.customerapi.exception.InvalidImportException;
 import io.hephaistos.flagforge.customerapi.exception.NotFoundException;
+import io.hephaistos.flagforge.customerapi.exception.PreconditionFailedException;
 import io.hephaistos.flagforge.customerapi.exception.RateLimitExceededException;
+import io.hephaistos.flagforge.customerapi.exception.WriteBehindUnavailableException;
+import io.hephaistos.flagforge.customerapi.exception.WritePendingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -32,6 +36,13 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("INVALID_API_KEY", "Invalid or missing API key"));
     }
 
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidImport(InvalidImportException ex) {
+        LOGGER.info("Invalid import: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("INVALID_IMPORT", ex.getMessage()));
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<ErrorResponse> handleNotFound(NotFoundException ex) {
         LOGGER.info("Resource not found: {}", ex.getMessage());
@@ -39,6 +50,13 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("NOT_FOUND", ex.getMessage()));
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex) {
+        LOGGER.info("Precondition failed: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(new ErrorResponse("PRECONDITION_FAILED", ex.getMessage()));
+    }
+
     @ExceptionHandler(RateLimitExceededException.class)
     public ResponseEntity<ErrorResponse> handleRateLimitExceeded(RateLimitExceededException ex) {
         LOGGER.warn("Rate limit exceeded: {}", ex.getMessage());
@@ -47,6 +65,23 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("RATE_LIMIT_EXCEEDED", ex.getMessage()));
     }
 
+    @ExceptionHandler(WritePendingException.class)
+    public ResponseEntity<ErrorResponse> handleWritePending(WritePendingException ex) {
+        LOGGER.info("Write pending: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Retry-After", "1")
+                .body(new ErrorResponse("WRITE_PENDING", ex.getMessage()));
+    }
+
+    @ExceptionHandler(WriteBehindUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleWriteBehindUnavailable(
+            WriteBehindUnavailableException ex) {
+        LOGGER.warn("Write-behind unavailable: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(new ErrorResponse("WRITE_BEHIND_UNAVAILABLE", ex.getMessage()));
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
         LOGGER.warn("Access denied: {}", ex.getMessage());
@@ -1,25 +1,45 @@
 package io.hephaistos.flagforge.customerapi.controller;
 
+import io.hephaistos.flagforge.customerapi.controller.dto.EnvironmentSnapshotResponse;
 import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.customerapi.encoding.EncodedTemplate;
+import io.hephaistos.flagforge.customerapi.encoding.GzipCompression;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateProjection;
+import io.hephaistos.flagforge.customerapi.exception.PreconditionFailedException;
 import io.hephaistos.flagforge.customerapi.security.ApiKeySecurityContext;
+import io.hephaistos.flagforge.customerapi.service.TemplateRepresentationService;
 import io.hephaistos.flagforge.customerapi.service.TemplateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 
+import static io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding.CBOR_VALUE;
+import static io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding.PROTOBUF_VALUE;
+import static io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding.SMILE_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RestController
@@ -28,51 +48,204 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @SecurityRequirement(name = "apiKey")
 public class TemplateController {
 
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     private final TemplateService templateService;
+    private final TemplateRepresentationService representationService;
 
-    public TemplateController(TemplateService templateService) {
+    public TemplateController(TemplateService templateService,
+            TemplateRepresentationService representationService) {
         this.templateService = templateService;
+        this.representationService = representationService;
     }
 
     @Operation(summary = "Get merged SYSTEM template values",
-            description = "Returns merged template values starting with schema defaults, " + "then applying the identifier override if provided. " + "Application and environment are determined from the API key.")
-    @GetMapping(value = "/system", produces = APPLICATION_JSON_VALUE)
-    @ResponseStatus(HttpStatus.OK)
-    public MergedTemplateValuesResponse getSystemTemplateValues(
+            description = "Returns merged template values starting with schema defaults, " + "then applying the identifier override if provided. " + "Application and environment are determined from the API key. " + "Send Accept: application/cbor, application/x-jackson-smile or " + "application/x-protobuf for a compact binary encoding. " + "Use fields and includeSchema to return only part of the response.")
+    @ApiResponse(responseCode = "200", content = {@Content(mediaType = APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = MergedTemplateValuesResponse.class)),
+            @Content(mediaType = CBOR_VALUE), @Content(mediaType = SMILE_VALUE),
+            @Content(mediaType = PROTOBUF_VALUE)})
+    @GetMapping(value = "/system",
+            produces = {APPLICATION_JSON_VALUE, CBOR_VALUE, SMILE_VALUE, PROTOBUF_VALUE})
+    public ResponseEntity<?> getSystemTemplateValues(
             @Parameter(description = "Identifier to apply override for")
-            @RequestParam(required = false) String identifier) {
+            @RequestParam(required = false) String identifier,
+            @Parameter(description = "Comma-separated field keys to return (default: all)")
+            @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Whether to include the template schema")
+            @RequestParam(defaultValue = "true") boolean includeSchema,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            String accept,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
 
         var securityContext = ApiKeySecurityContext.getCurrent();
+        var encoding = TemplateEncoding.fromAcceptHeader(accept).orElse(TemplateEncoding.JSON);
+        var projection = TemplateProjection.of(fields, includeSchema);
+        boolean acceptsGzip = GzipCompression.isAccepted(acceptEncoding);
 
-        return templateService.getMergedSystemValues(securityContext.getApplicationId(),
-                securityContext.getEnvironmentId(), identifier);
+        if (encoding == TemplateEncoding.JSON && projection.isFull() && !acceptsGzip) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .body(templateService.getMergedSystemValues(securityContext.getApplicationId(),
+                            securityContext.getEnvironmentId(), identifier));
+        }
+        return toResponse(encoding,
+                representationService.getSystemValues(securityContext.getApplicationId(),
+                        securityContext.getEnvironmentId(), identifier, encoding, projection,
+                        acceptsGzip));
     }
 
     @Operation(summary = "Get merged USER template values for a specific user",
-            description = "Returns merged template values applying 3-layer merge: " + "schema defaults → environment defaults → user-specific overrides. " + "Application and environment are determined from the API key.")
-    @GetMapping(value = "/user/{userId}", produces = APPLICATION_JSON_VALUE)
-    @ResponseStatus(HttpStatus.OK)
-    public MergedTemplateValuesResponse getUserTemplateValues(
-            @Parameter(description = "User identifier") @PathVariable String userId) {
+            description = "Returns merged template values applying 3-layer merge: " + "schema defaults → environment defaults → user-specific overrides. " + "Application and environment are determined from the API key. " + "Supports the same binary encodings and projections as the SYSTEM endpoint.")
+    @ApiResponse(responseCode = "200", content = {@Content(mediaType = APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = MergedTemplateValuesResponse.class)),
+            @Content(mediaType = CBOR_VALUE), @Content(mediaType = SMILE_VALUE),
+            @Content(mediaType = PROTOBUF_VALUE)})
+    @GetMapping(value = "/user/{userId}",
+            produces = {APPLICATION_JSON_VALUE, CBOR_VALUE, SMILE_VALUE, PROTOBUF_VALUE})
+    public ResponseEntity<?> getUserTemplateValues(
+            @Parameter(description = "User identifier") @PathVariable String userId,
+            @Parameter(description = "Comma-separated field keys to return (default: all)")
+            @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Whether to include the template schema")
+            @RequestParam(defaultValue = "true") boolean includeSchema,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            String accept,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+
+        var securityContext = ApiKeySecurityContext.getCurrent();
+        var encoding = TemplateEncoding.fromAcceptHeader(accept).orElse(TemplateEncoding.JSON);
+        var projection = TemplateProjection.of(fields, includeSchema);
+        boolean acceptsGzip = GzipCompression.isAccepted(acceptEncoding);
 
+        if (encoding == TemplateEncoding.JSON && projection.isFull() && !acceptsGzip) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .body(templateService.getMergedUserValues(securityContext.getApplicationId(),
+                            securityContext.getEnvironmentId(), userId));
+        }
+        return toResponse(encoding,
+                representationService.getUserValues(securityContext.getApplicationId(),
+                        securityContext.getEnvironmentId(), userId, encoding, projection,
+                        acceptsGzip));
+    }
+
+    @Operation(summary = "Get an unmerged snapshot of the environment's template data",
+            description = "Returns both template schemas, all SYSTEM overrides and the USER " + "environment defaults so relay proxies can serve reads from memory. " + "Per-user overrides are not included.")
+    @GetMapping(value = "/snapshot", produces = APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public EnvironmentSnapshotResponse getEnvironmentSnapshot() {
         var securityContext = ApiKeySecurityContext.getCurrent();
 
-        return templateService.getMergedUserValues(securityContext.getApplicationId(),
-                securityContext.getEnvironmentId(), userId);
+        return templateService.getEnvironmentSnapshot(securityContext.getApplicationId(),
+                securityContext.getEnvironmentId());
     }
 
     @Operation(summary = "Set USER template overrides for a specific user",
-            description = "Creates or updates user-specific override values. " + "Requires a WRITE API key. " + "Application and environment are determined from the API key.")
+            description = "Creates or updates user-specific override values. " + "Requires a WRITE API key. " + "Application and environment are determined from the API key. " + "The ETag carries the override version; send it back in If-Match to only " + "write when nobody else changed the overrides in between. With write-behind enabled, " + "writes without If-Match are queued and acknowledged with 202.")
+    @ApiResponse(responseCode = "200", description = "Values stored (or already up to date)")
+    @ApiResponse(responseCode = "202", description = "Values queued; reads already return them")
+    @ApiResponse(responseCode = "409",
+            description = "A queued write for the user is not stored yet; retry later")
+    @ApiResponse(responseCode = "412",
+            description = "If-Match does not match the stored version, or is * and the user " +
+                    "has no overrides")
     @PostMapping(value = "/user/{userId}", consumes = APPLICATION_JSON_VALUE)
-    @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasRole('WRITE')")
-    public void setUserTemplateValues(
+    public ResponseEntity<Void> setUserTemplateValues(
+            @Parameter(description = "User identifier") @PathVariable String userId,
+            @RequestBody Map<String, Object> values,
+            @Parameter(description = "ETag of the overrides this write is based on")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Nullable String ifMatch) {
+
+        var securityContext = ApiKeySecurityContext.getCurrent();
+
+        // Conditional writes need the stored version and always go straight to the database
+        if (ifMatch == null &&
+                templateService.queueUserValues(securityContext.getApplicationId(),
+                        securityContext.getEnvironmentId(), userId, values)) {
+            return ResponseEntity.accepted().build();
+        }
+
+        var result = templateService.setUserValues(securityContext.getApplicationId(),
+                securityContext.getEnvironmentId(), userId, values, parseVersion(ifMatch));
+
+        return ResponseEntity.ok().eTag(String.valueOf(result.version())).build();
+    }
+
+    @Operation(summary = "Partially update USER template overrides for a specific user",
+            description = "Applies a JSON Merge Patch (RFC 7396) to the user's overrides: keys " + "set to null are removed, all other keys are replaced. Returns the merged view " + "after the update. Requires a WRITE API key. Honours If-Match like the POST endpoint.")
+    @ApiResponse(responseCode = "200", description = "Patch applied (or already applied)",
+            content = @Content(mediaType = APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = MergedTemplateValuesResponse.class)))
+    @ApiResponse(responseCode = "412",
+            description = "If-Match does not match the stored version, or is * and the user " +
+                    "has no overrides")
+    @PatchMapping(value = "/user/{userId}", consumes = {MERGE_PATCH_JSON_VALUE,
+            APPLICATION_JSON_VALUE}, produces = APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('WRITE')")
+    public ResponseEntity<MergedTemplateValuesResponse> patchUserTemplateValues(
             @Parameter(description = "User identifier") @PathVariable String userId,
-            @RequestBody Map<String, Object> values) {
+            @RequestBody Map<String, @Nullable Object> patch,
+            @Parameter(description = "ETag of the overrides this patch is based on")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Nullable String ifMatch) {
 
         var securityContext = ApiKeySecurityContext.getCurrent();
 
-        templateService.setUserValues(securityContext.getApplicationId(),
-                securityContext.getEnvironmentId(), userId, values);
+        var patched = templateService.patchUserValues(securityContext.getApplicationId(),
+                securityContext.getEnvironmentId(), userId, patch, parseVersion(ifMatch));
+
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(patched.result().version()))
+                .body(patched.merged());
+    }
+
+    /**
+     * Parses an If-Match header carrying a single version ETag. An absent header means an
+     * unconditional write, {@code *} that the user must have stored overrides (RFC 9110); anything
+     * that is not one of our ETags can never match.
+     */
+    private static @Nullable Long parseVersion(@Nullable String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return TemplateService.ANY_VERSION;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            long version = Long.parseLong(tag);
+            if (version >= 0) {
+                return version;
+            }
+        }
+        catch (NumberFormatException e) {
+            // Not one of our ETags
+        }
+        throw new PreconditionFailedException("Unknown ETag in If-Match: " + ifMatch);
+    }
+
+    private ResponseEntity<byte[]> toResponse(TemplateEncoding encoding, EncodedTemplate encoded) {
+        var response = ResponseEntity.ok()
+                .contentType(encoding.mediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (encoded.gzipped()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GzipCompression.CONTENT_CODING);
+        }
+        return response.body(encoded.body());
     }
 }
@@ -0,0 +1,71 @@
+package io.hephaistos.flagforge.customerapi.controller;
+
+import io.hephaistos.flagforge.customerapi.controller.dto.BulkImportResponse;
+import io.hephaistos.flagforge.customerapi.encoding.BulkFormat;
+import io.hephaistos.flagforge.customerapi.security.ApiKeySecurityContext;
+import io.hephaistos.flagforge.customerapi.service.UserValuesBulkService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+import static io.hephaistos.flagforge.customerapi.encoding.BulkFormat.CSV_VALUE;
+import static io.hephaistos.flagforge.customerapi.encoding.BulkFormat.NDJSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RestController
+@RequestMapping("/v1/api/templates/users")
+@Tag(name = "templates", description = "Template values API for SDK clients")
+@SecurityRequirement(name = "apiKey")
+public class UserValuesBulkController {
+
+    private final UserValuesBulkService bulkService;
+
+    public UserValuesBulkController(UserValuesBulkService bulkService) {
+        this.bulkService = bulkService;
+    }
+
+    @Operation(summary = "Bulk import USER template overrides",
+            description = "Streams NDJSON ({\"userId\": ..., \"values\": {...}} per line) or CSV " + "(header with user_id or user_uuid and values) into the environment of the API key. " + "Records whose values are already stored are skipped. Requires a WRITE API key.")
+    @PostMapping(value = "/import", consumes = {NDJSON_VALUE, CSV_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('WRITE')")
+    public BulkImportResponse importUserValues(HttpServletRequest request) throws IOException {
+        var securityContext = ApiKeySecurityContext.getCurrent();
+
+        return bulkService.importValues(securityContext.getApplicationId(),
+                securityContext.getEnvironmentId(),
+                BulkFormat.fromContentType(request.getContentType()), request.getInputStream());
+    }
+
+    @Operation(summary = "Bulk export USER template overrides",
+            description = "Streams every user's overrides in the environment of the API key as " + "NDJSON (default) or CSV (Accept: text/csv). Users are identified by their hashed " + "userUuid; the output can be re-imported unchanged. Requires a WRITE API key.")
+    @GetMapping(value = "/export", produces = {NDJSON_VALUE, CSV_VALUE})
+    @PreAuthorize("hasRole('WRITE')")
+    public void exportUserValues(
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            String accept, HttpServletResponse response) throws IOException {
+        var securityContext = ApiKeySecurityContext.getCurrent();
+        var format = BulkFormat.fromAcceptHeader(accept);
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(format.mediaType().toString());
+        response.setCharacterEncoding("UTF-8");
+        bulkService.exportValues(securityContext.getApplicationId(),
+                securityContext.getEnvironmentId(), format, response.getOutputStream());
+    }
+}
@@ -0,0 +1,11 @@
+package io.hephaistos.flagforge.customerapi.controller.dto;
+
+/**
+ * Summary of a bulk import of user overrides.
+ *
+ * @param processed Records read from the upload
+ * @param changed   Records that created or changed a user's overrides
+ * @param unchanged Records whose values were already stored
+ */
+public record BulkImportResponse(long processed, long changed, long unchanged) {
+}
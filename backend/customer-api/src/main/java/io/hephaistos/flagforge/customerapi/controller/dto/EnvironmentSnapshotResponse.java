@@ -0,0 +1,25 @@
+package io.hephaistos.flagforge.customerapi.controller.dto;
+
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unmerged snapshot of an environment's template data, used by relay proxies to serve reads from
+ * memory. Per-user overrides are not included.
+ *
+ * @param applicationId   The application the API key belongs to
+ * @param environmentId   The environment the API key belongs to
+ * @param systemSchema    The SYSTEM template schema, or null if the application has none
+ * @param systemOverrides SYSTEM override values keyed by identifier
+ * @param userSchema      The USER template schema, or null if the application has none
+ * @param userDefaults    USER environment defaults (identifier = ""), or null if not set
+ */
+public record EnvironmentSnapshotResponse(UUID applicationId, UUID environmentId,
+                                          @Nullable TemplateSchema systemSchema,
+                                          Map<String, Map<String, Object>> systemOverrides,
+                                          @Nullable TemplateSchema userSchema,
+                                          @Nullable Map<String, Object> userDefaults) {
+}
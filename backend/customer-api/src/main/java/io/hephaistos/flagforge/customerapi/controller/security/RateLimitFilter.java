@@ -73,10 +73,8 @@ public class RateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Increment usage counters (all fail gracefully due to fail-open)
-        long monthlyUsage = rateLimitService.incrementMonthlyUsage(environmentId);
-        rateLimitService.incrementDailyUsage(environmentId);
-        rateLimitService.trackPeakBurst(environmentId);
+        // Increment usage counters (fails gracefully due to fail-open)
+        long monthlyUsage = rateLimitService.recordUsage(environmentId);
 
         response.setHeader("X-Monthly-Usage", String.valueOf(monthlyUsage));
         response.setHeader("X-Monthly-Limit", String.valueOf(requestsPerMonth));
@@ -0,0 +1,16 @@
+package io.hephaistos.flagforge.customerapi.data.projection;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * A user's stored overrides in whichever format the row was written.
+ *
+ * @param version      The row version
+ * @param values       The overrides if stored as JSON, otherwise null
+ * @param valuesBinary The overrides if stored in the binary format, otherwise null
+ */
+public record StoredUserValues(long version, @Nullable Map<String, Object> values,
+                               byte @Nullable [] valuesBinary) {
+}
@@ -0,0 +1,25 @@
+package io.hephaistos.flagforge.customerapi.data.projection;
+
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * The three JSONB documents needed to merge USER template values, read without managed entities.
+ *
+ * @param schema              The USER template schema
+ * @param environmentDefaults Environment-level defaults (identifier ""), or null if none
+ * @param userOverrides       Per-user overrides stored as JSON, or null if none
+ * @param userOverridesBinary Per-user overrides stored in the binary format, or null if the row
+ *                            is JSON or missing; still encoded so it can be decoded straight into
+ *                            the merge
+ * @param payloadHash         Hash of the shared override payload the row references, or null if
+ *                            the row stores its own values or is missing
+ */
+public record UserTemplateDocuments(TemplateSchema schema,
+                                    @Nullable Map<String, Object> environmentDefaults,
+                                    @Nullable Map<String, Object> userOverrides,
+                                    byte @Nullable [] userOverridesBinary,
+                                    byte @Nullable [] payloadHash) {
+}
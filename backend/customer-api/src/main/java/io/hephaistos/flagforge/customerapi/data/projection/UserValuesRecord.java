@@ -0,0 +1,22 @@
+package io.hephaistos.flagforge.customerapi.data.projection;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * One user's overrides as raw JSON, used by bulk import and export so values are never parsed
+ * into maps.
+ *
+ * @param userId       The hashed user UUID
+ * @param version      The row version (ignored on import)
+ * @param values       The override values as compact JSON text; {@code {}} for binary rows
+ * @param valuesBinary The binary encoded values if the row is stored that way (export only)
+ */
+public record UserValuesRecord(UUID userId, long version, String values,
+                               byte @Nullable [] valuesBinary) {
+
+    public UserValuesRecord(UUID userId, long version, String values) {
+        this(userId, version, values, null);
+    }
+}
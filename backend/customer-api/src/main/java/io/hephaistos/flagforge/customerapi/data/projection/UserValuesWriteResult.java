@@ -0,0 +1,10 @@
+package io.hephaistos.flagforge.customerapi.data.projection;
+
+/**
+ * Outcome of a single-statement USER override write.
+ *
+ * @param version The row version after the write
+ * @param changed Whether the stored values changed; false for no-op writes and failed preconditions
+ */
+public record UserValuesWriteResult(long version, boolean changed) {
+}
@@ -0,0 +1,42 @@
+package io.hephaistos.flagforge.customerapi.data.repository;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.customerapi.encoding.FieldOrdinals;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads the key-to-ordinal mapping used by the binary override encoding. The mapping is maintained
+ * by a trigger on {@code template}, so the customer-api only ever reads it.
+ */
+@Repository
+public class TemplateFieldOrdinalRepository {
+
+    private static final String FIND_ORDINALS_SQL = """
+            SELECT field_key, ordinal
+            FROM template_field_ordinal
+            WHERE application_id = :applicationId
+              AND type = CAST(:type AS template_type)
+            """;
+
+    private final JdbcClient jdbcClient;
+
+    public TemplateFieldOrdinalRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    public FieldOrdinals findOrdinals(UUID applicationId, TemplateType type) {
+        Map<String, Integer> ordinals = new HashMap<>();
+        jdbcClient.sql(FIND_ORDINALS_SQL)
+                .param("applicationId", applicationId)
+                .param("type", type.name())
+                .query(rs -> {
+                    ordinals.put(rs.getString("field_key"), rs.getInt("ordinal"));
+                });
+        return new FieldOrdinals(ordinals);
+    }
+}
@@ -5,6 +5,7 @@ import io.hephaistos.flagforge.common.enums.TemplateType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,4 +18,7 @@ public interface TemplateValuesRepository extends JpaRepository<TemplateValuesEn
 
     Optional<TemplateValuesEntity> findByApplicationIdAndEnvironmentIdAndTypeAndIdentifier(
             UUID applicationId, UUID environmentId, TemplateType type, String identifier);
+
+    List<TemplateValuesEntity> findByApplicationIdAndEnvironmentIdAndType(UUID applicationId,
+            UUID environmentId, TemplateType type);
 }
@@ -0,0 +1,81 @@
+package io.hephaistos.flagforge.customerapi.data.repository;
+
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.data.projection.UserTemplateDocuments;
+import org.jspecify.annotations.Nullable;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read-only JDBC access for the USER merge path. Fetches the template schema, environment defaults
+ * and user overrides (resolving shared payloads) in a single round trip and maps the JSONB text
+ * directly into {@link UserTemplateDocuments}, bypassing the persistence context.
+ */
+@Repository
+public class UserTemplateDocumentsRepository {
+
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<>() {
+    };
+
+    private static final String FIND_DOCUMENTS_SQL = """
+            SELECT t.schema::text   AS schema,
+                   tv.values::text  AS environment_defaults,
+                   CASE
+                       WHEN COALESCE(p.values_bin, utv.values_bin) IS NULL
+                           THEN COALESCE(p.values, utv.values)::text
+                       END          AS user_overrides,
+                   COALESCE(p.values_bin, utv.values_bin) AS user_overrides_bin,
+                   utv.payload_hash AS payload_hash
+            FROM template t
+                     LEFT JOIN template_values tv
+                               ON tv.application_id = t.application_id
+                                   AND tv.environment_id = :environmentId
+                                   AND tv.type = 'USER'
+                                   AND tv.identifier = ''
+                     LEFT JOIN user_template_values utv
+                               ON utv.application_id = t.application_id
+                                   AND utv.environment_id = :environmentId
+                                   AND utv.user_id = :userId
+                     LEFT JOIN user_override_payload p
+                               ON p.application_id = utv.application_id
+                                   AND p.hash = utv.payload_hash
+            WHERE t.application_id = :applicationId
+              AND t.type = 'USER'
+            """;
+
+    private final JdbcClient jdbcClient;
+    private final JsonMapper jsonMapper;
+
+    public UserTemplateDocumentsRepository(JdbcClient jdbcClient, JsonMapper jsonMapper) {
+        this.jdbcClient = jdbcClient;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * @return The documents, or empty if the application has no USER template
+     */
+    public Optional<UserTemplateDocuments> findDocuments(UUID applicationId, UUID environmentId,
+            UUID userId) {
+        return jdbcClient.sql(FIND_DOCUMENTS_SQL)
+                .param("applicationId", applicationId)
+                .param("environmentId", environmentId)
+                .param("userId", userId)
+                .query((rs, rowNum) -> new UserTemplateDocuments(
+                        jsonMapper.readValue(rs.getString("schema"), TemplateSchema.class),
+                        readValues(rs.getString("environment_defaults")),
+                        readValues(rs.getString("user_overrides")),
+                        rs.getBytes("user_overrides_bin"),
+                        rs.getBytes("payload_hash")))
+                .optional();
+    }
+
+    private @Nullable Map<String, Object> readValues(@Nullable String json) {
+        return json != null ? jsonMapper.readValue(json, VALUES_TYPE) : null;
+    }
+}
@@ -0,0 +1,109 @@
+package io.hephaistos.flagforge.customerapi.data.repository;
+
+import io.hephaistos.flagforge.common.data.AuditableEntity;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access for bulk import and export of per-user overrides. Values travel as raw JSON text in
+ * both directions, so neither path materializes maps.
+ */
+@Repository
+public class UserTemplateValuesBulkRepository {
+
+    /**
+     * Rows fetched per round trip while exporting. Postgres only uses a server-side cursor when the
+     * fetch size is set and the query runs inside a transaction.
+     */
+    static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO user_template_values AS utv
+                (application_id, environment_id, user_id, values, created_by, updated_by)
+            VALUES (:applicationId, :environmentId, :userId, CAST(:values AS jsonb),
+                    :actor, :actor)
+            ON CONFLICT (application_id, environment_id, user_id) DO UPDATE
+                SET values       = EXCLUDED.values,
+                    values_bin   = NULL,
+                    payload_hash = NULL,
+                    version      = utv.version + 1,
+                    updated_at   = NOW(),
+                    updated_by   = EXCLUDED.updated_by
+                WHERE utv.values IS DISTINCT FROM EXCLUDED.values
+                   OR utv.values_bin IS NOT NULL
+                   OR utv.payload_hash IS NOT NULL
+            """;
+
+    private static final String EXPORT_SQL = """
+            SELECT utv.user_id,
+                   utv.version,
+                   COALESCE(p.values, utv.values)::text   AS values,
+                   COALESCE(p.values_bin, utv.values_bin) AS values_bin
+            FROM user_template_values utv
+                     LEFT JOIN user_override_payload p
+                               ON p.application_id = utv.application_id
+                                   AND p.hash = utv.payload_hash
+            WHERE utv.application_id = :applicationId
+              AND utv.environment_id = :environmentId
+            ORDER BY utv.user_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserTemplateValuesBulkRepository(DataSource dataSource) {
+        var cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+    }
+
+    /**
+     * Upserts a batch of records in one JDBC batch. Records whose values are already stored are
+     * left untouched.
+     *
+     * @return Number of records that inserted or changed a row
+     */
+    public int upsertBatch(UUID applicationId, UUID environmentId, List<UserValuesRecord> records) {
+        SqlParameterSource[] batch = records.stream()
+                .map(record -> new MapSqlParameterSource()
+                        .addValue("applicationId", applicationId)
+                        .addValue("environmentId", environmentId)
+                        .addValue("userId", record.userId())
+                        .addValue("values", record.values())
+                        .addValue("actor", AuditableEntity.SYSTEM_USER_ID))
+                .toArray(SqlParameterSource[]::new);
+
+        int changed = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPSERT_SQL, batch)) {
+            // The driver may not report per-statement counts; assume those rows changed
+            if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Streams every user's overrides in the environment to the consumer, ordered by user UUID.
+     * Must be called inside a transaction for the cursor to stay server-side.
+     */
+    public void forEach(UUID applicationId, UUID environmentId,
+            Consumer<UserValuesRecord> consumer) {
+        var params = new MapSqlParameterSource().addValue("applicationId", applicationId)
+                .addValue("environmentId", environmentId);
+        RowCallbackHandler handler = rs -> consumer.accept(
+                new UserValuesRecord(rs.getObject("user_id", UUID.class), rs.getLong("version"),
+                        rs.getString("values"), rs.getBytes("values_bin")));
+        jdbcTemplate.query(EXPORT_SQL, params, handler);
+    }
+}
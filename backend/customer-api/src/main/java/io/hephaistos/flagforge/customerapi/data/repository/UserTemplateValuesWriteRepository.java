@@ -0,0 +1,306 @@
+package io.hephaistos.flagforge.customerapi.data.repository;
+
+import io.hephaistos.flagforge.common.data.AuditableEntity;
+import io.hephaistos.flagforge.customerapi.configuration.StorageProperties;
+import io.hephaistos.flagforge.customerapi.data.projection.StoredUserValues;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesWriteResult;
+import org.jspecify.annotations.Nullable;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * JDBC writes for per-user overrides. Each write is a single statement that only touches the row
+ * when the values actually differ ({@code IS DISTINCT FROM} on jsonb compares semantically, so key
+ * order does not matter; binary values are canonical) and reports the resulting row version either
+ * way. With deduplication enabled, full writes store the document once in
+ * {@code user_override_payload} and point the row at it by hash.
+ */
+@Repository
+public class UserTemplateValuesWriteRepository {
+
+    /**
+     * Resolves what a full write stores on the row. When deduplicating, the document goes into
+     * {@code user_override_payload} (if not already there) under the SHA-256 of its binary encoding
+     * or canonical jsonb text, and the row only keeps the hash; otherwise the row keeps the values.
+     * An existing payload is only locked with {@code FOR KEY SHARE}, which does not write the row
+     * and lets concurrent writers share it; the webapp-api cleanup job skips locked payloads, so it
+     * cannot remove one before the row referencing it commits. A payload inserted by a concurrent
+     * write is within the job's grace period.
+     */
+    private static final String PAYLOAD_CTE = """
+            WITH payload AS (
+                SELECT h.hash,
+                       CASE WHEN h.hash IS NULL THEN CAST(:values AS jsonb) ELSE '{}' END
+                           AS row_values,
+                       CASE WHEN h.hash IS NULL THEN CAST(:valuesBin AS bytea) END
+                           AS row_values_bin
+                FROM (SELECT CASE
+                                 WHEN CAST(:deduplicate AS boolean) THEN
+                                     sha256(COALESCE(CAST(:valuesBin AS bytea),
+                                                     convert_to(CAST(:values AS jsonb)::text,
+                                                                'UTF8')))
+                                 END AS hash) h),
+                 locked_payload AS (
+                     SELECT p.hash
+                     FROM user_override_payload p
+                              JOIN payload ON p.hash = payload.hash
+                     WHERE p.application_id = :applicationId
+                     FOR KEY SHARE OF p),
+                 stored_payload AS (
+                     INSERT INTO user_override_payload (application_id, hash, values, values_bin)
+                     SELECT :applicationId, hash, CAST(:values AS jsonb), CAST(:valuesBin AS bytea)
+                     FROM payload
+                     WHERE hash IS NOT NULL
+                       AND NOT EXISTS (SELECT 1 FROM locked_payload)
+                     ON CONFLICT (application_id, hash) DO NOTHING),
+            """;
+
+    private static final String UPSERT_SQL = PAYLOAD_CTE + """
+                 written AS (
+                     INSERT INTO user_template_values AS utv
+                         (application_id, environment_id, user_id, values, values_bin,
+                          payload_hash, created_by, updated_by)
+                     SELECT :applicationId, :environmentId, :userId, row_values, row_values_bin,
+                            hash, :actor, :actor
+                     FROM payload
+                     ON CONFLICT (application_id, environment_id, user_id) DO UPDATE
+                         SET values       = EXCLUDED.values,
+                             values_bin   = EXCLUDED.values_bin,
+                             payload_hash = EXCLUDED.payload_hash,
+                             version      = utv.version + 1,
+                             updated_at   = NOW(),
+                             updated_by   = EXCLUDED.updated_by
+                         WHERE (utv.values, utv.values_bin, utv.payload_hash) IS DISTINCT FROM
+                               (EXCLUDED.values, EXCLUDED.values_bin, EXCLUDED.payload_hash)
+                     RETURNING version)
+            SELECT version, TRUE AS changed FROM written
+            UNION ALL
+            SELECT version, FALSE AS changed
+            FROM user_template_values
+            WHERE application_id = :applicationId
+              AND environment_id = :environmentId
+              AND user_id = :userId
+              AND NOT EXISTS (SELECT 1 FROM written)
+            """;
+
+    private static final String CONDITIONAL_UPDATE_SQL = PAYLOAD_CTE + """
+                 written AS (
+                     UPDATE user_template_values
+                         SET values       = p.row_values,
+                             values_bin   = p.row_values_bin,
+                             payload_hash = p.hash,
+                             version      = version + 1,
+                             updated_at   = NOW(),
+                             updated_by   = :actor
+                         FROM payload p
+                         WHERE application_id = :applicationId
+                           AND environment_id = :environmentId
+                           AND user_id = :userId
+                           AND version = :expectedVersion
+                           AND (values, values_bin, payload_hash) IS DISTINCT FROM
+                               (p.row_values, p.row_values_bin, p.hash)
+                     RETURNING version)
+            SELECT version, TRUE AS changed FROM written
+            UNION ALL
+            SELECT version, FALSE AS changed
+            FROM user_template_values
+            WHERE application_id = :applicationId
+              AND environment_id = :environmentId
+              AND user_id = :userId
+              AND NOT EXISTS (SELECT 1 FROM written)
+            """;
+
+    /**
+     * Merge patch: drop the removed keys, then overlay the set keys. A missing row starts from the
+     * set keys alone. Rows stored in the binary format or as a payload reference cannot be patched
+     * in SQL and yield no result.
+     */
+    private static final String MERGE_SQL = """
+            WITH written AS (
+                INSERT INTO user_template_values AS utv
+                    (application_id, environment_id, user_id, values, created_by, updated_by)
+                VALUES (:applicationId, :environmentId, :userId, CAST(:values AS jsonb),
+                        :actor, :actor)
+                ON CONFLICT (application_id, environment_id, user_id) DO UPDATE
+                    SET values     = (utv.values - CAST(:removals AS text[])) || EXCLUDED.values,
+                        version    = utv.version + 1,
+                        updated_at = NOW(),
+                        updated_by = EXCLUDED.updated_by
+                    WHERE utv.values_bin IS NULL
+                      AND utv.payload_hash IS NULL
+                      AND utv.values IS DISTINCT FROM
+                          (utv.values - CAST(:removals AS text[])) || EXCLUDED.values
+                RETURNING version)
+            SELECT version, TRUE AS changed FROM written
+            UNION ALL
+            SELECT version, FALSE AS changed
+            FROM user_template_values
+            WHERE application_id = :applicationId
+              AND environment_id = :environmentId
+              AND user_id = :userId
+              AND values_bin IS NULL
+              AND payload_hash IS NULL
+              AND NOT EXISTS (SELECT 1 FROM written)
+            """;
+
+    private static final String CONDITIONAL_MERGE_SQL = """
+            WITH written AS (
+                UPDATE user_template_values
+                    SET values     = (values - CAST(:removals AS text[])) || CAST(:values AS jsonb),
+                        version    = version + 1,
+                        updated_at = NOW(),
+                        updated_by = :actor
+                    WHERE application_id = :applicationId
+                      AND environment_id = :environmentId
+                      AND user_id = :userId
+                      AND version = :expectedVersion
+                      AND values_bin IS NULL
+                      AND payload_hash IS NULL
+                      AND values IS DISTINCT FROM
+                          (values - CAST(:removals AS text[])) || CAST(:values AS jsonb)
+                RETURNING version)
+            SELECT version, TRUE AS changed FROM written
+            UNION ALL
+            SELECT version, FALSE AS changed
+            FROM user_template_values
+            WHERE application_id = :applicationId
+              AND environment_id = :environmentId
+              AND user_id = :userId
+              AND values_bin IS NULL
+              AND payload_hash IS NULL
+              AND NOT EXISTS (SELECT 1 FROM written)
+            """;
+
+    private static final String FIND_FOR_UPDATE_SQL = """
+            SELECT utv.version,
+                   CASE
+                       WHEN COALESCE(p.values_bin, utv.values_bin) IS NULL
+                           THEN COALESCE(p.values, utv.values)::text
+                       END                               AS values,
+                   COALESCE(p.values_bin, utv.values_bin) AS values_bin
+            FROM user_template_values utv
+                     LEFT JOIN user_override_payload p
+                               ON p.application_id = utv.application_id
+                                   AND p.hash = utv.payload_hash
+            WHERE utv.application_id = :applicationId
+              AND utv.environment_id = :environmentId
+              AND utv.user_id = :userId
+            FOR UPDATE OF utv
+            """;
+
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<>() {
+    };
+
+    private final JdbcClient jdbcClient;
+    private final JsonMapper jsonMapper;
+    private final StorageProperties storageProperties;
+
+    public UserTemplateValuesWriteRepository(JdbcClient jdbcClient, JsonMapper jsonMapper,
+            StorageProperties storageProperties) {
+        this.jdbcClient = jdbcClient;
+        this.jsonMapper = jsonMapper;
+        this.storageProperties = storageProperties;
+    }
+
+    /**
+     * Inserts or replaces the user's overrides.
+     *
+     * @param valuesBinary Binary encoding of {@code values} to store instead of JSON, or null
+     * @return The resulting version and whether anything was written
+     */
+    public UserValuesWriteResult upsert(UUID applicationId, UUID environmentId, UUID userId,
+            Map<String, Object> values, byte @Nullable [] valuesBinary) {
+        return execute(UPSERT_SQL, applicationId, environmentId, userId, values, valuesBinary,
+                null, null).orElseThrow();
+    }
+
+    /**
+     * Replaces the user's overrides only if the stored row is at {@code expectedVersion}.
+     *
+     * @param valuesBinary Binary encoding of {@code values} to store instead of JSON, or null
+     * @return The resulting version and whether anything was written, or empty if the user has no
+     * overrides yet
+     */
+    public Optional<UserValuesWriteResult> updateIfVersion(UUID applicationId, UUID environmentId,
+            UUID userId, Map<String, Object> values, byte @Nullable [] valuesBinary,
+            long expectedVersion) {
+        return execute(CONDITIONAL_UPDATE_SQL, applicationId, environmentId, userId, values,
+                valuesBinary, expectedVersion, null);
+    }
+
+    /**
+     * Applies a merge patch to the user's overrides: keys in {@code removals} are dropped and
+     * {@code sets} is overlaid on what remains, all inside the database.
+     *
+     * @return The resulting version and whether anything was written, or empty if the stored row
+     * is in the binary format or references a payload
+     */
+    public Optional<UserValuesWriteResult> merge(UUID applicationId, UUID environmentId,
+            UUID userId, Map<String, Object> sets, Collection<String> removals) {
+        return execute(MERGE_SQL, applicationId, environmentId, userId, sets, null, null,
+                removals);
+    }
+
+    /**
+     * Applies a merge patch only if the stored row is at {@code expectedVersion}.
+     *
+     * @return The resulting version and whether anything was written, or empty if the user has no
+     * overrides yet or they are stored in the binary format or as a payload reference
+     */
+    public Optional<UserValuesWriteResult> mergeIfVersion(UUID applicationId, UUID environmentId,
+            UUID userId, Map<String, Object> sets, Collection<String> removals,
+            long expectedVersion) {
+        return execute(CONDITIONAL_MERGE_SQL, applicationId, environmentId, userId, sets, null,
+                expectedVersion, removals);
+    }
+
+    /**
+     * Reads the user's overrides and locks the row until the transaction ends, for patches that
+     * have to be applied outside the database.
+     */
+    public Optional<StoredUserValues> findForUpdate(UUID applicationId, UUID environmentId,
+            UUID userId) {
+        return jdbcClient.sql(FIND_FOR_UPDATE_SQL)
+                .param("applicationId", applicationId)
+                .param("environmentId", environmentId)
+                .param("userId", userId)
+                .query((rs, rowNum) -> {
+                    String json = rs.getString("values");
+                    return new StoredUserValues(rs.getLong("version"),
+                            json != null ? jsonMapper.readValue(json, VALUES_TYPE) : null,
+                            rs.getBytes("values_bin"));
+                })
+                .optional();
+    }
+
+    private Optional<UserValuesWriteResult> execute(String sql, UUID applicationId,
+            UUID environmentId, UUID userId, Map<String, Object> values,
+            byte @Nullable [] valuesBinary, @Nullable Long expectedVersion,
+            @Nullable Collection<String> removals) {
+        var statement = jdbcClient.sql(sql)
+                .param("applicationId", applicationId)
+                .param("environmentId", environmentId)
+                .param("userId", userId)
+                // Binary rows keep an empty document so the NOT NULL column stays valid
+                .param("values",
+                        valuesBinary != null ? "{}" : jsonMapper.writeValueAsString(values))
+                .param("valuesBin", valuesBinary)
+                .param("deduplicate", storageProperties.deduplicateUserValues())
+                .param("actor", AuditableEntity.SYSTEM_USER_ID);
+        if (expectedVersion != null) {
+            statement = statement.param("expectedVersion", expectedVersion);
+        }
+        if (removals != null) {
+            statement = statement.param("removals", removals.toArray(String[]::new));
+        }
+        return statement.query((rs, rowNum) -> new UserValuesWriteResult(rs.getLong("version"),
+                rs.getBoolean("changed"))).optional();
+    }
+}
@@ -0,0 +1,71 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Line-oriented formats for bulk import and export of user overrides. NDJSON carries one JSON
+ * object per line; CSV carries a header row followed by one quoted record per line.
+ */
+public enum BulkFormat {
+    NDJSON(BulkFormat.NDJSON_VALUE),
+    CSV(BulkFormat.CSV_VALUE);
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    private final MediaType mediaType;
+
+    BulkFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the format for an export. NDJSON is the default; CSV is only used when the client asks
+     * for it explicitly.
+     *
+     * @param acceptHeader Raw Accept header, may be null
+     */
+    public static BulkFormat fromAcceptHeader(@Nullable String acceptHeader) {
+        if (acceptHeader == null || acceptHeader.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            for (MediaType accepted : MediaType.parseMediaTypes(acceptHeader)) {
+                if (NDJSON.mediaType.equalsTypeAndSubtype(accepted)) {
+                    return NDJSON;
+                }
+                if (CSV.mediaType.equalsTypeAndSubtype(accepted)) {
+                    return CSV;
+                }
+            }
+        }
+        catch (InvalidMediaTypeException e) {
+            // Fall through to the default
+        }
+        return NDJSON;
+    }
+
+    /**
+     * @param contentType Raw Content-Type header of an import request
+     * @return The matching format; anything else is treated as NDJSON
+     */
+    public static BulkFormat fromContentType(@Nullable String contentType) {
+        if (contentType == null) {
+            return NDJSON;
+        }
+        try {
+            return CSV.mediaType.equalsTypeAndSubtype(MediaType.parseMediaType(contentType)) ?
+                    CSV :
+                    NDJSON;
+        }
+        catch (InvalidMediaTypeException e) {
+            return NDJSON;
+        }
+    }
+}
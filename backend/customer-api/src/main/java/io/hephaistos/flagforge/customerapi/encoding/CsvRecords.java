@@ -0,0 +1,67 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 helpers for single-line records. Quoted fields may contain commas and doubled
+ * quotes, which is all the compact JSON in the {@code values} column needs; embedded line breaks
+ * are not supported.
+ */
+public final class CsvRecords {
+
+    private CsvRecords() {
+    }
+
+    /**
+     * Splits one CSV line into its fields.
+     *
+     * @throws IllegalArgumentException if a quoted field is not terminated
+     */
+    public static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        var field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    }
+                    else {
+                        quoted = false;
+                    }
+                }
+                else {
+                    field.append(c);
+                }
+            }
+            else if (c == '"') {
+                quoted = true;
+            }
+            else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else {
+                field.append(c);
+            }
+            i++;
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Quotes a field, doubling any quotes it contains.
+     */
+    public static String quote(String field) {
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,10 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+/**
+ * An encoded template response body.
+ *
+ * @param body    The payload bytes
+ * @param gzipped Whether the body is gzip-compressed and must be sent with Content-Encoding: gzip
+ */
+public record EncodedTemplate(byte[] body, boolean gzipped) {
+}
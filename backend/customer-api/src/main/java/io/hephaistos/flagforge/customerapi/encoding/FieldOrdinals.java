@@ -0,0 +1,42 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Key-to-ordinal mapping of a template's fields, as stored in {@code template_field_ordinal}.
+ * Ordinals are append-only, so a mapping loaded later is a superset of an earlier one.
+ */
+public final class FieldOrdinals {
+
+    private final Map<String, Integer> ordinalsByKey;
+    private final @Nullable String[] keysByOrdinal;
+
+    public FieldOrdinals(Map<String, Integer> ordinalsByKey) {
+        this.ordinalsByKey = Map.copyOf(ordinalsByKey);
+        int size = ordinalsByKey.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        this.keysByOrdinal = new String[size];
+        ordinalsByKey.forEach((key, ordinal) -> keysByOrdinal[ordinal] = key);
+    }
+
+    /**
+     * @return The field's ordinal, or -1 if the key has none
+     */
+    public int ordinalOf(String key) {
+        Integer ordinal = ordinalsByKey.get(key);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * @return The key of the ordinal, or null if the ordinal is unknown
+     */
+    public @Nullable String keyOf(int ordinal) {
+        return ordinal >= 0 && ordinal < keysByOrdinal.length ? keysByOrdinal[ordinal] : null;
+    }
+
+    public boolean containsAll(Collection<String> keys) {
+        return ordinalsByKey.keySet().containsAll(keys);
+    }
+}
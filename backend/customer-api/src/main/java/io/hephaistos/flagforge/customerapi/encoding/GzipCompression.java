@@ -0,0 +1,79 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip helpers for precompressed template representations. Payloads are compressed once when
+ * they are cached, so the highest compression level is affordable.
+ */
+public final class GzipCompression {
+
+    public static final String CONTENT_CODING = "gzip";
+
+    private GzipCompression() {
+    }
+
+    public static byte[] compress(byte[] payload) {
+        var buffer = new ByteArrayOutputStream(payload.length / 4 + 64);
+        try (var out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(payload);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header allows gzip, honouring {@code q=0} exclusions and
+     * the {@code *} wildcard.
+     *
+     * @param acceptEncoding Raw Accept-Encoding header, may be null
+     * @return true if a gzip body may be sent
+     */
+    public static boolean isAccepted(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    }
+                    catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase(CONTENT_CODING) || name.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = quality;
+            }
+            else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+}
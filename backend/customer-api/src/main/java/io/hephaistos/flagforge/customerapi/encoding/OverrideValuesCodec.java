@@ -0,0 +1,147 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compact encoding of user override values for the {@code values_bin} column. Fields are addressed
+ * by their {@link FieldOrdinals ordinal} instead of the key string:
+ *
+ * <pre>
+ * version:u8  count:varint  { ordinal:varint  tag:u8  payload }*
+ * </pre>
+ * <p>
+ * Entries are sorted by ordinal, so equal values always encode to equal bytes and the database
+ * can detect no-op writes. Varints use the protobuf runtime like {@link TemplateProtobufCodec}.
+ */
+public final class OverrideValuesCodec {
+
+    static final byte FORMAT_VERSION = 1;
+
+    // Value type tags; booleans carry no payload
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_INTEGER = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+
+    private OverrideValuesCodec() {
+    }
+
+    /**
+     * @return The encoded values, or null if a key has no ordinal or a value is not a scalar the
+     * format supports
+     */
+    public static byte @Nullable [] encode(Map<String, ? extends @Nullable Object> values,
+            FieldOrdinals ordinals) {
+        var byOrdinal = new TreeMap<Integer, @Nullable Object>();
+        for (var entry : values.entrySet()) {
+            int ordinal = ordinals.ordinalOf(entry.getKey());
+            if (ordinal < 0 || !isEncodable(entry.getValue())) {
+                return null;
+            }
+            byOrdinal.put(ordinal, entry.getValue());
+        }
+
+        try {
+            var buffer = new ByteArrayOutputStream(16 + byOrdinal.size() * 8);
+            var out = CodedOutputStream.newInstance(buffer);
+            out.writeRawByte(FORMAT_VERSION);
+            out.writeUInt32NoTag(byOrdinal.size());
+            for (var entry : byOrdinal.entrySet()) {
+                out.writeUInt32NoTag(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+            out.flush();
+            return buffer.toByteArray();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes straight into {@code target}, e.g. the map being merged, without an intermediate map.
+     *
+     * @return False if the payload references an ordinal missing from {@code ordinals}; the caller
+     * should reload the ordinals and decode again
+     */
+    public static boolean decodeInto(byte[] bytes, FieldOrdinals ordinals,
+            Map<String, @Nullable Object> target) {
+        try {
+            var in = CodedInputStream.newInstance(bytes);
+            byte version = in.readRawByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported override format: " + version);
+            }
+            int count = in.readUInt32();
+            for (int i = 0; i < count; i++) {
+                String key = ordinals.keyOf(in.readUInt32());
+                if (key == null) {
+                    return false;
+                }
+                target.put(key, readValue(in));
+            }
+            return true;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Malformed binary override values", e);
+        }
+    }
+
+    private static boolean isEncodable(@Nullable Object value) {
+        return value == null || value instanceof String || value instanceof Boolean ||
+                value instanceof Integer || value instanceof Long || value instanceof Short ||
+                value instanceof Byte || value instanceof Double || value instanceof Float;
+    }
+
+    private static void writeValue(CodedOutputStream out, @Nullable Object value)
+            throws IOException {
+        switch (value) {
+            case null -> out.writeRawByte(TAG_NULL);
+            case Boolean b -> out.writeRawByte(b ? TAG_TRUE : TAG_FALSE);
+            case String s -> {
+                out.writeRawByte(TAG_STRING);
+                out.writeStringNoTag(s);
+            }
+            case Double d -> {
+                out.writeRawByte(TAG_DOUBLE);
+                out.writeDoubleNoTag(d);
+            }
+            case Float f -> {
+                out.writeRawByte(TAG_DOUBLE);
+                out.writeDoubleNoTag(f);
+            }
+            case Number n -> {
+                out.writeRawByte(TAG_INTEGER);
+                out.writeSInt64NoTag(n.longValue());
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unsupported override value type: " + value.getClass().getName());
+        }
+    }
+
+    private static @Nullable Object readValue(CodedInputStream in) throws IOException {
+        byte tag = in.readRawByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_FALSE -> Boolean.FALSE;
+            case TAG_TRUE -> Boolean.TRUE;
+            case TAG_INTEGER -> {
+                long l = in.readSInt64();
+                yield l == (int) l ? (Object) (int) l : (Object) l;
+            }
+            case TAG_DOUBLE -> in.readDouble();
+            case TAG_STRING -> in.readString();
+            default -> throw new IOException("Unknown value tag: " + tag);
+        };
+    }
+}
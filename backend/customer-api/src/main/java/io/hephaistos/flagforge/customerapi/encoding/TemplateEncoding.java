@@ -0,0 +1,82 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Optional;
+
+/**
+ * Representations of template responses that clients can request through the {@code Accept}
+ * header. JSON is the default; the binary encodings are only used when asked for explicitly.
+ */
+public enum TemplateEncoding {
+    JSON(MediaType.APPLICATION_JSON_VALUE, "json"),
+    CBOR(TemplateEncoding.CBOR_VALUE, "cbor"),
+    SMILE(TemplateEncoding.SMILE_VALUE, "smile"),
+    PROTOBUF(TemplateEncoding.PROTOBUF_VALUE, "protobuf");
+
+    public static final String CBOR_VALUE = "application/cbor";
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+
+    private final MediaType mediaType;
+    private final String variant;
+
+    TemplateEncoding(String mediaType, String variant) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.variant = variant;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return Name under which this encoding is stored next to the cached JSON entry
+     */
+    public String variant() {
+        return variant;
+    }
+
+    /**
+     * Picks the binary encoding the client explicitly asked for. Wildcards never select a binary
+     * encoding, and JSON wins ties so existing clients sending wildcard Accept headers are
+     * unaffected.
+     *
+     * @param acceptHeader Raw Accept header, may be null
+     * @return The preferred binary encoding, or empty when JSON should be served
+     */
+    public static Optional<TemplateEncoding> fromAcceptHeader(@Nullable String acceptHeader) {
+        if (acceptHeader == null || acceptHeader.isBlank()) {
+            return Optional.empty();
+        }
+
+        TemplateEncoding best = null;
+        double bestQuality = 0;
+        double jsonQuality = 0;
+        try {
+            for (MediaType accepted : MediaType.parseMediaTypes(acceptHeader)) {
+                if (accepted.isWildcardType() || accepted.isWildcardSubtype()) {
+                    continue;
+                }
+                double quality = accepted.getQualityValue();
+                if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(accepted)) {
+                    jsonQuality = Math.max(jsonQuality, quality);
+                    continue;
+                }
+                for (TemplateEncoding encoding : values()) {
+                    if (encoding != JSON && encoding.mediaType.equalsTypeAndSubtype(accepted) && quality > bestQuality) {
+                        best = encoding;
+                        bestQuality = quality;
+                    }
+                }
+            }
+        }
+        catch (InvalidMediaTypeException e) {
+            return Optional.empty();
+        }
+
+        return best != null && bestQuality > jsonQuality ? Optional.of(best) : Optional.empty();
+    }
+}
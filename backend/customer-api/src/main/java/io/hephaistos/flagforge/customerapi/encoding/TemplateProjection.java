@@ -0,0 +1,111 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Subset of a template response requested through the {@code fields} and {@code includeSchema}
+ * query parameters.
+ *
+ * @param fields        Field keys to keep, or null for all fields
+ * @param includeSchema Whether the (projected) schema is part of the response
+ */
+public record TemplateProjection(@Nullable SortedSet<String> fields, boolean includeSchema) {
+
+    public static final TemplateProjection FULL = new TemplateProjection(null, true);
+
+    // Longer projection keys are hashed so the cache hash field stays small
+    private static final int MAX_PLAIN_VARIANT_LENGTH = 128;
+
+    public static TemplateProjection of(@Nullable Collection<String> fields,
+            boolean includeSchema) {
+        SortedSet<String> normalized = null;
+        if (fields != null) {
+            normalized = new TreeSet<>();
+            for (String field : fields) {
+                if (field != null && !field.isBlank()) {
+                    normalized.add(field.trim());
+                }
+            }
+            if (normalized.isEmpty()) {
+                normalized = null;
+            }
+        }
+        return new TemplateProjection(normalized, includeSchema);
+    }
+
+    public boolean isFull() {
+        return fields == null && includeSchema;
+    }
+
+    /**
+     * Projects a full response. Values are looked up by key in the response map, so the cost is
+     * proportional to the requested fields; the schema is filtered once and the result is cached
+     * by the caller.
+     */
+    public MergedTemplateValuesResponse apply(MergedTemplateValuesResponse response) {
+        if (isFull()) {
+            return response;
+        }
+
+        Map<String, Object> values = response.values();
+        if (fields != null && values != null) {
+            values = new LinkedHashMap<>();
+            for (String field : fields) {
+                if (response.values().containsKey(field)) {
+                    values.put(field, response.values().get(field));
+                }
+            }
+        }
+
+        TemplateSchema schema = null;
+        if (includeSchema && response.schema() != null) {
+            schema = fields == null ?
+                    response.schema() :
+                    new TemplateSchema(response.schema()
+                            .fields()
+                            .stream()
+                            .filter(field -> fields.contains(field.key()))
+                            .toList());
+        }
+
+        return new MergedTemplateValuesResponse(response.type(), schema, values,
+                response.appliedIdentifier());
+    }
+
+    /**
+     * @return Suffix appended to the encoding variant name when caching the projected payload;
+     * empty for the full response
+     */
+    public String variantSuffix() {
+        if (isFull()) {
+            return "";
+        }
+        String key = (includeSchema ? "" : ";noschema") + (fields != null ?
+                ";fields=" + String.join(",", fields) :
+                "");
+        return key.length() > MAX_PLAIN_VARIANT_LENGTH ? ";sha256=" + sha256(key) : key;
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of()
+                    .formatHex(MessageDigest.getInstance("SHA-256")
+                            .digest(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
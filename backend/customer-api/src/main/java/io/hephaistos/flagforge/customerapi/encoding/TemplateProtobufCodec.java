@@ -0,0 +1,297 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.BooleanTemplateField;
+import io.hephaistos.flagforge.common.types.EnumTemplateField;
+import io.hephaistos.flagforge.common.types.NumberTemplateField;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written protobuf codec for {@link MergedTemplateValuesResponse}, following the wire schema
+ * in {@code proto/template_values.proto}. Written against the protobuf runtime directly so the
+ * build does not need protoc; SDKs generate their own classes from the published schema.
+ */
+public final class TemplateProtobufCodec {
+
+    // MergedTemplateValues
+    private static final int RESPONSE_TYPE = 1;
+    private static final int RESPONSE_SCHEMA = 2;
+    private static final int RESPONSE_VALUES = 3;
+    private static final int RESPONSE_APPLIED_IDENTIFIER = 4;
+
+    // map<string, Value> entry
+    private static final int ENTRY_KEY = 1;
+    private static final int ENTRY_VALUE = 2;
+
+    // Value
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_NUMBER = 2;
+    private static final int VALUE_BOOL = 3;
+    private static final int VALUE_INTEGER = 4;
+
+    // TemplateSchema
+    private static final int SCHEMA_FIELDS = 1;
+
+    // TemplateField
+    private static final int FIELD_KEY = 1;
+    private static final int FIELD_TYPE = 2;
+    private static final int FIELD_DESCRIPTION = 3;
+    private static final int FIELD_EDITABLE = 4;
+    private static final int FIELD_DEFAULT_VALUE = 5;
+    private static final int FIELD_MIN_LENGTH = 6;
+    private static final int FIELD_MAX_LENGTH = 7;
+    private static final int FIELD_MIN_VALUE = 8;
+    private static final int FIELD_MAX_VALUE = 9;
+    private static final int FIELD_INCREMENT_AMOUNT = 10;
+    private static final int FIELD_OPTIONS = 11;
+
+    private TemplateProtobufCodec() {
+    }
+
+    public static byte[] encode(MergedTemplateValuesResponse response) {
+        return write(out -> {
+            out.writeEnum(RESPONSE_TYPE, response.type().ordinal() + 1);
+            if (response.schema() != null) {
+                out.writeByteArray(RESPONSE_SCHEMA, encodeSchema(response.schema()));
+            }
+            if (response.values() != null) {
+                for (var entry : response.values().entrySet()) {
+                    out.writeByteArray(RESPONSE_VALUES, encodeEntry(entry.getKey(), entry.getValue()));
+                }
+            }
+            if (response.appliedIdentifier() != null) {
+                out.writeString(RESPONSE_APPLIED_IDENTIFIER, response.appliedIdentifier());
+            }
+        });
+    }
+
+    public static MergedTemplateValuesResponse decode(byte[] bytes) {
+        try {
+            var in = CodedInputStream.newInstance(bytes);
+            TemplateType type = null;
+            TemplateSchema schema = null;
+            Map<String, Object> values = new LinkedHashMap<>();
+            String appliedIdentifier = null;
+
+            int tag;
+            while ((tag = in.readTag()) != 0) {
+                switch (WireFormat.getTagFieldNumber(tag)) {
+                    case RESPONSE_TYPE -> type = TemplateType.values()[in.readEnum() - 1];
+                    case RESPONSE_SCHEMA -> schema = decodeSchema(in.readByteArray());
+                    case RESPONSE_VALUES -> decodeEntry(in.readByteArray(), values);
+                    case RESPONSE_APPLIED_IDENTIFIER -> appliedIdentifier = in.readString();
+                    default -> in.skipField(tag);
+                }
+            }
+            return new MergedTemplateValuesResponse(type, schema, values, appliedIdentifier);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Malformed protobuf template payload", e);
+        }
+    }
+
+    private static byte[] encodeSchema(TemplateSchema schema) {
+        return write(out -> {
+            for (TemplateField field : schema.fields()) {
+                out.writeByteArray(SCHEMA_FIELDS, encodeField(field));
+            }
+        });
+    }
+
+    private static byte[] encodeField(TemplateField field) {
+        return write(out -> {
+            out.writeString(FIELD_KEY, field.key());
+            out.writeEnum(FIELD_TYPE, field.type().ordinal() + 1);
+            if (field.description() != null) {
+                out.writeString(FIELD_DESCRIPTION, field.description());
+            }
+            out.writeBool(FIELD_EDITABLE, field.editable());
+            switch (field) {
+                case StringTemplateField s -> {
+                    writeValue(out, FIELD_DEFAULT_VALUE, s.defaultValue());
+                    if (s.minLength() != null) {
+                        out.writeInt32(FIELD_MIN_LENGTH, s.minLength());
+                    }
+                    if (s.maxLength() != null) {
+                        out.writeInt32(FIELD_MAX_LENGTH, s.maxLength());
+                    }
+                }
+                case NumberTemplateField n -> {
+                    writeValue(out, FIELD_DEFAULT_VALUE, n.defaultValue());
+                    if (n.minValue() != null) {
+                        out.writeDouble(FIELD_MIN_VALUE, n.minValue());
+                    }
+                    if (n.maxValue() != null) {
+                        out.writeDouble(FIELD_MAX_VALUE, n.maxValue());
+                    }
+                    if (n.incrementAmount() != null) {
+                        out.writeDouble(FIELD_INCREMENT_AMOUNT, n.incrementAmount());
+                    }
+                }
+                case BooleanTemplateField b -> writeValue(out, FIELD_DEFAULT_VALUE, b.defaultValue());
+                case EnumTemplateField e -> {
+                    writeValue(out, FIELD_DEFAULT_VALUE, e.defaultValue());
+                    for (String option : e.options()) {
+                        out.writeString(FIELD_OPTIONS, option);
+                    }
+                }
+            }
+        });
+    }
+
+    private static byte[] encodeEntry(String key, @Nullable Object value) {
+        return write(out -> {
+            out.writeString(ENTRY_KEY, key);
+            out.writeByteArray(ENTRY_VALUE, encodeValue(value));
+        });
+    }
+
+    private static void writeValue(CodedOutputStream out, int fieldNumber, @Nullable Object value)
+            throws IOException {
+        if (value != null) {
+            out.writeByteArray(fieldNumber, encodeValue(value));
+        }
+    }
+
+    private static byte[] encodeValue(@Nullable Object value) {
+        return write(out -> {
+            switch (value) {
+                case null -> {
+                    // Unset oneof represents null
+                }
+                case String s -> out.writeString(VALUE_STRING, s);
+                case Boolean b -> out.writeBool(VALUE_BOOL, b);
+                case Integer i -> out.writeSInt64(VALUE_INTEGER, i);
+                case Long l -> out.writeSInt64(VALUE_INTEGER, l);
+                case Number n -> out.writeDouble(VALUE_NUMBER, n.doubleValue());
+                default -> out.writeString(VALUE_STRING, value.toString());
+            }
+        });
+    }
+
+    private static TemplateSchema decodeSchema(byte[] bytes) throws IOException {
+        var in = CodedInputStream.newInstance(bytes);
+        List<TemplateField> fields = new ArrayList<>();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == SCHEMA_FIELDS) {
+                fields.add(decodeField(in.readByteArray()));
+            }
+            else {
+                in.skipField(tag);
+            }
+        }
+        return new TemplateSchema(fields);
+    }
+
+    private static TemplateField decodeField(byte[] bytes) throws IOException {
+        var in = CodedInputStream.newInstance(bytes);
+        String key = null;
+        int fieldType = 0;
+        String description = null;
+        boolean editable = false;
+        Object defaultValue = null;
+        Integer minLength = null;
+        Integer maxLength = null;
+        Double minValue = null;
+        Double maxValue = null;
+        Double incrementAmount = null;
+        List<String> options = new ArrayList<>();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case FIELD_KEY -> key = in.readString();
+                case FIELD_TYPE -> fieldType = in.readEnum();
+                case FIELD_DESCRIPTION -> description = in.readString();
+                case FIELD_EDITABLE -> editable = in.readBool();
+                case FIELD_DEFAULT_VALUE -> defaultValue = decodeValue(in.readByteArray());
+                case FIELD_MIN_LENGTH -> minLength = in.readInt32();
+                case FIELD_MAX_LENGTH -> maxLength = in.readInt32();
+                case FIELD_MIN_VALUE -> minValue = in.readDouble();
+                case FIELD_MAX_VALUE -> maxValue = in.readDouble();
+                case FIELD_INCREMENT_AMOUNT -> incrementAmount = in.readDouble();
+                case FIELD_OPTIONS -> options.add(in.readString());
+                default -> in.skipField(tag);
+            }
+        }
+
+        return switch (fieldType) {
+            case 1 -> new StringTemplateField(key, description, editable, (String) defaultValue,
+                    minLength, maxLength);
+            case 2 -> new NumberTemplateField(key, description, editable, (Number) defaultValue,
+                    minValue, maxValue, incrementAmount);
+            case 3 -> new BooleanTemplateField(key, description, editable, (Boolean) defaultValue);
+            case 4 -> new EnumTemplateField(key, description, editable, (String) defaultValue,
+                    options);
+            default -> throw new IOException("Unknown field type: " + fieldType);
+        };
+    }
+
+    private static void decodeEntry(byte[] bytes, Map<String, Object> target) throws IOException {
+        var in = CodedInputStream.newInstance(bytes);
+        String key = "";
+        Object value = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ENTRY_KEY -> key = in.readString();
+                case ENTRY_VALUE -> value = decodeValue(in.readByteArray());
+                default -> in.skipField(tag);
+            }
+        }
+        target.put(key, value);
+    }
+
+    private static @Nullable Object decodeValue(byte[] bytes) throws IOException {
+        var in = CodedInputStream.newInstance(bytes);
+        Object value = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case VALUE_STRING -> value = in.readString();
+                case VALUE_NUMBER -> value = in.readDouble();
+                case VALUE_BOOL -> value = in.readBool();
+                case VALUE_INTEGER -> {
+                    long l = in.readSInt64();
+                    value = l == (int) l ? (Object) (int) l : (Object) l;
+                }
+                default -> in.skipField(tag);
+            }
+        }
+        return value;
+    }
+
+    private static byte[] write(MessageWriter writer) {
+        try {
+            var buffer = new ByteArrayOutputStream();
+            var out = CodedOutputStream.newInstance(buffer);
+            writer.write(out);
+            out.flush();
+            return buffer.toByteArray();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MessageWriter {
+        void write(CodedOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,42 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Encodes and decodes template responses in the formats listed in {@link TemplateEncoding}. The
+ * Jackson binary mappers share the JSON field names, so CBOR and
+ * Smile payloads decode to the same structure as the JSON response.
+ */
+@Component
+public class TemplateResponseEncoder {
+
+    private final JsonMapper jsonMapper;
+    private final CBORMapper cborMapper = CBORMapper.builder().build();
+    private final SmileMapper smileMapper = SmileMapper.builder().build();
+
+    public TemplateResponseEncoder(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    public byte[] encode(MergedTemplateValuesResponse response, TemplateEncoding encoding) {
+        return switch (encoding) {
+            case JSON -> jsonMapper.writeValueAsBytes(response);
+            case CBOR -> cborMapper.writeValueAsBytes(response);
+            case SMILE -> smileMapper.writeValueAsBytes(response);
+            case PROTOBUF -> TemplateProtobufCodec.encode(response);
+        };
+    }
+
+    public MergedTemplateValuesResponse decode(byte[] payload, TemplateEncoding encoding) {
+        return switch (encoding) {
+            case JSON -> jsonMapper.readValue(payload, MergedTemplateValuesResponse.class);
+            case CBOR -> cborMapper.readValue(payload, MergedTemplateValuesResponse.class);
+            case SMILE -> smileMapper.readValue(payload, MergedTemplateValuesResponse.class);
+            case PROTOBUF -> TemplateProtobufCodec.decode(payload);
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package io.hephaistos.flagforge.customerapi.exception;
+
+/**
+ * Exception thrown when a bulk import upload contains a malformed record. Records before the
+ * offending line have already been stored.
+ */
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
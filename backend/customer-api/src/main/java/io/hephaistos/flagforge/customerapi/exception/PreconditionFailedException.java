@@ -0,0 +1,11 @@
+package io.hephaistos.flagforge.customerapi.exception;
+
+/**
+ * Exception thrown when a conditional write's precondition (If-Match) does not hold.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package io.hephaistos.flagforge.customerapi.exception;
+
+/**
+ * Exception thrown when a synchronous write cannot find out whether the user has a queued
+ * write-behind write, because the queue is unreachable.
+ */
+public class WriteBehindUnavailableException extends RuntimeException {
+
+    public WriteBehindUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
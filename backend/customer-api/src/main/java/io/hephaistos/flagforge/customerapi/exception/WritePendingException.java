@@ -0,0 +1,12 @@
+package io.hephaistos.flagforge.customerapi.exception;
+
+/**
+ * Exception thrown when a synchronous write targets a user whose queued write-behind values have
+ * not been flushed yet.
+ */
+public class WritePendingException extends RuntimeException {
+
+    public WritePendingException(String message) {
+        super(message);
+    }
+}
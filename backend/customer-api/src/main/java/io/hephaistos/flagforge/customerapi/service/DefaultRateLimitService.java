@@ -4,9 +4,12 @@ import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
-import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
 import io.hephaistos.flagforge.customerapi.configuration.RateLimitProperties;
-import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -23,7 +26,12 @@ import java.util.function.Supplier;
 
 /**
  * Redis-based rate limiting and usage tracking service. Uses bucket4j-redis for per-second rate
- * limiting and Redis INCR for monthly counters.
+ * limiting and Lua scripts over Redis counters for usage. All keys of an environment share its
+ * hash tag (see {@link RedisKeys}), so one script updates all counters of a request in a single
+ * round trip, also on a Redis Cluster. Counters are added to the environment's key registry
+ * ({@link RedisKeys#environmentKeys(UUID)}) when they are created, so webapp-api can delete them
+ * without scanning. Every wait for Redis is bounded by
+ * {@link RateLimitProperties#commandTimeout()}.
  */
 @Service
 @ConditionalOnProperty(name = "flagforge.rate-limit.enabled", havingValue = "true",
@@ -31,34 +39,80 @@ import java.util.function.Supplier;
 public class DefaultRateLimitService implements RateLimitService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultRateLimitService.class);
-    private static final String RATE_LIMIT_KEY_PREFIX = "rate-limit:env:";
-    private static final String USAGE_MONTHLY_KEY_PREFIX = "usage:monthly:";
-    private static final String USAGE_DAILY_KEY_PREFIX = "usage:daily:";
-    private static final String USAGE_PEAK_KEY_PREFIX = "usage:peak:";
-    private static final String USAGE_SECOND_KEY_PREFIX = "usage:second:";
-    private static final String USAGE_REJECTED_KEY_PREFIX = "usage:rejected:";
-    private static final long USAGE_KEY_TTL_SECONDS = Duration.ofDays(45).toSeconds();
+    static final long USAGE_KEY_TTL_SECONDS = Duration.ofDays(45).toSeconds();
     private static final long SECOND_KEY_TTL_SECONDS = 5;
 
+    /**
+     * Adds a new counter to the key registry with the epoch second it expires at, and drops
+     * counters that have expired since.
+     */
+    private static final String REGISTER_FUNCTION = """
+            local function register(registry, key, ttl, now)
+                redis.call('ZADD', registry, now + ttl, key)
+                redis.call('ZREMRANGEBYSCORE', registry, '-inf', now)
+                redis.call('EXPIRE', registry, ttl)
+            end
+            """;
+
+    /**
+     * KEYS[1] is a counter and KEYS[2] the key registry; ARGV[1] the counter TTL, set on the first
+     * increment, and ARGV[2] the current epoch second.
+     */
+    static final String COUNT_SCRIPT = REGISTER_FUNCTION + """
+            local value = redis.call('INCR', KEYS[1])
+            if value == 1 then
+                redis.call('EXPIRE', KEYS[1], ARGV[1])
+                register(KEYS[2], KEYS[1], tonumber(ARGV[1]), tonumber(ARGV[2]))
+            end
+            return value
+            """;
+
+    /**
+     * Counts an allowed request. KEYS are the monthly, daily and per-second counters, the daily
+     * peak and the key registry; ARGV the usage TTL, the per-second TTL and the current epoch
+     * second. Returns the monthly count.
+     */
+    static final String RECORD_USAGE_SCRIPT = REGISTER_FUNCTION + """
+            local ttl = tonumber(ARGV[1])
+            local now = tonumber(ARGV[3])
+            local monthly = redis.call('INCR', KEYS[1])
+            if monthly == 1 then
+                redis.call('EXPIRE', KEYS[1], ttl)
+                register(KEYS[5], KEYS[1], ttl, now)
+            end
+            if redis.call('INCR', KEYS[2]) == 1 then
+                redis.call('EXPIRE', KEYS[2], ttl)
+                register(KEYS[5], KEYS[2], ttl, now)
+                register(KEYS[5], KEYS[4], ttl, now)
+            end
+            local rps = redis.call('INCR', KEYS[3])
+            redis.call('EXPIRE', KEYS[3], ARGV[2])
+            if rps > tonumber(redis.call('GET', KEYS[4]) or '0') then
+                redis.call('SET', KEYS[4], rps, 'EX', ttl)
+            end
+            return monthly
+            """;
+
     private final ProxyManager<String> proxyManager;
-    private final StatefulRedisConnection<String, String> usageRedisConnection;
+    private final RedisClusterAsyncCommands<String, String> usageCommands;
     private final RateLimitProperties properties;
     private final ConcurrentHashMap<Integer, Supplier<BucketConfiguration>> configCache =
             new ConcurrentHashMap<>();
 
-    public DefaultRateLimitService(@Qualifier("rateLimitRedisConnection")
-    StatefulRedisConnection<String, byte[]> rateLimitConnection, @Qualifier("usageRedisConnection")
-    StatefulRedisConnection<String, String> usageRedisConnection, RateLimitProperties properties) {
-        this.usageRedisConnection = usageRedisConnection;
+    public DefaultRateLimitService(ProxyManager<String> proxyManager,
+            @Qualifier("usageRedisConnection")
+            RedisEndpoint.Connection<String> usageRedisConnection,
+            RateLimitProperties properties) {
+        this.proxyManager = proxyManager;
+        this.usageCommands = usageRedisConnection.async();
         this.properties = properties;
-        this.proxyManager = LettuceBasedProxyManager.builderFor(rateLimitConnection).build();
         LOGGER.info("Initialized Redis-based rate limiting service");
     }
 
     @Override
     public RateLimitResult tryConsume(UUID environmentId, int requestsPerSecond) {
         try {
-            String key = RATE_LIMIT_KEY_PREFIX + environmentId;
+            String key = RedisKeys.rateLimit(environmentId);
             var bucket = proxyManager.builder().build(key, configSupplier(requestsPerSecond));
 
             ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
@@ -82,15 +136,9 @@ public class DefaultRateLimitService implements RateLimitService {
 
     @Override
     public long incrementMonthlyUsage(UUID environmentId) {
-        String key = getMonthlyUsageKey(environmentId);
         try {
-            var commands = usageRedisConnection.sync();
-            long newValue = commands.incr(key);
-            // Set TTL only on first increment (when value is 1)
-            if (newValue == 1) {
-                commands.expire(key, USAGE_KEY_TTL_SECONDS);
-            }
-            return newValue;
+            return RedisEndpoint.await(count(environmentId, getMonthlyUsageKey(environmentId)),
+                    properties.commandTimeout());
         }
         catch (Exception e) {
             LOGGER.error("Failed to increment monthly usage for environment {}", environmentId, e);
@@ -106,7 +154,7 @@ public class DefaultRateLimitService implements RateLimitService {
     public long getMonthlyUsage(UUID environmentId) {
         String key = getMonthlyUsageKey(environmentId);
         try {
-            String value = usageRedisConnection.sync().get(key);
+            String value = RedisEndpoint.await(usageCommands.get(key), properties.commandTimeout());
             return value != null ? Long.parseLong(value) : 0L;
         }
         catch (Exception e) {
@@ -125,90 +173,67 @@ public class DefaultRateLimitService implements RateLimitService {
     }
 
     @Override
-    public void incrementDailyUsage(UUID environmentId) {
-        String key = getDailyUsageKey(environmentId);
-        try {
-            var commands = usageRedisConnection.sync();
-            long newValue = commands.incr(key);
-            // Set TTL only on first increment (when value is 1)
-            if (newValue == 1) {
-                commands.expire(key, USAGE_KEY_TTL_SECONDS);
-            }
-        }
-        catch (Exception e) {
-            LOGGER.warn("Failed to increment daily usage for environment {}", environmentId, e);
-            // Don't throw - daily tracking is non-critical
-        }
-    }
-
-    @Override
-    public void trackPeakBurst(UUID environmentId) {
+    public long recordUsage(UUID environmentId) {
         long currentEpochSecond = System.currentTimeMillis() / 1000;
-        String secondKey = getSecondKey(environmentId, currentEpochSecond);
-        String peakKey = getPeakKey(environmentId);
-
+        String[] keys = {getMonthlyUsageKey(environmentId), getDailyUsageKey(environmentId),
+                getSecondKey(environmentId, currentEpochSecond), getPeakKey(environmentId),
+                RedisKeys.environmentKeys(environmentId)};
         try {
-            var commands = usageRedisConnection.sync();
-
-            // Increment per-second counter
-            long currentRps = commands.incr(secondKey);
-            commands.expire(secondKey, SECOND_KEY_TTL_SECONDS);
-
-            // Get current peak and update if higher
-            String currentPeakStr = commands.get(peakKey);
-            long currentPeak = currentPeakStr != null ? Long.parseLong(currentPeakStr) : 0;
-
-            if (currentRps > currentPeak) {
-                commands.set(peakKey, String.valueOf(currentRps));
-                commands.expire(peakKey, USAGE_KEY_TTL_SECONDS);
-            }
+            RedisFuture<Long> monthly = usageCommands.eval(RECORD_USAGE_SCRIPT,
+                    ScriptOutputType.INTEGER, keys, String.valueOf(USAGE_KEY_TTL_SECONDS),
+                    String.valueOf(SECOND_KEY_TTL_SECONDS), String.valueOf(currentEpochSecond));
+            return RedisEndpoint.await(monthly, properties.commandTimeout());
         }
         catch (Exception e) {
-            LOGGER.warn("Failed to track peak burst for environment {}", environmentId, e);
-            // Don't throw - peak tracking is non-critical
+            LOGGER.error("Failed to record usage for environment {}", environmentId, e);
+            if (properties.failOpen()) {
+                LOGGER.warn("Fail-open enabled: returning 0 for usage increment");
+                return 0;
+            }
+            throw new RuntimeException("Usage tracking service unavailable", e);
         }
     }
 
     @Override
     public void incrementRejectedRequests(UUID environmentId) {
-        String key = getRejectedKey(environmentId);
-        try {
-            var commands = usageRedisConnection.sync();
-            long newValue = commands.incr(key);
-            // Set TTL only on first increment (when value is 1)
-            if (newValue == 1) {
-                commands.expire(key, USAGE_KEY_TTL_SECONDS);
+        // Not awaited: the rejection is answered without waiting for the counter
+        count(environmentId, getRejectedKey(environmentId)).whenComplete((value, e) -> {
+            if (e != null) {
+                LOGGER.warn("Failed to increment rejected requests for environment {}",
+                        environmentId, e);
             }
-        }
-        catch (Exception e) {
-            LOGGER.warn("Failed to increment rejected requests for environment {}", environmentId,
-                    e);
-            // Don't throw - rejection tracking is non-critical
-        }
+        });
+    }
+
+    /**
+     * Increments a usage counter and sets its TTL and registers it on the first increment, in one
+     * round trip.
+     */
+    private RedisFuture<Long> count(UUID environmentId, String key) {
+        return usageCommands.eval(COUNT_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, RedisKeys.environmentKeys(environmentId)},
+                String.valueOf(USAGE_KEY_TTL_SECONDS),
+                String.valueOf(System.currentTimeMillis() / 1000));
     }
 
     private String getMonthlyUsageKey(UUID environmentId) {
-        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
-        return USAGE_MONTHLY_KEY_PREFIX + environmentId + ":" + currentMonth;
+        return RedisKeys.usageMonthly(environmentId, YearMonth.now(ZoneOffset.UTC));
     }
 
     private String getDailyUsageKey(UUID environmentId) {
-        LocalDate today = LocalDate.now(ZoneOffset.UTC);
-        return USAGE_DAILY_KEY_PREFIX + environmentId + ":" + today;
+        return RedisKeys.usageDaily(environmentId, LocalDate.now(ZoneOffset.UTC));
     }
 
     private String getPeakKey(UUID environmentId) {
-        LocalDate today = LocalDate.now(ZoneOffset.UTC);
-        return USAGE_PEAK_KEY_PREFIX + environmentId + ":" + today;
+        return RedisKeys.usagePeak(environmentId, LocalDate.now(ZoneOffset.UTC));
     }
 
     private String getSecondKey(UUID environmentId, long epochSecond) {
-        return USAGE_SECOND_KEY_PREFIX + environmentId + ":" + epochSecond;
+        return RedisKeys.usageSecond(environmentId, epochSecond);
     }
 
     private String getRejectedKey(UUID environmentId) {
-        LocalDate today = LocalDate.now(ZoneOffset.UTC);
-        return USAGE_REJECTED_KEY_PREFIX + environmentId + ":" + today;
+        return RedisKeys.usageRejected(environmentId, LocalDate.now(ZoneOffset.UTC));
     }
 
     private Supplier<BucketConfiguration> configSupplier(int requestsPerSecond) {
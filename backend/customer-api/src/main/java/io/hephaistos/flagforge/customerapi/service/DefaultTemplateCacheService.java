@@ -2,13 +2,15 @@ package io.hephaistos.flagforge.customerapi.service;
 
 import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
 import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
 import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
 import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.lettuce.core.ExpireArgs;
 import io.lettuce.core.KeyScanCursor;
 import io.lettuce.core.ScanArgs;
 import io.lettuce.core.ScanCursor;
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -23,7 +25,15 @@ import java.util.UUID;
 
 /**
  * Redis-based implementation of TemplateCacheService. Uses JSON serialization for cache values and
- * SCAN for pattern-based invalidation.
+ * SCAN for pattern-based invalidation. Variants of an entry live in a hash whose key only differs
+ * in its type tag, so pattern invalidation removes them together with the entry. Reference entries
+ * hold {@code @{identifier}} and resolve to another entry of the same scope. Keys are binary and
+ * tagged with the environment (see {@link RedisKeys}); on a Redis Cluster, pattern invalidation
+ * scans every primary.
+ * <p>
+ * Lookups go through separate read connections, which may be served by replicas
+ * ({@link CacheProperties#readFrom()}). Writes, and the scans and deletes of invalidation, always
+ * use the primary, so an invalidation never misses an entry a lagging replica has not seen yet.
  */
 @Service
 @ConditionalOnProperty(name = "flagforge.cache.enabled", havingValue = "true",
@@ -32,16 +42,31 @@ import java.util.UUID;
 public class DefaultTemplateCacheService implements TemplateCacheService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultTemplateCacheService.class);
-    private static final String CACHE_KEY_PREFIX = "template:cache:";
+    /**
+     * Marks a value that names another entry instead of holding a response; JSON never starts
+     * with it
+     */
+    private static final String REFERENCE_PREFIX = "@";
 
-    private final RedisCommands<String, String> redisCommands;
+    private final RedisClusterCommands<String, String> redisCommands;
+    private final RedisClusterCommands<String, byte[]> binaryCommands;
+    private final RedisClusterCommands<String, String> readCommands;
+    private final RedisClusterCommands<String, byte[]> binaryReadCommands;
     private final JsonMapper jsonMapper;
     private final CacheProperties cacheProperties;
 
     public DefaultTemplateCacheService(@Qualifier("cacheRedisConnection")
-            StatefulRedisConnection<String, String> redisConnection, JsonMapper jsonMapper,
+            RedisEndpoint.Connection<String> redisConnection,
+            @Qualifier("cacheBinaryRedisConnection")
+            RedisEndpoint.Connection<byte[]> binaryConnection,
+            @Qualifier("cacheReadRedisConnection") RedisEndpoint.Connection<String> readConnection,
+            @Qualifier("cacheBinaryReadRedisConnection")
+            RedisEndpoint.Connection<byte[]> binaryReadConnection, JsonMapper jsonMapper,
             CacheProperties cacheProperties) {
         this.redisCommands = redisConnection.sync();
+        this.binaryCommands = binaryConnection.sync();
+        this.readCommands = readConnection.sync();
+        this.binaryReadCommands = binaryReadConnection.sync();
         this.jsonMapper = jsonMapper;
         this.cacheProperties = cacheProperties;
         LOGGER.info("Template cache service initialized with TTL: {}s",
@@ -52,17 +77,29 @@ public class DefaultTemplateCacheService implements TemplateCacheService {
     public Optional<MergedTemplateValuesResponse> get(UUID appId, UUID envId, TemplateType type,
             String identifier) {
         try {
-            String key = buildKey(appId, envId, type, identifier);
-            String json = redisCommands.get(key);
+            String json = readCommands.get(RedisKeys.templateCache(envId, appId, type, identifier));
+
+            boolean reference = json != null && json.startsWith(REFERENCE_PREFIX);
+            if (reference) {
+                json = readCommands.get(RedisKeys.templateCache(envId, appId, type,
+                        json.substring(REFERENCE_PREFIX.length())));
+            }
 
             if (json == null) {
-                LOGGER.debug("Cache MISS: {} (envId={}, type={}, id={})", key, envId, type,
+                LOGGER.debug("Cache MISS: appId={}, envId={}, type={}, id={}", appId, envId, type,
                         identifier);
                 return Optional.empty();
             }
 
-            LOGGER.debug("Cache HIT: {} (envId={}, type={}, id={})", key, envId, type, identifier);
-            return Optional.of(jsonMapper.readValue(json, MergedTemplateValuesResponse.class));
+            LOGGER.debug("Cache HIT: appId={}, envId={}, type={}, id={}", appId, envId, type,
+                    identifier);
+            var response = jsonMapper.readValue(json, MergedTemplateValuesResponse.class);
+            if (reference) {
+                // The shared entry was stored for whichever identifier first resolved it
+                response = new MergedTemplateValuesResponse(response.type(), response.schema(),
+                        response.values(), identifier);
+            }
+            return Optional.of(response);
         }
         catch (Exception e) {
             LOGGER.warn("Cache ERROR reading key: {} - falling back to database", e.getMessage());
@@ -74,12 +111,13 @@ public class DefaultTemplateCacheService implements TemplateCacheService {
     public void put(UUID appId, UUID envId, TemplateType type, String identifier,
             MergedTemplateValuesResponse value) {
         try {
-            String key = buildKey(appId, envId, type, identifier);
+            String key = RedisKeys.templateCache(envId, appId, type, identifier);
             String json = jsonMapper.writeValueAsString(value);
 
             // ALWAYS set TTL - critical for volatile-lru eviction policy
             redisCommands.setex(key, cacheProperties.ttlSeconds(), json);
-            LOGGER.debug("Cache PUT: {} (ttl={}s)", key, cacheProperties.ttlSeconds());
+            LOGGER.debug("Cache PUT: appId={}, envId={}, type={}, id={} (ttl={}s)", appId, envId,
+                    type, identifier, cacheProperties.ttlSeconds());
         }
         catch (JacksonException e) {
             LOGGER.warn("Cache PUT failed - serialization error: {}", e.getMessage());
@@ -90,74 +128,98 @@ public class DefaultTemplateCacheService implements TemplateCacheService {
     }
 
     @Override
-    public void invalidate(CacheInvalidationEvent event) {
+    public void putReference(UUID appId, UUID envId, TemplateType type, String identifier,
+            String targetIdentifier) {
         try {
-            String pattern = buildInvalidationPattern(event);
-            int deleted = deleteByPattern(pattern);
-            LOGGER.info("Cache INVALIDATE: pattern={}, deleted={} keys, event={}", pattern, deleted,
-                    event.type());
+            String key = RedisKeys.templateCache(envId, appId, type, identifier);
+            // A reference that outlives its target simply reads as a miss
+            redisCommands.setex(key, cacheProperties.ttlSeconds(),
+                    REFERENCE_PREFIX + targetIdentifier);
+            LOGGER.debug("Cache PUT reference: envId={}, type={}, id={} -> {}", envId, type,
+                    identifier, targetIdentifier);
         }
         catch (Exception e) {
-            LOGGER.warn("Cache INVALIDATE failed: {}", e.getMessage());
+            LOGGER.warn("Cache PUT reference failed: {} - continuing without caching",
+                    e.getMessage());
         }
     }
 
-    /**
-     * Build cache key for a template. Format: template:cache:{appId}:{envId}:{type}:{identifier}
-     */
-    private String buildKey(UUID appId, UUID envId, TemplateType type, String identifier) {
-        return CACHE_KEY_PREFIX + appId + ":" + envId + ":" + type + ":" + (identifier != null ?
-                identifier :
-                "");
+    @Override
+    public Optional<byte[]> getVariant(UUID appId, UUID envId, TemplateType type,
+            String identifier, String variant) {
+        try {
+            String key = RedisKeys.templateVariants(envId, appId, type, identifier);
+            byte[] value = binaryReadCommands.hget(key, variant);
+            LOGGER.debug("Cache {} variant {} (envId={}, type={}, id={})",
+                    value != null ? "HIT" : "MISS", variant, envId, type, identifier);
+            return Optional.ofNullable(value);
+        }
+        catch (Exception e) {
+            LOGGER.warn("Cache ERROR reading variant: {} - re-encoding", e.getMessage());
+            return Optional.empty();
+        }
     }
 
-    /**
-     * Build invalidation pattern based on event type.
-     */
-    private String buildInvalidationPattern(CacheInvalidationEvent event) {
-        String appId = event.appId().toString();
-
-        return switch (event.type()) {
-            case SCHEMA_CHANGE ->
-                // Schema change affects all environments for this app and template type
-                    CACHE_KEY_PREFIX + appId + ":*:" + event.templateType() + ":*";
-
-            case OVERRIDE_CHANGE -> {
-                String envId = event.envId() != null ? event.envId().toString() : "*";
-                if (event.identifier() != null) {
-                    // Specific override changed
-                    yield CACHE_KEY_PREFIX + appId + ":" + envId + ":" + event.templateType() + ":" + event.identifier();
-                }
-                else if (event.templateType() == TemplateType.USER) {
-                    // USER env defaults changed - affects all users in this environment
-                    yield CACHE_KEY_PREFIX + appId + ":" + envId + ":USER:*";
-                }
-                else {
-                    // SYSTEM with null identifier - invalidate all SYSTEM for this env
-                    yield CACHE_KEY_PREFIX + appId + ":" + envId + ":SYSTEM:*";
-                }
-            }
+    @Override
+    public void putVariant(UUID appId, UUID envId, TemplateType type, String identifier,
+            String variant, byte[] value) {
+        try {
+            String key = RedisKeys.templateVariants(envId, appId, type, identifier);
+            binaryCommands.hset(key, variant, value);
+            // Only the first variant sets the TTL so the hash never outlives its entry by more
+            // than one TTL period
+            binaryCommands.expire(key, cacheProperties.ttlSeconds(), ExpireArgs.Builder.nx());
+            LOGGER.debug("Cache PUT variant {} (envId={}, type={}, id={}, {} bytes)", variant,
+                    envId, type, identifier, value.length);
+        }
+        catch (Exception e) {
+            LOGGER.warn("Cache PUT variant failed: {} - continuing without caching",
+                    e.getMessage());
+        }
+    }
 
-            case USER_CHANGE -> {
-                // Specific user override changed
-                String envId = event.envId() != null ? event.envId().toString() : "*";
-                String userId = event.identifier() != null ? event.identifier() : "*";
-                yield CACHE_KEY_PREFIX + appId + ":" + envId + ":USER:" + userId;
+    @Override
+    public void invalidate(CacheInvalidationEvent event) {
+        try {
+            int deleted;
+            if (event.envId() != null && event.identifier() != null) {
+                // A single entry: delete it and its variants directly
+                Long count = redisCommands.del(
+                        RedisKeys.templateCache(event.envId(), event.appId(),
+                                event.templateType(), event.identifier()),
+                        RedisKeys.templateVariants(event.envId(), event.appId(),
+                                event.templateType(), event.identifier()));
+                deleted = count != null ? count.intValue() : 0;
+            }
+            else {
+                deleted = scanAndDelete(RedisKeys.templateCachePattern(event.envId(),
+                        event.appId(), event.templateType(), event.identifier()));
             }
-        };
+            LOGGER.info("Cache INVALIDATE: deleted={} keys, event={}, appId={}, envId={}, " +
+                            "type={}, id={}", deleted, event.type(), event.appId(), event.envId(),
+                    event.templateType(), event.identifier());
+        }
+        catch (Exception e) {
+            LOGGER.warn("Cache INVALIDATE failed: {}", e.getMessage());
+        }
     }
 
-    /**
-     * Delete all keys matching a pattern using SCAN (production-safe).
-     */
-    private int deleteByPattern(String pattern) {
-        // If pattern contains no wildcards, delete directly
-        if (!pattern.contains("*")) {
-            Long deleted = redisCommands.del(pattern);
-            return deleted != null ? deleted.intValue() : 0;
+    @Override
+    public void invalidateAll() {
+        try {
+            int deleted = scanAndDelete(RedisKeys.templateCacheAll());
+            LOGGER.info("Cache INVALIDATE ALL: deleted={} keys", deleted);
         }
+        catch (Exception e) {
+            LOGGER.warn("Cache INVALIDATE ALL failed: {}", e.getMessage());
+        }
+    }
 
-        // Use SCAN for pattern matching (safe for production, non-blocking)
+    /**
+     * Use SCAN for pattern matching (safe for production, non-blocking). Entries and their variant
+     * hashes match the same patterns.
+     */
+    private int scanAndDelete(String pattern) {
         int deleted = 0;
         ScanCursor cursor = ScanCursor.INITIAL;
         ScanArgs args = ScanArgs.Builder.matches(pattern).limit(100);
@@ -0,0 +1,93 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.customerapi.configuration.ResponseCompressionProperties;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.customerapi.encoding.EncodedTemplate;
+import io.hephaistos.flagforge.customerapi.encoding.GzipCompression;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateProjection;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateResponseEncoder;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+@Service
+@EnableConfigurationProperties(ResponseCompressionProperties.class)
+public class DefaultTemplateRepresentationService implements TemplateRepresentationService {
+
+    private static final String GZIP_SUFFIX = ";" + GzipCompression.CONTENT_CODING;
+
+    private final TemplateService templateService;
+    private final TemplateCacheService cacheService;
+    private final TemplateResponseEncoder encoder;
+    private final ResponseCompressionProperties compressionProperties;
+
+    public DefaultTemplateRepresentationService(TemplateService templateService,
+            TemplateCacheService cacheService, TemplateResponseEncoder encoder,
+            ResponseCompressionProperties compressionProperties) {
+        this.templateService = templateService;
+        this.cacheService = cacheService;
+        this.encoder = encoder;
+        this.compressionProperties = compressionProperties;
+    }
+
+    @Override
+    public EncodedTemplate getSystemValues(UUID applicationId, UUID environmentId,
+            @Nullable String identifier, TemplateEncoding encoding, TemplateProjection projection,
+            boolean acceptsGzip) {
+        // Same cache id as the JSON entry so both are invalidated together
+        String cacheId = identifier != null ? identifier : "";
+        return getEncoded(applicationId, environmentId, TemplateType.SYSTEM, cacheId, encoding,
+                projection, acceptsGzip,
+                () -> templateService.getMergedSystemValues(applicationId, environmentId,
+                        identifier));
+    }
+
+    @Override
+    public EncodedTemplate getUserValues(UUID applicationId, UUID environmentId, String userId,
+            TemplateEncoding encoding, TemplateProjection projection, boolean acceptsGzip) {
+        return getEncoded(applicationId, environmentId, TemplateType.USER, userId, encoding,
+                projection, acceptsGzip,
+                () -> templateService.getMergedUserValues(applicationId, environmentId, userId));
+    }
+
+    private EncodedTemplate getEncoded(UUID applicationId, UUID environmentId, TemplateType type,
+            String cacheId, TemplateEncoding encoding, TemplateProjection projection,
+            boolean acceptsGzip, Supplier<MergedTemplateValuesResponse> loader) {
+        String variant = encoding.variant() + projection.variantSuffix();
+        boolean serveGzip = acceptsGzip && compressionProperties.enabled();
+
+        if (serveGzip) {
+            var compressed = cacheService.getVariant(applicationId, environmentId, type, cacheId,
+                    variant + GZIP_SUFFIX);
+            if (compressed.isPresent()) {
+                return new EncodedTemplate(compressed.get(), true);
+            }
+        }
+        // Payloads below the size threshold never get a gzip copy, so the plain variant is final
+        var cached = cacheService.getVariant(applicationId, environmentId, type, cacheId, variant);
+        if (cached.isPresent()) {
+            return new EncodedTemplate(cached.get(), false);
+        }
+
+        // The loader reads the full response through the JSON cache, so a new projection only
+        // costs one projection pass and one encode
+        byte[] encoded = encoder.encode(projection.apply(loader.get()), encoding);
+        cacheService.putVariant(applicationId, environmentId, type, cacheId, variant, encoded);
+
+        boolean compressible = encoded.length >= compressionProperties.minSizeBytes();
+        if (compressionProperties.enabled() && compressible) {
+            byte[] compressed = GzipCompression.compress(encoded);
+            cacheService.putVariant(applicationId, environmentId, type, cacheId,
+                    variant + GZIP_SUFFIX, compressed);
+            if (serveGzip) {
+                return new EncodedTemplate(compressed, true);
+            }
+        }
+        return new EncodedTemplate(encoded, false);
+    }
+}
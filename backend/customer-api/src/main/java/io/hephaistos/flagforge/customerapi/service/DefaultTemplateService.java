@@ -2,40 +2,67 @@ package io.hephaistos.flagforge.customerapi.service;
 
 import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.data.TemplateEntity;
 import io.hephaistos.flagforge.common.data.TemplateValuesEntity;
-import io.hephaistos.flagforge.common.data.UserTemplateValuesEntity;
+import io.hephaistos.flagforge.common.datasource.ReadYourWrites;
 import io.hephaistos.flagforge.common.enums.TemplateType;
 import io.hephaistos.flagforge.common.util.TemplateMerger;
 import io.hephaistos.flagforge.common.util.UserIdHasher;
+import io.hephaistos.flagforge.customerapi.controller.dto.EnvironmentSnapshotResponse;
 import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.customerapi.data.projection.UserTemplateDocuments;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesWriteResult;
 import io.hephaistos.flagforge.customerapi.data.repository.TemplateRepository;
 import io.hephaistos.flagforge.customerapi.data.repository.TemplateValuesRepository;
-import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateValuesRepository;
+import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateDocumentsRepository;
+import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateValuesWriteRepository;
 import io.hephaistos.flagforge.customerapi.exception.NotFoundException;
+import io.hephaistos.flagforge.customerapi.exception.PreconditionFailedException;
+import io.hephaistos.flagforge.customerapi.exception.WritePendingException;
 import org.jspecify.annotations.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @Transactional(readOnly = true)
 public class DefaultTemplateService implements TemplateService {
 
+    static final String SHARED_PAYLOAD_ID_PREFIX = "/payload/";
+    static final String SHARED_DEFAULTS_ID = "/defaults";
+
     private final TemplateRepository templateRepository;
     private final TemplateValuesRepository templateValuesRepository;
-    private final UserTemplateValuesRepository userTemplateValuesRepository;
+    private final UserTemplateValuesWriteRepository userTemplateValuesWriteRepository;
+    private final UserTemplateDocumentsRepository userTemplateDocumentsRepository;
     private final TemplateCacheService cacheService;
+    private final UserWriteBehindService writeBehindService;
+    private final UserValuesStorage userValuesStorage;
 
     public DefaultTemplateService(TemplateRepository templateRepository,
             TemplateValuesRepository templateValuesRepository,
-            UserTemplateValuesRepository userTemplateValuesRepository,
-            TemplateCacheService cacheService) {
+            UserTemplateValuesWriteRepository userTemplateValuesWriteRepository,
+            UserTemplateDocumentsRepository userTemplateDocumentsRepository,
+            TemplateCacheService cacheService, UserWriteBehindService writeBehindService,
+            UserValuesStorage userValuesStorage) {
         this.templateRepository = templateRepository;
         this.templateValuesRepository = templateValuesRepository;
-        this.userTemplateValuesRepository = userTemplateValuesRepository;
+        this.userTemplateValuesWriteRepository = userTemplateValuesWriteRepository;
+        this.userTemplateDocumentsRepository = userTemplateDocumentsRepository;
         this.cacheService = cacheService;
+        this.writeBehindService = writeBehindService;
+        this.userValuesStorage = userValuesStorage;
     }
 
     @Override
@@ -50,7 +77,82 @@ public class DefaultTemplateService implements TemplateService {
             return cached.get();
         }
 
-        // Cache miss - fetch from database
+        // Cache miss - fetch from the primary, see loadFromPrimary
+        var response = loadFromPrimary(
+                () -> loadSystemValues(applicationId, environmentId, identifier));
+
+        // Cache the response
+        cacheService.put(applicationId, environmentId, TemplateType.SYSTEM, cacheId, response);
+
+        return response;
+    }
+
+    @Override
+    public MergedTemplateValuesResponse getMergedUserValues(UUID applicationId, UUID environmentId,
+            String userId) {
+
+        // Check cache first
+        var cached = cacheService.get(applicationId, environmentId, TemplateType.USER, userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // Cache miss - schema, environment defaults and user overrides in one query
+        var documents =
+                loadFromPrimary(() -> findUserDocuments(applicationId, environmentId, userId));
+
+        // Merge: schema defaults → environment defaults → user overrides
+        var merged =
+                TemplateMerger.merge(documents.schema(), documents.environmentDefaults());
+
+        // Queued write-behind values replace the stored overrides until they are flushed
+        var pending = writeBehindService.pendingValues(applicationId, environmentId, userId);
+        String sharedId = null;
+        if (pending.isPresent()) {
+            merged.putAll(pending.get());
+        }
+        else {
+            sharedId = sharedCacheId(documents);
+            putStoredOverrides(applicationId, documents, merged);
+        }
+
+        var response =
+                new MergedTemplateValuesResponse(TemplateType.USER, documents.schema(), merged,
+                        userId);
+
+        // Cache the response, once per distinct payload when the user's overrides are shared
+        if (sharedId != null) {
+            cacheService.put(applicationId, environmentId, TemplateType.USER, sharedId, response);
+            cacheService.putReference(applicationId, environmentId, TemplateType.USER, userId,
+                    sharedId);
+        }
+        else {
+            cacheService.put(applicationId, environmentId, TemplateType.USER, userId, response);
+        }
+
+        return response;
+    }
+
+    private UserTemplateDocuments findUserDocuments(UUID applicationId, UUID environmentId,
+            String userId) {
+        return userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                        UserIdHasher.toUuid(userId))
+                .orElseThrow(() -> new NotFoundException(
+                        "USER template not found for application: " + applicationId));
+    }
+
+    private void putStoredOverrides(UUID applicationId, UserTemplateDocuments documents,
+            Map<String, Object> merged) {
+        if (documents.userOverridesBinary() != null) {
+            userValuesStorage.decodeInto(applicationId, documents.userOverridesBinary(), merged);
+        }
+        else if (documents.userOverrides() != null) {
+            merged.putAll(documents.userOverrides());
+        }
+    }
+
+    private MergedTemplateValuesResponse loadSystemValues(UUID applicationId, UUID environmentId,
+            @Nullable String identifier) {
         var template =
                 templateRepository.findByApplicationIdAndType(applicationId, TemplateType.SYSTEM)
                         .orElseThrow(() -> new NotFoundException(
@@ -73,91 +175,258 @@ public class DefaultTemplateService implements TemplateService {
         // Merge defaults with override using shared utility
         var mergedValues = TemplateMerger.merge(template.getSchema(), overrideValues);
 
-        var response = new MergedTemplateValuesResponse(TemplateType.SYSTEM, template.getSchema(),
+        return new MergedTemplateValuesResponse(TemplateType.SYSTEM, template.getSchema(),
                 mergedValues, appliedIdentifier);
-
-        // Cache the response
-        cacheService.put(applicationId, environmentId, TemplateType.SYSTEM, cacheId, response);
-
-        return response;
     }
 
-    @Override
-    public MergedTemplateValuesResponse getMergedUserValues(UUID applicationId, UUID environmentId,
-            String userId) {
+    /**
+     * Runs a load whose result goes into the cache on the primary. A replica may be up to the
+     * configured max lag behind; a response read from it would be cached after the invalidation of
+     * the newer change and then be served for the whole cache TTL. The read-only transaction only
+     * picks its connection on the first statement, so this has to wrap the first query.
+     */
+    private static <T> T loadFromPrimary(Supplier<T> load) {
+        return ReadYourWrites.onPrimary(load);
+    }
 
-        // Check cache first
-        var cached = cacheService.get(applicationId, environmentId, TemplateType.USER, userId);
-        if (cached.isPresent()) {
-            return cached.get();
+    /**
+     * Cache identifier shared by every user whose merge only depends on schema, environment
+     * defaults and a common override payload, or null if the user's overrides are their own. User
+     * ids come from a single path segment and never contain '/', so these cannot collide with
+     * them, and they live under the USER scope so schema and default changes evict them.
+     */
+    static @Nullable String sharedCacheId(UserTemplateDocuments documents) {
+        if (documents.payloadHash() != null) {
+            return SHARED_PAYLOAD_ID_PREFIX + HexFormat.of().formatHex(documents.payloadHash());
         }
+        if (documents.userOverrides() == null && documents.userOverridesBinary() == null) {
+            return SHARED_DEFAULTS_ID;
+        }
+        return null;
+    }
 
-        // Cache miss - fetch from database
+    @Override
+    public EnvironmentSnapshotResponse getEnvironmentSnapshot(UUID applicationId,
+            UUID environmentId) {
 
-        // 1. Get USER template schema (defaults)
-        var template =
+        var systemSchema =
+                templateRepository.findByApplicationIdAndType(applicationId, TemplateType.SYSTEM)
+                        .map(TemplateEntity::getSchema)
+                        .orElse(null);
+        var userSchema =
                 templateRepository.findByApplicationIdAndType(applicationId, TemplateType.USER)
-                        .orElseThrow(() -> new NotFoundException(
-                                "USER template not found for application: " + applicationId));
+                        .map(TemplateEntity::getSchema)
+                        .orElse(null);
+
+        Map<String, Map<String, Object>> systemOverrides = new LinkedHashMap<>();
+        for (var override : templateValuesRepository.findByApplicationIdAndEnvironmentIdAndType(
+                applicationId, environmentId, TemplateType.SYSTEM)) {
+            systemOverrides.put(override.getIdentifier(), override.getValues());
+        }
 
-        // 2. Get environment-level defaults (identifier = "")
-        Map<String, Object> environmentDefaults =
+        Map<String, Object> userDefaults =
                 templateValuesRepository.findByApplicationIdAndEnvironmentIdAndTypeAndIdentifier(
                                 applicationId, environmentId, TemplateType.USER, "")
                         .map(TemplateValuesEntity::getValues)
                         .orElse(null);
 
-        // 3. Get user-specific overrides
-        UUID userUuid = UserIdHasher.toUuid(userId);
-        Map<String, Object> userOverrides =
-                userTemplateValuesRepository.findByApplicationIdAndEnvironmentIdAndUserId(
-                                applicationId, environmentId, userUuid)
-                        .map(UserTemplateValuesEntity::getValues)
-                        .orElse(null);
+        return new EnvironmentSnapshotResponse(applicationId, environmentId, systemSchema,
+                systemOverrides, userSchema, userDefaults);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean queueUserValues(UUID applicationId, UUID environmentId, String userId,
+            Map<String, Object> values) {
+        return writeBehindService.isEnabled() &&
+                writeBehindService.enqueue(applicationId, environmentId, userId, values);
+    }
+
+    @Override
+    @Transactional
+    public UserValuesWriteResult setUserValues(UUID applicationId, UUID environmentId,
+            String userId, Map<String, Object> values, @Nullable Long expectedVersion) {
 
-        // 4. Merge: schema defaults → environment defaults → user overrides
-        var merged = TemplateMerger.merge(template.getSchema(), environmentDefaults);
-        if (userOverrides != null) {
-            merged.putAll(userOverrides);
+        requireNoPendingWrite(applicationId, environmentId, userId);
+        UUID userUuid = UserIdHasher.toUuid(userId);
+        if (expectedVersion != null && expectedVersion == ANY_VERSION) {
+            requireStoredValues(applicationId, environmentId, userUuid, userId);
+            expectedVersion = null;
         }
 
-        var response =
-                new MergedTemplateValuesResponse(TemplateType.USER, template.getSchema(), merged,
-                        userId);
+        byte[] encoded = userValuesStorage.encode(applicationId, values);
 
-        // Cache the response
-        cacheService.put(applicationId, environmentId, TemplateType.USER, userId, response);
+        UserValuesWriteResult result;
+        if (expectedVersion == null) {
+            result = userTemplateValuesWriteRepository.upsert(applicationId, environmentId,
+                    userUuid, values, encoded);
+        }
+        else {
+            result = requireVersion(
+                    userTemplateValuesWriteRepository.updateIfVersion(applicationId,
+                            environmentId, userUuid, values, encoded, expectedVersion), userId,
+                    expectedVersion);
+        }
 
-        return response;
+        invalidateUserIfChanged(result, applicationId, environmentId, userId);
+        return result;
     }
 
     @Override
     @Transactional
-    public void setUserValues(UUID applicationId, UUID environmentId, String userId,
-            Map<String, Object> values) {
+    public PatchedUserValues patchUserValues(UUID applicationId, UUID environmentId,
+            String userId, Map<String, @Nullable Object> patch, @Nullable Long expectedVersion) {
 
+        requireNoPendingWrite(applicationId, environmentId, userId);
         UUID userUuid = UserIdHasher.toUuid(userId);
+        if (expectedVersion != null && expectedVersion == ANY_VERSION) {
+            requireStoredValues(applicationId, environmentId, userUuid, userId);
+            expectedVersion = null;
+        }
+
+        // JSON Merge Patch: null removes a key, anything else replaces it
+        Map<String, Object> sets = new LinkedHashMap<>();
+        List<String> removals = new ArrayList<>();
+        patch.forEach((key, value) -> {
+            if (value == null) {
+                removals.add(key);
+            }
+            else {
+                sets.put(key, value);
+            }
+        });
+
+        // Patch JSON rows in SQL; binary or payload rows (no result) and binary or deduplicated
+        // writes need the values here
+        Optional<UserValuesWriteResult> merged = Optional.empty();
+        if (!userValuesStorage.writesBinary() && !userValuesStorage.deduplicates()) {
+            merged = expectedVersion == null ?
+                    userTemplateValuesWriteRepository.merge(applicationId, environmentId,
+                            userUuid, sets, removals) :
+                    userTemplateValuesWriteRepository.mergeIfVersion(applicationId,
+                            environmentId, userUuid, sets, removals, expectedVersion);
+        }
+
+        UserValuesWriteResult result;
+        if (merged.isEmpty()) {
+            result = patchStoredValues(applicationId, environmentId, userUuid, userId, sets,
+                    removals, expectedVersion);
+        }
+        else if (expectedVersion != null) {
+            result = requireVersion(merged, userId, expectedVersion);
+        }
+        else {
+            result = merged.get();
+        }
 
-        var existing = userTemplateValuesRepository.findByApplicationIdAndEnvironmentIdAndUserId(
-                applicationId, environmentId, userUuid);
+        invalidateUserIfChanged(result, applicationId, environmentId, userId);
+
+        // Read back in the write transaction; the cache holds the previous values until commit
+        var documents = findUserDocuments(applicationId, environmentId, userId);
+        var mergedValues =
+                TemplateMerger.merge(documents.schema(), documents.environmentDefaults());
+        putStoredOverrides(applicationId, documents, mergedValues);
+        return new PatchedUserValues(result,
+                new MergedTemplateValuesResponse(TemplateType.USER, documents.schema(),
+                        mergedValues, userId));
+    }
+
+    /**
+     * A synchronous write must not overtake a queued one: the flusher would later overwrite it
+     * with the older queued values. If the queue cannot be checked, the write is refused too.
+     */
+    private void requireNoPendingWrite(UUID applicationId, UUID environmentId, String userId) {
+        if (writeBehindService.isEnabled() &&
+                writeBehindService.hasPendingWrite(applicationId, environmentId, userId)) {
+            throw new WritePendingException(
+                    "USER values for " + userId + " have a queued write that is not stored yet");
+        }
+    }
+
+    /**
+     * Fails unless the user has stored overrides. The row stays locked until the write commits, so
+     * it cannot be deleted in between and the write updates it rather than creating a new one.
+     */
+    private void requireStoredValues(UUID applicationId, UUID environmentId, UUID userUuid,
+            String userId) {
+        if (userTemplateValuesWriteRepository.findForUpdate(applicationId, environmentId, userUuid)
+                .isEmpty()) {
+            throw new PreconditionFailedException("USER values for " + userId + " do not exist");
+        }
+    }
 
-        if (existing.isPresent()) {
-            var entity = existing.get();
-            entity.setValues(values);
-            // updatedAt handled by @PreUpdate
+    /**
+     * Applies a merge patch by reading the locked row, patching it in memory and writing the full
+     * result back in the configured format.
+     */
+    private UserValuesWriteResult patchStoredValues(UUID applicationId, UUID environmentId,
+            UUID userUuid, String userId, Map<String, Object> sets, List<String> removals,
+            @Nullable Long expectedVersion) {
+        var stored = userTemplateValuesWriteRepository.findForUpdate(applicationId, environmentId,
+                userUuid);
+        if (expectedVersion != null &&
+                (stored.isEmpty() || stored.get().version() != expectedVersion)) {
+            throw versionMismatch(userId, expectedVersion);
+        }
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        stored.ifPresent(row -> {
+            if (row.valuesBinary() != null) {
+                userValuesStorage.decodeInto(applicationId, row.valuesBinary(), values);
+            }
+            else if (row.values() != null) {
+                values.putAll(row.values());
+            }
+        });
+        removals.forEach(values::remove);
+        values.putAll(sets);
+
+        byte[] encoded = userValuesStorage.encode(applicationId, values);
+        if (stored.isEmpty()) {
+            return userTemplateValuesWriteRepository.upsert(applicationId, environmentId,
+                    userUuid, values, encoded);
+        }
+        // The row lock guarantees the version still matches
+        return userTemplateValuesWriteRepository.updateIfVersion(applicationId, environmentId,
+                userUuid, values, encoded, stored.get().version()).orElseThrow();
+    }
+
+    /**
+     * A conditional write succeeded if it changed the row or the row already was at the expected
+     * version with identical values.
+     */
+    private static UserValuesWriteResult requireVersion(Optional<UserValuesWriteResult> written,
+            String userId, long expectedVersion) {
+        return written.filter(result -> result.changed() || result.version() == expectedVersion)
+                .orElseThrow(() -> versionMismatch(userId, expectedVersion));
+    }
+
+    private static PreconditionFailedException versionMismatch(String userId,
+            long expectedVersion) {
+        return new PreconditionFailedException(
+                "USER values for " + userId + " are not at version " + expectedVersion);
+    }
+
+    private void invalidateUserIfChanged(UserValuesWriteResult result, UUID applicationId,
+            UUID environmentId, String userId) {
+        // Unchanged values leave the cached merge valid
+        if (!result.changed()) {
+            return;
+        }
+        var event = new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE, applicationId,
+                environmentId, TemplateType.USER, userId);
+        // Invalidating before commit would let a concurrent read cache the old values again
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            cacheService.invalidate(event);
+                        }
+                    });
         }
         else {
-            var entity = new UserTemplateValuesEntity();
-            entity.setApplicationId(applicationId);
-            entity.setEnvironmentId(environmentId);
-            entity.setUserId(userUuid);
-            entity.setValues(values);
-            userTemplateValuesRepository.save(entity);
-        }
-
-        // Invalidate cache for this user
-        cacheService.invalidate(
-                new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE, applicationId,
-                        environmentId, TemplateType.USER, userId));
+            cacheService.invalidate(event);
+        }
     }
 }
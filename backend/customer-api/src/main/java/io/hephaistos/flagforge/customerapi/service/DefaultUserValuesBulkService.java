@@ -0,0 +1,276 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.util.UserIdHasher;
+import io.hephaistos.flagforge.customerapi.controller.dto.BulkImportResponse;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesRecord;
+import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateValuesBulkRepository;
+import io.hephaistos.flagforge.customerapi.encoding.BulkFormat;
+import io.hephaistos.flagforge.customerapi.encoding.CsvRecords;
+import io.hephaistos.flagforge.customerapi.exception.InvalidImportException;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class DefaultUserValuesBulkService implements UserValuesBulkService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultUserValuesBulkService.class);
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * Records per JDBC batch and per transaction. Keeps memory flat and lock duration short while
+     * still amortizing round trips.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    private static final String CSV_USER_ID = "user_id";
+    private static final String CSV_USER_UUID = "user_uuid";
+    private static final String CSV_VERSION = "version";
+    private static final String CSV_VALUES = "values";
+
+    private final UserTemplateValuesBulkRepository bulkRepository;
+    private final TemplateCacheService cacheService;
+    private final TransactionTemplate batchTransaction;
+    private final JsonMapper jsonMapper;
+    private final UserValuesStorage userValuesStorage;
+
+    public DefaultUserValuesBulkService(UserTemplateValuesBulkRepository bulkRepository,
+            TemplateCacheService cacheService, PlatformTransactionManager transactionManager,
+            JsonMapper jsonMapper, UserValuesStorage userValuesStorage) {
+        this.bulkRepository = bulkRepository;
+        this.cacheService = cacheService;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.jsonMapper = jsonMapper;
+        this.userValuesStorage = userValuesStorage;
+    }
+
+    @Override
+    public BulkImportResponse importValues(UUID applicationId, UUID environmentId,
+            BulkFormat format, InputStream input) {
+        long processed = 0;
+        long changed = 0;
+        List<UserValuesRecord> batch = new ArrayList<>(BATCH_SIZE);
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        try {
+            CsvColumns columns = null;
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == BulkFormat.CSV && columns == null) {
+                    columns = CsvColumns.fromHeader(line);
+                    continue;
+                }
+
+                batch.add(format == BulkFormat.CSV ?
+                        parseCsv(columns, line, lineNumber) :
+                        parseNdjson(line, lineNumber));
+                processed++;
+                if (batch.size() == BATCH_SIZE) {
+                    changed += writeBatch(applicationId, environmentId, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                changed += writeBatch(applicationId, environmentId, batch);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import upload", e);
+        }
+        finally {
+            // One environment-wide invalidation instead of one event per user
+            if (changed > 0) {
+                cacheService.invalidate(
+                        new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE,
+                                applicationId, environmentId, TemplateType.USER, null));
+            }
+        }
+
+        LOGGER.info("Imported user overrides for env {}: processed={}, changed={}", environmentId,
+                processed, changed);
+        return new BulkImportResponse(processed, changed, processed - changed);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportValues(UUID applicationId, UUID environmentId, BulkFormat format,
+            OutputStream output) {
+        var writer =
+                new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try {
+            if (format == BulkFormat.CSV) {
+                writer.write(CSV_USER_UUID + "," + CSV_VERSION + "," + CSV_VALUES + "\n");
+            }
+            bulkRepository.forEach(applicationId, environmentId,
+                    record -> writeRecord(writer, format, asJson(applicationId, record)));
+            writer.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to write export", e);
+        }
+    }
+
+    /**
+     * Binary rows are exported as JSON like every other row.
+     */
+    private UserValuesRecord asJson(UUID applicationId, UserValuesRecord record) {
+        if (record.valuesBinary() == null) {
+            return record;
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        userValuesStorage.decodeInto(applicationId, record.valuesBinary(), values);
+        return new UserValuesRecord(record.userId(), record.version(),
+                jsonMapper.writeValueAsString(values));
+    }
+
+    private int writeBatch(UUID applicationId, UUID environmentId,
+            List<UserValuesRecord> batch) {
+        Integer changed = batchTransaction.execute(
+                status -> bulkRepository.upsertBatch(applicationId, environmentId, batch));
+        return changed != null ? changed : 0;
+    }
+
+    private UserValuesRecord parseNdjson(String line, long lineNumber) {
+        ImportLine parsed;
+        try {
+            parsed = jsonMapper.readValue(line, ImportLine.class);
+        }
+        catch (JacksonException e) {
+            throw new InvalidImportException("Line " + lineNumber + ": malformed JSON");
+        }
+        if (parsed.values() == null) {
+            throw new InvalidImportException("Line " + lineNumber + ": missing values");
+        }
+        UUID userUuid = resolveUser(parsed.userId(), parsed.userUuid(), lineNumber);
+        return new UserValuesRecord(userUuid, 0, jsonMapper.writeValueAsString(parsed.values()));
+    }
+
+    private UserValuesRecord parseCsv(CsvColumns columns, String line, long lineNumber) {
+        List<String> fields;
+        try {
+            fields = CsvRecords.parse(line);
+        }
+        catch (IllegalArgumentException e) {
+            throw new InvalidImportException("Line " + lineNumber + ": " + e.getMessage());
+        }
+        if (fields.size() <= columns.maxIndex()) {
+            throw new InvalidImportException("Line " + lineNumber + ": missing columns");
+        }
+
+        Map<String, Object> values;
+        try {
+            values = jsonMapper.readValue(fields.get(columns.values()), VALUES_TYPE);
+        }
+        catch (JacksonException e) {
+            throw new InvalidImportException("Line " + lineNumber + ": values is not a JSON object");
+        }
+
+        String userId = columns.userId() >= 0 ? fields.get(columns.userId()) : null;
+        UUID userUuid = null;
+        if (columns.userUuid() >= 0 && !fields.get(columns.userUuid()).isBlank()) {
+            userUuid = parseUuid(fields.get(columns.userUuid()), lineNumber);
+        }
+        return new UserValuesRecord(resolveUser(userId, userUuid, lineNumber), 0,
+                jsonMapper.writeValueAsString(values));
+    }
+
+    private static UUID resolveUser(@Nullable String userId, @Nullable UUID userUuid,
+            long lineNumber) {
+        if (userUuid != null) {
+            return userUuid;
+        }
+        if (userId == null || userId.isBlank()) {
+            throw new InvalidImportException("Line " + lineNumber + ": missing userId or userUuid");
+        }
+        return UserIdHasher.toUuid(userId);
+    }
+
+    private static UUID parseUuid(String value, long lineNumber) {
+        try {
+            return UUID.fromString(value.trim());
+        }
+        catch (IllegalArgumentException e) {
+            throw new InvalidImportException("Line " + lineNumber + ": invalid user_uuid");
+        }
+    }
+
+    private static void writeRecord(Writer writer, BulkFormat format, UserValuesRecord record) {
+        try {
+            if (format == BulkFormat.CSV) {
+                writer.write(record.userId() + "," + record.version() + "," + CsvRecords.quote(
+                        record.values()) + "\n");
+            }
+            else {
+                // values is already JSON text from Postgres, so the line is assembled without
+                // round-tripping it through a map
+                writer.write("{\"userUuid\":\"" + record.userId() + "\",\"version\":"
+                        + record.version() + ",\"values\":" + record.values() + "}\n");
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * One NDJSON import record. {@code version} is accepted so exports can be re-imported as-is.
+     */
+    private record ImportLine(@Nullable String userId, @Nullable UUID userUuid,
+                              @Nullable Long version, @Nullable Map<String, Object> values) {
+    }
+
+    /**
+     * Column positions from a CSV header; -1 when the column is absent.
+     */
+    private record CsvColumns(int userId, int userUuid, int values) {
+
+        static CsvColumns fromHeader(String header) {
+            List<String> names = CsvRecords.parse(header).stream()
+                    .map(name -> name.trim().toLowerCase())
+                    .toList();
+            var columns = new CsvColumns(names.indexOf(CSV_USER_ID), names.indexOf(CSV_USER_UUID),
+                    names.indexOf(CSV_VALUES));
+            if (columns.values() < 0 || (columns.userId() < 0 && columns.userUuid() < 0)) {
+                throw new InvalidImportException(
+                        "CSV header must contain values and user_id or user_uuid");
+            }
+            return columns;
+        }
+
+        int maxIndex() {
+            return Math.max(values, Math.max(userId, userUuid));
+        }
+    }
+}
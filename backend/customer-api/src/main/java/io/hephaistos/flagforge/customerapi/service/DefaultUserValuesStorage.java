@@ -0,0 +1,82 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.customerapi.configuration.StorageProperties;
+import io.hephaistos.flagforge.customerapi.configuration.StorageProperties.UserValuesFormat;
+import io.hephaistos.flagforge.customerapi.data.repository.TemplateFieldOrdinalRepository;
+import io.hephaistos.flagforge.customerapi.encoding.FieldOrdinals;
+import io.hephaistos.flagforge.customerapi.encoding.OverrideValuesCodec;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches field ordinals per application. Ordinals only ever get added, so a cached mapping is never
+ * wrong, only possibly incomplete; it is reloaded when a key or ordinal is missing.
+ */
+@Service
+@EnableConfigurationProperties(StorageProperties.class)
+public class DefaultUserValuesStorage implements UserValuesStorage {
+
+    private final TemplateFieldOrdinalRepository ordinalRepository;
+    private final StorageProperties properties;
+    private final Map<UUID, FieldOrdinals> ordinalsByApplication = new ConcurrentHashMap<>();
+
+    public DefaultUserValuesStorage(TemplateFieldOrdinalRepository ordinalRepository,
+            StorageProperties properties) {
+        this.ordinalRepository = ordinalRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean writesBinary() {
+        return properties.userValuesFormat() == UserValuesFormat.BINARY;
+    }
+
+    @Override
+    public boolean deduplicates() {
+        return properties.deduplicateUserValues();
+    }
+
+    @Override
+    public byte @Nullable [] encode(UUID applicationId,
+            Map<String, ? extends @Nullable Object> values) {
+        if (!writesBinary()) {
+            return null;
+        }
+        var ordinals = ordinals(applicationId);
+        if (!ordinals.containsAll(values.keySet())) {
+            ordinals = reload(applicationId);
+        }
+        return OverrideValuesCodec.encode(values, ordinals);
+    }
+
+    @Override
+    public void decodeInto(UUID applicationId, byte[] encoded,
+            Map<String, @Nullable Object> target) {
+        if (!OverrideValuesCodec.decodeInto(encoded, ordinals(applicationId), target) &&
+                !OverrideValuesCodec.decodeInto(encoded, reload(applicationId), target)) {
+            throw new IllegalStateException(
+                    "Binary overrides reference unknown field ordinals for application " +
+                            applicationId);
+        }
+    }
+
+    private FieldOrdinals ordinals(UUID applicationId) {
+        return ordinalsByApplication.computeIfAbsent(applicationId, this::load);
+    }
+
+    private FieldOrdinals reload(UUID applicationId) {
+        var ordinals = load(applicationId);
+        ordinalsByApplication.put(applicationId, ordinals);
+        return ordinals;
+    }
+
+    private FieldOrdinals load(UUID applicationId) {
+        return ordinalRepository.findOrdinals(applicationId, TemplateType.USER);
+    }
+}
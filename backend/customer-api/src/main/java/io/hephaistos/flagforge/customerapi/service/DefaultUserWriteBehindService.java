@@ -0,0 +1,152 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
+import io.hephaistos.flagforge.customerapi.configuration.WriteBehindProperties;
+import io.hephaistos.flagforge.customerapi.exception.WriteBehindUnavailableException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Redis Stream based write-behind. A write is appended to {@code template:{writes}} and, in the
+ * same script, recorded as the user's pending overlay at
+ * {@code template:{writes}:pending:{app}:{env}:{userId}} so reads keep seeing it until
+ * {@link WriteBehindFlusher} has stored it in Postgres. The overlays share the stream's hash tag
+ * so the script also runs on a Redis Cluster. They have no TTL: the flusher deletes each overlay
+ * once its entry is stored or dropped, and an overlay expiring earlier would let a synchronous
+ * write through that the flusher then overwrites with the older queued values.
+ */
+@Service
+@ConditionalOnProperty(name = "flagforge.write-behind.enabled", havingValue = "true")
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class DefaultUserWriteBehindService implements UserWriteBehindService {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DefaultUserWriteBehindService.class);
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<>() {
+    };
+
+    static final String STREAM_KEY = "template:{writes}";
+    static final String PENDING_KEY_PREFIX = "template:{writes}:pending:";
+    static final String FIELD_APPLICATION = "app";
+    static final String FIELD_ENVIRONMENT = "env";
+    static final String FIELD_USER = "user";
+    static final String FIELD_VALUES = "values";
+
+    /**
+     * Appends the write and points the pending overlay at it atomically, so the overlay always
+     * names the newest queued entry for the user.
+     */
+    private static final String ENQUEUE_SCRIPT = """
+            local id = redis.call('XADD', KEYS[1], '*', 'app', ARGV[1], 'env', ARGV[2],
+                'user', ARGV[3], 'values', ARGV[4])
+            redis.call('SET', KEYS[2], id .. '|' .. ARGV[4])
+            return id
+            """;
+
+    private final RedisEndpoint.Connection<String> connection;
+    private final RedisClusterCommands<String, String> commands;
+    private final TemplateCacheService cacheService;
+    private final JsonMapper jsonMapper;
+
+    public DefaultUserWriteBehindService(
+            @Qualifier("cacheRedisEndpoint") RedisEndpoint redisEndpoint,
+            TemplateCacheService cacheService, JsonMapper jsonMapper,
+            WriteBehindProperties properties) {
+        this.connection = redisEndpoint.connect();
+        this.commands = connection.sync();
+        this.cacheService = cacheService;
+        this.jsonMapper = jsonMapper;
+        LOGGER.info("User write-behind enabled (batch size {}, flush interval {})",
+                properties.batchSize(), properties.flushInterval());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean enqueue(UUID applicationId, UUID environmentId, String userId,
+            Map<String, Object> values) {
+        try {
+            String json = jsonMapper.writeValueAsString(values);
+            commands.eval(ENQUEUE_SCRIPT, ScriptOutputType.VALUE,
+                    new String[]{STREAM_KEY, pendingKey(applicationId, environmentId, userId)},
+                    applicationId.toString(), environmentId.toString(), userId, json);
+        }
+        catch (Exception e) {
+            LOGGER.warn("Write-behind enqueue failed: {} - writing synchronously",
+                    e.getMessage());
+            return false;
+        }
+
+        cacheService.invalidate(
+                new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE, applicationId,
+                        environmentId, TemplateType.USER, userId));
+        return true;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> pendingValues(UUID applicationId, UUID environmentId,
+            String userId) {
+        try {
+            String pending = commands.get(pendingKey(applicationId, environmentId, userId));
+            if (pending == null) {
+                return Optional.empty();
+            }
+            String json = pending.substring(pending.indexOf('|') + 1);
+            return Optional.of(jsonMapper.readValue(json, VALUES_TYPE));
+        }
+        catch (Exception e) {
+            LOGGER.warn("Write-behind pending lookup failed: {} - reading stored values",
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean hasPendingWrite(UUID applicationId, UUID environmentId, String userId) {
+        try {
+            Long exists = commands.exists(pendingKey(applicationId, environmentId, userId));
+            return exists != null && exists > 0;
+        }
+        catch (Exception e) {
+            throw new WriteBehindUnavailableException(
+                    "Cannot check for a queued write of USER values for " + userId, e);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        connection.close();
+    }
+
+    static String pendingKey(UUID applicationId, UUID environmentId, String userId) {
+        return PENDING_KEY_PREFIX + applicationId + ":" + environmentId + ":" +
+                RedisKeys.text(userId);
+    }
+
+    /**
+     * Pending overlay value: the stream entry ID it belongs to, then the values JSON.
+     */
+    static String pendingValue(String entryId, String valuesJson) {
+        return entryId + "|" + valuesJson;
+    }
+}
@@ -0,0 +1,301 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.UUID;
+
+/**
+ * Moves usage counters written under the text key scheme ({@code usage:monthly:<envId>:<month>}
+ * or {@code usage:monthly:{<envId>}:<month>}) to the compact keys of {@link RedisKeys}, so monthly
+ * quotas and daily statistics do not restart when the key scheme changes. Counters are added up
+ * and peaks take the maximum, since instances may already have counted into the new keys, and
+ * each moved counter is added to its environment's key registry. Token buckets under
+ * {@code rate-limit:env:} are deleted, a new bucket simply starts full.
+ * <p>
+ * Runs in the background, one instance at a time, and repeats every {@link #RUN_INTERVAL} so the
+ * counters older instances of a rolling deployment still write are moved as well. The first run
+ * that finds nothing left sets {@link #DONE_KEY}; from then on every instance stops after one GET.
+ * <p>
+ * Old and new key of a counter are in different slots on a Redis Cluster, so no script can touch
+ * both. The old key is first renamed to a unique staging key in its own slot, which takes it away
+ * from concurrent increments. A script on the new key then merges the staged value and registers
+ * the counter, and records the staging key in the registry so it is never merged twice. Last, the
+ * staging key is deleted. Staging keys left by a failed run are picked up by the next one.
+ */
+@Component
+@ConditionalOnProperty(name = "flagforge.rate-limit.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class LegacyUsageKeyMigration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LegacyUsageKeyMigration.class);
+    private static final int SCAN_BATCH_SIZE = 100;
+    private static final String USAGE_PATTERN = "usage:*";
+    private static final String RATE_LIMIT_PATTERN = "rate-limit:env:*";
+    private static final String STAGING_PREFIX = "usage:migrating:";
+
+    static final String DONE_KEY = "usage-key-migration:{migration}:done";
+    static final String LOCK_KEY = "usage-key-migration:{migration}:lock";
+    static final Duration RUN_INTERVAL = Duration.ofMinutes(10);
+    // Runs overlapping after an expired lock are harmless, the lock only saves duplicate scans
+    private static final Duration LOCK_TTL = Duration.ofMinutes(10);
+
+    /**
+     * Merges the staged value ARGV[1] into counter KEYS[1] and registers the counter in key
+     * registry KEYS[2], unless the staging key ARGV[4] is already recorded there. ARGV[2] is "max"
+     * for peaks, which must not be added up. The counter keeps its TTL, or takes ARGV[3]
+     * milliseconds if it has none. ARGV[5] is the current epoch second and ARGV[6] the registry
+     * TTL in seconds.
+     */
+    static final String MERGE_SCRIPT = """
+            if redis.call('ZSCORE', KEYS[2], ARGV[4]) then
+                return 0
+            end
+            if ARGV[2] == 'max' then
+                local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+                if tonumber(ARGV[1]) > current then
+                    redis.call('SET', KEYS[1], ARGV[1], 'KEEPTTL')
+                end
+            else
+                redis.call('INCRBY', KEYS[1], ARGV[1])
+            end
+            local ttl = tonumber(ARGV[3])
+            if ttl > 0 and redis.call('PTTL', KEYS[1]) < 0 then
+                redis.call('PEXPIRE', KEYS[1], ttl)
+            end
+            local now = tonumber(ARGV[5])
+            local keep = tonumber(ARGV[6])
+            local remaining = redis.call('PTTL', KEYS[1])
+            local expiresAt = now + keep
+            if remaining > 0 then
+                expiresAt = now + math.ceil(remaining / 1000)
+            end
+            redis.call('ZADD', KEYS[2], expiresAt, KEYS[1])
+            redis.call('ZADD', KEYS[2], now + keep, ARGV[4])
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now)
+            redis.call('EXPIRE', KEYS[2], keep)
+            return 1
+            """;
+
+    private static final String COMPARE_AND_DELETE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private final RedisClusterCommands<String, String> commands;
+    private final String instanceId = UUID.randomUUID().toString();
+    private Thread worker;
+    private volatile boolean running;
+
+    public LegacyUsageKeyMigration(
+            @Qualifier("usageRedisConnection") RedisEndpoint.Connection<String> connection) {
+        this.commands = connection.sync();
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("legacy-usage-key-migration").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(Duration.ofSeconds(5).toMillis());
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (migrateOnce()) {
+                    return;
+                }
+            }
+            catch (Exception e) {
+                // Untouched counters and staging keys are picked up by the next run
+                LOGGER.warn("Failed to move usage counters to compact keys: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(RUN_INTERVAL);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs the migration if it is not done yet and no other instance is running it.
+     *
+     * @return Whether the migration is done
+     */
+    boolean migrateOnce() {
+        if (commands.get(DONE_KEY) != null) {
+            return true;
+        }
+        if (!"OK".equals(commands.set(LOCK_KEY, instanceId,
+                SetArgs.Builder.nx().px(LOCK_TTL.toMillis())))) {
+            return false;
+        }
+        try {
+            int moved = migrate();
+            if (moved > 0) {
+                LOGGER.info("Moved {} usage keys to compact keys", moved);
+                return false;
+            }
+            commands.set(DONE_KEY, Instant.now().toString());
+            LOGGER.info("No usage keys left under the text key scheme");
+            return true;
+        }
+        finally {
+            commands.eval(COMPARE_AND_DELETE_SCRIPT, ScriptOutputType.INTEGER,
+                    new String[]{LOCK_KEY}, instanceId);
+        }
+    }
+
+    /**
+     * @return Number of counters moved and token buckets deleted
+     */
+    int migrate() {
+        int moved = 0;
+        ScanCursor cursor = ScanCursor.INITIAL;
+        ScanArgs args = ScanArgs.Builder.matches(USAGE_PATTERN).limit(SCAN_BATCH_SIZE);
+        do {
+            KeyScanCursor<String> result = commands.scan(cursor, args);
+            for (String key : result.getKeys()) {
+                if (key.startsWith(STAGING_PREFIX)) {
+                    // Left behind by a failed run, or staged earlier in this one
+                    moved += mergeStaged(key);
+                }
+                else if (compactKey(key) != null) {
+                    String staging = stagingKey(key, UUID.randomUUID());
+                    try {
+                        commands.rename(key, staging);
+                    }
+                    catch (RedisCommandExecutionException e) {
+                        // Expired or moved by another run since the scan
+                        continue;
+                    }
+                    moved += mergeStaged(staging);
+                }
+            }
+            cursor = result;
+        } while (!cursor.isFinished());
+
+        cursor = ScanCursor.INITIAL;
+        args = ScanArgs.Builder.matches(RATE_LIMIT_PATTERN).limit(SCAN_BATCH_SIZE);
+        do {
+            KeyScanCursor<String> result = commands.scan(cursor, args);
+            for (String key : result.getKeys()) {
+                commands.del(key);
+                moved++;
+            }
+            cursor = result;
+        } while (!cursor.isFinished());
+        return moved;
+    }
+
+    private int mergeStaged(String staging) {
+        String legacyKey = legacyKey(staging);
+        String target = legacyKey != null ? compactKey(legacyKey) : null;
+        String value = commands.get(staging);
+        if (target == null || value == null) {
+            commands.del(staging);
+            return 0;
+        }
+        Long ttl = commands.pttl(staging);
+        String mode = legacyKey.startsWith("usage:" + RedisKeys.USAGE_PEAK + ":") ? "max" : "sum";
+        UUID environmentId = environmentId(legacyKey);
+        commands.eval(MERGE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{target, RedisKeys.environmentKeys(environmentId)}, value, mode,
+                String.valueOf(ttl != null ? ttl : -1), staging,
+                String.valueOf(Instant.now().getEpochSecond()),
+                String.valueOf(DefaultRateLimitService.USAGE_KEY_TTL_SECONDS));
+        commands.del(staging);
+        return 1;
+    }
+
+    /**
+     * A unique key in the slot of {@code key}: the hash tag of a tagged key is kept, an untagged
+     * key becomes the hash tag.
+     */
+    static String stagingKey(String key, UUID nonce) {
+        String slotted = key.contains("{") ? key : "{" + key + "}";
+        return STAGING_PREFIX + slotted + ":" + nonce;
+    }
+
+    /**
+     * The text counter key a staging key was renamed from, or null if it is no staging key.
+     */
+    static @Nullable String legacyKey(String staging) {
+        int nonce = staging.lastIndexOf(':');
+        if (!staging.startsWith(STAGING_PREFIX) || nonce < STAGING_PREFIX.length()) {
+            return null;
+        }
+        String key = staging.substring(STAGING_PREFIX.length(), nonce);
+        if (key.startsWith("{") && key.endsWith("}")) {
+            key = key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    /**
+     * The compact key for a text counter key, or null if the key needs no migration. Per-second
+     * counters expire within seconds and are left alone.
+     */
+    static @Nullable String compactKey(String key) {
+        String[] parts = key.split(":", 4);
+        if (parts.length != 4 || !"usage".equals(parts[0])) {
+            return null;
+        }
+        try {
+            UUID environmentId = environmentId(key);
+            return switch (parts[1]) {
+                case RedisKeys.USAGE_MONTHLY ->
+                        RedisKeys.usageMonthly(environmentId, YearMonth.parse(parts[3]));
+                case RedisKeys.USAGE_DAILY ->
+                        RedisKeys.usageDaily(environmentId, LocalDate.parse(parts[3]));
+                case RedisKeys.USAGE_PEAK ->
+                        RedisKeys.usagePeak(environmentId, LocalDate.parse(parts[3]));
+                case RedisKeys.USAGE_REJECTED ->
+                        RedisKeys.usageRejected(environmentId, LocalDate.parse(parts[3]));
+                default -> null;
+            };
+        }
+        catch (IllegalArgumentException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static UUID environmentId(String key) {
+        String environment = key.split(":", 4)[2];
+        if (environment.startsWith("{") && environment.endsWith("}")) {
+            environment = environment.substring(1, environment.length() - 1);
+        }
+        return UUID.fromString(environment);
+    }
+}
@@ -42,13 +42,8 @@ public class NoOpRateLimitService implements RateLimitService {
     }
 
     @Override
-    public void incrementDailyUsage(UUID environmentId) {
-        // No-op
-    }
-
-    @Override
-    public void trackPeakBurst(UUID environmentId) {
-        // No-op
+    public long recordUsage(UUID environmentId) {
+        return 0;
     }
 
     @Override
@@ -38,8 +38,32 @@ public class NoOpTemplateCacheService implements TemplateCacheService {
         // No-op - cache disabled
     }
 
+    @Override
+    public void putReference(UUID appId, UUID envId, TemplateType type, String identifier,
+            String targetIdentifier) {
+        // No-op - cache disabled
+    }
+
+    @Override
+    public Optional<byte[]> getVariant(UUID appId, UUID envId, TemplateType type,
+            String identifier, String variant) {
+        // Always return empty - cache disabled
+        return Optional.empty();
+    }
+
+    @Override
+    public void putVariant(UUID appId, UUID envId, TemplateType type, String identifier,
+            String variant, byte[] value) {
+        // No-op - cache disabled
+    }
+
     @Override
     public void invalidate(CacheInvalidationEvent event) {
         // No-op - cache disabled
     }
+
+    @Override
+    public void invalidateAll() {
+        // No-op - cache disabled
+    }
 }
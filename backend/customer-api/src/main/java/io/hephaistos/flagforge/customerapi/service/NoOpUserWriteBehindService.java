@@ -0,0 +1,40 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * No-op implementation of UserWriteBehindService used when write-behind is disabled. Every write
+ * goes to Postgres synchronously.
+ */
+@Service
+@ConditionalOnProperty(name = "flagforge.write-behind.enabled", havingValue = "false",
+        matchIfMissing = true)
+public class NoOpUserWriteBehindService implements UserWriteBehindService {
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean enqueue(UUID applicationId, UUID environmentId, String userId,
+            Map<String, Object> values) {
+        return false;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> pendingValues(UUID applicationId, UUID environmentId,
+            String userId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean hasPendingWrite(UUID applicationId, UUID environmentId, String userId) {
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesWriteResult;
+
+/**
+ * Outcome of a USER override merge patch.
+ *
+ * @param result The resulting row version and whether the values changed
+ * @param merged The merged view of the values the patch stored
+ */
+public record PatchedUserValues(UserValuesWriteResult result,
+                                MergedTemplateValuesResponse merged) {
+}
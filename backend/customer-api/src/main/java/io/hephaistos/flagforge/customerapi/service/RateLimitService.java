@@ -43,23 +43,17 @@ public interface RateLimitService {
     long getRemainingMonthlyQuota(UUID environmentId, long monthlyLimit);
 
     /**
-     * Increment the daily usage counter for the environment.
+     * Count an allowed request: increments the monthly and daily usage counters and updates the
+     * daily peak of requests per second, in one round trip to Redis.
      *
      * @param environmentId The environment UUID
+     * @return The new monthly counter value
      */
-    void incrementDailyUsage(UUID environmentId);
-
-    /**
-     * Track peak requests per second for the environment. Updates the daily peak if the current
-     * second's request count exceeds the stored peak.
-     *
-     * @param environmentId The environment UUID
-     */
-    void trackPeakBurst(UUID environmentId);
+    long recordUsage(UUID environmentId);
 
     /**
      * Increment the daily rejected requests counter for the environment. Called when a request is
-     * denied due to rate limiting.
+     * denied due to rate limiting; does not wait for Redis.
      *
      * @param environmentId The environment UUID
      */
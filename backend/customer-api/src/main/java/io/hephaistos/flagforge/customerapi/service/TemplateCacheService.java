@@ -37,10 +37,56 @@ public interface TemplateCacheService {
     void put(UUID appId, UUID envId, TemplateType type, String identifier,
             MergedTemplateValuesResponse value);
 
+    /**
+     * Cache a reference to another entry of the same application, environment and type. Looking
+     * up {@code identifier} then returns the target's response with {@code identifier} as the
+     * applied identifier, so many identifiers can share one stored response.
+     *
+     * @param appId            Application UUID
+     * @param envId            Environment UUID
+     * @param type             Template type (SYSTEM or USER)
+     * @param identifier       The identifier to store the reference under
+     * @param targetIdentifier The identifier of the entry holding the response
+     */
+    void putReference(UUID appId, UUID envId, TemplateType type, String identifier,
+            String targetIdentifier);
+
+    /**
+     * Get a cached alternative representation (e.g. a binary encoding) of a template response.
+     * Variants are stored next to the cached response and invalidated together with it.
+     *
+     * @param appId      Application UUID
+     * @param envId      Environment UUID
+     * @param type       Template type (SYSTEM or USER)
+     * @param identifier For SYSTEM: the identifier; for USER: the userId
+     * @param variant    Variant name, e.g. the encoding
+     * @return Cached bytes if present, empty otherwise
+     */
+    Optional<byte[]> getVariant(UUID appId, UUID envId, TemplateType type, String identifier,
+            String variant);
+
+    /**
+     * Cache an alternative representation of a template response.
+     *
+     * @param appId      Application UUID
+     * @param envId      Environment UUID
+     * @param type       Template type (SYSTEM or USER)
+     * @param identifier For SYSTEM: the identifier; for USER: the userId
+     * @param variant    Variant name, e.g. the encoding
+     * @param value      The encoded representation
+     */
+    void putVariant(UUID appId, UUID envId, TemplateType type, String identifier, String variant,
+            byte[] value);
+
     /**
      * Invalidate cache entries based on an invalidation event.
      *
      * @param event The invalidation event describing what to invalidate
      */
     void invalidate(CacheInvalidationEvent event);
+
+    /**
+     * Invalidate every cached template, e.g. after missing invalidation events.
+     */
+    void invalidateAll();
 }
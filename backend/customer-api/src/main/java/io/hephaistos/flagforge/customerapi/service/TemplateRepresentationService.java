@@ -0,0 +1,45 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.customerapi.encoding.EncodedTemplate;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateProjection;
+import org.jspecify.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Serves template responses in a negotiated encoding and optional field projection. Encoded
+ * payloads, and gzip copies of large ones, are cached next to the JSON cache entry so a cache hit
+ * is returned without re-encoding or compressing.
+ */
+public interface TemplateRepresentationService {
+
+    /**
+     * Get merged SYSTEM template values in the requested encoding.
+     *
+     * @param applicationId The application ID (from API key)
+     * @param environmentId The environment ID (from API key)
+     * @param identifier    Optional identifier to apply override for
+     * @param encoding      The negotiated encoding
+     * @param projection    Requested fields and whether to include the schema
+     * @param acceptsGzip   Whether the client accepts a gzip-compressed body
+     * @return Encoded payload
+     */
+    EncodedTemplate getSystemValues(UUID applicationId, UUID environmentId,
+            @Nullable String identifier, TemplateEncoding encoding, TemplateProjection projection,
+            boolean acceptsGzip);
+
+    /**
+     * Get merged USER template values for a specific user in the requested encoding.
+     *
+     * @param applicationId The application ID (from API key)
+     * @param environmentId The environment ID (from API key)
+     * @param userId        The user identifier
+     * @param encoding      The negotiated encoding
+     * @param projection    Requested fields and whether to include the schema
+     * @param acceptsGzip   Whether the client accepts a gzip-compressed body
+     * @return Encoded payload
+     */
+    EncodedTemplate getUserValues(UUID applicationId, UUID environmentId, String userId,
+            TemplateEncoding encoding, TemplateProjection projection, boolean acceptsGzip);
+}
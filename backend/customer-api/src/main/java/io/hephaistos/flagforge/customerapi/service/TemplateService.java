@@ -1,6 +1,11 @@
 package io.hephaistos.flagforge.customerapi.service;
 
+import io.hephaistos.flagforge.customerapi.controller.dto.EnvironmentSnapshotResponse;
 import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesWriteResult;
+import io.hephaistos.flagforge.customerapi.exception.PreconditionFailedException;
+import io.hephaistos.flagforge.customerapi.exception.WriteBehindUnavailableException;
+import io.hephaistos.flagforge.customerapi.exception.WritePendingException;
 import org.jspecify.annotations.Nullable;
 
 import java.util.Map;
@@ -11,6 +16,12 @@ import java.util.UUID;
  */
 public interface TemplateService {
 
+    /**
+     * Expected version matching any stored version ({@code If-Match: *}): the write only happens
+     * if the user already has overrides. Row versions start at 0, so it never matches a real one.
+     */
+    long ANY_VERSION = -1;
+
     /**
      * Get merged SYSTEM template values for the given application and environment. Starts with
      * schema defaults and optionally applies a single identifier override.
@@ -40,14 +51,66 @@ public interface TemplateService {
             String userId);
 
     /**
-     * Set USER template overrides for a specific user. Creates or updates the user's override
-     * values.
+     * Queue a full replacement of a user's overrides when write-behind is enabled. Queued values
+     * are visible to reads immediately and stored by the background flusher.
      *
      * @param applicationId The application ID (from API key)
      * @param environmentId The environment ID (from API key)
      * @param userId        The user identifier string
      * @param values        The override values to set
+     * @return True if the write was queued; false if it has to go through
+     * {@link #setUserValues}
      */
-    void setUserValues(UUID applicationId, UUID environmentId, String userId,
+    boolean queueUserValues(UUID applicationId, UUID environmentId, String userId,
             Map<String, Object> values);
+
+    /**
+     * Set USER template overrides for a specific user. Creates or updates the user's override
+     * values in a single statement; writing values equal to the stored ones is a no-op and does not
+     * invalidate the cache.
+     *
+     * @param applicationId   The application ID (from API key)
+     * @param environmentId   The environment ID (from API key)
+     * @param userId          The user identifier string
+     * @param values          The override values to set
+     * @param expectedVersion If set, only write when the stored overrides are at this version, or
+     *                        exist at all for {@link #ANY_VERSION}
+     * @return The resulting row version and whether the values changed
+     * @throws PreconditionFailedException     if {@code expectedVersion} does not match
+     * @throws WritePendingException           if a queued write for the user is not stored yet
+     * @throws WriteBehindUnavailableException if the write-behind queue cannot be checked
+     */
+    UserValuesWriteResult setUserValues(UUID applicationId, UUID environmentId, String userId,
+            Map<String, Object> values, @Nullable Long expectedVersion);
+
+    /**
+     * Apply a JSON Merge Patch (RFC 7396) to a user's USER template overrides. Keys mapped to
+     * {@code null} are removed, all others are set; nested objects replace the stored value as a
+     * whole since override values are flat. The patch is applied inside the database in a single
+     * statement, so concurrent patches to different keys do not overwrite each other.
+     *
+     * @param applicationId   The application ID (from API key)
+     * @param environmentId   The environment ID (from API key)
+     * @param userId          The user identifier string
+     * @param patch           The merge patch
+     * @param expectedVersion If set, only write when the stored overrides are at this version, or
+     *                        exist at all for {@link #ANY_VERSION}
+     * @return The resulting row version, whether the values changed and the merged values as
+     * stored by this patch
+     * @throws PreconditionFailedException     if {@code expectedVersion} does not match
+     * @throws WritePendingException           if a queued write for the user is not stored yet
+     * @throws WriteBehindUnavailableException if the write-behind queue cannot be checked
+     */
+    PatchedUserValues patchUserValues(UUID applicationId, UUID environmentId, String userId,
+            Map<String, @Nullable Object> patch, @Nullable Long expectedVersion);
+
+    /**
+     * Get an unmerged snapshot of everything needed to serve SYSTEM and USER reads for an
+     * environment without per-user overrides. Used by relay proxies to keep a local copy.
+     *
+     * @param applicationId The application ID (from API key)
+     * @param environmentId The environment ID (from API key)
+     * @return Template schemas, SYSTEM overrides and USER environment defaults
+     */
+    EnvironmentSnapshotResponse getEnvironmentSnapshot(UUID applicationId, UUID environmentId);
 }
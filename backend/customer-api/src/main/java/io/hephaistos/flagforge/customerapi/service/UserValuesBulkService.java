@@ -0,0 +1,43 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.customerapi.controller.dto.BulkImportResponse;
+import io.hephaistos.flagforge.customerapi.encoding.BulkFormat;
+import io.hephaistos.flagforge.customerapi.exception.InvalidImportException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * Service for bulk import and export of USER template overrides of a whole environment.
+ */
+public interface UserValuesBulkService {
+
+    /**
+     * Import user overrides from a line-oriented upload. Each record names the user either by
+     * {@code userId} (hashed like the single-user endpoint) or by {@code userUuid} (as produced by
+     * {@link #exportValues}). Records are written in batches, so memory use does not grow with the
+     * upload, and the environment's USER cache is invalidated once at the end.
+     *
+     * @param applicationId The application ID (from API key)
+     * @param environmentId The environment ID (from API key)
+     * @param format        The upload format
+     * @param input         The upload body
+     * @return Counts of processed, changed and unchanged records
+     * @throws InvalidImportException on a malformed record
+     */
+    BulkImportResponse importValues(UUID applicationId, UUID environmentId, BulkFormat format,
+            InputStream input);
+
+    /**
+     * Stream every user's overrides in the environment. Users are identified by their hashed UUID
+     * since the original identifier is not stored.
+     *
+     * @param applicationId The application ID (from API key)
+     * @param environmentId The environment ID (from API key)
+     * @param format        The output format
+     * @param output        Where to write the records
+     */
+    void exportValues(UUID applicationId, UUID environmentId, BulkFormat format,
+            OutputStream output);
+}
@@ -0,0 +1,43 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Encodes and decodes the optional binary representation of user overrides
+ * ({@code values_bin}) and reports how new overrides are written.
+ */
+public interface UserValuesStorage {
+
+    /**
+     * @return Whether new full writes are stored in the binary format
+     */
+    boolean writesBinary();
+
+    /**
+     * @return Whether new full writes store the document once per distinct payload and reference
+     * it by hash
+     */
+    boolean deduplicates();
+
+    /**
+     * Encode overrides for storage.
+     *
+     * @param applicationId The application whose USER template defines the field ordinals
+     * @param values        The override values
+     * @return The binary encoding, or null if the values are to be stored as JSON
+     */
+    byte @Nullable [] encode(UUID applicationId, Map<String, ? extends @Nullable Object> values);
+
+    /**
+     * Decode stored binary overrides into {@code target}. Works regardless of the configured write
+     * format, so rows stay readable after switching back to JSON.
+     *
+     * @param applicationId The application whose USER template defines the field ordinals
+     * @param encoded       The stored {@code values_bin}
+     * @param target        Map the decoded values are put into
+     */
+    void decodeInto(UUID applicationId, byte[] encoded, Map<String, @Nullable Object> target);
+}
@@ -0,0 +1,55 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.customerapi.exception.WriteBehindUnavailableException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Queue for USER override writes that are acknowledged before they reach Postgres. Queued values
+ * stay visible to reads through a pending overlay until the flusher has written them.
+ */
+public interface UserWriteBehindService {
+
+    /**
+     * @return Whether writes may be queued at all
+     */
+    boolean isEnabled();
+
+    /**
+     * Queue a full replacement of a user's overrides.
+     *
+     * @param applicationId The application ID (from API key)
+     * @param environmentId The environment ID (from API key)
+     * @param userId        The user identifier string
+     * @param values        The override values to set
+     * @return True if the write was queued; false if the caller has to write synchronously
+     */
+    boolean enqueue(UUID applicationId, UUID environmentId, String userId,
+            Map<String, Object> values);
+
+    /**
+     * Get the most recent queued values of a user that have not been flushed yet.
+     *
+     * @param applicationId The application ID
+     * @param environmentId The environment ID
+     * @param userId        The user identifier string
+     * @return The pending override values, or empty if nothing is queued
+     */
+    Optional<Map<String, Object>> pendingValues(UUID applicationId, UUID environmentId,
+            String userId);
+
+    /**
+     * Check whether a user has a queued write that has not been flushed yet. Unlike
+     * {@link #pendingValues}, which falls back to the stored values, this fails when the queue
+     * cannot be reached: a synchronous write must not guess.
+     *
+     * @param applicationId The application ID
+     * @param environmentId The environment ID
+     * @param userId        The user identifier string
+     * @return Whether a queued write is pending
+     * @throws WriteBehindUnavailableException if the queue cannot be checked
+     */
+    boolean hasPendingWrite(UUID applicationId, UUID environmentId, String userId);
+}
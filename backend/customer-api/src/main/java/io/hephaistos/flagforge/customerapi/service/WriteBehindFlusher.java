@@ -0,0 +1,284 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.util.UserIdHasher;
+import io.hephaistos.flagforge.customerapi.configuration.WriteBehindProperties;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesRecord;
+import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateValuesBulkRepository;
+import io.hephaistos.flagforge.customerapi.service.WriteCoalescer.EnvironmentKey;
+import io.hephaistos.flagforge.customerapi.service.WriteCoalescer.QueuedWrite;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.XTrimArgs;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.FIELD_APPLICATION;
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.FIELD_ENVIRONMENT;
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.FIELD_USER;
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.FIELD_VALUES;
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.STREAM_KEY;
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.pendingKey;
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.pendingValue;
+
+/**
+ * Drains the write-behind stream into Postgres. Only the instance holding the flusher lock reads
+ * the stream, so entries are applied in stream order; within a batch the last write per user wins.
+ * The cursor only advances after the batch committed, and re-applying a batch is idempotent.
+ * <p>
+ * The lock is a lease: a flusher that stalls past its TTL may find another instance has taken
+ * over. Every Postgres transaction therefore renews the lease right before it commits and rolls
+ * back if it is gone, and the cursor only moves in the same script that checks the lease, so a
+ * stale flusher can neither store an old batch over a newer one nor move the cursor.
+ */
+@Component
+@ConditionalOnProperty(name = "flagforge.write-behind.enabled", havingValue = "true")
+public class WriteBehindFlusher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindFlusher.class);
+
+    static final String CURSOR_KEY = "template:{writes}:cursor";
+    static final String LOCK_KEY = "template:{writes}:flusher";
+    private static final Duration LOCK_TTL = Duration.ofSeconds(30);
+    private static final Duration ERROR_BACKOFF = Duration.ofSeconds(1);
+
+    private static final String RENEW_LOCK_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """;
+
+    /**
+     * Moves the cursor only while the caller still holds the lock. Lock and cursor share the
+     * {@code {writes}} hash tag, so this also runs on a Redis Cluster.
+     */
+    private static final String ADVANCE_CURSOR_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('SET', KEYS[2], ARGV[2])
+                return 1
+            end
+            return 0
+            """;
+
+    /**
+     * Deletes the key only if it still holds the given value. Used for the pending overlay, so a
+     * newer queued write keeps its overlay until its own flush, and for releasing the lock.
+     */
+    private static final String COMPARE_AND_DELETE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private final UserTemplateValuesBulkRepository bulkRepository;
+    private final TemplateCacheService cacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final WriteCoalescer coalescer = new WriteCoalescer();
+
+    private final RedisEndpoint.Connection<String> connection;
+    private final RedisClusterCommands<String, String> commands;
+    private Thread worker;
+    private volatile boolean running;
+
+    public WriteBehindFlusher(@Qualifier("cacheRedisEndpoint") RedisEndpoint redisEndpoint,
+            UserTemplateValuesBulkRepository bulkRepository, TemplateCacheService cacheService,
+            PlatformTransactionManager transactionManager, WriteBehindProperties properties) {
+        this.connection = redisEndpoint.connect();
+        this.commands = connection.sync();
+        this.bulkRepository = bulkRepository;
+        this.cacheService = cacheService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("write-behind-flusher").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        // The worker wakes up at the latest when its blocking read times out
+        worker.join(properties.flushInterval().plus(ERROR_BACKOFF).toMillis());
+        try {
+            commands.eval(COMPARE_AND_DELETE_SCRIPT, ScriptOutputType.INTEGER,
+                    new String[]{LOCK_KEY}, instanceId);
+        }
+        catch (Exception e) {
+            LOGGER.debug("Could not release write-behind flusher lock: {}", e.getMessage());
+        }
+        connection.close();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (holdsLock()) {
+                    flushOnce();
+                }
+                else {
+                    Thread.sleep(properties.flushInterval());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (Exception e) {
+                LOGGER.warn("Write-behind flush failed, retrying: {}", e.getMessage());
+                try {
+                    Thread.sleep(ERROR_BACKOFF);
+                }
+                catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    boolean holdsLock() {
+        if ("OK".equals(commands.set(LOCK_KEY, instanceId,
+                SetArgs.Builder.nx().px(LOCK_TTL.toMillis())))) {
+            return true;
+        }
+        return renewLock();
+    }
+
+    private boolean renewLock() {
+        Long renewed = commands.eval(RENEW_LOCK_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{LOCK_KEY}, instanceId, String.valueOf(LOCK_TTL.toMillis()));
+        return renewed != null && renewed == 1L;
+    }
+
+    /**
+     * Reads one batch after the cursor, writes it and advances the cursor.
+     *
+     * @return Number of stream entries consumed
+     */
+    int flushOnce() {
+        String cursor = commands.get(CURSOR_KEY);
+        List<StreamMessage<String, String>> messages = commands.xread(
+                XReadArgs.Builder.count(properties.batchSize())
+                        .block(properties.flushInterval().toMillis()),
+                XReadArgs.StreamOffset.from(STREAM_KEY, cursor == null ? "0-0" : cursor));
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
+
+        for (StreamMessage<String, String> message : messages) {
+            QueuedWrite write = toQueuedWrite(message);
+            if (write != null) {
+                coalescer.add(write);
+            }
+        }
+        int added = coalescer.added();
+        Map<EnvironmentKey, List<QueuedWrite>> drained = coalescer.drain();
+        try {
+            drained.forEach(this::writeEnvironment);
+        }
+        catch (LeaseLostException e) {
+            // The new lock holder reads the batch again from the unchanged cursor
+            LOGGER.info("Lost the write-behind flusher lock during a flush - leaving the batch");
+            return 0;
+        }
+
+        for (QueuedWrite write : WriteCoalescer.flatten(drained)) {
+            cacheService.invalidate(
+                    new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE,
+                            write.applicationId(), write.environmentId(), TemplateType.USER,
+                            write.userId()));
+            commands.eval(COMPARE_AND_DELETE_SCRIPT, ScriptOutputType.INTEGER,
+                    new String[]{pendingKey(write.applicationId(), write.environmentId(),
+                            write.userId())}, pendingValue(write.entryId(), write.values()));
+        }
+
+        String lastId = messages.getLast().getId();
+        Long advanced = commands.eval(ADVANCE_CURSOR_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{LOCK_KEY, CURSOR_KEY}, instanceId, lastId);
+        if (advanced == null || advanced != 1L) {
+            LOGGER.info("Lost the write-behind flusher lock before moving the cursor");
+            return 0;
+        }
+        commands.xtrim(STREAM_KEY, XTrimArgs.Builder.minId(lastId));
+
+        LOGGER.debug("Flushed {} queued user writes as {} rows", added,
+                WriteCoalescer.flatten(drained).size());
+        return messages.size();
+    }
+
+    private void writeEnvironment(EnvironmentKey environment, List<QueuedWrite> writes) {
+        List<UserValuesRecord> records = writes.stream()
+                .map(write -> new UserValuesRecord(UserIdHasher.toUuid(write.userId()), 0,
+                        write.values()))
+                .toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bulkRepository.upsertBatch(environment.applicationId(),
+                        environment.environmentId(), records);
+                // Renewing gives the commit a full lease; a lost lease rolls the batch back
+                if (!renewLock()) {
+                    throw new LeaseLostException();
+                }
+            });
+        }
+        catch (DataIntegrityViolationException e) {
+            // Retrying cannot succeed (e.g. the environment was deleted); don't block the stream
+            LOGGER.error("Dropping {} queued user writes for env {}: {}", writes.size(),
+                    environment.environmentId(), e.getMessage());
+        }
+    }
+
+    private static @Nullable QueuedWrite toQueuedWrite(StreamMessage<String, String> message) {
+        Map<String, String> body = message.getBody();
+        try {
+            return new QueuedWrite(message.getId(),
+                    UUID.fromString(body.get(FIELD_APPLICATION)),
+                    UUID.fromString(body.get(FIELD_ENVIRONMENT)),
+                    Objects.requireNonNull(body.get(FIELD_USER), FIELD_USER),
+                    Objects.requireNonNull(body.get(FIELD_VALUES), FIELD_VALUES));
+        }
+        catch (RuntimeException e) {
+            LOGGER.error("Skipping malformed write-behind entry {}: {}", message.getId(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Thrown inside a flush transaction to roll it back once another instance holds the lock.
+     */
+    private static final class LeaseLostException extends RuntimeException {
+
+        LeaseLostException() {
+            super("write-behind flusher lock lost", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collapses queued writes to the same user so a flush writes each user once, with the value of
+ * their latest write. Writes must be added in queue order; the last one added for a user wins.
+ */
+public class WriteCoalescer {
+
+    private final Map<Key, QueuedWrite> latest = new LinkedHashMap<>();
+    private int added;
+
+    public void add(QueuedWrite write) {
+        latest.put(new Key(write.applicationId(), write.environmentId(), write.userId()), write);
+        added++;
+    }
+
+    /**
+     * @return Number of writes added since the last drain, before coalescing
+     */
+    public int added() {
+        return added;
+    }
+
+    public boolean isEmpty() {
+        return latest.isEmpty();
+    }
+
+    /**
+     * Returns the coalesced writes grouped by environment and resets the coalescer.
+     */
+    public Map<EnvironmentKey, List<QueuedWrite>> drain() {
+        Map<EnvironmentKey, List<QueuedWrite>> byEnvironment = new LinkedHashMap<>();
+        for (QueuedWrite write : latest.values()) {
+            byEnvironment.computeIfAbsent(
+                    new EnvironmentKey(write.applicationId(), write.environmentId()),
+                    key -> new ArrayList<>()).add(write);
+        }
+        latest.clear();
+        added = 0;
+        return byEnvironment;
+    }
+
+    /**
+     * Convenience for callers that do not need the grouping.
+     */
+    public static Collection<QueuedWrite> flatten(Map<EnvironmentKey, List<QueuedWrite>> drained) {
+        return drained.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * One queued write.
+     *
+     * @param entryId       Queue entry ID, increasing in queue order
+     * @param applicationId The application ID
+     * @param environmentId The environment ID
+     * @param userId        The user identifier string (not hashed)
+     * @param values        The override values as compact JSON text
+     */
+    public record QueuedWrite(String entryId, UUID applicationId, UUID environmentId,
+                              String userId, String values) {
+    }
+
+    public record EnvironmentKey(UUID applicationId, UUID environmentId) {
+    }
+
+    private record Key(UUID applicationId, UUID environmentId, String userId) {
+    }
+}
@@ -1,19 +1,15 @@
 package io.hephaistos.flagforge.customerapi;
 
 import com.redis.testcontainers.RedisContainer;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
 import io.hephaistos.flagforge.customerapi.configuration.RateLimitProperties;
-import io.lettuce.core.RedisClient;
-import io.lettuce.core.RedisURI;
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.codec.ByteArrayCodec;
-import io.lettuce.core.codec.RedisCodec;
-import io.lettuce.core.codec.StringCodec;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 
 /**
- * Test configuration that provides a Redis Testcontainer for integration tests.
+ * Test configuration that provides a Redis Testcontainer for integration tests. Rate limiting and
+ * the template cache both point at it.
  * <p>
  * The container is shared across all tests for performance.
  */
@@ -34,26 +30,13 @@ public class RedisTestContainerConfiguration {
     @Bean
     @Primary
     public RateLimitProperties rateLimitProperties() {
-        return new RateLimitProperties(true, REDIS.getRedisURI(), true);
+        return new RateLimitProperties(true, REDIS.getRedisURI(), false, true, null);
     }
 
     @Bean
     @Primary
-    public RedisClient testRedisClient() {
-        return RedisClient.create(RedisURI.create(REDIS.getRedisURI()));
-    }
-
-    @Bean(name = "rateLimitRedisConnection")
-    @Primary
-    public StatefulRedisConnection<String, byte[]> testRateLimitRedisConnection(
-            RedisClient testRedisClient) {
-        return testRedisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
-    }
-
-    @Bean(name = "usageRedisConnection")
-    @Primary
-    public StatefulRedisConnection<String, String> testUsageRedisConnection(
-            RedisClient testRedisClient) {
-        return testRedisClient.connect();
+    public CacheProperties cacheProperties() {
+        return new CacheProperties(true, 300, 0, null, REDIS.getRedisURI(), false, null, null,
+                null);
     }
 }
@@ -0,0 +1,237 @@
+package io.hephaistos.flagforge.customerapi.cache;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
+import io.hephaistos.flagforge.customerapi.service.TemplateCacheService;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationSubscriberTest {
+
+    @Mock
+    private RedisEndpoint redisEndpoint;
+
+    @Mock
+    private RedisEndpoint.Connection<String> connection;
+
+    @Mock
+    private RedisCommands<String, String> commands;
+
+    @Mock
+    private TemplateCacheService cacheService;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CacheInvalidationSubscriber subscriber;
+    private UUID appId;
+
+    @BeforeEach
+    void setUp() {
+        when(redisEndpoint.connect()).thenReturn(connection);
+        when(connection.sync()).thenReturn(commands);
+        subscriber = new CacheInvalidationSubscriber(redisEndpoint, cacheService, jsonMapper,
+                new CacheProperties(true, 300, 0, null, null, false, null, null, null),
+                meterRegistry);
+        appId = UUID.randomUUID();
+    }
+
+    @Test
+    void appliesEntriesAndRecordsPosition() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(Map.of());
+        var first = event("a");
+        var second = event("b");
+        whenRead(entry("1-0", 1, first), entry("2-0", 2, second));
+
+        assertThat(subscriber.pollOnce()).isEqualTo(2);
+
+        InOrder order = inOrder(cacheService);
+        order.verify(cacheService).invalidate(first);
+        order.verify(cacheService).invalidate(second);
+        verify(cacheService, never()).invalidateAll();
+        verify(commands).eval(eq(CacheInvalidationSubscriber.ADVANCE_SCRIPT),
+                eq(ScriptOutputType.INTEGER),
+                eq(new String[]{CacheInvalidationSubscriber.LEASE_KEY,
+                        CacheInvalidationSubscriber.APPLIED_KEY}), anyString(), eq("2-0"), eq("2"),
+                anyString());
+    }
+
+    @Test
+    void standsByWhileAnotherInstanceReads() {
+        when(commands.get(CacheInvalidationEvent.SEQUENCE_KEY)).thenReturn("9");
+        when(commands.hget(CacheInvalidationSubscriber.APPLIED_KEY, "seq")).thenReturn("6");
+
+        assertThat(subscriber.pollOnce()).isZero();
+
+        verify(commands, never()).xread(any(XReadArgs.class), any(XReadArgs.StreamOffset.class));
+        verify(cacheService, never()).invalidate(any());
+        assertThat(meterRegistry.get("flagforge.cache.invalidation.backlog").gauge().value())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void stopsReadingWhenLeaseWasTakenOver() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(Map.of());
+        whenRead(entry("1-0", 1, event("a")));
+        // Neither recording the position nor renewing the lease succeeds any more
+        doReturn(0L).when(commands).eval(anyString(), eq(ScriptOutputType.INTEGER),
+                any(String[].class), any(String[].class));
+
+        subscriber.pollOnce();
+        subscriber.pollOnce();
+
+        // The second poll only tries to renew the lease, which another instance now holds
+        verify(commands).xread(any(XReadArgs.class), any(XReadArgs.StreamOffset.class));
+    }
+
+    @Test
+    void resumesAfterSharedAppliedPosition() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(
+                Map.of("id", "7-0", "seq", "7"));
+        var event = event("a");
+        whenRead(entry("8-0", 8, event));
+
+        subscriber.pollOnce();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<XReadArgs.StreamOffset<String>> offset =
+                ArgumentCaptor.forClass(XReadArgs.StreamOffset.class);
+        verify(commands).xread(any(XReadArgs.class), offset.capture());
+        assertThat(offset.getValue().toString()).contains("7-0");
+        verify(cacheService).invalidate(event);
+        verify(cacheService, never()).invalidateAll();
+    }
+
+    @Test
+    void flushesCacheWhenEntriesWereTrimmedUnread() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(
+                Map.of("id", "7-0", "seq", "7"));
+        var event = event("a");
+        // Entries #8 and #9 were trimmed before this instance read them
+        whenRead(entry("10-0", 10, event));
+
+        subscriber.pollOnce();
+
+        verify(cacheService).invalidateAll();
+        // The flush already covers the entries read with it
+        verify(cacheService, never()).invalidate(any());
+    }
+
+    @Test
+    void flushesCacheWhenSequenceWasReset() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(
+                Map.of("id", "7-0", "seq", "7"));
+        whenRead(entry("9-0", 1, event("a")));
+
+        subscriber.pollOnce();
+
+        verify(cacheService).invalidateAll();
+    }
+
+    @Test
+    void skipsMalformedEntryWithoutBlockingTheStream() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(Map.of());
+        var event = event("b");
+        whenRead(new StreamMessage<>(CacheInvalidationEvent.STREAM, "1-0",
+                Map.of(CacheInvalidationEvent.FIELD_SEQUENCE, "1",
+                        CacheInvalidationEvent.FIELD_EVENT, "not json")),
+                entry("2-0", 2, event));
+
+        assertThat(subscriber.pollOnce()).isEqualTo(2);
+
+        verify(cacheService).invalidate(event);
+        verify(cacheService, never()).invalidateAll();
+    }
+
+    @Test
+    void schemaChangeSubsumesOverridesReadInTheSameBatch() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(Map.of());
+        var override = event("a");
+        var schemaChange = new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE, appId,
+                null, TemplateType.SYSTEM, null);
+        whenRead(entry("1-0", 1, override), entry("2-0", 2, schemaChange),
+                entry("3-0", 3, override));
+
+        subscriber.pollOnce();
+
+        verify(cacheService).invalidate(schemaChange);
+        verify(cacheService, never()).invalidate(override);
+        assertThat(meterRegistry.get("flagforge.cache.invalidation.events")
+                .tag("outcome", "received")
+                .counter()
+                .count()).isEqualTo(3);
+        assertThat(meterRegistry.get("flagforge.cache.invalidation.events")
+                .tag("outcome", "applied")
+                .counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void reportsEntriesPublishedButNotYetApplied() {
+        when(commands.hgetall(CacheInvalidationSubscriber.APPLIED_KEY)).thenReturn(Map.of());
+        whenRead(entry("1-0", 1, event("a")), entry("2-0", 2, event("b")));
+        when(commands.eval(eq(CacheInvalidationSubscriber.ADVANCE_SCRIPT),
+                eq(ScriptOutputType.INTEGER), any(String[].class), any(String[].class)))
+                .thenReturn(1L);
+        when(commands.get(CacheInvalidationEvent.SEQUENCE_KEY)).thenReturn("5");
+
+        subscriber.pollOnce();
+
+        assertThat(meterRegistry.get("flagforge.cache.invalidation.backlog").gauge().value())
+                .isEqualTo(3);
+    }
+
+    /**
+     * This instance takes the reader lease on the first poll and reads the given entries.
+     */
+    @SafeVarargs
+    private void whenRead(StreamMessage<String, String>... messages) {
+        when(commands.set(eq(CacheInvalidationSubscriber.LEASE_KEY), anyString(),
+                any(SetArgs.class))).thenReturn("OK", (String) null);
+        when(commands.xread(any(XReadArgs.class), any(XReadArgs.StreamOffset.class))).thenReturn(
+                List.of(messages));
+    }
+
+    private CacheInvalidationEvent event(String identifier) {
+        return new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId,
+                UUID.randomUUID(), TemplateType.SYSTEM, identifier);
+    }
+
+    private StreamMessage<String, String> entry(String id, long sequence,
+            CacheInvalidationEvent event) {
+        return new StreamMessage<>(CacheInvalidationEvent.STREAM, id,
+                Map.of(CacheInvalidationEvent.FIELD_SEQUENCE, String.valueOf(sequence),
+                        CacheInvalidationEvent.FIELD_EVENT, jsonMapper.writeValueAsString(event)));
+    }
+}
@@ -0,0 +1,98 @@
+package io.hephaistos.flagforge.customerapi.cache;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
+import io.hephaistos.flagforge.customerapi.service.TemplateCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class PostgresInvalidationListenerTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private TemplateCacheService cacheService;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private PostgresInvalidationListener listener;
+    private UUID appId;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        listener = new PostgresInvalidationListener(dataSource, cacheService, jsonMapper,
+                new CacheProperties(true, 300, 0, null, null, false, null, null, null));
+        appId = UUID.randomUUID();
+    }
+
+    @Test
+    void listensAndAppliesCoalescedNotifications() throws SQLException {
+        var override = new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId,
+                UUID.randomUUID(), TemplateType.SYSTEM, "a");
+        var schemaChange = new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE, appId,
+                null, TemplateType.SYSTEM, null);
+        // Notifications are stubbed before, not while, stubbing the connection
+        PGNotification[] notifications = {notification(override), notification(schemaChange)};
+        when(pgConnection.getNotifications(anyInt())).thenReturn(notifications);
+
+        assertThat(listener.pollOnce()).isEqualTo(2);
+
+        verify(statement).execute("LISTEN template_invalidate");
+        verify(cacheService).invalidate(schemaChange);
+        verify(cacheService, never()).invalidate(override);
+        // Nothing can have been missed before the first connection
+        verify(cacheService, never()).invalidateAll();
+    }
+
+    @Test
+    void returnsZeroWhenNothingWasNotified() throws SQLException {
+        when(pgConnection.getNotifications(anyInt())).thenReturn(new PGNotification[0]);
+
+        assertThat(listener.pollOnce()).isZero();
+
+        verify(cacheService, never()).invalidate(any());
+    }
+
+    private PGNotification notification(CacheInvalidationEvent event) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getParameter()).thenReturn(jsonMapper.writeValueAsString(event));
+        return notification;
+    }
+}
@@ -0,0 +1,107 @@
+package io.hephaistos.flagforge.customerapi.cache;
+
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties.ReadPreference;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class RedisReplicaLagMonitorTest {
+
+    @Mock
+    private RedisEndpoint redisEndpoint;
+
+    @Mock
+    private RedisEndpoint.Connection<String> readConnection;
+
+    @Mock
+    private RedisEndpoint.Connection<byte[]> binaryReadConnection;
+
+    @Mock
+    private RedisEndpoint.Connection<String> probe;
+
+    @Mock
+    private RedisCommands<String, String> commands;
+
+    private RedisReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        when(probe.sync()).thenReturn(commands);
+        monitor = new RedisReplicaLagMonitor(redisEndpoint, readConnection, binaryReadConnection,
+                new CacheProperties(true, 300, 0, null, null, false, null,
+                        ReadPreference.REPLICA_PREFERRED, Duration.ofMillis(1)),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void replicaThatSawTheLastHeartbeatKeepsServingReads() {
+        when(commands.get(anyString())).thenReturn(null);
+        monitor.checkOnce(probe);
+        String heartbeat = lastHeartbeat();
+        when(commands.get(anyString())).thenReturn(heartbeat);
+
+        monitor.checkOnce(probe);
+
+        assertThat(monitor.lagMillis()).isZero();
+        assertThat(monitor.fallback()).isFalse();
+        verify(readConnection, never()).setReadFrom(any());
+    }
+
+    @Test
+    void laggingReplicaSendsReadsToThePrimary() throws InterruptedException {
+        when(commands.get(anyString())).thenReturn(null);
+        monitor.checkOnce(probe);
+        Thread.sleep(5);
+
+        monitor.checkOnce(probe);
+
+        assertThat(monitor.lagMillis()).isGreaterThanOrEqualTo(5);
+        assertThat(monitor.fallback()).isTrue();
+        verify(readConnection).setReadFrom(ReadFrom.UPSTREAM);
+        verify(binaryReadConnection).setReadFrom(ReadFrom.UPSTREAM);
+    }
+
+    @Test
+    void caughtUpReplicaServesReadsAgain() throws InterruptedException {
+        when(commands.get(anyString())).thenReturn(null);
+        monitor.checkOnce(probe);
+        Thread.sleep(5);
+        monitor.checkOnce(probe);
+        String heartbeat = lastHeartbeat();
+        when(commands.get(anyString())).thenReturn(heartbeat);
+
+        monitor.checkOnce(probe);
+
+        assertThat(monitor.fallback()).isFalse();
+        verify(readConnection).setReadFrom(ReadFrom.REPLICA_PREFERRED);
+        verify(binaryReadConnection).setReadFrom(ReadFrom.REPLICA_PREFERRED);
+    }
+
+    private String lastHeartbeat() {
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(commands, atLeastOnce()).set(anyString(), value.capture(), any(SetArgs.class));
+        return value.getValue();
+    }
+}
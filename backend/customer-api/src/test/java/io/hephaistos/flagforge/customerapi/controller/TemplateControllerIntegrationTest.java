@@ -14,7 +14,10 @@ import io.hephaistos.flagforge.common.types.TemplateSchema;
 import io.hephaistos.flagforge.customerapi.IntegrationTestSupport;
 import io.hephaistos.flagforge.customerapi.PostgresTestContainerConfiguration;
 import io.hephaistos.flagforge.customerapi.RedisTestContainerConfiguration;
+import io.hephaistos.flagforge.customerapi.controller.dto.EnvironmentSnapshotResponse;
 import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateResponseEncoder;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -22,6 +25,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -48,6 +53,9 @@ class TemplateControllerIntegrationTest extends IntegrationTestSupport {
     @Autowired
     private TransactionTemplate transactionTemplate;
 
+    @Autowired
+    private TemplateResponseEncoder encoder;
+
     private UUID applicationId;
     private UUID environmentId;
 
@@ -147,6 +155,86 @@ class TemplateControllerIntegrationTest extends IntegrationTestSupport {
         assertThat(response.getBody().schema().fields()).hasSize(2);
     }
 
+    @Test
+    void getSystemTemplateValuesNegotiatesBinaryEncodings() {
+        transactionTemplate.execute(status -> {
+            createOverride("region-eu", Map.of("api_url", "https://eu.api.com"));
+            return null;
+        });
+
+        for (TemplateEncoding encoding : TemplateEncoding.values()) {
+            var headers = apiKeyHeaders(TEST_API_KEY);
+            headers.set("Accept", encoding.mediaType() + ", application/json;q=0.5");
+
+            // Second request is served from the cached variant
+            for (int i = 0; i < 2; i++) {
+                var response = restTemplate.exchange(
+                        getBaseUrl() + "/v1/api/templates/system?identifier=region-eu",
+                        HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getHeaders().getContentType()).isNotNull();
+                assertThat(response.getHeaders().getContentType().equalsTypeAndSubtype(
+                        encoding.mediaType())).isTrue();
+                var decoded = encoder.decode(response.getBody(), encoding);
+                assertThat(decoded.values()).containsEntry("api_url", "https://eu.api.com");
+                assertThat(decoded.appliedIdentifier()).isEqualTo("region-eu");
+                assertThat(decoded.schema().fields()).hasSize(2);
+            }
+        }
+    }
+
+    @Test
+    void getSystemTemplateValuesVariesOnAcceptOnEveryPath() {
+        var json = getWithApiKey("/v1/api/templates/system", TEST_API_KEY, String.class);
+
+        var headers = apiKeyHeaders(TEST_API_KEY);
+        headers.set("Accept", TemplateEncoding.CBOR.mediaType().toString());
+        var cbor = restTemplate.exchange(getBaseUrl() + "/v1/api/templates/system",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        // Shared caches must not hand the plain JSON body to a client asking for CBOR or gzip
+        assertThat(json.getHeaders().getVary()).containsExactly("Accept", "Accept-Encoding");
+        assertThat(cbor.getHeaders().getVary()).containsExactly("Accept", "Accept-Encoding");
+    }
+
+    @Test
+    void getSystemTemplateValuesAppliesFieldProjection() {
+        var response = getWithApiKey("/v1/api/templates/system?fields=region&includeSchema=false",
+                TEST_API_KEY, MergedTemplateValuesResponse.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().schema()).isNull();
+        assertThat(response.getBody().values()).containsOnlyKeys("region");
+
+        var withSchema = getWithApiKey("/v1/api/templates/system?fields=region", TEST_API_KEY,
+                MergedTemplateValuesResponse.class);
+
+        assertThat(withSchema.getBody()).isNotNull();
+        assertThat(withSchema.getBody().schema().fields()).extracting("key")
+                .containsExactly("region");
+    }
+
+    @Test
+    void getEnvironmentSnapshotReturnsSchemaAndOverrides() {
+        transactionTemplate.execute(status -> {
+            createOverride("region-eu", Map.of("api_url", "https://eu.api.com"));
+            return null;
+        });
+
+        var response = getWithApiKey("/v1/api/templates/snapshot", TEST_API_KEY,
+                EnvironmentSnapshotResponse.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().environmentId()).isEqualTo(environmentId);
+        assertThat(response.getBody().systemSchema()).isNotNull();
+        assertThat(response.getBody().systemOverrides()).containsOnlyKeys("region-eu");
+        assertThat(response.getBody().userSchema()).isNull();
+        assertThat(response.getBody().userDefaults()).isNull();
+    }
+
     private void cleanupTestData() {
         entityManager.createNativeQuery("DELETE FROM template_values").executeUpdate();
         entityManager.createNativeQuery("DELETE FROM template").executeUpdate();
@@ -25,11 +25,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -212,6 +217,88 @@ class UserTemplateControllerIntegrationTest extends IntegrationTestSupport {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
+    @Test
+    void setUserTemplateValuesReturnsVersionETag() {
+        var first = postWithApiKey("/v1/api/templates/user/etag-user", WRITE_API_KEY,
+                Map.of("theme", "dark"), String.class);
+        var repeated = postWithApiKey("/v1/api/templates/user/etag-user", WRITE_API_KEY,
+                Map.of("theme", "dark"), String.class);
+        var changed = postWithApiKey("/v1/api/templates/user/etag-user", WRITE_API_KEY,
+                Map.of("theme", "light"), String.class);
+
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"0\"");
+        // Re-posting identical values is a no-op and keeps the version
+        assertThat(repeated.getHeaders().getETag()).isEqualTo("\"0\"");
+        assertThat(changed.getHeaders().getETag()).isEqualTo("\"1\"");
+    }
+
+    @Test
+    void setUserTemplateValuesWithStaleIfMatchReturns412() {
+        postWithApiKey("/v1/api/templates/user/conditional-user", WRITE_API_KEY,
+                Map.of("theme", "dark"), String.class);
+        postWithApiKey("/v1/api/templates/user/conditional-user", WRITE_API_KEY,
+                Map.of("theme", "light"), String.class);
+
+        var stale = postWithIfMatch("/v1/api/templates/user/conditional-user", "\"0\"",
+                Map.of("theme", "custom"));
+        var current = postWithIfMatch("/v1/api/templates/user/conditional-user", "\"1\"",
+                Map.of("theme", "custom"));
+
+        assertThat(stale.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(current.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(current.getHeaders().getETag()).isEqualTo("\"2\"");
+    }
+
+    @Test
+    void patchUserTemplateValuesMergesIntoStoredOverrides() {
+        transactionTemplate.execute(status -> {
+            createUserOverride("patch-user", Map.of("theme", "initial", "notifications", false));
+            return null;
+        });
+
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("theme", "patched");
+        var response = patchWithApiKey("/v1/api/templates/user/patch-user", patch);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().values()).containsEntry("theme", "patched")
+                .containsEntry("notifications", false);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1\"");
+    }
+
+    @Test
+    void patchUserTemplateValuesRemovesNullKeys() {
+        transactionTemplate.execute(status -> {
+            createUserOverride("patch-remove", Map.of("theme", "initial", "notifications", false));
+            return null;
+        });
+
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("notifications", null);
+        var response = patchWithApiKey("/v1/api/templates/user/patch-remove", patch);
+
+        // Removed override falls back to the schema default
+        assertThat(response.getBody().values()).containsEntry("theme", "initial")
+                .containsEntry("notifications", true);
+    }
+
+    private ResponseEntity<MergedTemplateValuesResponse> patchWithApiKey(String path,
+            Map<String, Object> patch) {
+        var headers = apiKeyHeaders(WRITE_API_KEY);
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/merge-patch+json");
+        return restTemplate.exchange(getBaseUrl() + path, HttpMethod.PATCH,
+                new HttpEntity<>(patch, headers), MergedTemplateValuesResponse.class);
+    }
+
+    private ResponseEntity<String> postWithIfMatch(String path, String ifMatch,
+            Map<String, Object> body) {
+        var headers = apiKeyHeaders(WRITE_API_KEY);
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        headers.set(HttpHeaders.IF_MATCH, ifMatch);
+        return restTemplate.exchange(getBaseUrl() + path, HttpMethod.POST,
+                new HttpEntity<>(body, headers), String.class);
+    }
+
     private void cleanupTestData() {
         entityManager.createNativeQuery("DELETE FROM user_template_values").executeUpdate();
         entityManager.createNativeQuery("DELETE FROM template_values").executeUpdate();
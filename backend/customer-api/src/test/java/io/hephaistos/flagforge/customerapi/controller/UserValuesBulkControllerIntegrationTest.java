@@ -0,0 +1,225 @@
+package io.hephaistos.flagforge.customerapi.controller;
+
+import io.hephaistos.flagforge.common.data.ApiKeyEntity;
+import io.hephaistos.flagforge.common.data.ApplicationEntity;
+import io.hephaistos.flagforge.common.data.CompanyEntity;
+import io.hephaistos.flagforge.common.data.EnvironmentEntity;
+import io.hephaistos.flagforge.common.data.TemplateEntity;
+import io.hephaistos.flagforge.common.enums.KeyType;
+import io.hephaistos.flagforge.common.enums.PricingTier;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.BooleanTemplateField;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.common.util.UserIdHasher;
+import io.hephaistos.flagforge.customerapi.IntegrationTestSupport;
+import io.hephaistos.flagforge.customerapi.PostgresTestContainerConfiguration;
+import io.hephaistos.flagforge.customerapi.RedisTestContainerConfiguration;
+import io.hephaistos.flagforge.customerapi.controller.dto.BulkImportResponse;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static io.hephaistos.flagforge.customerapi.encoding.BulkFormat.CSV_VALUE;
+import static io.hephaistos.flagforge.customerapi.encoding.BulkFormat.NDJSON_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import({PostgresTestContainerConfiguration.class, RedisTestContainerConfiguration.class})
+@Tag("integration")
+class UserValuesBulkControllerIntegrationTest extends IntegrationTestSupport {
+
+    private static final String READ_API_KEY =
+            "read_key_0123456789abcdef0123456789abcdef0123456789abcdef012345";
+    private static final String WRITE_API_KEY =
+            "write_key_0123456789abcdef0123456789abcdef0123456789abcdef01234";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        initializeTestSupport();
+        transactionTemplate.execute(status -> {
+            cleanupTestData();
+            createTestData();
+            return null;
+        });
+    }
+
+    @Test
+    void importNdjsonStoresOverridesAndSkipsUnchangedRecords() {
+        String upload = """
+                {"userId":"alice","values":{"theme":"dark"}}
+                {"userId":"bob","values":{"theme":"light","notifications":false}}
+                """;
+
+        var first = upload(NDJSON_VALUE, upload);
+        var second = upload(NDJSON_VALUE, upload);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody()).isEqualTo(new BulkImportResponse(2, 2, 0));
+        assertThat(second.getBody()).isEqualTo(new BulkImportResponse(2, 0, 2));
+
+        var alice = getWithApiKey("/v1/api/templates/user/alice", READ_API_KEY,
+                MergedTemplateValuesResponse.class);
+        assertThat(alice.getBody().values()).containsEntry("theme", "dark");
+    }
+
+    @Test
+    void importInvalidatesPreviouslyCachedUsers() {
+        getWithApiKey("/v1/api/templates/user/carol", READ_API_KEY,
+                MergedTemplateValuesResponse.class);
+
+        upload(CSV_VALUE, """
+                user_id,values
+                carol,"{""theme"":""sepia""}"
+                """);
+
+        var carol = getWithApiKey("/v1/api/templates/user/carol", READ_API_KEY,
+                MergedTemplateValuesResponse.class);
+        assertThat(carol.getBody().values()).containsEntry("theme", "sepia");
+    }
+
+    @Test
+    void importRejectsMalformedLineWith400() {
+        var response = upload(NDJSON_VALUE, """
+                {"userId":"alice","values":{"theme":"dark"}}
+                not json
+                """);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void importRequiresWriteKey() {
+        var headers = apiKeyHeaders(READ_API_KEY);
+        headers.set(HttpHeaders.CONTENT_TYPE, NDJSON_VALUE);
+        var response = restTemplate.exchange(getBaseUrl() + "/v1/api/templates/users/import",
+                HttpMethod.POST, new HttpEntity<>("", headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void exportStreamsHashedUsersAndRoundTrips() {
+        upload(NDJSON_VALUE, """
+                {"userId":"alice","values":{"theme":"dark"}}
+                """);
+
+        var ndjson = export(NDJSON_VALUE);
+        var csv = export(CSV_VALUE);
+
+        String aliceUuid = UserIdHasher.toUuid("alice").toString();
+        assertThat(ndjson.getHeaders().getContentType().toString()).startsWith(
+                NDJSON_VALUE);
+        assertThat(ndjson.getBody()).contains("\"userUuid\":\"" + aliceUuid + "\"")
+                .contains("\"theme\": \"dark\"");
+        assertThat(csv.getBody()).startsWith("user_uuid,version,values\n").contains(aliceUuid);
+
+        // Exported records re-import as no-ops
+        assertThat(upload(NDJSON_VALUE, ndjson.getBody()).getBody()).isEqualTo(
+                new BulkImportResponse(1, 0, 1));
+    }
+
+    private ResponseEntity<BulkImportResponse> upload(String contentType, String body) {
+        var headers = apiKeyHeaders(WRITE_API_KEY);
+        headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+        return restTemplate.exchange(getBaseUrl() + "/v1/api/templates/users/import",
+                HttpMethod.POST, new HttpEntity<>(body, headers), BulkImportResponse.class);
+    }
+
+    private ResponseEntity<String> export(String accept) {
+        var headers = apiKeyHeaders(WRITE_API_KEY);
+        headers.set(HttpHeaders.ACCEPT, accept);
+        return restTemplate.exchange(getBaseUrl() + "/v1/api/templates/users/export",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private void cleanupTestData() {
+        entityManager.createNativeQuery("DELETE FROM user_template_values").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM template_values").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM template").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM api_key").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM environment").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM application").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM company").executeUpdate();
+    }
+
+    private void createTestData() {
+        // Create company
+        var company = new CompanyEntity();
+        company.setName("User Template Test Company");
+        entityManager.persist(company);
+        entityManager.flush();
+
+        // Create application
+        var application = new ApplicationEntity();
+        application.setName("User Template Test App");
+        application.setCompanyId(company.getId());
+        entityManager.persist(application);
+        entityManager.flush();
+
+        // Create environment
+        var environment = new EnvironmentEntity();
+        environment.setName("Production");
+        environment.setDescription("Production environment");
+        environment.setApplicationId(application.getId());
+        environment.setTier(PricingTier.BASIC);
+        environment.setRateLimitRequestsPerSecond(100);
+        environment.setRequestsPerMonth(100000);
+        entityManager.persist(environment);
+        entityManager.flush();
+
+        // Create READ API key
+        var readApiKey = new ApiKeyEntity();
+        readApiKey.setApplicationId(application.getId());
+        readApiKey.setEnvironmentId(environment.getId());
+        readApiKey.setKey(READ_API_KEY);
+        readApiKey.setKeyType(KeyType.READ);
+        readApiKey.setExpirationDate(OffsetDateTime.now().plusDays(30));
+        entityManager.persist(readApiKey);
+
+        // Create WRITE API key
+        var writeApiKey = new ApiKeyEntity();
+        writeApiKey.setApplicationId(application.getId());
+        writeApiKey.setEnvironmentId(environment.getId());
+        writeApiKey.setKey(WRITE_API_KEY);
+        writeApiKey.setKeyType(KeyType.WRITE);
+        writeApiKey.setExpirationDate(OffsetDateTime.now().plusDays(30));
+        entityManager.persist(writeApiKey);
+
+        // Create USER template
+        var schema = new TemplateSchema(
+                List.of(new StringTemplateField("theme", "Theme", true, "light", 0, 50),
+                        new BooleanTemplateField("notifications", "Notifications Enabled", true,
+                                true)));
+        var template = new TemplateEntity();
+        template.setApplicationId(application.getId());
+        template.setCompanyId(company.getId());
+        template.setType(TemplateType.USER);
+        template.setSchema(schema);
+        entityManager.persist(template);
+
+        entityManager.flush();
+    }
+}
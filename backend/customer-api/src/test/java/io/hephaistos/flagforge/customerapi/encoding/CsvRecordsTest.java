@@ -0,0 +1,47 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+class CsvRecordsTest {
+
+    @Test
+    void splitsPlainFields() {
+        assertThat(CsvRecords.parse("user_id,values")).containsExactly("user_id", "values");
+    }
+
+    @Test
+    void keepsCommasAndQuotesInsideQuotedFields() {
+        var fields = CsvRecords.parse("alice,\"{\"\"theme\"\":\"\"dark\"\",\"\"size\"\":2}\"");
+
+        assertThat(fields).containsExactly("alice", "{\"theme\":\"dark\",\"size\":2}");
+    }
+
+    @Test
+    void quoteRoundTripsThroughParse() {
+        String json = "{\"a\":\"x,y\",\"b\":\"say \\\"hi\\\"\"}";
+
+        assertThat(CsvRecords.parse("id," + CsvRecords.quote(json))).containsExactly("id", json);
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() {
+        assertThatThrownBy(() -> CsvRecords.parse("alice,\"{")).isInstanceOf(
+                IllegalArgumentException.class);
+    }
+
+    @Test
+    void negotiatesBulkFormats() {
+        assertThat(BulkFormat.fromAcceptHeader(null)).isEqualTo(BulkFormat.NDJSON);
+        assertThat(BulkFormat.fromAcceptHeader("*/*")).isEqualTo(BulkFormat.NDJSON);
+        assertThat(BulkFormat.fromAcceptHeader("text/csv")).isEqualTo(BulkFormat.CSV);
+        assertThat(BulkFormat.fromContentType("text/csv; charset=utf-8")).isEqualTo(
+                BulkFormat.CSV);
+        assertThat(BulkFormat.fromContentType("application/x-ndjson")).isEqualTo(
+                BulkFormat.NDJSON);
+    }
+}
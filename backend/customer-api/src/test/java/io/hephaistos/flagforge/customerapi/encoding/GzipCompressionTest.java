@@ -0,0 +1,38 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class GzipCompressionTest {
+
+    @Test
+    void compressesToValidGzip() throws IOException {
+        byte[] payload = "{\"values\":{}}".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = GzipCompression.compress(payload);
+
+        assertThat(compressed.length).isLessThan(payload.length);
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(in.readAllBytes()).isEqualTo(payload);
+        }
+    }
+
+    @Test
+    void parsesAcceptEncoding() {
+        assertThat(GzipCompression.isAccepted("gzip")).isTrue();
+        assertThat(GzipCompression.isAccepted("br, gzip;q=0.8, deflate")).isTrue();
+        assertThat(GzipCompression.isAccepted("*")).isTrue();
+        assertThat(GzipCompression.isAccepted(null)).isFalse();
+        assertThat(GzipCompression.isAccepted("identity")).isFalse();
+        assertThat(GzipCompression.isAccepted("gzip;q=0")).isFalse();
+        assertThat(GzipCompression.isAccepted("*, gzip;q=0")).isFalse();
+    }
+}
@@ -0,0 +1,81 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares stored size and decode-into-merge cost of binary user overrides against the JSON
+ * document they replace. Excluded from the default test run; execute with
+ * {@code ./gradlew benchmarkTest}.
+ */
+@Tag("benchmark")
+class OverrideValuesCodecBenchmarkTest {
+
+    private static final int FIELD_COUNT = 40;
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 200_000;
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<>() {
+    };
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void binaryOverridesAreSmallerAndFasterToMerge() {
+        Map<String, Integer> ordinalsByKey = new HashMap<>();
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            String key = "feature_setting_" + i;
+            ordinalsByKey.put(key, i);
+            overrides.put(key, switch (i % 4) {
+                case 0 -> "variant-" + i;
+                case 1 -> i * 10;
+                case 2 -> i % 3 == 0;
+                default -> i / 7.0;
+            });
+        }
+        var ordinals = new FieldOrdinals(ordinalsByKey);
+        Map<String, Object> defaults = new LinkedHashMap<>(overrides);
+
+        String json = jsonMapper.writeValueAsString(overrides);
+        byte[] binary = OverrideValuesCodec.encode(overrides, ordinals);
+
+        long jsonNanos = measure(() -> {
+            var merged = new LinkedHashMap<>(defaults);
+            merged.putAll(jsonMapper.readValue(json, VALUES_TYPE));
+            return merged;
+        });
+        long binaryNanos = measure(() -> {
+            var merged = new LinkedHashMap<>(defaults);
+            OverrideValuesCodec.decodeInto(binary, ordinals, merged);
+            return merged;
+        });
+
+        int jsonBytes = json.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("json:   %5d bytes, %6d ns per merge%n", jsonBytes, jsonNanos);
+        System.out.printf("binary: %5d bytes, %6d ns per merge%n", binary.length, binaryNanos);
+
+        assertThat(binary.length).isLessThan(jsonBytes / 2);
+        assertThat(binaryNanos).isLessThan(jsonNanos);
+    }
+
+    private static long measure(Supplier<Map<String, Object>> merge) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            merge.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            merge.get();
+        }
+        return (System.nanoTime() - start) / MEASURED_ITERATIONS;
+    }
+}
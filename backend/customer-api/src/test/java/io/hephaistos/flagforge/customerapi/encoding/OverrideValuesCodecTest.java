@@ -0,0 +1,74 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class OverrideValuesCodecTest {
+
+    private final FieldOrdinals ordinals = new FieldOrdinals(
+            Map.of("theme", 0, "font_size", 1, "ratio", 2, "beta", 3, "nickname", 4, "big", 5));
+
+    @Test
+    void roundTripsScalarValues() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("theme", "dark");
+        values.put("font_size", 14);
+        values.put("ratio", 1.5);
+        values.put("beta", true);
+        values.put("nickname", null);
+        values.put("big", 10_000_000_000L);
+
+        Map<String, Object> decoded = new HashMap<>();
+        assertThat(OverrideValuesCodec.decodeInto(OverrideValuesCodec.encode(values, ordinals),
+                ordinals, decoded)).isTrue();
+
+        assertThat(decoded).isEqualTo(values);
+    }
+
+    @Test
+    void encodingDoesNotDependOnKeyOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("theme", "dark");
+        first.put("font_size", 14);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("font_size", 14);
+        second.put("theme", "dark");
+
+        assertThat(OverrideValuesCodec.encode(first, ordinals)).isEqualTo(
+                OverrideValuesCodec.encode(second, ordinals));
+    }
+
+    @Test
+    void returnsNullForKeysWithoutOrdinal() {
+        assertThat(OverrideValuesCodec.encode(Map.of("unknown", "x"), ordinals)).isNull();
+    }
+
+    @Test
+    void returnsNullForNestedValues() {
+        assertThat(OverrideValuesCodec.encode(Map.of("theme", List.of("a")), ordinals)).isNull();
+    }
+
+    @Test
+    void reportsOrdinalsMissingFromStaleMapping() {
+        byte[] encoded = OverrideValuesCodec.encode(Map.of("big", 1), ordinals);
+
+        assertThat(OverrideValuesCodec.decodeInto(encoded, new FieldOrdinals(Map.of("theme", 0)),
+                new HashMap<>())).isFalse();
+    }
+
+    @Test
+    void isSmallerThanJson() {
+        byte[] encoded = OverrideValuesCodec.encode(Map.of("theme", "dark", "font_size", 14),
+                ordinals);
+
+        assertThat(encoded).hasSizeLessThan("{\"theme\":\"dark\",\"font_size\":14}".length());
+    }
+}
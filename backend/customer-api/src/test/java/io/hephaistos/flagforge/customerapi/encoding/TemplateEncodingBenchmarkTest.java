@@ -0,0 +1,112 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.BooleanTemplateField;
+import io.hephaistos.flagforge.common.types.NumberTemplateField;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares payload size and encode/decode cost of the binary encodings against JSON for a large
+ * schema. Excluded from the default test run; execute with {@code ./gradlew benchmarkTest}.
+ */
+@Tag("benchmark")
+class TemplateEncodingBenchmarkTest {
+
+    private static final int FIELD_COUNT = 300;
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final TemplateResponseEncoder encoder = new TemplateResponseEncoder(jsonMapper);
+
+    @Test
+    void compareEncodingsAgainstJson() {
+        var response = createLargeResponse();
+
+        byte[] json = jsonMapper.writeValueAsBytes(response);
+        var jsonResult = measure("json", response, jsonMapper::writeValueAsBytes,
+                bytes -> jsonMapper.readValue(bytes, MergedTemplateValuesResponse.class));
+        System.out.println(jsonResult);
+
+        for (TemplateEncoding encoding : TemplateEncoding.values()) {
+            if (encoding == TemplateEncoding.JSON) {
+                continue;
+            }
+            var result = measure(encoding.variant(), response, r -> encoder.encode(r, encoding),
+                    bytes -> encoder.decode(bytes, encoding));
+            System.out.println(result);
+            assertThat(result.size()).as("%s payload size", encoding).isLessThan(json.length);
+        }
+    }
+
+    private Result measure(String name, MergedTemplateValuesResponse response,
+            Function<MergedTemplateValuesResponse, byte[]> encode,
+            Function<byte[], MergedTemplateValuesResponse> decode) {
+        byte[] payload = encode.apply(response);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            decode.apply(encode.apply(response));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            encode.apply(response);
+        }
+        long encodeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            decode.apply(payload);
+        }
+        long decodeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        return new Result(name, payload.length, encodeNanos, decodeNanos);
+    }
+
+    private MergedTemplateValuesResponse createLargeResponse() {
+        List<TemplateField> fields = new ArrayList<>();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            switch (i % 3) {
+                case 0 -> {
+                    fields.add(new StringTemplateField("string_field_" + i,
+                            "Description of string field " + i, false, "default-" + i, 0, 255));
+                    values.put("string_field_" + i, "value-" + i);
+                }
+                case 1 -> {
+                    fields.add(new NumberTemplateField("number_field_" + i,
+                            "Description of number field " + i, false, i, 0.0, 10_000.0, 1.0));
+                    values.put("number_field_" + i, i * 2);
+                }
+                default -> {
+                    fields.add(new BooleanTemplateField("boolean_field_" + i,
+                            "Description of boolean field " + i, true, false));
+                    values.put("boolean_field_" + i, i % 2 == 0);
+                }
+            }
+        }
+        return new MergedTemplateValuesResponse(TemplateType.SYSTEM, new TemplateSchema(fields),
+                values, null);
+    }
+
+    private record Result(String name, int size, long encodeNanos, long decodeNanos) {
+        @Override
+        public String toString() {
+            return "%-9s size=%7d B  encode=%8d ns/op  decode=%8d ns/op".formatted(name, size,
+                    encodeNanos, decodeNanos);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.BooleanTemplateField;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class TemplateProjectionTest {
+
+    private final MergedTemplateValuesResponse response = new MergedTemplateValuesResponse(
+            TemplateType.USER, new TemplateSchema(
+            List.of(new StringTemplateField("theme", "Theme", true, "light", 0, 20),
+                    new BooleanTemplateField("beta", "Beta", true, false))),
+            Map.of("theme", "dark", "beta", true), "user-1");
+
+    @Test
+    void fullProjectionReturnsResponseUnchanged() {
+        var projection = TemplateProjection.of(null, true);
+
+        assertThat(projection.isFull()).isTrue();
+        assertThat(projection.apply(response)).isSameAs(response);
+        assertThat(projection.variantSuffix()).isEmpty();
+    }
+
+    @Test
+    void keepsOnlyRequestedFieldsInValuesAndSchema() {
+        var projected = TemplateProjection.of(List.of("beta", "missing"), true).apply(response);
+
+        assertThat(projected.values()).containsOnlyKeys("beta");
+        assertThat(projected.schema().fields()).extracting("key").containsExactly("beta");
+        assertThat(projected.appliedIdentifier()).isEqualTo("user-1");
+    }
+
+    @Test
+    void dropsSchemaWhenNotRequested() {
+        var projected = TemplateProjection.of(null, false).apply(response);
+
+        assertThat(projected.schema()).isNull();
+        assertThat(projected.values()).isEqualTo(response.values());
+    }
+
+    @Test
+    void variantSuffixIsIndependentOfFieldOrder() {
+        var first = TemplateProjection.of(List.of("theme", "beta"), false);
+        var second = TemplateProjection.of(List.of("beta", " theme", ""), false);
+
+        assertThat(first.variantSuffix()).isEqualTo(second.variantSuffix())
+                .isEqualTo(";noschema;fields=beta,theme");
+    }
+
+    @Test
+    void longVariantSuffixIsHashed() {
+        var fields = IntStream.range(0, 50).mapToObj(i -> "field_" + i).toList();
+
+        assertThat(TemplateProjection.of(fields, true).variantSuffix()).startsWith(";sha256=")
+                .hasSize(";sha256=".length() + 64);
+    }
+}
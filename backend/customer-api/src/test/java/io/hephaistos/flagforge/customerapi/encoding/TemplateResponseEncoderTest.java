@@ -0,0 +1,85 @@
+package io.hephaistos.flagforge.customerapi.encoding;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.BooleanTemplateField;
+import io.hephaistos.flagforge.common.types.EnumTemplateField;
+import io.hephaistos.flagforge.common.types.NumberTemplateField;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class TemplateResponseEncoderTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final TemplateResponseEncoder encoder = new TemplateResponseEncoder(jsonMapper);
+
+    private MergedTemplateValuesResponse createResponse() {
+        var schema = new TemplateSchema(List.of(
+                new StringTemplateField("api_url", "API URL", false, "https://default.api.com", 0,
+                        255),
+                new NumberTemplateField("max_retries", "Retries", false, 3, 0.0, 10.0, 1.0),
+                new BooleanTemplateField("dark_mode", null, true, false),
+                new EnumTemplateField("tier", "Tier", false, "basic",
+                        List.of("basic", "premium"))));
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("api_url", "https://eu.api.com");
+        values.put("max_retries", 5);
+        values.put("ratio", 0.25);
+        values.put("dark_mode", true);
+        values.put("tier", "premium");
+        values.put("unset", null);
+        return new MergedTemplateValuesResponse(TemplateType.SYSTEM, schema, values, "region-eu");
+    }
+
+    @ParameterizedTest
+    @EnumSource(TemplateEncoding.class)
+    void roundTripsResponse(TemplateEncoding encoding) {
+        var response = createResponse();
+
+        var decoded = encoder.decode(encoder.encode(response, encoding), encoding);
+
+        assertThat(decoded).isEqualTo(response);
+    }
+
+    @Test
+    void protobufIsSmallerThanJson() {
+        var response = createResponse();
+
+        byte[] protobuf = encoder.encode(response, TemplateEncoding.PROTOBUF);
+
+        assertThat(protobuf.length).isLessThan(jsonMapper.writeValueAsBytes(response).length);
+    }
+
+    @Test
+    void negotiatesExplicitlyRequestedEncoding() {
+        assertThat(TemplateEncoding.fromAcceptHeader("application/cbor")).contains(
+                TemplateEncoding.CBOR);
+        assertThat(TemplateEncoding.fromAcceptHeader(
+                "application/json;q=0.5, application/x-protobuf")).contains(
+                TemplateEncoding.PROTOBUF);
+        assertThat(TemplateEncoding.fromAcceptHeader(
+                "application/cbor;q=0.2, application/x-jackson-smile;q=0.8")).contains(
+                TemplateEncoding.SMILE);
+    }
+
+    @Test
+    void fallsBackToJsonForWildcardsTiesAndGarbage() {
+        assertThat(TemplateEncoding.fromAcceptHeader(null)).isEmpty();
+        assertThat(TemplateEncoding.fromAcceptHeader("*/*")).isEmpty();
+        assertThat(TemplateEncoding.fromAcceptHeader("application/*")).isEmpty();
+        assertThat(TemplateEncoding.fromAcceptHeader("application/json, application/cbor")).isEmpty();
+        assertThat(TemplateEncoding.fromAcceptHeader("not a media type;;")).isEmpty();
+    }
+}
@@ -3,14 +3,16 @@ package io.hephaistos.flagforge.customerapi.service;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
 import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
 import io.hephaistos.flagforge.common.types.StringTemplateField;
 import io.hephaistos.flagforge.common.types.TemplateSchema;
 import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
 import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.lettuce.core.ExpireArgs;
 import io.lettuce.core.KeyScanCursor;
 import io.lettuce.core.ScanArgs;
 import io.lettuce.core.ScanCursor;
-import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.sync.RedisCommands;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -42,11 +44,17 @@ import static org.mockito.Mockito.when;
 class DefaultTemplateCacheServiceTest {
 
     @Mock
-    private StatefulRedisConnection<String, String> redisConnection;
+    private RedisEndpoint.Connection<String> redisConnection;
 
     @Mock
     private RedisCommands<String, String> redisCommands;
 
+    @Mock
+    private RedisEndpoint.Connection<byte[]> binaryConnection;
+
+    @Mock
+    private RedisCommands<String, byte[]> binaryCommands;
+
     private JsonMapper jsonMapper;
     private CacheProperties cacheProperties;
     private DefaultTemplateCacheService cacheService;
@@ -57,10 +65,13 @@ class DefaultTemplateCacheServiceTest {
     @BeforeEach
     void setUp() {
         jsonMapper = JsonMapper.builder().build();
-        cacheProperties = new CacheProperties(true, 300);
+        cacheProperties =
+                new CacheProperties(true, 300, 0, null, null, false, null, null, null);
         when(redisConnection.sync()).thenReturn(redisCommands);
-        cacheService =
-                new DefaultTemplateCacheService(redisConnection, jsonMapper, cacheProperties);
+        when(binaryConnection.sync()).thenReturn(binaryCommands);
+        // Reads share the mocked commands; routing them to replicas is up to Lettuce
+        cacheService = new DefaultTemplateCacheService(redisConnection, binaryConnection,
+                redisConnection, binaryConnection, jsonMapper, cacheProperties);
         appId = UUID.randomUUID();
         envId = UUID.randomUUID();
     }
@@ -121,7 +132,8 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.get(appId, envId, TemplateType.SYSTEM, "region-eu");
 
-            String expectedKey = "template:cache:" + appId + ":" + envId + ":SYSTEM:region-eu";
+            String expectedKey =
+                    RedisKeys.templateCache(envId, appId, TemplateType.SYSTEM, "region-eu");
             verify(redisCommands).get(expectedKey);
         }
 
@@ -131,7 +143,7 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.get(appId, envId, TemplateType.USER, "");
 
-            String expectedKey = "template:cache:" + appId + ":" + envId + ":USER:";
+            String expectedKey = RedisKeys.templateCache(envId, appId, TemplateType.USER, null);
             verify(redisCommands).get(expectedKey);
         }
 
@@ -141,10 +153,39 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.get(appId, envId, TemplateType.SYSTEM, null);
 
-            String expectedKey = "template:cache:" + appId + ":" + envId + ":SYSTEM:";
+            String expectedKey = RedisKeys.templateCache(envId, appId, TemplateType.SYSTEM, null);
             verify(redisCommands).get(expectedKey);
         }
 
+        @Test
+        void followsReferenceAndAppliesRequestedIdentifier() throws JacksonException {
+            var shared = createMergedResponse(TemplateType.USER, "user-a");
+            String userKey = RedisKeys.templateCache(envId, appId, TemplateType.USER, "user-b");
+            String sharedKey =
+                    RedisKeys.templateCache(envId, appId, TemplateType.USER, "/payload/ab");
+            when(redisCommands.get(userKey)).thenReturn("@/payload/ab");
+            when(redisCommands.get(sharedKey)).thenReturn(jsonMapper.writeValueAsString(shared));
+
+            var result = cacheService.get(appId, envId, TemplateType.USER, "user-b");
+
+            assertThat(result).isPresent();
+            assertThat(result.get().values()).isEqualTo(shared.values());
+            assertThat(result.get().appliedIdentifier()).isEqualTo("user-b");
+        }
+
+        @Test
+        void returnsEmptyWhenReferenceTargetExpired() {
+            String userKey = RedisKeys.templateCache(envId, appId, TemplateType.USER, "user-b");
+            String sharedKey =
+                    RedisKeys.templateCache(envId, appId, TemplateType.USER, "/payload/ab");
+            when(redisCommands.get(userKey)).thenReturn("@/payload/ab");
+            when(redisCommands.get(sharedKey)).thenReturn(null);
+
+            var result = cacheService.get(appId, envId, TemplateType.USER, "user-b");
+
+            assertThat(result).isEmpty();
+        }
+
         @Test
         void returnsEmptyOnDeserializationError() {
             when(redisCommands.get(anyString())).thenReturn("invalid json{");
@@ -175,10 +216,19 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.put(appId, envId, TemplateType.SYSTEM, "test-id", response);
 
-            String expectedKey = "template:cache:" + appId + ":" + envId + ":SYSTEM:test-id";
+            String expectedKey =
+                    RedisKeys.templateCache(envId, appId, TemplateType.SYSTEM, "test-id");
             verify(redisCommands).setex(eq(expectedKey), eq(300L), anyString());
         }
 
+        @Test
+        void storesReferenceWithTtl() {
+            cacheService.putReference(appId, envId, TemplateType.USER, "user-b", "/payload/ab");
+
+            String expectedKey = RedisKeys.templateCache(envId, appId, TemplateType.USER, "user-b");
+            verify(redisCommands).setex(expectedKey, 300L, "@/payload/ab");
+        }
+
         @Test
         void serializesResponseToJson() throws JacksonException {
             var response = createMergedResponse(TemplateType.USER, "user123");
@@ -207,6 +257,58 @@ class DefaultTemplateCacheServiceTest {
     }
 
 
+    @Nested
+    class VariantTests {
+
+        @Test
+        void storesVariantInHashNextToEntry() {
+            byte[] payload = {1, 2, 3};
+
+            cacheService.putVariant(appId, envId, TemplateType.SYSTEM, "test-id", "cbor", payload);
+
+            String expectedKey =
+                    RedisKeys.templateVariants(envId, appId, TemplateType.SYSTEM, "test-id");
+            verify(binaryCommands).hset(expectedKey, "cbor", payload);
+            verify(binaryCommands).expire(eq(expectedKey), eq(300L), any(ExpireArgs.class));
+        }
+
+        @Test
+        void returnsCachedVariantOnHit() {
+            byte[] payload = {1, 2, 3};
+            String expectedKey =
+                    RedisKeys.templateVariants(envId, appId, TemplateType.USER, "user1");
+            when(binaryCommands.hget(expectedKey, "smile")).thenReturn(payload);
+
+            var result = cacheService.getVariant(appId, envId, TemplateType.USER, "user1", "smile");
+
+            assertThat(result).contains(payload);
+        }
+
+        @Test
+        void returnsEmptyVariantOnRedisError() {
+            when(binaryCommands.hget(anyString(), anyString())).thenThrow(
+                    new RuntimeException("Redis down"));
+
+            var result = cacheService.getVariant(appId, envId, TemplateType.USER, "user1", "cbor");
+
+            assertThat(result).isEmpty();
+        }
+
+        @Test
+        void exactInvalidationAlsoDeletesVariants() {
+            var event = new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE, appId, envId,
+                    TemplateType.USER, "user-abc123");
+            when(redisCommands.del(any(String[].class))).thenReturn(2L);
+
+            cacheService.invalidate(event);
+
+            verify(redisCommands).del(
+                    RedisKeys.templateCache(envId, appId, TemplateType.USER, "user-abc123"),
+                    RedisKeys.templateVariants(envId, appId, TemplateType.USER, "user-abc123"));
+        }
+    }
+
+
     @Nested
     class InvalidateTests {
 
@@ -218,7 +320,8 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.invalidate(event);
 
-            String expectedPattern = "template:cache:" + appId + ":*:SYSTEM:*";
+            String expectedPattern =
+                    RedisKeys.templateCachePattern(null, appId, TemplateType.SYSTEM, null);
             verifyScanCalledWith(expectedPattern);
         }
 
@@ -227,13 +330,14 @@ class DefaultTemplateCacheServiceTest {
             var event =
                     new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
                             TemplateType.SYSTEM, "region-eu");
-            // No wildcards in pattern, so del is called directly
-            when(redisCommands.del(anyString())).thenReturn(1L);
+            // Exact key, so del is called directly
+            when(redisCommands.del(any(String[].class))).thenReturn(2L);
 
             cacheService.invalidate(event);
 
-            String expectedKey = "template:cache:" + appId + ":" + envId + ":SYSTEM:region-eu";
-            verify(redisCommands).del(expectedKey);
+            verify(redisCommands).del(
+                    RedisKeys.templateCache(envId, appId, TemplateType.SYSTEM, "region-eu"),
+                    RedisKeys.templateVariants(envId, appId, TemplateType.SYSTEM, "region-eu"));
         }
 
         @Test
@@ -245,7 +349,8 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.invalidate(event);
 
-            String expectedPattern = "template:cache:" + appId + ":" + envId + ":USER:*";
+            String expectedPattern =
+                    RedisKeys.templateCachePattern(envId, appId, TemplateType.USER, null);
             verifyScanCalledWith(expectedPattern);
         }
 
@@ -258,7 +363,8 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.invalidate(event);
 
-            String expectedPattern = "template:cache:" + appId + ":" + envId + ":SYSTEM:*";
+            String expectedPattern =
+                    RedisKeys.templateCachePattern(envId, appId, TemplateType.SYSTEM, null);
             verifyScanCalledWith(expectedPattern);
         }
 
@@ -266,13 +372,14 @@ class DefaultTemplateCacheServiceTest {
         void userChangeInvalidatesSpecificUserCache() {
             var event = new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE, appId, envId,
                     TemplateType.USER, "user-abc123");
-            // No wildcards in pattern, so del is called directly
-            when(redisCommands.del(anyString())).thenReturn(1L);
+            // Exact key, so del is called directly
+            when(redisCommands.del(any(String[].class))).thenReturn(2L);
 
             cacheService.invalidate(event);
 
-            String expectedKey = "template:cache:" + appId + ":" + envId + ":USER:user-abc123";
-            verify(redisCommands).del(expectedKey);
+            verify(redisCommands).del(
+                    RedisKeys.templateCache(envId, appId, TemplateType.USER, "user-abc123"),
+                    RedisKeys.templateVariants(envId, appId, TemplateType.USER, "user-abc123"));
         }
 
         @Test
@@ -283,7 +390,8 @@ class DefaultTemplateCacheServiceTest {
 
             cacheService.invalidate(event);
 
-            String expectedPattern = "template:cache:" + appId + ":" + envId + ":USER:*";
+            String expectedPattern =
+                    RedisKeys.templateCachePattern(envId, appId, TemplateType.USER, null);
             verifyScanCalledWith(expectedPattern);
         }
 
@@ -291,8 +399,10 @@ class DefaultTemplateCacheServiceTest {
         void deletesKeysFoundByScan() {
             var event = new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE, appId, null,
                     TemplateType.SYSTEM, null);
-            List<String> keysToDelete = List.of("template:cache:" + appId + ":env1:SYSTEM:id1",
-                    "template:cache:" + appId + ":env2:SYSTEM:id2");
+            List<String> keysToDelete = List.of(
+                    RedisKeys.templateCache(UUID.randomUUID(), appId, TemplateType.SYSTEM, "id1"),
+                    RedisKeys.templateVariants(UUID.randomUUID(), appId, TemplateType.SYSTEM,
+                            "id2"));
             setupScanMock(keysToDelete);
             when(redisCommands.del(any(String[].class))).thenReturn(2L);
 
@@ -300,9 +410,22 @@ class DefaultTemplateCacheServiceTest {
 
             ArgumentCaptor<String[]> keysCaptor = ArgumentCaptor.forClass(String[].class);
             verify(redisCommands).del(keysCaptor.capture());
-            assertThat(keysCaptor.getValue()).containsExactlyInAnyOrder(
-                    "template:cache:" + appId + ":env1:SYSTEM:id1",
-                    "template:cache:" + appId + ":env2:SYSTEM:id2");
+            assertThat(keysCaptor.getValue()).containsExactlyInAnyOrderElementsOf(keysToDelete);
+        }
+
+        @Test
+        void invalidateAllDeletesEveryCachedTemplate() {
+            List<String> keys =
+                    List.of(RedisKeys.templateCache(envId, appId, TemplateType.SYSTEM, "id1"),
+                            RedisKeys.templateVariants(envId, appId, TemplateType.USER, "user-1"));
+            setupScanMock(keys);
+            when(redisCommands.del(any(String[].class))).thenReturn(2L);
+
+            cacheService.invalidateAll();
+
+            ArgumentCaptor<String[]> keysCaptor = ArgumentCaptor.forClass(String[].class);
+            verify(redisCommands).del(keysCaptor.capture());
+            assertThat(keysCaptor.getValue()).containsExactlyInAnyOrderElementsOf(keys);
         }
 
         @Test
@@ -326,7 +449,8 @@ class DefaultTemplateCacheServiceTest {
             cacheService.invalidate(event);
 
             // With wildcards, scan should be called
-            String expectedPattern = "template:cache:" + appId + ":*:SYSTEM:identifier";
+            String expectedPattern =
+                    RedisKeys.templateCachePattern(null, appId, TemplateType.SYSTEM, "identifier");
             verifyScanCalledWith(expectedPattern);
         }
     }
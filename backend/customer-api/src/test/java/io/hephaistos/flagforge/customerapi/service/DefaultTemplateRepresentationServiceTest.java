@@ -0,0 +1,127 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.configuration.ResponseCompressionProperties;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateEncoding;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateProjection;
+import io.hephaistos.flagforge.customerapi.encoding.TemplateResponseEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class DefaultTemplateRepresentationServiceTest {
+
+    @Mock
+    private TemplateService templateService;
+
+    @Mock
+    private TemplateCacheService cacheService;
+
+    private DefaultTemplateRepresentationService representationService;
+
+    private UUID appId;
+    private UUID envId;
+
+    @BeforeEach
+    void setUp() {
+        representationService = new DefaultTemplateRepresentationService(templateService,
+                cacheService, new TemplateResponseEncoder(JsonMapper.builder().build()),
+                new ResponseCompressionProperties(true, 512));
+        appId = UUID.randomUUID();
+        envId = UUID.randomUUID();
+    }
+
+    private MergedTemplateValuesResponse createResponse(String value) {
+        var schema = new TemplateSchema(
+                List.of(new StringTemplateField("api_url", "API URL", false, "https://x", 0,
+                        1000)));
+        return new MergedTemplateValuesResponse(TemplateType.SYSTEM, schema,
+                Map.of("api_url", value), null);
+    }
+
+    @Test
+    void returnsCachedVariantWithoutLoading() {
+        byte[] cached = {1, 2, 3};
+        when(cacheService.getVariant(appId, envId, TemplateType.SYSTEM, "", "cbor")).thenReturn(
+                Optional.of(cached));
+
+        var result = representationService.getSystemValues(appId, envId, null,
+                TemplateEncoding.CBOR, TemplateProjection.FULL, false);
+
+        assertThat(result.body()).isSameAs(cached);
+        assertThat(result.gzipped()).isFalse();
+        verifyNoInteractions(templateService);
+    }
+
+    @Test
+    void servesCachedGzipVariantWhenAccepted() {
+        byte[] compressed = {31, -117};
+        when(cacheService.getVariant(appId, envId, TemplateType.SYSTEM, "", "cbor;gzip"))
+                .thenReturn(Optional.of(compressed));
+
+        var result = representationService.getSystemValues(appId, envId, null,
+                TemplateEncoding.CBOR, TemplateProjection.FULL, true);
+
+        assertThat(result.body()).isSameAs(compressed);
+        assertThat(result.gzipped()).isTrue();
+    }
+
+    @Test
+    void storesGzipCopyOnlyForLargePayloads() {
+        when(cacheService.getVariant(any(), any(), any(), anyString(), anyString())).thenReturn(
+                Optional.empty());
+        when(templateService.getMergedSystemValues(appId, envId, "small")).thenReturn(
+                createResponse("a"));
+        when(templateService.getMergedSystemValues(appId, envId, "large")).thenReturn(
+                createResponse("a".repeat(1000)));
+
+        var small = representationService.getSystemValues(appId, envId, "small",
+                TemplateEncoding.JSON, TemplateProjection.FULL, true);
+        var large = representationService.getSystemValues(appId, envId, "large",
+                TemplateEncoding.JSON, TemplateProjection.FULL, true);
+
+        assertThat(small.gzipped()).isFalse();
+        assertThat(large.gzipped()).isTrue();
+        verify(cacheService, never()).putVariant(eq(appId), eq(envId), eq(TemplateType.SYSTEM),
+                eq("small"), eq("json;gzip"), any());
+        verify(cacheService).putVariant(eq(appId), eq(envId), eq(TemplateType.SYSTEM),
+                eq("large"), eq("json;gzip"), any());
+    }
+
+    @Test
+    void cachesProjectionUnderItsOwnVariant() {
+        when(cacheService.getVariant(any(), any(), any(), anyString(), anyString())).thenReturn(
+                Optional.empty());
+        when(templateService.getMergedUserValues(appId, envId, "user-1")).thenReturn(
+                createResponse("a"));
+
+        representationService.getUserValues(appId, envId, "user-1", TemplateEncoding.SMILE,
+                TemplateProjection.of(List.of("api_url"), false), false);
+
+        verify(cacheService).putVariant(eq(appId), eq(envId), eq(TemplateType.USER),
+                eq("user-1"), eq("smile;noschema;fields=api_url"), any());
+    }
+}
@@ -1,14 +1,24 @@
 package io.hephaistos.flagforge.customerapi.service;
 
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
 import io.hephaistos.flagforge.common.data.TemplateEntity;
 import io.hephaistos.flagforge.common.data.TemplateValuesEntity;
+import io.hephaistos.flagforge.common.datasource.ReadYourWrites;
 import io.hephaistos.flagforge.common.enums.TemplateType;
 import io.hephaistos.flagforge.common.types.StringTemplateField;
 import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.common.util.UserIdHasher;
+import io.hephaistos.flagforge.customerapi.data.projection.StoredUserValues;
+import io.hephaistos.flagforge.customerapi.data.projection.UserTemplateDocuments;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesWriteResult;
 import io.hephaistos.flagforge.customerapi.data.repository.TemplateRepository;
 import io.hephaistos.flagforge.customerapi.data.repository.TemplateValuesRepository;
-import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateValuesRepository;
+import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateDocumentsRepository;
+import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateValuesWriteRepository;
 import io.hephaistos.flagforge.customerapi.exception.NotFoundException;
+import io.hephaistos.flagforge.customerapi.exception.PreconditionFailedException;
+import io.hephaistos.flagforge.customerapi.exception.WriteBehindUnavailableException;
+import io.hephaistos.flagforge.customerapi.exception.WritePendingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -16,6 +26,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -23,6 +35,12 @@ import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @Tag("unit")
@@ -36,11 +54,20 @@ class DefaultTemplateServiceTest {
     private TemplateValuesRepository templateValuesRepository;
 
     @Mock
-    private UserTemplateValuesRepository userTemplateValuesRepository;
+    private UserTemplateValuesWriteRepository userTemplateValuesWriteRepository;
+
+    @Mock
+    private UserTemplateDocumentsRepository userTemplateDocumentsRepository;
 
     @Mock
     private TemplateCacheService templateCacheService;
 
+    @Mock
+    private UserWriteBehindService writeBehindService;
+
+    @Mock
+    private UserValuesStorage userValuesStorage;
+
     private DefaultTemplateService templateService;
     private UUID applicationId;
     private UUID environmentId;
@@ -48,7 +75,8 @@ class DefaultTemplateServiceTest {
     @BeforeEach
     void setUp() {
         templateService = new DefaultTemplateService(templateRepository, templateValuesRepository,
-                userTemplateValuesRepository, templateCacheService);
+                userTemplateValuesWriteRepository, userTemplateDocumentsRepository,
+                templateCacheService, writeBehindService, userValuesStorage);
         applicationId = UUID.randomUUID();
         environmentId = UUID.randomUUID();
     }
@@ -166,6 +194,378 @@ class DefaultTemplateServiceTest {
         assertThat(response.appliedIdentifier()).isEqualTo("custom");
     }
 
+    @Test
+    void getMergedUserValuesMergesAllLayersFromSingleQuery() {
+        var schema = createTemplateWithDefaults().getSchema();
+        when(templateCacheService.get(applicationId, environmentId, TemplateType.USER,
+                "user-1")).thenReturn(Optional.empty());
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(Optional.of(
+                new UserTemplateDocuments(schema, Map.of("api_url", "https://env.api.com"),
+                        Map.of("timeout", "60"), null, null)));
+
+        var response = templateService.getMergedUserValues(applicationId, environmentId, "user-1");
+
+        assertThat(response.type()).isEqualTo(TemplateType.USER);
+        assertThat(response.values()).containsEntry("api_url", "https://env.api.com")
+                .containsEntry("timeout", "60");
+        assertThat(response.appliedIdentifier()).isEqualTo("user-1");
+        verifyNoInteractions(templateRepository, templateValuesRepository,
+                userTemplateValuesWriteRepository);
+    }
+
+    @Test
+    void cacheMissesAreLoadedFromPrimary() {
+        var schema = createTemplateWithDefaults().getSchema();
+        List<Boolean> pinned = new ArrayList<>();
+        when(templateRepository.findByApplicationIdAndType(applicationId,
+                TemplateType.SYSTEM)).thenAnswer(invocation -> {
+            pinned.add(ReadYourWrites.isPinnedToPrimary());
+            return Optional.of(createTemplateWithDefaults());
+        });
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenAnswer(invocation -> {
+            pinned.add(ReadYourWrites.isPinnedToPrimary());
+            return Optional.of(new UserTemplateDocuments(schema, null, null, null, null));
+        });
+
+        templateService.getMergedSystemValues(applicationId, environmentId, null);
+        templateService.getMergedUserValues(applicationId, environmentId, "user-1");
+
+        // Cached responses must not come from a replica that may still miss the latest change
+        assertThat(pinned).containsExactly(true, true);
+        assertThat(ReadYourWrites.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void getMergedUserValuesThrowsNotFoundWhenTemplateDoesNotExist() {
+        when(templateCacheService.get(applicationId, environmentId, TemplateType.USER,
+                "user-1")).thenReturn(Optional.empty());
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> templateService.getMergedUserValues(applicationId, environmentId,
+                "user-1")).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void getMergedUserValuesPrefersPendingWriteBehindValues() {
+        var schema = createTemplateWithDefaults().getSchema();
+        when(templateCacheService.get(applicationId, environmentId, TemplateType.USER,
+                "user-1")).thenReturn(Optional.empty());
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(Optional.of(
+                new UserTemplateDocuments(schema, null, Map.of("timeout", "60"), null,
+                        null)));
+        when(writeBehindService.pendingValues(applicationId, environmentId,
+                "user-1")).thenReturn(Optional.of(Map.of("timeout", "90")));
+
+        var response = templateService.getMergedUserValues(applicationId, environmentId, "user-1");
+
+        assertThat(response.values()).containsEntry("timeout", "90");
+    }
+
+    @Test
+    void queueUserValuesDoesNotQueueWhenWriteBehindDisabled() {
+        assertThat(templateService.queueUserValues(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"))).isFalse();
+        verify(writeBehindService, never()).enqueue(any(), any(), any(), any());
+    }
+
+    @Test
+    void setUserValuesRejectsWriteWhileQueuedWriteIsPending() {
+        when(writeBehindService.isEnabled()).thenReturn(true);
+        when(writeBehindService.hasPendingWrite(applicationId, environmentId,
+                "user-1")).thenReturn(true);
+
+        assertThatThrownBy(() -> templateService.setUserValues(applicationId, environmentId,
+                "user-1", Map.of("theme", "dark"), null)).isInstanceOf(
+                WritePendingException.class);
+        verifyNoInteractions(userTemplateValuesWriteRepository);
+    }
+
+    @Test
+    void setUserValuesRejectsWriteWhenQueueCannotBeChecked() {
+        when(writeBehindService.isEnabled()).thenReturn(true);
+        when(writeBehindService.hasPendingWrite(applicationId, environmentId,
+                "user-1")).thenThrow(new WriteBehindUnavailableException("unavailable",
+                new IllegalStateException()));
+
+        assertThatThrownBy(() -> templateService.setUserValues(applicationId, environmentId,
+                "user-1", Map.of("theme", "dark"), null)).isInstanceOf(
+                WriteBehindUnavailableException.class);
+        verifyNoInteractions(userTemplateValuesWriteRepository);
+    }
+
+    @Test
+    void setUserValuesInvalidatesCacheWhenValuesChanged() {
+        when(userTemplateValuesWriteRepository.upsert(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"), Map.of("theme", "dark"), null)).thenReturn(
+                new UserValuesWriteResult(2, true));
+
+        var result = templateService.setUserValues(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"), null);
+
+        assertThat(result.version()).isEqualTo(2);
+        verify(templateCacheService).invalidate(any(CacheInvalidationEvent.class));
+    }
+
+    @Test
+    void setUserValuesSkipsInvalidationWhenValuesUnchanged() {
+        when(userTemplateValuesWriteRepository.upsert(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"), Map.of("theme", "dark"), null)).thenReturn(
+                new UserValuesWriteResult(1, false));
+
+        var result = templateService.setUserValues(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"), null);
+
+        assertThat(result.changed()).isFalse();
+        verify(templateCacheService, never()).invalidate(any());
+    }
+
+    @Test
+    void setUserValuesThrowsPreconditionFailedOnVersionMismatch() {
+        when(userTemplateValuesWriteRepository.updateIfVersion(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"), Map.of("theme", "dark"), null, 3L)).thenReturn(
+                Optional.of(new UserValuesWriteResult(4, false)));
+
+        assertThatThrownBy(() -> templateService.setUserValues(applicationId, environmentId,
+                "user-1", Map.of("theme", "dark"), 3L)).isInstanceOf(
+                PreconditionFailedException.class);
+        verify(templateCacheService, never()).invalidate(any());
+    }
+
+    @Test
+    void setUserValuesThrowsPreconditionFailedWhenConditionalTargetMissing() {
+        when(userTemplateValuesWriteRepository.updateIfVersion(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"), Map.of("theme", "dark"), null, 0L)).thenReturn(
+                Optional.empty());
+
+        assertThatThrownBy(() -> templateService.setUserValues(applicationId, environmentId,
+                "user-1", Map.of("theme", "dark"), 0L)).isInstanceOf(
+                PreconditionFailedException.class);
+    }
+
+    @Test
+    void setUserValuesWithAnyVersionRequiresStoredValues() {
+        when(userTemplateValuesWriteRepository.findForUpdate(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> templateService.setUserValues(applicationId, environmentId,
+                "user-1", Map.of("theme", "dark"), TemplateService.ANY_VERSION)).isInstanceOf(
+                PreconditionFailedException.class);
+        verify(userTemplateValuesWriteRepository, never()).upsert(any(), any(), any(), any(),
+                any());
+    }
+
+    @Test
+    void setUserValuesWithAnyVersionOverwritesStoredValues() {
+        UUID userUuid = UserIdHasher.toUuid("user-1");
+        when(userTemplateValuesWriteRepository.findForUpdate(applicationId, environmentId,
+                userUuid)).thenReturn(
+                Optional.of(new StoredUserValues(7, Map.of("theme", "light"), null)));
+        when(userTemplateValuesWriteRepository.upsert(applicationId, environmentId, userUuid,
+                Map.of("theme", "dark"), null)).thenReturn(new UserValuesWriteResult(8, true));
+
+        var result = templateService.setUserValues(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"), TemplateService.ANY_VERSION);
+
+        assertThat(result.version()).isEqualTo(8);
+    }
+
+    @Test
+    void patchUserValuesWithAnyVersionRequiresStoredValues() {
+        when(userTemplateValuesWriteRepository.findForUpdate(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> templateService.patchUserValues(applicationId, environmentId,
+                "user-1", Map.of("theme", "dark"), TemplateService.ANY_VERSION)).isInstanceOf(
+                PreconditionFailedException.class);
+        verify(userTemplateValuesWriteRepository, never()).merge(any(), any(), any(), any(),
+                any());
+    }
+
+    @Test
+    void patchUserValuesSplitsMergePatchIntoSetsAndRemovals() {
+        Map<String, Object> patch = new LinkedHashMap<>();
+        patch.put("theme", "dark");
+        patch.put("font_size", null);
+        when(userTemplateValuesWriteRepository.merge(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"), Map.of("theme", "dark"),
+                List.of("font_size"))).thenReturn(
+                Optional.of(new UserValuesWriteResult(5, true)));
+        stubStoredOverrides(Map.of("theme", "dark"));
+
+        var patched = templateService.patchUserValues(applicationId, environmentId, "user-1",
+                patch, null);
+
+        assertThat(patched.result().version()).isEqualTo(5);
+        verify(templateCacheService).invalidate(any(CacheInvalidationEvent.class));
+    }
+
+    @Test
+    void patchUserValuesReturnsStoredValuesWithoutReadingTheCache() {
+        when(userTemplateValuesWriteRepository.merge(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"), Map.of("theme", "dark"), List.of())).thenReturn(
+                Optional.of(new UserValuesWriteResult(2, true)));
+        stubStoredOverrides(Map.of("theme", "dark"));
+
+        var patched = templateService.patchUserValues(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"), null);
+
+        assertThat(patched.merged().values()).containsEntry("theme", "dark")
+                .containsEntry("api_url", "https://default.api.com");
+        assertThat(patched.merged().appliedIdentifier()).isEqualTo("user-1");
+        verify(templateCacheService, never()).get(any(), any(), any(), any());
+    }
+
+    @Test
+    void patchUserValuesThrowsPreconditionFailedOnVersionMismatch() {
+        when(userTemplateValuesWriteRepository.mergeIfVersion(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"), Map.of("theme", "dark"), List.of(), 1L)).thenReturn(
+                Optional.of(new UserValuesWriteResult(2, false)));
+
+        assertThatThrownBy(() -> templateService.patchUserValues(applicationId, environmentId,
+                "user-1", Map.of("theme", "dark"), 1L)).isInstanceOf(
+                PreconditionFailedException.class);
+    }
+
+    @Test
+    void getMergedUserValuesDecodesBinaryOverridesIntoMerge() {
+        var schema = createTemplateWithDefaults().getSchema();
+        byte[] encoded = {1, 0};
+        when(templateCacheService.get(applicationId, environmentId, TemplateType.USER,
+                "user-1")).thenReturn(Optional.empty());
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(
+                Optional.of(new UserTemplateDocuments(schema, null, null, encoded, null)));
+        doAnswer(invocation -> {
+            Map<String, Object> target = invocation.getArgument(2);
+            target.put("api_url", "https://user.api.com");
+            return null;
+        }).when(userValuesStorage).decodeInto(eq(applicationId), eq(encoded), any());
+
+        var response = templateService.getMergedUserValues(applicationId, environmentId, "user-1");
+
+        assertThat(response.values()).containsEntry("api_url", "https://user.api.com");
+    }
+
+    @Test
+    void patchUserValuesPatchesBinaryRowsInMemory() {
+        UUID userUuid = UserIdHasher.toUuid("user-1");
+        byte[] stored = {1, 0};
+        byte[] patched = {1, 1};
+        Map<String, Object> expected = Map.of("theme", "dark");
+        when(userValuesStorage.writesBinary()).thenReturn(true);
+        when(userTemplateValuesWriteRepository.findForUpdate(applicationId, environmentId,
+                userUuid)).thenReturn(Optional.of(new StoredUserValues(3, null, stored)));
+        doAnswer(invocation -> {
+            Map<String, Object> target = invocation.getArgument(2);
+            target.put("font_size", 12);
+            return null;
+        }).when(userValuesStorage).decodeInto(eq(applicationId), eq(stored), any());
+        when(userValuesStorage.encode(applicationId, expected)).thenReturn(patched);
+        when(userTemplateValuesWriteRepository.updateIfVersion(applicationId, environmentId,
+                userUuid, expected, patched, 3L)).thenReturn(
+                Optional.of(new UserValuesWriteResult(4, true)));
+        stubStoredOverrides(expected);
+
+        Map<String, Object> patch = new LinkedHashMap<>();
+        patch.put("theme", "dark");
+        patch.put("font_size", null);
+        var patchedValues = templateService.patchUserValues(applicationId, environmentId,
+                "user-1", patch, null);
+
+        assertThat(patchedValues.result().version()).isEqualTo(4);
+        verify(userTemplateValuesWriteRepository, never()).merge(any(), any(), any(), any(),
+                any());
+    }
+
+    @Test
+    void getMergedUserValuesCachesSharedPayloadOnceAndReferencesIt() {
+        var schema = createTemplateWithDefaults().getSchema();
+        byte[] payloadHash = {(byte) 0xab, 0x01};
+        when(templateCacheService.get(applicationId, environmentId, TemplateType.USER,
+                "user-1")).thenReturn(Optional.empty());
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(Optional.of(
+                new UserTemplateDocuments(schema, null, Map.of("beta", true), null,
+                        payloadHash)));
+
+        var response = templateService.getMergedUserValues(applicationId, environmentId, "user-1");
+
+        assertThat(response.values()).containsEntry("beta", true);
+        assertThat(response.appliedIdentifier()).isEqualTo("user-1");
+        verify(templateCacheService).put(applicationId, environmentId, TemplateType.USER,
+                "/payload/ab01", response);
+        verify(templateCacheService).putReference(applicationId, environmentId, TemplateType.USER,
+                "user-1", "/payload/ab01");
+        verify(templateCacheService, never()).put(eq(applicationId), eq(environmentId),
+                eq(TemplateType.USER), eq("user-1"), any());
+    }
+
+    @Test
+    void getMergedUserValuesSharesDefaultsBetweenUsersWithoutOverrides() {
+        var schema = createTemplateWithDefaults().getSchema();
+        when(templateCacheService.get(applicationId, environmentId, TemplateType.USER,
+                "user-1")).thenReturn(Optional.empty());
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(
+                Optional.of(new UserTemplateDocuments(schema, null, null, null, null)));
+
+        templateService.getMergedUserValues(applicationId, environmentId, "user-1");
+
+        verify(templateCacheService).putReference(applicationId, environmentId, TemplateType.USER,
+                "user-1", "/defaults");
+    }
+
+    @Test
+    void getMergedUserValuesKeepsPendingWritesOutOfSharedEntries() {
+        var schema = createTemplateWithDefaults().getSchema();
+        when(templateCacheService.get(applicationId, environmentId, TemplateType.USER,
+                "user-1")).thenReturn(Optional.empty());
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(Optional.of(
+                new UserTemplateDocuments(schema, null, Map.of("beta", true), null,
+                        new byte[]{1})));
+        when(writeBehindService.pendingValues(applicationId, environmentId,
+                "user-1")).thenReturn(Optional.of(Map.of("beta", false)));
+
+        var response = templateService.getMergedUserValues(applicationId, environmentId, "user-1");
+
+        verify(templateCacheService).put(applicationId, environmentId, TemplateType.USER,
+                "user-1", response);
+        verify(templateCacheService, never()).putReference(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void patchUserValuesPatchesInMemoryWhenDeduplicating() {
+        UUID userUuid = UserIdHasher.toUuid("user-1");
+        Map<String, Object> expected = Map.of("beta", true, "theme", "dark");
+        when(userValuesStorage.deduplicates()).thenReturn(true);
+        when(userTemplateValuesWriteRepository.findForUpdate(applicationId, environmentId,
+                userUuid)).thenReturn(
+                Optional.of(new StoredUserValues(1, Map.of("beta", true), null)));
+        when(userTemplateValuesWriteRepository.updateIfVersion(applicationId, environmentId,
+                userUuid, expected, null, 1L)).thenReturn(
+                Optional.of(new UserValuesWriteResult(2, true)));
+        stubStoredOverrides(expected);
+
+        var patched = templateService.patchUserValues(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"), null);
+
+        assertThat(patched.result().version()).isEqualTo(2);
+        verify(userTemplateValuesWriteRepository, never()).merge(any(), any(), any(), any(),
+                any());
+    }
+
+    private void stubStoredOverrides(Map<String, Object> overrides) {
+        var schema = createTemplateWithDefaults().getSchema();
+        when(userTemplateDocumentsRepository.findDocuments(applicationId, environmentId,
+                UserIdHasher.toUuid("user-1"))).thenReturn(
+                Optional.of(new UserTemplateDocuments(schema, null, overrides, null, null)));
+    }
+
     private TemplateEntity createTemplateWithDefaults() {
         var schema = new TemplateSchema(List.of(new StringTemplateField("api_url", "API URL", false,
                 "https://default.api.com", 0, 255)));
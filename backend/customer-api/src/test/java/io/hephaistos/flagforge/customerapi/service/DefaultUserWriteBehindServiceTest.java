@@ -0,0 +1,115 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.customerapi.configuration.WriteBehindProperties;
+import io.hephaistos.flagforge.customerapi.exception.WriteBehindUnavailableException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.STREAM_KEY;
+import static io.hephaistos.flagforge.customerapi.service.DefaultUserWriteBehindService.pendingKey;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class DefaultUserWriteBehindServiceTest {
+
+    @Mock
+    private RedisEndpoint redisEndpoint;
+
+    @Mock
+    private RedisEndpoint.Connection<String> connection;
+
+    @Mock
+    private RedisClusterCommands<String, String> commands;
+
+    @Mock
+    private TemplateCacheService cacheService;
+
+    private DefaultUserWriteBehindService writeBehindService;
+    private UUID applicationId;
+    private UUID environmentId;
+
+    @BeforeEach
+    void setUp() {
+        when(redisEndpoint.connect()).thenReturn(connection);
+        when(connection.sync()).thenReturn(commands);
+        writeBehindService = new DefaultUserWriteBehindService(redisEndpoint, cacheService,
+                JsonMapper.builder().build(),
+                new WriteBehindProperties(true, 0, null));
+        applicationId = UUID.randomUUID();
+        environmentId = UUID.randomUUID();
+    }
+
+    @Test
+    void enqueueAppendsToStreamAndSetsPendingOverlayInOneScript() {
+        boolean queued = writeBehindService.enqueue(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"));
+
+        assertThat(queued).isTrue();
+        verify(commands).eval(anyString(), eq(ScriptOutputType.VALUE),
+                eq(new String[]{STREAM_KEY, pendingKey(applicationId, environmentId, "user-1")}),
+                eq(applicationId.toString()), eq(environmentId.toString()), eq("user-1"),
+                eq("{\"theme\":\"dark\"}"));
+        verify(cacheService).invalidate(
+                new CacheInvalidationEvent(CacheInvalidationType.USER_CHANGE, applicationId,
+                        environmentId, TemplateType.USER, "user-1"));
+    }
+
+    @Test
+    void enqueueFallsBackToSynchronousWriteWhenRedisFails() {
+        when(commands.eval(anyString(), eq(ScriptOutputType.VALUE), any(String[].class),
+                any(String[].class))).thenThrow(new RedisCommandTimeoutException("timeout"));
+
+        boolean queued = writeBehindService.enqueue(applicationId, environmentId, "user-1",
+                Map.of("theme", "dark"));
+
+        assertThat(queued).isFalse();
+        verifyNoInteractions(cacheService);
+    }
+
+    @Test
+    void pendingValuesReadsValuesOfTheOverlay() {
+        when(commands.get(pendingKey(applicationId, environmentId, "user-1"))).thenReturn(
+                DefaultUserWriteBehindService.pendingValue("5-0", "{\"theme\":\"dark\"}"));
+
+        assertThat(writeBehindService.pendingValues(applicationId, environmentId,
+                "user-1")).contains(Map.of("theme", "dark"));
+    }
+
+    @Test
+    void pendingValuesIsEmptyWithoutOverlay() {
+        assertThat(writeBehindService.pendingValues(applicationId, environmentId,
+                "user-1")).isEmpty();
+    }
+
+    @Test
+    void hasPendingWriteFailsWhenRedisFails() {
+        when(commands.exists(pendingKey(applicationId, environmentId, "user-1"))).thenThrow(
+                new RedisCommandTimeoutException("timeout"));
+
+        assertThatThrownBy(() -> writeBehindService.hasPendingWrite(applicationId, environmentId,
+                "user-1")).isInstanceOf(WriteBehindUnavailableException.class);
+    }
+}
@@ -0,0 +1,219 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class LegacyUsageKeyMigrationTest {
+
+    @Mock
+    private RedisEndpoint.Connection<String> connection;
+
+    @Mock
+    private RedisCommands<String, String> commands;
+
+    private final UUID envId = UUID.randomUUID();
+
+    private LegacyUsageKeyMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        when(connection.sync()).thenReturn(commands);
+        migration = new LegacyUsageKeyMigration(connection);
+    }
+
+    @Test
+    void mergesTextCountersIntoCompactKeysAndRegistersThem() {
+        String monthly = "usage:monthly:" + envId + ":2026-10";
+        String peak = "usage:peak:{" + envId + "}:2026-10-19";
+        whenScanned(List.of(monthly, peak), List.of());
+        ArgumentCaptor<String> staged = ArgumentCaptor.forClass(String.class);
+        when(commands.rename(eq(monthly), staged.capture())).thenReturn("OK");
+        when(commands.rename(eq(peak), staged.capture())).thenReturn("OK");
+        when(commands.get(anyString())).thenReturn("42", "7");
+        when(commands.pttl(anyString())).thenReturn(5000L, -1L);
+
+        int moved = migration.migrate();
+
+        assertThat(moved).isEqualTo(2);
+        String stagedMonthly = staged.getAllValues().get(0);
+        String stagedPeak = staged.getAllValues().get(1);
+        String registry = RedisKeys.environmentKeys(envId);
+        verify(commands).eval(eq(LegacyUsageKeyMigration.MERGE_SCRIPT),
+                eq(ScriptOutputType.INTEGER),
+                eq(new String[]{RedisKeys.usageMonthly(envId, YearMonth.of(2026, 10)), registry}),
+                eq("42"), eq("sum"), eq("5000"), eq(stagedMonthly), anyString(),
+                eq(String.valueOf(DefaultRateLimitService.USAGE_KEY_TTL_SECONDS)));
+        verify(commands).eval(eq(LegacyUsageKeyMigration.MERGE_SCRIPT),
+                eq(ScriptOutputType.INTEGER),
+                eq(new String[]{RedisKeys.usagePeak(envId, LocalDate.of(2026, 10, 19)), registry}),
+                eq("7"), eq("max"), eq("-1"), eq(stagedPeak), anyString(),
+                eq(String.valueOf(DefaultRateLimitService.USAGE_KEY_TTL_SECONDS)));
+        verify(commands).del(stagedMonthly);
+        verify(commands).del(stagedPeak);
+    }
+
+    @Test
+    void mergesStagingKeyLeftByFailedRun() {
+        String staging = LegacyUsageKeyMigration.stagingKey(
+                "usage:daily:" + envId + ":2026-10-19", UUID.randomUUID());
+        whenScanned(List.of(staging), List.of());
+        when(commands.get(staging)).thenReturn("3");
+        when(commands.pttl(staging)).thenReturn(1000L);
+
+        migration.migrate();
+
+        verify(commands, never()).rename(anyString(), anyString());
+        verify(commands).eval(eq(LegacyUsageKeyMigration.MERGE_SCRIPT),
+                eq(ScriptOutputType.INTEGER),
+                eq(new String[]{RedisKeys.usageDaily(envId, LocalDate.of(2026, 10, 19)),
+                        RedisKeys.environmentKeys(envId)}),
+                eq("3"), eq("sum"), eq("1000"), eq(staging), anyString(), anyString());
+        verify(commands).del(staging);
+    }
+
+    @Test
+    void skipsCounterMovedSinceTheScan() {
+        String monthly = "usage:monthly:" + envId + ":2026-10";
+        whenScanned(List.of(monthly), List.of());
+        when(commands.rename(eq(monthly), anyString())).thenThrow(
+                new RedisCommandExecutionException("ERR no such key"));
+
+        assertThat(migration.migrate()).isZero();
+
+        verify(commands, never()).eval(any(String.class), any(ScriptOutputType.class),
+                any(String[].class), any(String[].class));
+    }
+
+    @Test
+    void leavesPerSecondAndForeignKeysAlone() {
+        whenScanned(List.of("usage:second:{" + envId + "}:1760000000",
+                "usage:daily:not-a-uuid:2026-10-19"), List.of());
+
+        migration.migrate();
+
+        verify(commands, never()).rename(anyString(), anyString());
+        verify(commands, never()).eval(any(String.class), any(ScriptOutputType.class),
+                any(String[].class), any(String[].class));
+    }
+
+    @Test
+    void deletesTextTokenBuckets() {
+        String bucket = "rate-limit:env:{" + envId + "}";
+        whenScanned(List.of(), List.of(bucket));
+
+        migration.migrate();
+
+        verify(commands).del(bucket);
+    }
+
+    @Test
+    void marksMigrationDoneOnceNothingIsLeft() {
+        when(commands.set(eq(LegacyUsageKeyMigration.LOCK_KEY), anyString(),
+                any(SetArgs.class))).thenReturn("OK");
+        whenScanned(List.of(), List.of());
+
+        assertThat(migration.migrateOnce()).isTrue();
+
+        verify(commands).set(eq(LegacyUsageKeyMigration.DONE_KEY), anyString());
+    }
+
+    @Test
+    void keepsRunningWhileOldInstancesWriteTextKeys() {
+        when(commands.set(eq(LegacyUsageKeyMigration.LOCK_KEY), anyString(),
+                any(SetArgs.class))).thenReturn("OK");
+        whenScanned(List.of(), List.of("rate-limit:env:{" + envId + "}"));
+
+        assertThat(migration.migrateOnce()).isFalse();
+
+        verify(commands, never()).set(eq(LegacyUsageKeyMigration.DONE_KEY), anyString());
+    }
+
+    @Test
+    void doesNothingOnceDone() {
+        when(commands.get(LegacyUsageKeyMigration.DONE_KEY)).thenReturn("2026-10-19T00:00:00Z");
+
+        assertThat(migration.migrateOnce()).isTrue();
+
+        verify(commands, never()).scan(any(ScanCursor.class), any(ScanArgs.class));
+    }
+
+    @Test
+    void skipsRunWhileAnotherInstanceHoldsTheLock() {
+        assertThat(migration.migrateOnce()).isFalse();
+
+        verify(commands, never()).scan(any(ScanCursor.class), any(ScanArgs.class));
+    }
+
+    @Test
+    void stagingKeysStayInTheSlotOfTheirCounter() {
+        UUID nonce = UUID.randomUUID();
+        String untagged = "usage:monthly:" + envId + ":2026-10";
+        String tagged = "usage:peak:{" + envId + "}:2026-10-19";
+
+        assertThat(LegacyUsageKeyMigration.stagingKey(untagged, nonce))
+                .isEqualTo("usage:migrating:{" + untagged + "}:" + nonce);
+        assertThat(LegacyUsageKeyMigration.legacyKey(
+                LegacyUsageKeyMigration.stagingKey(untagged, nonce))).isEqualTo(untagged);
+        assertThat(LegacyUsageKeyMigration.legacyKey(
+                LegacyUsageKeyMigration.stagingKey(tagged, nonce))).isEqualTo(tagged);
+    }
+
+    @Test
+    void compactKeyParsesUntaggedAndTaggedKeys() {
+        LocalDate date = LocalDate.of(2026, 10, 19);
+
+        assertThat(LegacyUsageKeyMigration.compactKey("usage:rejected:" + envId + ":2026-10-19"))
+                .isEqualTo(RedisKeys.usageRejected(envId, date));
+        assertThat(LegacyUsageKeyMigration.compactKey("usage:daily:{" + envId + "}:2026-10-19"))
+                .isEqualTo(RedisKeys.usageDaily(envId, date));
+        assertThat(LegacyUsageKeyMigration.compactKey("usage:unknown:" + envId + ":x")).isNull();
+        assertThat(LegacyUsageKeyMigration.compactKey("usage:daily:" + envId + ":19.10.2026"))
+                .isNull();
+    }
+
+    private void whenScanned(List<String> usageKeys, List<String> bucketKeys) {
+        KeyScanCursor<String> usage = cursor(usageKeys);
+        KeyScanCursor<String> buckets = cursor(bucketKeys);
+        // Counters are scanned first, then token buckets
+        when(commands.scan(any(ScanCursor.class), any(ScanArgs.class))).thenReturn(usage,
+                buckets);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KeyScanCursor<String> cursor(List<String> keys) {
+        KeyScanCursor<String> cursor = mock(KeyScanCursor.class);
+        when(cursor.getKeys()).thenReturn(keys);
+        when(cursor.isFinished()).thenReturn(true);
+        return cursor;
+    }
+}
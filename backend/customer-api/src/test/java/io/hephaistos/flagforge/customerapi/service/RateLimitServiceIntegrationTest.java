@@ -1,15 +1,21 @@
 package io.hephaistos.flagforge.customerapi.service;
 
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
 import io.hephaistos.flagforge.customerapi.PostgresTestContainerConfiguration;
 import io.hephaistos.flagforge.customerapi.RedisTestContainerConfiguration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,6 +29,10 @@ class RateLimitServiceIntegrationTest {
     @Autowired
     private RateLimitService rateLimitService;
 
+    @Autowired
+    @Qualifier("usageRedisConnection")
+    private RedisEndpoint.Connection<String> usageRedisConnection;
+
     private UUID testEnvironmentId;
 
     @BeforeEach
@@ -126,6 +136,44 @@ class RateLimitServiceIntegrationTest {
         assertThat(remaining).isEqualTo(0);
     }
 
+    @Test
+    void recordUsageSharesTheMonthlyCounter() {
+        rateLimitService.incrementMonthlyUsage(testEnvironmentId);
+
+        long monthly = rateLimitService.recordUsage(testEnvironmentId);
+
+        assertThat(monthly).isEqualTo(2);
+        assertThat(rateLimitService.getMonthlyUsage(testEnvironmentId)).isEqualTo(2);
+    }
+
+    @Test
+    void recordUsageUpdatesDailyCounterAndPeak() {
+        rateLimitService.recordUsage(testEnvironmentId);
+        rateLimitService.recordUsage(testEnvironmentId);
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        var commands = usageRedisConnection.sync();
+        assertThat(commands.get(RedisKeys.usageDaily(testEnvironmentId, today))).isEqualTo("2");
+        // Both requests may fall into different seconds
+        assertThat(commands.get(RedisKeys.usagePeak(testEnvironmentId, today))).isIn("1", "2");
+        assertThat(commands.ttl(RedisKeys.usagePeak(testEnvironmentId, today))).isPositive();
+    }
+
+    @Test
+    void newCountersAreRegisteredForCleanup() {
+        rateLimitService.recordUsage(testEnvironmentId);
+        rateLimitService.recordUsage(testEnvironmentId);
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        var commands = usageRedisConnection.sync();
+        String registry = RedisKeys.environmentKeys(testEnvironmentId);
+        assertThat(commands.zrange(registry, 0, -1)).containsExactlyInAnyOrder(
+                RedisKeys.usageMonthly(testEnvironmentId, YearMonth.now(ZoneOffset.UTC)),
+                RedisKeys.usageDaily(testEnvironmentId, today),
+                RedisKeys.usagePeak(testEnvironmentId, today));
+        assertThat(commands.ttl(registry)).isPositive();
+    }
+
     @Test
     void differentEnvironmentsHaveIndependentCounters() {
         UUID env1 = UUID.randomUUID();
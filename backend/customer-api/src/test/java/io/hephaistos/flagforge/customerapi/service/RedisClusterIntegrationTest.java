@@ -0,0 +1,162 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
+import io.hephaistos.flagforge.customerapi.configuration.RateLimitProperties;
+import io.hephaistos.flagforge.customerapi.configuration.RedisConfiguration;
+import io.hephaistos.flagforge.customerapi.configuration.WriteBehindProperties;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.internal.HostAndPort;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DnsResolvers;
+import io.lettuce.core.resource.MappingSocketAddressResolver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Redis-backed services against a three-node Redis Cluster, so keys of different
+ * environments land on different nodes and multi-key scripts fail unless their keys share a slot.
+ */
+@Tag("integration")
+class RedisClusterIntegrationTest {
+
+    private static final int[] PORTS = {7000, 7001, 7002};
+
+    private static final String CLUSTER_SCRIPT = """
+            for port in 7000 7001 7002; do
+              redis-server --port $port --cluster-enabled yes \
+                --cluster-config-file nodes-$port.conf --cluster-announce-ip 127.0.0.1 \
+                --protected-mode no --save '' --appendonly no --daemonize yes
+            done
+            for port in 7000 7001 7002; do
+              until redis-cli -p $port ping; do sleep 0.1; done
+            done
+            redis-cli --cluster create 127.0.0.1:7000 127.0.0.1:7001 127.0.0.1:7002 \
+              --cluster-replicas 0 --cluster-yes
+            tail -f /dev/null
+            """;
+
+    private static final GenericContainer<?> CLUSTER =
+            new GenericContainer<>("redis:7-alpine").withExposedPorts(7000, 7001, 7002)
+                    .withCommand("sh", "-c", CLUSTER_SCRIPT)
+                    .waitingFor(Wait.forLogMessage(".*All 16384 slots covered.*", 1));
+
+    private static ClientResources clientResources;
+    private static RedisEndpoint endpoint;
+    private static final List<RedisEndpoint.Connection<?>> CONNECTIONS = new ArrayList<>();
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @BeforeAll
+    static void startCluster() {
+        CLUSTER.start();
+        // The nodes announce their container ports; connect through the mapped ones instead
+        clientResources = ClientResources.builder()
+                .socketAddressResolver(MappingSocketAddressResolver.create(DnsResolvers.UNRESOLVED,
+                        node -> HostAndPort.of(CLUSTER.getHost(),
+                                CLUSTER.getMappedPort(node.getPort()))))
+                .build();
+        endpoint = RedisEndpoint.cluster(RedisClusterClient.create(clientResources,
+                RedisURI.create("127.0.0.1", PORTS[0])));
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        CONNECTIONS.forEach(RedisEndpoint.Connection::close);
+        endpoint.shutdown();
+        clientResources.shutdown();
+        CLUSTER.stop();
+    }
+
+    @Test
+    void rateLimitingAndUsageCountersWorkOnTheCluster() {
+        var rateLimitConnection = connect(RedisEndpoint.BINARY_CODEC);
+        var properties = new RateLimitProperties(true, null, true, false, Duration.ofSeconds(1));
+        var rateLimitService = new DefaultRateLimitService(
+                new RedisConfiguration().rateLimitProxyManager(rateLimitConnection, properties),
+                connect(RedisEndpoint.STRING_CODEC), properties);
+        UUID environmentId = UUID.randomUUID();
+
+        assertThat(rateLimitService.tryConsume(environmentId, 2).allowed()).isTrue();
+        assertThat(rateLimitService.tryConsume(environmentId, 2).allowed()).isTrue();
+        assertThat(rateLimitService.tryConsume(environmentId, 2).allowed()).isFalse();
+
+        rateLimitService.incrementMonthlyUsage(environmentId);
+        assertThat(rateLimitService.incrementMonthlyUsage(environmentId)).isEqualTo(2);
+        // The usage script touches four keys, which must all be in the environment's slot
+        assertThat(rateLimitService.recordUsage(environmentId)).isEqualTo(3);
+    }
+
+    @Test
+    void schemaChangeInvalidatesEntriesOnEveryNode() {
+        var cacheService = new DefaultTemplateCacheService(connect(RedisEndpoint.STRING_CODEC),
+                connect(RedisEndpoint.BINARY_CODEC), connect(RedisEndpoint.STRING_CODEC),
+                connect(RedisEndpoint.BINARY_CODEC), jsonMapper,
+                new CacheProperties(true, 300, 0, null, null, true, null, null, null));
+        UUID appId = UUID.randomUUID();
+        // Enough environments that their slots are spread over all three nodes
+        List<UUID> environments = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID envId = UUID.randomUUID();
+            environments.add(envId);
+            cacheService.put(appId, envId, TemplateType.SYSTEM, "id", response());
+            assertThat(cacheService.get(appId, envId, TemplateType.SYSTEM, "id")).isPresent();
+        }
+
+        cacheService.invalidate(
+                new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE, appId, null,
+                        TemplateType.SYSTEM, null));
+
+        for (UUID envId : environments) {
+            assertThat(cacheService.get(appId, envId, TemplateType.SYSTEM, "id")).isEmpty();
+        }
+    }
+
+    @Test
+    void writeBehindEnqueueRunsItsScriptOnTheCluster() {
+        var writeBehind = new DefaultUserWriteBehindService(endpoint,
+                new NoOpTemplateCacheService(), jsonMapper,
+                new WriteBehindProperties(true, 0, null));
+        UUID appId = UUID.randomUUID();
+        UUID envId = UUID.randomUUID();
+
+        assertThat(writeBehind.enqueue(appId, envId, "user-1", Map.of("theme", "dark"))).isTrue();
+        assertThat(writeBehind.pendingValues(appId, envId, "user-1")).contains(
+                Map.of("theme", "dark"));
+        writeBehind.close();
+    }
+
+    private static <V> RedisEndpoint.Connection<V> connect(RedisCodec<String, V> codec) {
+        var connection = endpoint.connect(codec);
+        CONNECTIONS.add(connection);
+        return connection;
+    }
+
+    private static MergedTemplateValuesResponse response() {
+        var schema = new TemplateSchema(List.of(new StringTemplateField("api_url", "API URL", false,
+                "https://default.api.com", 0, 255)));
+        return new MergedTemplateValuesResponse(TemplateType.SYSTEM, schema,
+                Map.of("api_url", "https://test.api.com"), "id");
+    }
+}
@@ -0,0 +1,230 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.data.ApiKeyEntity;
+import io.hephaistos.flagforge.common.data.ApplicationEntity;
+import io.hephaistos.flagforge.common.data.CompanyEntity;
+import io.hephaistos.flagforge.common.data.EnvironmentEntity;
+import io.hephaistos.flagforge.common.data.TemplateEntity;
+import io.hephaistos.flagforge.common.enums.KeyType;
+import io.hephaistos.flagforge.common.enums.PricingTier;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.IntegrationTestSupport;
+import io.hephaistos.flagforge.customerapi.PostgresTestContainerConfiguration;
+import io.hephaistos.flagforge.customerapi.RedisTestContainerConfiguration;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares synchronous USER writes with write-behind end to end: HTTP, Redis stream, flusher and
+ * Postgres. The queued run is measured until every user's last write is stored. Excluded from the
+ * default test run; execute with {@code ./gradlew benchmarkTest}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "flagforge.write-behind.enabled=true")
+@ActiveProfiles("test")
+@Import({PostgresTestContainerConfiguration.class, RedisTestContainerConfiguration.class})
+@Tag("benchmark")
+class WriteBehindBenchmarkTest extends IntegrationTestSupport {
+
+    private static final String WRITE_API_KEY =
+            "write_key_bench_0123456789abcdef0123456789abcdef0123456789abcde";
+    private static final int USERS = 500;
+    private static final int WRITES = 10_000;
+    private static final int CLIENTS = 8;
+    private static final long FLUSH_TIMEOUT_MILLIS = 60_000;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcClient jdbcClient;
+
+    private UUID applicationId;
+    private UUID environmentId;
+
+    @BeforeEach
+    void setUp() {
+        initializeTestSupport();
+        transactionTemplate.execute(status -> {
+            cleanupTestData();
+            createTestData();
+            return null;
+        });
+    }
+
+    @Test
+    void compareSynchronousAndQueuedWrites() throws Exception {
+        // Merge patches are never queued; with a single key they store the same as a POST
+        long synchronousMillis = run("sync", HttpMethod.PATCH, HttpStatus.OK);
+        // Both runs draw the same users, so the queued run stores as many again
+        long users = storedLastWrites();
+        long queuedAcceptedMillis = run("queued", HttpMethod.POST, HttpStatus.ACCEPTED);
+        long queuedStoredMillis = queuedAcceptedMillis + awaitStored(2 * users);
+
+        long writes = WRITES + users;
+        System.out.printf("writes=%d users=%d clients=%d%n", writes, users, CLIENTS);
+        System.out.printf("synchronous: %dms (%.0f writes/s)%n", synchronousMillis,
+                writes * 1000.0 / Math.max(1, synchronousMillis));
+        System.out.printf("write-behind: accepted in %dms (%.0f writes/s), stored after %dms%n",
+                queuedAcceptedMillis, writes * 1000.0 / Math.max(1, queuedAcceptedMillis),
+                queuedStoredMillis);
+        assertThat(storedLastWrites()).isEqualTo(2 * users);
+    }
+
+    /**
+     * Sends {@link #WRITES} writes skewed towards hot users from {@link #CLIENTS} threads. Every
+     * user's last write sets {@code theme} to {@code "last"}.
+     *
+     * @return Elapsed milliseconds
+     */
+    private long run(String prefix, HttpMethod method, HttpStatus expected)
+            throws Exception {
+        var random = new Random(42);
+        List<String> userIds = new ArrayList<>(WRITES);
+        for (int i = 0; i < WRITES; i++) {
+            double sample = random.nextDouble();
+            userIds.add(prefix + "-" + (int) (sample * sample * USERS));
+        }
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int offset = client;
+                results.add(clients.submit(() -> {
+                    for (int i = offset; i < WRITES; i += CLIENTS) {
+                        assertThat(write(method, userIds.get(i), "value-" + i)).isEqualTo(
+                                expected);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        // A final write per user, so completion can be checked in the database
+        for (String userId : userIds.stream().distinct().toList()) {
+            assertThat(write(method, userId, "last")).isEqualTo(expected);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private HttpStatus write(HttpMethod method, String userId, String theme) {
+        var headers = apiKeyHeaders(WRITE_API_KEY);
+        headers.set(HttpHeaders.CONTENT_TYPE, method == HttpMethod.PATCH ?
+                "application/merge-patch+json" :
+                "application/json");
+        return HttpStatus.valueOf(restTemplate.exchange(
+                getBaseUrl() + "/v1/api/templates/user/" + userId, method,
+                new HttpEntity<>(Map.of("theme", theme), headers), String.class)
+                .getStatusCode()
+                .value());
+    }
+
+    /**
+     * @return Milliseconds until {@code expected} users have their last write stored
+     */
+    private long awaitStored(long expected) throws InterruptedException {
+        long start = System.nanoTime();
+        while ((System.nanoTime() - start) / 1_000_000 < FLUSH_TIMEOUT_MILLIS) {
+            if (storedLastWrites() >= expected) {
+                return (System.nanoTime() - start) / 1_000_000;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Queued writes were not stored within " +
+                FLUSH_TIMEOUT_MILLIS + "ms");
+    }
+
+    private long storedLastWrites() {
+        return jdbcClient.sql("""
+                        SELECT COUNT(*) FROM user_template_values
+                        WHERE application_id = ? AND environment_id = ?
+                          AND values ->> 'theme' = 'last'""")
+                .params(applicationId, environmentId)
+                .query(Long.class)
+                .single();
+    }
+
+    private void cleanupTestData() {
+        entityManager.createNativeQuery("DELETE FROM user_template_values").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM template_values").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM template").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM api_key").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM environment").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM application").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM company").executeUpdate();
+    }
+
+    private void createTestData() {
+        var company = new CompanyEntity();
+        company.setName("Write Behind Benchmark Company");
+        entityManager.persist(company);
+        entityManager.flush();
+
+        var application = new ApplicationEntity();
+        application.setName("Write Behind Benchmark App");
+        application.setCompanyId(company.getId());
+        entityManager.persist(application);
+        entityManager.flush();
+        applicationId = application.getId();
+
+        var environment = new EnvironmentEntity();
+        environment.setName("Production");
+        environment.setDescription("Production environment");
+        environment.setApplicationId(application.getId());
+        environment.setTier(PricingTier.BASIC);
+        environment.setRateLimitRequestsPerSecond(1_000_000);
+        environment.setRequestsPerMonth(100_000_000);
+        entityManager.persist(environment);
+        entityManager.flush();
+        environmentId = environment.getId();
+
+        var writeApiKey = new ApiKeyEntity();
+        writeApiKey.setApplicationId(application.getId());
+        writeApiKey.setEnvironmentId(environment.getId());
+        writeApiKey.setKey(WRITE_API_KEY);
+        writeApiKey.setKeyType(KeyType.WRITE);
+        writeApiKey.setExpirationDate(OffsetDateTime.now().plusDays(30));
+        entityManager.persist(writeApiKey);
+
+        var template = new TemplateEntity();
+        template.setApplicationId(application.getId());
+        template.setCompanyId(company.getId());
+        template.setType(TemplateType.USER);
+        template.setSchema(new TemplateSchema(
+                List.of(new StringTemplateField("theme", "Theme", true, "light", 0, 50))));
+        entityManager.persist(template);
+
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,183 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.util.UserIdHasher;
+import io.hephaistos.flagforge.customerapi.configuration.WriteBehindProperties;
+import io.hephaistos.flagforge.customerapi.data.projection.UserValuesRecord;
+import io.hephaistos.flagforge.customerapi.data.repository.UserTemplateValuesBulkRepository;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.XTrimArgs;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.hephaistos.flagforge.customerapi.service.WriteBehindFlusher.CURSOR_KEY;
+import static io.hephaistos.flagforge.customerapi.service.WriteBehindFlusher.LOCK_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class WriteBehindFlusherTest {
+
+    @Mock
+    private RedisEndpoint redisEndpoint;
+
+    @Mock
+    private RedisEndpoint.Connection<String> connection;
+
+    @Mock
+    private RedisClusterCommands<String, String> commands;
+
+    @Mock
+    private UserTemplateValuesBulkRepository bulkRepository;
+
+    @Mock
+    private TemplateCacheService cacheService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleTransactionStatus transaction = new SimpleTransactionStatus();
+    /**
+     * Keys of every script the flusher ran, in order
+     */
+    private final List<List<String>> scriptKeys = new ArrayList<>();
+    private WriteBehindFlusher flusher;
+    private UUID applicationId;
+    private UUID environmentId;
+    private boolean leaseHeld;
+
+    @BeforeEach
+    void setUp() {
+        when(redisEndpoint.connect()).thenReturn(connection);
+        when(connection.sync()).thenReturn(commands);
+        flusher = new WriteBehindFlusher(redisEndpoint, bulkRepository, cacheService,
+                transactionManager, new WriteBehindProperties(true, 0, null));
+        applicationId = UUID.randomUUID();
+        environmentId = UUID.randomUUID();
+        leaseHeld = true;
+    }
+
+    @Test
+    void flushOnceReturnsZeroWhenNothingIsQueued() {
+        when(commands.xread(any(XReadArgs.class), any(XReadArgs.StreamOffset.class))).thenReturn(
+                List.of());
+
+        assertThat(flusher.flushOnce()).isZero();
+        verifyNoInteractions(bulkRepository, cacheService, transactionManager);
+    }
+
+    @Test
+    void flushOnceStoresLatestWritePerUserAndAdvancesCursor() {
+        stubQueuedWrites(List.of(write("1-0", "user-1", "{\"theme\":\"light\"}"),
+                write("2-0", "user-2", "{\"beta\":true}"),
+                write("3-0", "user-1", "{\"theme\":\"dark\"}")));
+        stubScripts();
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(
+                transaction);
+
+        int consumed = flusher.flushOnce();
+
+        assertThat(consumed).isEqualTo(3);
+        verify(bulkRepository).upsertBatch(applicationId, environmentId, List.of(
+                new UserValuesRecord(UserIdHasher.toUuid("user-1"), 0, "{\"theme\":\"dark\"}"),
+                new UserValuesRecord(UserIdHasher.toUuid("user-2"), 0, "{\"beta\":true}")));
+        verify(transactionManager).commit(transaction);
+        verify(cacheService, times(2)).invalidate(any(CacheInvalidationEvent.class));
+        // The lease is renewed before the commit and checked again when moving the cursor
+        assertThat(scriptKeys.getFirst()).containsExactly(LOCK_KEY);
+        assertThat(scriptKeys.getLast()).containsExactly(LOCK_KEY, CURSOR_KEY);
+        verify(commands).xtrim(eq(DefaultUserWriteBehindService.STREAM_KEY),
+                any(XTrimArgs.class));
+    }
+
+    @Test
+    void flushOnceRollsBackWhenLeaseIsLostBeforeCommit() {
+        stubQueuedWrites(List.of(write("1-0", "user-1", "{\"theme\":\"dark\"}")));
+        stubScripts();
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(
+                transaction);
+        leaseHeld = false;
+
+        int consumed = flusher.flushOnce();
+
+        assertThat(consumed).isZero();
+        verify(transactionManager).rollback(transaction);
+        verify(transactionManager, never()).commit(any());
+        verifyNoInteractions(cacheService);
+        assertThat(scriptKeys).containsExactly(List.of(LOCK_KEY));
+        verify(commands, never()).xtrim(anyString(), any(XTrimArgs.class));
+    }
+
+    @Test
+    void flushOnceKeepsCursorWhenLeaseIsLostAfterCommit() {
+        stubQueuedWrites(List.of(write("1-0", "user-1", "{\"theme\":\"dark\"}")));
+        when(commands.eval(anyString(), eq(ScriptOutputType.INTEGER), any(String[].class),
+                any(String[].class))).thenAnswer(invocation -> {
+            String[] keys = invocation.getArgument(2);
+            // Still held when committing, taken over before the cursor moves
+            return keys.length == 2 ? 0L : 1L;
+        });
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(
+                transaction);
+
+        int consumed = flusher.flushOnce();
+
+        assertThat(consumed).isZero();
+        verify(transactionManager).commit(transaction);
+        verify(commands, never()).set(eq(CURSOR_KEY), anyString());
+        verify(commands, never()).xtrim(anyString(), any(XTrimArgs.class));
+    }
+
+    private void stubQueuedWrites(List<StreamMessage<String, String>> messages) {
+        when(commands.get(CURSOR_KEY)).thenReturn(null);
+        when(commands.xread(any(XReadArgs.class), any(XReadArgs.StreamOffset.class))).thenReturn(
+                messages);
+    }
+
+    /**
+     * Answers the lease, cursor and pending overlay scripts according to {@link #leaseHeld}.
+     */
+    private void stubScripts() {
+        when(commands.eval(anyString(), eq(ScriptOutputType.INTEGER), any(String[].class),
+                any(String[].class))).thenAnswer(invocation -> {
+            String[] keys = invocation.getArgument(2);
+            scriptKeys.add(List.of(keys));
+            if (keys[0].equals(LOCK_KEY)) {
+                return leaseHeld ? 1L : 0L;
+            }
+            return 1L;
+        });
+    }
+
+    private StreamMessage<String, String> write(String entryId, String userId, String values) {
+        return new StreamMessage<>(DefaultUserWriteBehindService.STREAM_KEY, entryId,
+                Map.of(DefaultUserWriteBehindService.FIELD_APPLICATION, applicationId.toString(),
+                        DefaultUserWriteBehindService.FIELD_ENVIRONMENT,
+                        environmentId.toString(), DefaultUserWriteBehindService.FIELD_USER,
+                        userId, DefaultUserWriteBehindService.FIELD_VALUES, values));
+    }
+}
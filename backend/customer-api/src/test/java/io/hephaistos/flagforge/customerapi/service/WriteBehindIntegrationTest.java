@@ -0,0 +1,245 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.common.data.ApiKeyEntity;
+import io.hephaistos.flagforge.common.data.ApplicationEntity;
+import io.hephaistos.flagforge.common.data.CompanyEntity;
+import io.hephaistos.flagforge.common.data.EnvironmentEntity;
+import io.hephaistos.flagforge.common.data.TemplateEntity;
+import io.hephaistos.flagforge.common.enums.KeyType;
+import io.hephaistos.flagforge.common.enums.PricingTier;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.common.util.UserIdHasher;
+import io.hephaistos.flagforge.customerapi.IntegrationTestSupport;
+import io.hephaistos.flagforge.customerapi.PostgresTestContainerConfiguration;
+import io.hephaistos.flagforge.customerapi.RedisTestContainerConfiguration;
+import io.hephaistos.flagforge.customerapi.controller.dto.MergedTemplateValuesResponse;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs queued USER writes through the API, the Redis stream and the flusher into Postgres.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"flagforge.write-behind.enabled=true",
+                "flagforge.write-behind.flush-interval=50ms"})
+@ActiveProfiles("test")
+@Import({PostgresTestContainerConfiguration.class, RedisTestContainerConfiguration.class})
+@Tag("integration")
+class WriteBehindIntegrationTest extends IntegrationTestSupport {
+
+    private static final String WRITE_API_KEY =
+            "write_key_behind_0123456789abcdef0123456789abcdef0123456789abcd";
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration FENCED_WAIT = Duration.ofSeconds(1);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcClient jdbcClient;
+
+    @Autowired
+    @Qualifier("cacheRedisConnection")
+    private RedisEndpoint.Connection<String> cacheRedisConnection;
+
+    private UUID applicationId;
+    private UUID environmentId;
+
+    @BeforeEach
+    void setUp() {
+        initializeTestSupport();
+        transactionTemplate.execute(status -> {
+            cleanupTestData();
+            createTestData();
+            return null;
+        });
+    }
+
+    @Test
+    void unconditionalWriteIsQueuedAndReadBackBeforeItIsStored() {
+        var response = postWithApiKey("/v1/api/templates/user/queued-user", WRITE_API_KEY,
+                Map.of("theme", "dark"), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        var read = getWithApiKey("/v1/api/templates/user/queued-user", WRITE_API_KEY,
+                MergedTemplateValuesResponse.class);
+        assertThat(read.getBody()).isNotNull();
+        assertThat(read.getBody().values()).containsEntry("theme", "dark");
+    }
+
+    @Test
+    void flusherStoresLatestQueuedWriteInPostgres() {
+        for (String theme : List.of("red", "green", "blue")) {
+            assertThat(postWithApiKey("/v1/api/templates/user/flushed-user", WRITE_API_KEY,
+                    Map.of("theme", theme), String.class).getStatusCode()).isEqualTo(
+                    HttpStatus.ACCEPTED);
+        }
+
+        assertThat(awaitStoredTheme("flushed-user", "blue")).isTrue();
+        var read = getWithApiKey("/v1/api/templates/user/flushed-user", WRITE_API_KEY,
+                MergedTemplateValuesResponse.class);
+        assertThat(read.getBody()).isNotNull();
+        assertThat(read.getBody().values()).containsEntry("theme", "blue");
+    }
+
+    @Test
+    void conditionalWriteWhileQueuedWriteIsPendingReturns409() {
+        var commands = cacheRedisConnection.sync();
+        // Another instance holding the lease keeps the write queued
+        commands.set(WriteBehindFlusher.LOCK_KEY, "other-instance");
+        try {
+            assertThat(postWithApiKey("/v1/api/templates/user/pending-user", WRITE_API_KEY,
+                    Map.of("theme", "dark"), String.class).getStatusCode()).isEqualTo(
+                    HttpStatus.ACCEPTED);
+
+            var conflict = postWithIfMatch("/v1/api/templates/user/pending-user", "\"0\"",
+                    Map.of("theme", "light"));
+
+            assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+            assertThat(conflict.getBody()).contains("WRITE_PENDING");
+            assertThat(conflict.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            // A flusher that lost its lease must not store the batch it may already have read
+            assertThat(awaitStoredTheme("pending-user", "dark", FENCED_WAIT)).isFalse();
+        }
+        finally {
+            commands.del(WriteBehindFlusher.LOCK_KEY);
+        }
+
+        assertThat(awaitStoredTheme("pending-user", "dark")).isTrue();
+        ResponseEntity<String> retried;
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT.toNanos();
+        do {
+            pause();
+            retried = postWithIfMatch("/v1/api/templates/user/pending-user", "\"0\"",
+                    Map.of("theme", "light"));
+        } while (retried.getStatusCode() == HttpStatus.CONFLICT && System.nanoTime() < deadline);
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retried.getHeaders().getETag()).isEqualTo("\"1\"");
+        assertThat(storedTheme("pending-user")).contains("light");
+    }
+
+    private boolean awaitStoredTheme(String userId, String theme) {
+        return awaitStoredTheme(userId, theme, FLUSH_TIMEOUT);
+    }
+
+    private boolean awaitStoredTheme(String userId, String theme, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (storedTheme(userId).filter(theme::equals).isPresent()) {
+                return true;
+            }
+            pause();
+        }
+        return false;
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(50);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Optional<String> storedTheme(String userId) {
+        return jdbcClient.sql("""
+                        SELECT values ->> 'theme' FROM user_template_values
+                        WHERE application_id = ? AND environment_id = ? AND user_id = ?""")
+                .params(applicationId, environmentId, UserIdHasher.toUuid(userId))
+                .query(String.class)
+                .optional();
+    }
+
+    private ResponseEntity<String> postWithIfMatch(String path, String ifMatch,
+            Map<String, Object> body) {
+        var headers = apiKeyHeaders(WRITE_API_KEY);
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        headers.set(HttpHeaders.IF_MATCH, ifMatch);
+        return restTemplate.exchange(getBaseUrl() + path, HttpMethod.POST,
+                new HttpEntity<>(body, headers), String.class);
+    }
+
+    private void cleanupTestData() {
+        entityManager.createNativeQuery("DELETE FROM user_template_values").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM template_values").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM template").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM api_key").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM environment").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM application").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM company").executeUpdate();
+    }
+
+    private void createTestData() {
+        var company = new CompanyEntity();
+        company.setName("Write Behind Test Company");
+        entityManager.persist(company);
+        entityManager.flush();
+
+        var application = new ApplicationEntity();
+        application.setName("Write Behind Test App");
+        application.setCompanyId(company.getId());
+        entityManager.persist(application);
+        entityManager.flush();
+        applicationId = application.getId();
+
+        var environment = new EnvironmentEntity();
+        environment.setName("Production");
+        environment.setDescription("Production environment");
+        environment.setApplicationId(application.getId());
+        environment.setTier(PricingTier.BASIC);
+        environment.setRateLimitRequestsPerSecond(1000);
+        environment.setRequestsPerMonth(100000);
+        entityManager.persist(environment);
+        entityManager.flush();
+        environmentId = environment.getId();
+
+        var writeApiKey = new ApiKeyEntity();
+        writeApiKey.setApplicationId(application.getId());
+        writeApiKey.setEnvironmentId(environment.getId());
+        writeApiKey.setKey(WRITE_API_KEY);
+        writeApiKey.setKeyType(KeyType.WRITE);
+        writeApiKey.setExpirationDate(OffsetDateTime.now().plusDays(30));
+        entityManager.persist(writeApiKey);
+
+        var template = new TemplateEntity();
+        template.setApplicationId(application.getId());
+        template.setCompanyId(company.getId());
+        template.setType(TemplateType.USER);
+        template.setSchema(new TemplateSchema(
+                List.of(new StringTemplateField("theme", "Theme", true, "light", 0, 50))));
+        entityManager.persist(template);
+
+        entityManager.flush();
+    }
+}
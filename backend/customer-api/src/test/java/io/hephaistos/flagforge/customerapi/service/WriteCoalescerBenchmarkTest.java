@@ -0,0 +1,61 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.customerapi.service.WriteCoalescer.QueuedWrite;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how many rows a write-behind flush saves when writes are skewed towards hot users, and
+ * checks that coalescing keeps each user's latest write. Excluded from the default test run;
+ * execute with {@code ./gradlew benchmarkTest}.
+ */
+@Tag("benchmark")
+class WriteCoalescerBenchmarkTest {
+
+    private static final int USERS = 10_000;
+    private static final int WRITES = 1_000_000;
+    private static final int BATCH_SIZE = 500;
+
+    @Test
+    void coalescesSkewedWriteLoad() {
+        UUID applicationId = UUID.randomUUID();
+        UUID environmentId = UUID.randomUUID();
+        var random = new Random(42);
+        var coalescer = new WriteCoalescer();
+        Map<String, String> expectedLatest = new HashMap<>();
+        Map<String, String> flushedLatest = new HashMap<>();
+
+        long rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            // Squaring a uniform sample concentrates writes on low user numbers
+            double sample = random.nextDouble();
+            String userId = "user-" + (int) (sample * sample * USERS);
+            String values = "{\"counter\":" + i + "}";
+            coalescer.add(new QueuedWrite(i + "-0", applicationId, environmentId, userId,
+                    values));
+            expectedLatest.put(userId, values);
+
+            if (coalescer.added() == BATCH_SIZE || i == WRITES - 1) {
+                for (QueuedWrite write : WriteCoalescer.flatten(coalescer.drain())) {
+                    flushedLatest.put(write.userId(), write.values());
+                    rows++;
+                }
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("writes=%d rows=%d ratio=%.2f elapsed=%dms (%.0f writes/ms)%n", WRITES,
+                rows, (double) WRITES / rows, elapsedMillis,
+                (double) WRITES / Math.max(1, elapsedMillis));
+        assertThat(rows).isLessThan(WRITES);
+        assertThat(flushedLatest).isEqualTo(expectedLatest);
+    }
+}
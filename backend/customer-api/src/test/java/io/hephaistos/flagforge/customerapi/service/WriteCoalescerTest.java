@@ -0,0 +1,59 @@
+package io.hephaistos.flagforge.customerapi.service;
+
+import io.hephaistos.flagforge.customerapi.service.WriteCoalescer.EnvironmentKey;
+import io.hephaistos.flagforge.customerapi.service.WriteCoalescer.QueuedWrite;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class WriteCoalescerTest {
+
+    private final UUID applicationId = UUID.randomUUID();
+    private final UUID environmentId = UUID.randomUUID();
+    private final WriteCoalescer coalescer = new WriteCoalescer();
+
+    @Test
+    void lastWriteForUserWins() {
+        coalescer.add(write("1-0", environmentId, "alice", "{\"theme\":\"light\"}"));
+        coalescer.add(write("2-0", environmentId, "bob", "{\"theme\":\"light\"}"));
+        coalescer.add(write("3-0", environmentId, "alice", "{\"theme\":\"dark\"}"));
+
+        assertThat(coalescer.added()).isEqualTo(3);
+        var drained = coalescer.drain();
+
+        assertThat(drained.get(new EnvironmentKey(applicationId, environmentId))).containsExactly(
+                write("3-0", environmentId, "alice", "{\"theme\":\"dark\"}"),
+                write("2-0", environmentId, "bob", "{\"theme\":\"light\"}"));
+    }
+
+    @Test
+    void groupsWritesByEnvironment() {
+        UUID otherEnvironmentId = UUID.randomUUID();
+        coalescer.add(write("1-0", environmentId, "alice", "{}"));
+        coalescer.add(write("2-0", otherEnvironmentId, "alice", "{}"));
+
+        var drained = coalescer.drain();
+
+        assertThat(drained).hasSize(2);
+        assertThat(WriteCoalescer.flatten(drained)).hasSize(2);
+    }
+
+    @Test
+    void drainResetsCoalescer() {
+        coalescer.add(write("1-0", environmentId, "alice", "{}"));
+
+        coalescer.drain();
+
+        assertThat(coalescer.isEmpty()).isTrue();
+        assertThat(coalescer.added()).isZero();
+        assertThat(coalescer.drain()).isEmpty();
+    }
+
+    private QueuedWrite write(String entryId, UUID environment, String userId, String values) {
+        return new QueuedWrite(entryId, applicationId, environment, userId, values);
+    }
+}
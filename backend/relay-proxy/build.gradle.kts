@@ -0,0 +1,27 @@
+plugins {
+    id("org.springframework.boot")
+}
+
+dependencies {
+    // Shared template types and merge logic only - the relay has no database
+    implementation(project(":backend:backend-common")) {
+        exclude(group = "org.springframework.boot", module = "spring-boot-starter-data-jpa")
+    }
+    implementation("org.springframework.boot:spring-boot-starter-webmvc")
+
+    // Testing
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    // Integration tests run the relay against a real customer-api (migrations come from
+    // webapp-api). Only included when available (not in Docker build context)
+    findProject(":backend:customer-api")?.let { testImplementation(it) }
+    findProject(":backend:webapp-api")?.let { testRuntimeOnly(it) }
+    testImplementation("org.springframework.boot:spring-boot-starter-data-jpa")
+    testImplementation("org.springframework.boot:spring-boot-testcontainers")
+    testImplementation("org.testcontainers:testcontainers-postgresql")
+    testImplementation("org.testcontainers:testcontainers-junit-jupiter")
+    testImplementation("com.redis:testcontainers-redis")
+    testImplementation("org.springframework.boot:spring-boot-starter-flyway")
+    testRuntimeOnly("org.flywaydb:flyway-database-postgresql")
+}
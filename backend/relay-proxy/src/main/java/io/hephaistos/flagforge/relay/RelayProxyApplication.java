@@ -0,0 +1,15 @@
+package io.hephaistos.flagforge.relay;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class RelayProxyApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(RelayProxyApplication.class, args);
+    }
+
+}
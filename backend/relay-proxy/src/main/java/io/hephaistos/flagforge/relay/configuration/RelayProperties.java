@@ -0,0 +1,37 @@
+package io.hephaistos.flagforge.relay.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration properties for the relay proxy.
+ *
+ * @param upstreamUrl    Base URL of customer-api, including any context path
+ * @param apiKeys        API keys whose environments are replicated and served locally
+ * @param syncInterval   How often environment snapshots are refreshed (default: 15s)
+ * @param userTtl        How long merged USER responses fetched upstream are kept (default: 60s)
+ * @param maxCachedUsers Upper bound on cached USER responses (default: 10000)
+ */
+@ConfigurationProperties(prefix = "flagforge.relay")
+public record RelayProperties(String upstreamUrl, List<String> apiKeys, Duration syncInterval,
+                              Duration userTtl, int maxCachedUsers) {
+    public RelayProperties {
+        if (upstreamUrl == null || upstreamUrl.isBlank()) {
+            upstreamUrl = "http://localhost:8081";
+        }
+        if (apiKeys == null) {
+            apiKeys = List.of();
+        }
+        if (syncInterval == null) {
+            syncInterval = Duration.ofSeconds(15);
+        }
+        if (userTtl == null) {
+            userTtl = Duration.ofSeconds(60);
+        }
+        if (maxCachedUsers <= 0) {
+            maxCachedUsers = 10000;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.hephaistos.flagforge.relay.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+/**
+ * HTTP client configuration for talking to the upstream customer-api.
+ */
+@Configuration
+@EnableConfigurationProperties(RelayProperties.class)
+public class UpstreamConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamConfiguration.class);
+
+    @Bean
+    public RestClient upstreamRestClient(RelayProperties properties) {
+        LOGGER.info("Relaying to upstream customer-api at {} for {} API key(s)",
+                properties.upstreamUrl(), properties.apiKeys().size());
+        return RestClient.builder().baseUrl(properties.upstreamUrl()).build();
+    }
+}
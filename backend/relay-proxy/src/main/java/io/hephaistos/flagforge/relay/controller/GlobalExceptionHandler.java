@@ -0,0 +1,73 @@
+package io.hephaistos.flagforge.relay.controller;
+
+import io.hephaistos.flagforge.relay.exception.InvalidApiKeyException;
+import io.hephaistos.flagforge.relay.exception.NotFoundException;
+import io.hephaistos.flagforge.relay.exception.UpstreamUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+    @ExceptionHandler(InvalidApiKeyException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidApiKey(InvalidApiKeyException ex) {
+        LOGGER.warn("Invalid API key: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new ErrorResponse("INVALID_API_KEY", "Invalid or missing API key"));
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNotFound(NotFoundException ex) {
+        LOGGER.info("Resource not found: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse("NOT_FOUND", ex.getMessage()));
+    }
+
+    /**
+     * Pass upstream errors (401, 403, 404, 429, ...) through unchanged so clients see the same
+     * responses they would get from customer-api directly.
+     */
+    @ExceptionHandler(RestClientResponseException.class)
+    public ResponseEntity<byte[]> handleUpstreamError(RestClientResponseException ex) {
+        LOGGER.info("Upstream responded with {}", ex.getStatusCode());
+        var builder = ResponseEntity.status(ex.getStatusCode());
+        var headers = ex.getResponseHeaders();
+        if (headers != null && headers.getContentType() != null) {
+            builder.contentType(headers.getContentType());
+        }
+        else {
+            builder.contentType(MediaType.APPLICATION_JSON);
+        }
+        if (headers != null && headers.getFirst("Retry-After") != null) {
+            builder.header("Retry-After", headers.getFirst("Retry-After"));
+        }
+        return builder.body(ex.getResponseBodyAsByteArray());
+    }
+
+    @ExceptionHandler({UpstreamUnavailableException.class, ResourceAccessException.class})
+    public ResponseEntity<ErrorResponse> handleUpstreamUnavailable(Exception ex) {
+        LOGGER.warn("Upstream unavailable: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse("UPSTREAM_UNAVAILABLE",
+                        "customer-api is currently unreachable"));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
+        LOGGER.error("Unexpected error", ex);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred"));
+    }
+
+    public record ErrorResponse(String code, String message) {
+    }
+}
@@ -0,0 +1,213 @@
+package io.hephaistos.flagforge.relay.controller;
+
+import io.hephaistos.flagforge.relay.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.relay.exception.InvalidApiKeyException;
+import io.hephaistos.flagforge.relay.exception.NotFoundException;
+import io.hephaistos.flagforge.relay.store.ReplicaStore;
+import io.hephaistos.flagforge.relay.store.UserValuesCache;
+import io.hephaistos.flagforge.relay.upstream.CustomerApiClient;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Serves the customer-api template contract from replicated environment data. Full JSON reads
+ * never leave the relay once an environment is synced (USER reads are cached after the first
+ * upstream fetch). Reads asking for a binary encoding or a projection ({@code fields},
+ * {@code includeSchema=false}) are forwarded to customer-api, which renders them; user writes
+ * (POST and merge PATCH, with their If-Match) are forwarded unchanged.
+ */
+@RestController
+@RequestMapping("/v1/api/templates")
+public class RelayTemplateController {
+
+    private static final String API_KEY_HEADER = "X-API-Key";
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    private final ReplicaStore replicaStore;
+    private final UserValuesCache userValuesCache;
+    private final CustomerApiClient customerApiClient;
+
+    public RelayTemplateController(ReplicaStore replicaStore, UserValuesCache userValuesCache,
+            CustomerApiClient customerApiClient) {
+        this.replicaStore = replicaStore;
+        this.userValuesCache = userValuesCache;
+        this.customerApiClient = customerApiClient;
+    }
+
+    @GetMapping("/system")
+    public ResponseEntity<?> getSystemTemplateValues(
+            @RequestHeader(name = API_KEY_HEADER, required = false) @Nullable String apiKey,
+            @RequestParam(required = false) @Nullable String identifier,
+            @RequestParam(required = false) @Nullable List<String> fields,
+            @RequestParam(defaultValue = "true") boolean includeSchema,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) @Nullable String accept,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false)
+            @Nullable String acceptEncoding) {
+
+        var replica = replicaStore.get(apiKey);
+        if (fields != null || !includeSchema || !prefersJson(accept)) {
+            var query = projection(fields, includeSchema);
+            if (identifier != null) {
+                query.add("identifier", identifier);
+            }
+            return forwarded(customerApiClient.fetchEncoded(apiKey, "/system", query, accept,
+                    acceptEncoding));
+        }
+        return json(replica.system(identifier));
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<?> getUserTemplateValues(
+            @RequestHeader(name = API_KEY_HEADER, required = false) @Nullable String apiKey,
+            @PathVariable String userId,
+            @RequestParam(required = false) @Nullable List<String> fields,
+            @RequestParam(defaultValue = "true") boolean includeSchema,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) @Nullable String accept,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false)
+            @Nullable String acceptEncoding) {
+
+        var replica = replicaStore.get(apiKey);
+        if (!replica.hasUserTemplate()) {
+            throw new NotFoundException(
+                    "USER template not found for application: " + replica.snapshot()
+                            .applicationId());
+        }
+        if (fields != null || !includeSchema || !prefersJson(accept)) {
+            return forwarded(customerApiClient.fetchEncoded(apiKey, "/user/{userId}",
+                    projection(fields, includeSchema), accept, acceptEncoding, userId));
+        }
+
+        var cached = userValuesCache.get(replica.environmentId(), userId);
+        if (cached.isPresent()) {
+            return json(cached.get());
+        }
+
+        var response = customerApiClient.fetchUserValues(apiKey, userId);
+        userValuesCache.put(replica.environmentId(), userId, response);
+        return json(response);
+    }
+
+    @PostMapping(value = "/user/{userId}", consumes = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> setUserTemplateValues(
+            @RequestHeader(name = API_KEY_HEADER, required = false) @Nullable String apiKey,
+            @PathVariable String userId, @RequestBody Map<String, Object> values,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Nullable String ifMatch) {
+        if (apiKey == null) {
+            throw new InvalidApiKeyException("Missing API key");
+        }
+
+        // Write keys need not be replicated here - customer-api authorizes the write itself
+        var upstream = customerApiClient.setUserValues(apiKey, userId, values, ifMatch);
+        invalidateUser(apiKey, userId);
+        return ResponseEntity.status(upstream.getStatusCode())
+                .headers(etagOf(upstream))
+                .build();
+    }
+
+    @PatchMapping(value = "/user/{userId}", consumes = {MERGE_PATCH_JSON_VALUE,
+            APPLICATION_JSON_VALUE}, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<MergedTemplateValuesResponse> patchUserTemplateValues(
+            @RequestHeader(name = API_KEY_HEADER, required = false) @Nullable String apiKey,
+            @PathVariable String userId, @RequestBody Map<String, @Nullable Object> patch,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+            @Nullable String ifMatch) {
+        if (apiKey == null) {
+            throw new InvalidApiKeyException("Missing API key");
+        }
+
+        var upstream = customerApiClient.patchUserValues(apiKey, userId, patch, ifMatch);
+        invalidateUser(apiKey, userId);
+        return ResponseEntity.status(upstream.getStatusCode())
+                .headers(etagOf(upstream))
+                .body(upstream.getBody());
+    }
+
+    private void invalidateUser(String apiKey, String userId) {
+        replicaStore.environmentOf(apiKey)
+                .ifPresentOrElse(environmentId -> userValuesCache.invalidateUser(environmentId,
+                        userId), () -> userValuesCache.invalidateUserEverywhere(userId));
+    }
+
+    /**
+     * Whether the client's most preferred representation is JSON, the only one the relay renders
+     * itself. Accept headers the relay cannot parse are left to customer-api.
+     */
+    static boolean prefersJson(@Nullable String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            MediaType preferred = null;
+            for (var mediaType : MediaType.parseMediaTypes(accept)) {
+                if (preferred == null ||
+                        mediaType.getQualityValue() > preferred.getQualityValue()) {
+                    preferred = mediaType;
+                }
+            }
+            return preferred == null || preferred.isCompatibleWith(MediaType.APPLICATION_JSON);
+        }
+        catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private static MultiValueMap<String, String> projection(@Nullable List<String> fields,
+            boolean includeSchema) {
+        var query = new LinkedMultiValueMap<String, String>();
+        if (fields != null) {
+            query.add("fields", String.join(",", fields));
+        }
+        query.add("includeSchema", String.valueOf(includeSchema));
+        return query;
+    }
+
+    private static ResponseEntity<MergedTemplateValuesResponse> json(
+            MergedTemplateValuesResponse response) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .body(response);
+    }
+
+    private static ResponseEntity<byte[]> forwarded(ResponseEntity<byte[]> upstream) {
+        var headers = new HttpHeaders();
+        for (String name : List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+                HttpHeaders.VARY)) {
+            var values = upstream.getHeaders().get(name);
+            if (values != null) {
+                headers.put(name, values);
+            }
+        }
+        return ResponseEntity.status(upstream.getStatusCode()).headers(headers).body(
+                upstream.getBody());
+    }
+
+    private static HttpHeaders etagOf(ResponseEntity<?> upstream) {
+        var headers = new HttpHeaders();
+        var etag = upstream.getHeaders().getETag();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,21 @@
+package io.hephaistos.flagforge.relay.controller.dto;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * Response containing merged template values. Mirrors the customer-api contract so SDK clients can
+ * point at a relay without changes.
+ *
+ * @param type              The template type
+ * @param schema            The template schema definition
+ * @param values            The merged values
+ * @param appliedIdentifier The identifier whose override was applied, or null if none
+ */
+public record MergedTemplateValuesResponse(TemplateType type, TemplateSchema schema,
+                                           Map<String, Object> values,
+                                           @Nullable String appliedIdentifier) {
+}
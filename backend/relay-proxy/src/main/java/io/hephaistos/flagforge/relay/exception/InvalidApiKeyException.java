@@ -0,0 +1,11 @@
+package io.hephaistos.flagforge.relay.exception;
+
+/**
+ * Exception thrown when a request carries no API key or one this relay does not serve.
+ */
+public class InvalidApiKeyException extends RuntimeException {
+
+    public InvalidApiKeyException(String message) {
+        super(message);
+    }
+}
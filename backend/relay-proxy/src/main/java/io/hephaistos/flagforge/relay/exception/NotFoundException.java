@@ -0,0 +1,11 @@
+package io.hephaistos.flagforge.relay.exception;
+
+/**
+ * Exception thrown when a requested resource cannot be found.
+ */
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package io.hephaistos.flagforge.relay.exception;
+
+/**
+ * Exception thrown when customer-api cannot be reached and no local copy is available.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,77 @@
+package io.hephaistos.flagforge.relay.store;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.util.TemplateMerger;
+import io.hephaistos.flagforge.relay.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.relay.exception.NotFoundException;
+import io.hephaistos.flagforge.relay.upstream.EnvironmentSnapshot;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable in-memory copy of one environment. SYSTEM responses are merged once when the snapshot
+ * arrives, so serving a read is a single map lookup.
+ */
+public final class EnvironmentReplica {
+
+    private final EnvironmentSnapshot snapshot;
+    private final @Nullable MergedTemplateValuesResponse systemDefaults;
+    private final Map<String, MergedTemplateValuesResponse> systemByIdentifier;
+
+    private EnvironmentReplica(EnvironmentSnapshot snapshot,
+            @Nullable MergedTemplateValuesResponse systemDefaults,
+            Map<String, MergedTemplateValuesResponse> systemByIdentifier) {
+        this.snapshot = snapshot;
+        this.systemDefaults = systemDefaults;
+        this.systemByIdentifier = systemByIdentifier;
+    }
+
+    public static EnvironmentReplica of(EnvironmentSnapshot snapshot) {
+        var schema = snapshot.systemSchema();
+        if (schema == null) {
+            return new EnvironmentReplica(snapshot, null, Map.of());
+        }
+
+        var defaults = new MergedTemplateValuesResponse(TemplateType.SYSTEM, schema,
+                Collections.unmodifiableMap(TemplateMerger.merge(schema, null)), null);
+
+        Map<String, MergedTemplateValuesResponse> byIdentifier = new HashMap<>();
+        snapshot.systemOverrides()
+                .forEach((identifier, values) -> byIdentifier.put(identifier,
+                        new MergedTemplateValuesResponse(TemplateType.SYSTEM, schema,
+                                Collections.unmodifiableMap(TemplateMerger.merge(schema, values)),
+                                identifier)));
+
+        return new EnvironmentReplica(snapshot, defaults, Map.copyOf(byIdentifier));
+    }
+
+    public UUID environmentId() {
+        return snapshot.environmentId();
+    }
+
+    public EnvironmentSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public boolean hasUserTemplate() {
+        return snapshot.userSchema() != null;
+    }
+
+    /**
+     * Same semantics as customer-api: a missing or unknown identifier yields the schema defaults.
+     */
+    public MergedTemplateValuesResponse system(@Nullable String identifier) {
+        if (systemDefaults == null) {
+            throw new NotFoundException(
+                    "SYSTEM template not found for application: " + snapshot.applicationId());
+        }
+        if (identifier == null || identifier.isBlank()) {
+            return systemDefaults;
+        }
+        return systemByIdentifier.getOrDefault(identifier, systemDefaults);
+    }
+}
@@ -0,0 +1,154 @@
+package io.hephaistos.flagforge.relay.store;
+
+import io.hephaistos.flagforge.relay.configuration.RelayProperties;
+import io.hephaistos.flagforge.relay.exception.InvalidApiKeyException;
+import io.hephaistos.flagforge.relay.exception.UpstreamUnavailableException;
+import io.hephaistos.flagforge.relay.upstream.CustomerApiClient;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one {@link EnvironmentReplica} per configured API key and keeps it in sync with
+ * customer-api. When upstream is unreachable the last good snapshot keeps being served; when
+ * upstream rejects a key the replica is dropped so revoked keys stop working here too.
+ */
+@Component
+public class ReplicaStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaStore.class);
+
+    private final CustomerApiClient customerApiClient;
+    private final UserValuesCache userValuesCache;
+    private final Set<String> apiKeys;
+    private final Map<String, EnvironmentReplica> replicas = new ConcurrentHashMap<>();
+    /**
+     * First loads in progress; concurrent requests for the same key wait for the same fetch
+     * instead of each calling upstream, and never while holding a lock of {@link #replicas}
+     */
+    private final Map<String, CompletableFuture<@Nullable EnvironmentReplica>> firstLoads =
+            new ConcurrentHashMap<>();
+    private final Set<String> rejectedKeys = ConcurrentHashMap.newKeySet();
+
+    public ReplicaStore(CustomerApiClient customerApiClient, UserValuesCache userValuesCache,
+            RelayProperties properties) {
+        this.customerApiClient = customerApiClient;
+        this.userValuesCache = userValuesCache;
+        this.apiKeys = Set.copyOf(properties.apiKeys());
+    }
+
+    /**
+     * Get the replica served for an API key, loading it on first use.
+     *
+     * @throws InvalidApiKeyException       if the key is not configured or was rejected upstream
+     * @throws UpstreamUnavailableException if no snapshot has been loaded yet and upstream is down
+     */
+    public EnvironmentReplica get(@Nullable String apiKey) {
+        if (apiKey == null || !apiKeys.contains(apiKey) || rejectedKeys.contains(apiKey)) {
+            throw new InvalidApiKeyException("API key is not served by this relay");
+        }
+
+        var replica = replicas.get(apiKey);
+        if (replica == null) {
+            replica = loadFirst(apiKey);
+        }
+        if (replica == null) {
+            if (rejectedKeys.contains(apiKey)) {
+                throw new InvalidApiKeyException("API key was rejected by customer-api");
+            }
+            throw new UpstreamUnavailableException(
+                    "No snapshot available yet and customer-api is unreachable");
+        }
+        return replica;
+    }
+
+    /**
+     * Environment of a key whose replica is already loaded.
+     */
+    public Optional<UUID> environmentOf(String apiKey) {
+        return Optional.ofNullable(replicas.get(apiKey)).map(EnvironmentReplica::environmentId);
+    }
+
+    @Scheduled(fixedDelayString = "${flagforge.relay.sync-interval:PT15S}")
+    public void syncAll() {
+        apiKeys.forEach(this::sync);
+    }
+
+    void sync(String apiKey) {
+        var loaded = load(apiKey);
+        if (loaded == null) {
+            if (rejectedKeys.contains(apiKey)) {
+                replicas.remove(apiKey);
+            }
+            return;
+        }
+
+        var previous = replicas.put(apiKey, loaded);
+        if (previous != null && !previous.snapshot().equals(loaded.snapshot())) {
+            // Schema or environment defaults may have changed underneath cached user responses
+            userValuesCache.invalidateEnvironment(loaded.environmentId());
+            LOGGER.info("Environment {} changed upstream - replica refreshed",
+                    loaded.environmentId());
+        }
+    }
+
+    private @Nullable EnvironmentReplica loadFirst(String apiKey) {
+        var load = new CompletableFuture<@Nullable EnvironmentReplica>();
+        var running = firstLoads.putIfAbsent(apiKey, load);
+        if (running != null) {
+            return running.join();
+        }
+
+        @Nullable EnvironmentReplica replica = null;
+        try {
+            // A sync may have finished between the caller's lookup and claiming the load
+            replica = replicas.get(apiKey);
+            if (replica == null) {
+                var loaded = load(apiKey);
+                replica = loaded != null ? replicas.merge(apiKey, loaded, (current, l) -> current) :
+                        null;
+            }
+            return replica;
+        }
+        finally {
+            firstLoads.remove(apiKey, load);
+            load.complete(replica);
+        }
+    }
+
+    private @Nullable EnvironmentReplica load(String apiKey) {
+        try {
+            var snapshot = customerApiClient.fetchSnapshot(apiKey);
+            rejectedKeys.remove(apiKey);
+            return snapshot != null ? EnvironmentReplica.of(snapshot) : null;
+        }
+        catch (RestClientResponseException e) {
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.UNAUTHORIZED) || e.getStatusCode()
+                    .isSameCodeAs(HttpStatus.FORBIDDEN)) {
+                LOGGER.error("customer-api rejected a configured API key ({})",
+                        e.getStatusCode());
+                rejectedKeys.add(apiKey);
+            }
+            else {
+                LOGGER.warn("Snapshot sync failed with {} - keeping previous snapshot",
+                        e.getStatusCode());
+            }
+            return null;
+        }
+        catch (Exception e) {
+            LOGGER.warn("Snapshot sync failed: {} - keeping previous snapshot", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.hephaistos.flagforge.relay.store;
+
+import io.hephaistos.flagforge.relay.configuration.RelayProperties;
+import io.hephaistos.flagforge.relay.controller.dto.MergedTemplateValuesResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of merged USER responses fetched from customer-api. Per-user overrides are not
+ * part of the environment snapshot, so they are pulled on demand and dropped when the user is
+ * written through this relay or the environment snapshot changes.
+ */
+@Component
+public class UserValuesCache {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public UserValuesCache(RelayProperties properties) {
+        this.ttl = properties.userTtl();
+        this.maxEntries = properties.maxCachedUsers();
+    }
+
+    public Optional<MergedTemplateValuesResponse> get(UUID environmentId, String userId) {
+        var key = new Key(environmentId, userId);
+        var entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt().isBefore(Instant.now())) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.response());
+    }
+
+    public void put(UUID environmentId, String userId, MergedTemplateValuesResponse response) {
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                // Full of live entries - serve uncached rather than grow without bound
+                return;
+            }
+        }
+        entries.put(new Key(environmentId, userId),
+                new Entry(response, Instant.now().plus(ttl)));
+    }
+
+    public void invalidateUser(UUID environmentId, String userId) {
+        entries.remove(new Key(environmentId, userId));
+    }
+
+    /**
+     * Drops a user in every environment, for writes whose environment is not known here.
+     */
+    public void invalidateUserEverywhere(String userId) {
+        entries.keySet().removeIf(key -> key.userId().equals(userId));
+    }
+
+    public void invalidateEnvironment(UUID environmentId) {
+        entries.keySet().removeIf(key -> key.environmentId().equals(environmentId));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evictExpired() {
+        var now = Instant.now();
+        entries.values().removeIf(entry -> entry.expiresAt().isBefore(now));
+    }
+
+    private record Key(UUID environmentId, String userId) {
+    }
+
+    private record Entry(MergedTemplateValuesResponse response, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,107 @@
+package io.hephaistos.flagforge.relay.upstream;
+
+import io.hephaistos.flagforge.relay.controller.dto.MergedTemplateValuesResponse;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+/**
+ * Thin client for the customer-api template endpoints. Errors surface as
+ * {@link org.springframework.web.client.RestClientException}s so callers can decide whether to
+ * serve stale data or pass the upstream status through.
+ */
+@Component
+public class CustomerApiClient {
+
+    static final String API_KEY_HEADER = "X-API-Key";
+    static final MediaType MERGE_PATCH_JSON = MediaType.valueOf("application/merge-patch+json");
+
+    private final RestClient restClient;
+
+    public CustomerApiClient(RestClient upstreamRestClient) {
+        this.restClient = upstreamRestClient;
+    }
+
+    public EnvironmentSnapshot fetchSnapshot(String apiKey) {
+        return restClient.get()
+                .uri("/v1/api/templates/snapshot")
+                .header(API_KEY_HEADER, apiKey)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(EnvironmentSnapshot.class);
+    }
+
+    public MergedTemplateValuesResponse fetchUserValues(String apiKey, String userId) {
+        return restClient.get()
+                .uri("/v1/api/templates/user/{userId}", userId)
+                .header(API_KEY_HEADER, apiKey)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(MergedTemplateValuesResponse.class);
+    }
+
+    /**
+     * Fetches a template read exactly as customer-api renders it, for the binary encodings and
+     * projections the relay does not serve itself. The body is returned as sent, so a gzipped
+     * response stays gzipped.
+     *
+     * @param path  Path below {@code /v1/api/templates}, e.g. {@code /user/{userId}}
+     * @param query Query parameters to pass on
+     */
+    public ResponseEntity<byte[]> fetchEncoded(String apiKey, String path,
+            MultiValueMap<String, String> query, @Nullable String accept,
+            @Nullable String acceptEncoding, Object... uriVariables) {
+        return restClient.get()
+                .uri(builder -> builder.path("/v1/api/templates" + path)
+                        .queryParams(query)
+                        .build(uriVariables))
+                .header(API_KEY_HEADER, apiKey)
+                .headers(headers -> {
+                    if (accept != null) {
+                        headers.set(HttpHeaders.ACCEPT, accept);
+                    }
+                    if (acceptEncoding != null) {
+                        headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+                    }
+                })
+                .retrieve()
+                .toEntity(byte[].class);
+    }
+
+    public ResponseEntity<Void> setUserValues(String apiKey, String userId,
+            Map<String, Object> values, @Nullable String ifMatch) {
+        return restClient.post()
+                .uri("/v1/api/templates/user/{userId}", userId)
+                .header(API_KEY_HEADER, apiKey)
+                .headers(headers -> setIfMatch(headers, ifMatch))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(values)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    public ResponseEntity<MergedTemplateValuesResponse> patchUserValues(String apiKey,
+            String userId, Map<String, @Nullable Object> patch, @Nullable String ifMatch) {
+        return restClient.patch()
+                .uri("/v1/api/templates/user/{userId}", userId)
+                .header(API_KEY_HEADER, apiKey)
+                .headers(headers -> setIfMatch(headers, ifMatch))
+                .contentType(MERGE_PATCH_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(patch)
+                .retrieve()
+                .toEntity(MergedTemplateValuesResponse.class);
+    }
+
+    private static void setIfMatch(HttpHeaders headers, @Nullable String ifMatch) {
+        if (ifMatch != null) {
+            headers.set(HttpHeaders.IF_MATCH, ifMatch);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.hephaistos.flagforge.relay.upstream;
+
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unmerged environment data as returned by customer-api's snapshot endpoint.
+ *
+ * @param applicationId   The application the API key belongs to
+ * @param environmentId   The environment the API key belongs to
+ * @param systemSchema    The SYSTEM template schema, or null if the application has none
+ * @param systemOverrides SYSTEM override values keyed by identifier
+ * @param userSchema      The USER template schema, or null if the application has none
+ * @param userDefaults    USER environment defaults, or null if not set
+ */
+public record EnvironmentSnapshot(UUID applicationId, UUID environmentId,
+                                  @Nullable TemplateSchema systemSchema,
+                                  Map<String, Map<String, Object>> systemOverrides,
+                                  @Nullable TemplateSchema userSchema,
+                                  @Nullable Map<String, Object> userDefaults) {
+}
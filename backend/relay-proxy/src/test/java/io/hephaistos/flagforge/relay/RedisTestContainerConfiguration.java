@@ -0,0 +1,42 @@
+package io.hephaistos.flagforge.relay;
+
+import com.redis.testcontainers.RedisContainer;
+import io.hephaistos.flagforge.customerapi.configuration.CacheProperties;
+import io.hephaistos.flagforge.customerapi.configuration.RateLimitProperties;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Test configuration that provides a Redis Testcontainer for the customer-api started by
+ * integration tests. Rate limiting and the template cache both point at it.
+ * <p>
+ * The container is shared across all tests for performance.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class RedisTestContainerConfiguration {
+
+    private static final RedisContainer REDIS = new RedisContainer("redis:7-alpine");
+
+    static {
+        REDIS.start();
+    }
+
+    @Bean
+    public RedisContainer redisContainer() {
+        return REDIS;
+    }
+
+    @Bean
+    @Primary
+    public RateLimitProperties rateLimitProperties() {
+        return new RateLimitProperties(true, REDIS.getRedisURI(), false, true, null);
+    }
+
+    @Bean
+    @Primary
+    public CacheProperties cacheProperties() {
+        return new CacheProperties(true, 300, 0, null, REDIS.getRedisURI(), false, null, null,
+                null);
+    }
+}
@@ -0,0 +1,152 @@
+package io.hephaistos.flagforge.relay.controller;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.relay.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.relay.store.EnvironmentReplica;
+import io.hephaistos.flagforge.relay.store.ReplicaStore;
+import io.hephaistos.flagforge.relay.store.UserValuesCache;
+import io.hephaistos.flagforge.relay.upstream.CustomerApiClient;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class RelayTemplateControllerTest {
+
+    private static final String API_KEY = "relay-key";
+    private static final String CBOR = "application/cbor";
+    private static final MergedTemplateValuesResponse RESPONSE =
+            new MergedTemplateValuesResponse(TemplateType.SYSTEM, new TemplateSchema(
+                    List.of(new StringTemplateField("region", "Region", false, "us-east", 0,
+                            50))), Map.of("region", "us-east"), null);
+
+    @Mock
+    private ReplicaStore replicaStore;
+
+    @Mock
+    private UserValuesCache userValuesCache;
+
+    @Mock
+    private CustomerApiClient customerApiClient;
+
+    @InjectMocks
+    private RelayTemplateController controller;
+
+    @Test
+    void servesFullJsonReadsFromReplica() {
+        var replica = mock(EnvironmentReplica.class);
+        when(replicaStore.get(API_KEY)).thenReturn(replica);
+        when(replica.system("eu")).thenReturn(RESPONSE);
+
+        var response = controller.getSystemTemplateValues(API_KEY, "eu", null, true,
+                "application/json, application/cbor;q=0.5", "gzip");
+
+        assertThat(response.getBody()).isEqualTo(RESPONSE);
+        verify(customerApiClient, never()).fetchEncoded(anyString(), anyString(), any(), any(),
+                any());
+    }
+
+    @Test
+    void forwardsBinaryEncodingsWithTheirContentEncoding() {
+        when(replicaStore.get(API_KEY)).thenReturn(mock(EnvironmentReplica.class));
+        var query = new LinkedMultiValueMap<String, String>();
+        query.add("includeSchema", "true");
+        query.add("identifier", "eu");
+        byte[] body = {1, 2, 3};
+        when(customerApiClient.fetchEncoded(API_KEY, "/system", query, CBOR, "gzip")).thenReturn(
+                ResponseEntity.ok()
+                        .contentType(MediaType.valueOf(CBOR))
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .body(body));
+
+        var response = controller.getSystemTemplateValues(API_KEY, "eu", null, true, CBOR,
+                "gzip");
+
+        assertThat(response.getBody()).isEqualTo(body);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.valueOf(CBOR));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo(
+                "gzip");
+    }
+
+    @Test
+    void forwardsUserProjectionsWithoutCaching() {
+        var replica = mock(EnvironmentReplica.class);
+        when(replicaStore.get(API_KEY)).thenReturn(replica);
+        when(replica.hasUserTemplate()).thenReturn(true);
+        var query = new LinkedMultiValueMap<String, String>();
+        query.add("fields", "region,theme");
+        query.add("includeSchema", "false");
+        when(customerApiClient.fetchEncoded(API_KEY, "/user/{userId}", query, null, null,
+                "user-1")).thenReturn(ResponseEntity.ok(new byte[0]));
+
+        controller.getUserTemplateValues(API_KEY, "user-1", List.of("region", "theme"), false,
+                null, null);
+
+        verify(userValuesCache, never()).get(any(), anyString());
+        verify(customerApiClient, never()).fetchUserValues(anyString(), anyString());
+    }
+
+    @Test
+    void forwardsMergePatchWithIfMatchAndInvalidatesUser() {
+        UUID environmentId = UUID.randomUUID();
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("region", null);
+        when(customerApiClient.patchUserValues(API_KEY, "user-1", patch, "\"3\"")).thenReturn(
+                ResponseEntity.ok().eTag("\"4\"").body(RESPONSE));
+        when(replicaStore.environmentOf(API_KEY)).thenReturn(Optional.of(environmentId));
+
+        var response = controller.patchUserTemplateValues(API_KEY, "user-1", patch, "\"3\"");
+
+        assertThat(response.getBody()).isEqualTo(RESPONSE);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"4\"");
+        verify(userValuesCache).invalidateUser(environmentId, "user-1");
+    }
+
+    @Test
+    void passesQueuedWriteStatusThrough() {
+        when(customerApiClient.setUserValues(API_KEY, "user-1", Map.of("region", "eu"),
+                null)).thenReturn(ResponseEntity.accepted().build());
+        when(replicaStore.environmentOf(API_KEY)).thenReturn(Optional.empty());
+
+        var response = controller.setUserTemplateValues(API_KEY, "user-1",
+                Map.of("region", "eu"), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        verify(userValuesCache).invalidateUserEverywhere("user-1");
+    }
+
+    @Test
+    void prefersJsonOnlyWhenJsonRanksFirst() {
+        assertThat(RelayTemplateController.prefersJson(null)).isTrue();
+        assertThat(RelayTemplateController.prefersJson("*/*")).isTrue();
+        assertThat(RelayTemplateController.prefersJson("application/cbor;q=0.5, */*;q=0.9"))
+                .isTrue();
+        assertThat(RelayTemplateController.prefersJson("application/x-protobuf")).isFalse();
+        assertThat(RelayTemplateController.prefersJson("not a media type")).isFalse();
+    }
+}
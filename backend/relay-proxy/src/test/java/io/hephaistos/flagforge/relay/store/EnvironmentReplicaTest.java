@@ -0,0 +1,72 @@
+package io.hephaistos.flagforge.relay.store;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.relay.exception.NotFoundException;
+import io.hephaistos.flagforge.relay.upstream.EnvironmentSnapshot;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+class EnvironmentReplicaTest {
+
+    private static final TemplateSchema SCHEMA = new TemplateSchema(List.of(
+            new StringTemplateField("api_url", "API URL", false, "https://default.api.com", 0,
+                    255), new StringTemplateField("region", "Region", false, "us-east", 0, 50)));
+
+    @Test
+    void systemWithoutIdentifierReturnsDefaults() {
+        var replica = EnvironmentReplica.of(snapshot(SCHEMA, Map.of()));
+
+        var response = replica.system(null);
+
+        assertThat(response.type()).isEqualTo(TemplateType.SYSTEM);
+        assertThat(response.values()).containsEntry("api_url", "https://default.api.com")
+                .containsEntry("region", "us-east");
+        assertThat(response.appliedIdentifier()).isNull();
+    }
+
+    @Test
+    void systemWithIdentifierAppliesOverride() {
+        var replica = EnvironmentReplica.of(
+                snapshot(SCHEMA, Map.of("region-eu", Map.of("region", "eu-west"))));
+
+        var response = replica.system("region-eu");
+
+        assertThat(response.values()).containsEntry("api_url", "https://default.api.com")
+                .containsEntry("region", "eu-west");
+        assertThat(response.appliedIdentifier()).isEqualTo("region-eu");
+    }
+
+    @Test
+    void systemWithUnknownIdentifierReturnsDefaults() {
+        var replica = EnvironmentReplica.of(
+                snapshot(SCHEMA, Map.of("region-eu", Map.of("region", "eu-west"))));
+
+        var response = replica.system("region-ap");
+
+        assertThat(response.values()).containsEntry("region", "us-east");
+        assertThat(response.appliedIdentifier()).isNull();
+    }
+
+    @Test
+    void systemWithoutTemplateThrowsNotFound() {
+        var replica = EnvironmentReplica.of(snapshot(null, Map.of()));
+
+        assertThatThrownBy(() -> replica.system(null)).isInstanceOf(NotFoundException.class);
+    }
+
+    private EnvironmentSnapshot snapshot(TemplateSchema systemSchema,
+            Map<String, Map<String, Object>> overrides) {
+        return new EnvironmentSnapshot(UUID.randomUUID(), UUID.randomUUID(), systemSchema,
+                overrides, null, null);
+    }
+}
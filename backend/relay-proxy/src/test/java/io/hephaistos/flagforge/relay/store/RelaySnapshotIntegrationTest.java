@@ -0,0 +1,206 @@
+package io.hephaistos.flagforge.relay.store;
+
+import io.hephaistos.flagforge.common.data.ApiKeyEntity;
+import io.hephaistos.flagforge.common.data.ApplicationEntity;
+import io.hephaistos.flagforge.common.data.CompanyEntity;
+import io.hephaistos.flagforge.common.data.EnvironmentEntity;
+import io.hephaistos.flagforge.common.data.TemplateEntity;
+import io.hephaistos.flagforge.common.data.TemplateValuesEntity;
+import io.hephaistos.flagforge.common.enums.KeyType;
+import io.hephaistos.flagforge.common.enums.PricingTier;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.customerapi.CustomerApiApplication;
+import io.hephaistos.flagforge.relay.PostgresTestContainerConfiguration;
+import io.hephaistos.flagforge.relay.RedisTestContainerConfiguration;
+import io.hephaistos.flagforge.relay.configuration.RelayProperties;
+import io.hephaistos.flagforge.relay.exception.InvalidApiKeyException;
+import io.hephaistos.flagforge.relay.upstream.CustomerApiClient;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the relay proxy's replica store and upstream client against a customer-api started in the
+ * test. The relay's application.yml shadows customer-api's on this classpath, so the properties
+ * customer-api needs here are set on the test.
+ */
+@SpringBootTest(classes = CustomerApiApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.allow-bean-definition-overriding=true",
+                "spring.flyway.enabled=true", "spring.flyway.locations=classpath:db/migration",
+                "spring.jpa.hibernate.ddl-auto=validate", "spring.jpa.open-in-view=false"})
+@Import({PostgresTestContainerConfiguration.class, RedisTestContainerConfiguration.class})
+@Tag("integration")
+class RelaySnapshotIntegrationTest {
+
+    private static final String TEST_API_KEY =
+            "fedcba9876543210fedcba9876543210fedcba9876543210fedcba9876543210";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID applicationId;
+    private UUID environmentId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.execute(status -> {
+            cleanupTestData();
+            createTestData();
+            return null;
+        });
+    }
+
+    @Test
+    void replicaServesMergedSystemValuesFromSnapshot() {
+        transactionTemplate.execute(status -> {
+            createOverride("region-eu", Map.of("region", "eu-west"));
+            return null;
+        });
+
+        var replica = replicaStore(TEST_API_KEY).get(TEST_API_KEY);
+
+        assertThat(replica.environmentId()).isEqualTo(environmentId);
+        assertThat(replica.system(null).values()).containsEntry("region", "us-east");
+        assertThat(replica.system("region-eu").values()).containsEntry("region", "eu-west");
+        assertThat(replica.system("region-eu").appliedIdentifier()).isEqualTo("region-eu");
+        assertThat(replica.hasUserTemplate()).isFalse();
+    }
+
+    @Test
+    void syncPicksUpOverridesWrittenUpstream() {
+        var replicaStore = replicaStore(TEST_API_KEY);
+        replicaStore.get(TEST_API_KEY);
+        transactionTemplate.execute(status -> {
+            createOverride("region-ap", Map.of("region", "ap-south"));
+            return null;
+        });
+
+        replicaStore.syncAll();
+
+        assertThat(replicaStore.get(TEST_API_KEY).system("region-ap").values()).containsEntry(
+                "region", "ap-south");
+    }
+
+    @Test
+    void keyRejectedUpstreamIsNotServed() {
+        String unknownKey = "0000000000000000000000000000000000000000000000000000000000000000";
+
+        assertThatThrownBy(() -> replicaStore(unknownKey).get(unknownKey)).isInstanceOf(
+                InvalidApiKeyException.class);
+    }
+
+    @Test
+    void projectionsAreRenderedByCustomerApi() {
+        var query = new LinkedMultiValueMap<String, String>();
+        query.add("fields", "region");
+        query.add("includeSchema", "false");
+
+        var response = customerApiClient().fetchEncoded(TEST_API_KEY, "/system", query,
+                MediaType.APPLICATION_JSON_VALUE, null);
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(new String(response.getBody())).contains("us-east").doesNotContain("Region");
+    }
+
+    private ReplicaStore replicaStore(String apiKey) {
+        var properties = new RelayProperties(baseUrl(), List.of(apiKey), null, null, 0);
+        return new ReplicaStore(customerApiClient(), new UserValuesCache(properties), properties);
+    }
+
+    private CustomerApiClient customerApiClient() {
+        return new CustomerApiClient(RestClient.builder().baseUrl(baseUrl()).build());
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    private void cleanupTestData() {
+        entityManager.createNativeQuery("DELETE FROM template_values").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM template").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM api_key").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM environment").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM application").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM company").executeUpdate();
+    }
+
+    private void createTestData() {
+        var company = new CompanyEntity();
+        company.setName("Relay Company");
+        entityManager.persist(company);
+        entityManager.flush();
+
+        var application = new ApplicationEntity();
+        application.setName("Relay App");
+        application.setCompanyId(company.getId());
+        entityManager.persist(application);
+        entityManager.flush();
+        applicationId = application.getId();
+
+        var environment = new EnvironmentEntity();
+        environment.setName("Production");
+        environment.setDescription("Production environment");
+        environment.setApplicationId(application.getId());
+        environment.setTier(PricingTier.BASIC);
+        environment.setRateLimitRequestsPerSecond(100);
+        environment.setRequestsPerMonth(100000);
+        entityManager.persist(environment);
+        entityManager.flush();
+        environmentId = environment.getId();
+
+        var apiKey = new ApiKeyEntity();
+        apiKey.setApplicationId(application.getId());
+        apiKey.setEnvironmentId(environment.getId());
+        apiKey.setKey(TEST_API_KEY);
+        apiKey.setKeyType(KeyType.READ);
+        apiKey.setExpirationDate(OffsetDateTime.now().plusDays(30));
+        entityManager.persist(apiKey);
+
+        var template = new TemplateEntity();
+        template.setApplicationId(application.getId());
+        template.setCompanyId(company.getId());
+        template.setType(TemplateType.SYSTEM);
+        template.setSchema(new TemplateSchema(List.of(
+                new StringTemplateField("region", "Region", false, "us-east", 0, 50))));
+        entityManager.persist(template);
+
+        entityManager.flush();
+    }
+
+    private void createOverride(String identifier, Map<String, Object> values) {
+        var override = new TemplateValuesEntity();
+        override.setApplicationId(applicationId);
+        override.setEnvironmentId(environmentId);
+        override.setType(TemplateType.SYSTEM);
+        override.setIdentifier(identifier);
+        override.setValues(values);
+        entityManager.persist(override);
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,171 @@
+package io.hephaistos.flagforge.relay.store;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.relay.configuration.RelayProperties;
+import io.hephaistos.flagforge.relay.controller.dto.MergedTemplateValuesResponse;
+import io.hephaistos.flagforge.relay.exception.InvalidApiKeyException;
+import io.hephaistos.flagforge.relay.exception.UpstreamUnavailableException;
+import io.hephaistos.flagforge.relay.upstream.CustomerApiClient;
+import io.hephaistos.flagforge.relay.upstream.EnvironmentSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class ReplicaStoreTest {
+
+    private static final String API_KEY = "relay-key";
+    private static final String OTHER_API_KEY = "other-relay-key";
+    private static final TemplateSchema SCHEMA = new TemplateSchema(List.of(
+            new StringTemplateField("region", "Region", false, "us-east", 0, 50)));
+
+    @Mock
+    private CustomerApiClient customerApiClient;
+
+    private UserValuesCache userValuesCache;
+    private ReplicaStore replicaStore;
+    private UUID environmentId;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new RelayProperties(null, List.of(API_KEY, OTHER_API_KEY), null, null,
+                0);
+        userValuesCache = new UserValuesCache(properties);
+        replicaStore = new ReplicaStore(customerApiClient, userValuesCache, properties);
+        environmentId = UUID.randomUUID();
+    }
+
+    @Test
+    void getLoadsSnapshotOnceAndServesFromMemory() {
+        when(customerApiClient.fetchSnapshot(API_KEY)).thenReturn(snapshot(Map.of()));
+
+        replicaStore.get(API_KEY);
+        var replica = replicaStore.get(API_KEY);
+
+        assertThat(replica.system(null).values()).containsEntry("region", "us-east");
+        verify(customerApiClient, times(1)).fetchSnapshot(API_KEY);
+    }
+
+    @Test
+    void concurrentFirstLoadsShareOneFetch() throws Exception {
+        var fetching = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(customerApiClient.fetchSnapshot(API_KEY)).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await();
+            return snapshot(Map.of());
+        });
+
+        var first = CompletableFuture.supplyAsync(() -> replicaStore.get(API_KEY));
+        assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+        var second = CompletableFuture.supplyAsync(() -> replicaStore.get(API_KEY));
+        release.countDown();
+
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        verify(customerApiClient, times(1)).fetchSnapshot(API_KEY);
+    }
+
+    @Test
+    void slowFirstLoadDoesNotBlockOtherKeys() throws Exception {
+        var fetching = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(customerApiClient.fetchSnapshot(API_KEY)).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await();
+            return snapshot(Map.of());
+        });
+        when(customerApiClient.fetchSnapshot(OTHER_API_KEY)).thenReturn(snapshot(Map.of()));
+
+        var slow = CompletableFuture.supplyAsync(() -> replicaStore.get(API_KEY));
+        assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+        try {
+            assertThat(replicaStore.get(OTHER_API_KEY).environmentId()).isEqualTo(environmentId);
+        }
+        finally {
+            release.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void getRejectsUnconfiguredKey() {
+        assertThatThrownBy(() -> replicaStore.get("other-key")).isInstanceOf(
+                InvalidApiKeyException.class);
+    }
+
+    @Test
+    void getThrowsUnavailableWhenFirstLoadFails() {
+        when(customerApiClient.fetchSnapshot(API_KEY)).thenThrow(
+                new ResourceAccessException("Connection refused"));
+
+        assertThatThrownBy(() -> replicaStore.get(API_KEY)).isInstanceOf(
+                UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void syncKeepsPreviousSnapshotWhenUpstreamIsDown() {
+        when(customerApiClient.fetchSnapshot(API_KEY)).thenReturn(snapshot(Map.of()))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        replicaStore.get(API_KEY);
+
+        replicaStore.syncAll();
+
+        assertThat(replicaStore.get(API_KEY).system(null).values()).containsEntry("region",
+                "us-east");
+    }
+
+    @Test
+    void syncDropsReplicaWhenUpstreamRejectsKey() {
+        when(customerApiClient.fetchSnapshot(API_KEY)).thenReturn(snapshot(Map.of()))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized",
+                        null, null, null));
+        replicaStore.get(API_KEY);
+
+        replicaStore.syncAll();
+
+        assertThatThrownBy(() -> replicaStore.get(API_KEY)).isInstanceOf(
+                InvalidApiKeyException.class);
+    }
+
+    @Test
+    void syncInvalidatesCachedUsersWhenSnapshotChanges() {
+        when(customerApiClient.fetchSnapshot(API_KEY)).thenReturn(snapshot(Map.of()))
+                .thenReturn(snapshot(Map.of("region-eu", Map.of("region", "eu-west"))));
+        replicaStore.get(API_KEY);
+        userValuesCache.put(environmentId, "user-1",
+                new MergedTemplateValuesResponse(TemplateType.USER, SCHEMA, Map.of(), "user-1"));
+
+        replicaStore.syncAll();
+
+        assertThat(userValuesCache.get(environmentId, "user-1")).isEmpty();
+        assertThat(replicaStore.get(API_KEY).system("region-eu").values()).containsEntry("region",
+                "eu-west");
+    }
+
+    private EnvironmentSnapshot snapshot(Map<String, Map<String, Object>> overrides) {
+        return new EnvironmentSnapshot(UUID.fromString("00000000-0000-0000-0000-000000000001"),
+                environmentId, SCHEMA, overrides, SCHEMA, null);
+    }
+}
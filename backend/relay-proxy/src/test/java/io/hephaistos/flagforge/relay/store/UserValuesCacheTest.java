@@ -0,0 +1,52 @@
+package io.hephaistos.flagforge.relay.store;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.relay.configuration.RelayProperties;
+import io.hephaistos.flagforge.relay.controller.dto.MergedTemplateValuesResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class UserValuesCacheTest {
+
+    private UserValuesCache cache;
+    private UUID environmentId;
+    private UUID otherEnvironmentId;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserValuesCache(new RelayProperties(null, List.of(), null, null, 0));
+        environmentId = UUID.randomUUID();
+        otherEnvironmentId = UUID.randomUUID();
+        cache.put(environmentId, "user-1", response("user-1"));
+        cache.put(otherEnvironmentId, "user-1", response("user-1"));
+    }
+
+    @Test
+    void invalidateUserOnlyDropsTheUserInThatEnvironment() {
+        cache.invalidateUser(environmentId, "user-1");
+
+        assertThat(cache.get(environmentId, "user-1")).isEmpty();
+        assertThat(cache.get(otherEnvironmentId, "user-1")).isPresent();
+    }
+
+    @Test
+    void invalidateUserEverywhereDropsTheUserInAllEnvironments() {
+        cache.invalidateUserEverywhere("user-1");
+
+        assertThat(cache.size()).isZero();
+    }
+
+    private static MergedTemplateValuesResponse response(String userId) {
+        return new MergedTemplateValuesResponse(TemplateType.USER, new TemplateSchema(List.of()),
+                Map.of(), userId);
+    }
+}
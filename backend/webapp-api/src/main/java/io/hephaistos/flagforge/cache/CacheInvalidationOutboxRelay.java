@@ -0,0 +1,65 @@
+package io.hephaistos.flagforge.cache;
+
+import io.hephaistos.flagforge.configuration.CacheInvalidationProperties;
+import io.hephaistos.flagforge.data.repository.CacheInvalidationOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes cache invalidation outbox entries the after-commit publish missed, because Redis was
+ * unavailable or the instance stopped in between. Transactional transports write no outbox
+ * entries. Delivery is at least once; invalidating twice is
+ * harmless.
+ */
+@Component
+@ConditionalOnExpression(CacheInvalidationTransport.ENABLED)
+public class CacheInvalidationOutboxRelay {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(CacheInvalidationOutboxRelay.class);
+
+    private final CacheInvalidationOutboxRepository outboxRepository;
+    private final CacheInvalidationPublisher publisher;
+    private final CacheInvalidationProperties properties;
+
+    public CacheInvalidationOutboxRelay(CacheInvalidationOutboxRepository outboxRepository,
+            CacheInvalidationPublisher publisher, CacheInvalidationProperties properties) {
+        this.outboxRepository = outboxRepository;
+        this.publisher = publisher;
+        this.properties = properties;
+    }
+
+    /**
+     * @return Number of entries relayed
+     */
+    @Scheduled(fixedDelayString = "${flagforge.cache-invalidation.outbox-relay-interval:5s}")
+    @Transactional
+    public int relay() {
+        var entries = outboxRepository.findStaleForUpdate(
+                Instant.now().minus(properties.outboxRelayAfter()),
+                properties.outboxRelayBatchSize());
+
+        List<Long> sent = new ArrayList<>(entries.size());
+        for (var entry : entries) {
+            // Keep the order: stop at the first failure and retry from there next run
+            if (!publisher.send(entry.message())) {
+                break;
+            }
+            sent.add(entry.id());
+        }
+        outboxRepository.delete(sent);
+
+        if (!sent.isEmpty()) {
+            LOGGER.info("Relayed {} cache invalidation event(s) from the outbox", sent.size());
+        }
+        return sent.size();
+    }
+}
@@ -1,42 +1,75 @@
 package io.hephaistos.flagforge.cache;
 
+import io.hephaistos.flagforge.common.cache.CacheInvalidationCoalescer;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
 import io.hephaistos.flagforge.common.enums.TemplateType;
-import io.lettuce.core.api.StatefulRedisConnection;
+import io.hephaistos.flagforge.configuration.CacheInvalidationProperties;
+import io.hephaistos.flagforge.data.repository.CacheInvalidationOutboxRepository;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
- * Publishes cache invalidation events to Redis pub/sub channel. Used by webapp-api to notify
- * customer-api instances when template data changes.
+ * Publishes cache invalidation events through the configured {@link CacheInvalidationTransport}.
+ * Used by webapp-api to notify customer-api instances when template data changes.
+ * <p>
+ * Inside a transaction, events are collected and only published after commit, so customer-api
+ * cannot reload and re-cache the rows being replaced. Before commit the coalesced events are
+ * written to {@code cache_invalidation_outbox} in the same transaction; entries the after-commit
+ * publish does not remove (e.g. Redis was unavailable) are sent by
+ * {@link CacheInvalidationOutboxRelay}. A transactional transport instead sends them before commit,
+ * and the database delivers them on commit. Outside a transaction events are published
+ * immediately.
  */
 @Service
-@ConditionalOnProperty(name = "flagforge.redis.enabled", havingValue = "true")
+@ConditionalOnExpression(CacheInvalidationTransport.ENABLED)
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
 public class CacheInvalidationPublisher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheInvalidationPublisher.class);
 
-    private final StatefulRedisConnection<String, String> redisConnection;
+    private final CacheInvalidationTransport transport;
     private final JsonMapper jsonMapper;
+    private final CacheInvalidationOutboxRepository outboxRepository;
+    private final TransactionTemplate outboxTransaction;
+    private final CacheInvalidationProperties properties;
 
-    public CacheInvalidationPublisher(StatefulRedisConnection<String, String> redisConnection,
-            JsonMapper jsonMapper) {
-        this.redisConnection = redisConnection;
+    public CacheInvalidationPublisher(CacheInvalidationTransport transport, JsonMapper jsonMapper,
+            CacheInvalidationOutboxRepository outboxRepository,
+            PlatformTransactionManager transactionManager,
+            CacheInvalidationProperties properties) {
+        this.transport = transport;
         this.jsonMapper = jsonMapper;
+        this.outboxRepository = outboxRepository;
+        // The committed transaction's connection is still bound in afterCommit
+        this.outboxTransaction = new TransactionTemplate(transactionManager);
+        this.outboxTransaction.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
     }
 
     /**
      * Publish a schema change event (affects all environments for the app + template type).
      */
     public void publishSchemaChange(UUID appId, TemplateType type) {
-        publish(new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE, appId, null, type,
+        submit(new CacheInvalidationEvent(CacheInvalidationType.SCHEMA_CHANGE, appId, null, type,
                 null));
     }
 
@@ -45,7 +78,7 @@ public class CacheInvalidationPublisher {
      */
     public void publishOverrideChange(UUID appId, UUID envId, TemplateType type,
             String identifier) {
-        publish(new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
+        submit(new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
                 type, identifier));
     }
 
@@ -54,25 +87,112 @@ public class CacheInvalidationPublisher {
      */
     public void publishEnvironmentDeleted(UUID appId, UUID envId) {
         // Invalidate both SYSTEM and USER caches for this environment
-        publish(new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
+        submit(new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
                 TemplateType.SYSTEM, null));
-        publish(new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
+        submit(new CacheInvalidationEvent(CacheInvalidationType.OVERRIDE_CHANGE, appId, envId,
                 TemplateType.USER, null));
     }
 
-    private void publish(CacheInvalidationEvent event) {
+    /**
+     * Send an already serialized event.
+     *
+     * @return Whether the transport accepted the message
+     */
+    boolean send(String message) {
+        return transport.send(message);
+    }
+
+    private void submit(CacheInvalidationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive() &&
+                TransactionSynchronizationManager.isActualTransactionActive()) {
+            pendingEvents().add(event);
+            return;
+        }
+        String message = serialize(event);
+        if (message != null) {
+            send(message);
+        }
+    }
+
+    private @Nullable String serialize(CacheInvalidationEvent event) {
         try {
-            String message = jsonMapper.writeValueAsString(event);
-            Long subscribers =
-                    redisConnection.sync().publish(CacheInvalidationEvent.CHANNEL, message);
-            LOGGER.debug("Published cache invalidation: {} to {} subscribers", event, subscribers);
+            return jsonMapper.writeValueAsString(event);
         }
         catch (JacksonException e) {
             LOGGER.warn("Failed to serialize cache invalidation event: {}", e.getMessage());
+            return null;
         }
-        catch (Exception e) {
-            LOGGER.warn("Failed to publish cache invalidation: {}", e.getMessage());
-            // Fail-open: cache will eventually expire via TTL
+    }
+
+    /**
+     * Events of the current transaction, registering its synchronization on first use. Looked up
+     * among the synchronizations rather than bound as a resource, so a nested REQUIRES_NEW
+     * transaction gets its own.
+     */
+    private Set<CacheInvalidationEvent> pendingEvents() {
+        for (var synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof OutboxSynchronization outbox) {
+                return outbox.pending;
+            }
+        }
+        var outbox = new OutboxSynchronization();
+        TransactionSynchronizationManager.registerSynchronization(outbox);
+        return outbox.pending;
+    }
+
+    private final class OutboxSynchronization implements TransactionSynchronization {
+
+        private final Set<CacheInvalidationEvent> pending = new LinkedHashSet<>();
+        private final List<String> messages = new ArrayList<>();
+        private List<Long> outboxIds = List.of();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            for (var event : CacheInvalidationCoalescer.coalesce(pending,
+                    properties.maxIdentifiersPerNamespace())) {
+                String message = serialize(event);
+                if (message != null) {
+                    messages.add(message);
+                }
+            }
+            // Read-only transactions cannot write the outbox; their events stay best effort
+            if (readOnly || messages.isEmpty()) {
+                return;
+            }
+            if (transport.transactional()) {
+                // Delivered by the database when this transaction commits
+                messages.forEach(transport::send);
+                messages.clear();
+            }
+            else {
+                outboxIds = outboxRepository.insert(messages);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (messages.isEmpty()) {
+                return;
+            }
+            if (transport.transactional()) {
+                // Left over from a read-only transaction; the committed one is still bound
+                outboxTransaction.executeWithoutResult(status -> messages.forEach(transport::send));
+                return;
+            }
+            boolean allSent = true;
+            for (String message : messages) {
+                allSent &= send(message);
+            }
+            if (allSent && !outboxIds.isEmpty()) {
+                try {
+                    outboxTransaction.executeWithoutResult(
+                            status -> outboxRepository.delete(outboxIds));
+                }
+                catch (Exception e) {
+                    // The relay publishes the entries again, which is harmless
+                    LOGGER.warn("Failed to clear cache invalidation outbox: {}", e.getMessage());
+                }
+            }
         }
     }
 }
@@ -0,0 +1,30 @@
+package io.hephaistos.flagforge.cache;
+
+/**
+ * Delivers serialized cache invalidation events to customer-api. Selected with
+ * {@code flagforge.cache-invalidation.transport}: {@code redis} (default, requires
+ * {@code flagforge.redis.enabled}) or {@code postgres}.
+ */
+public interface CacheInvalidationTransport {
+
+    /**
+     * Whether any transport is configured; otherwise {@link NoOpCacheInvalidationPublisher} is
+     * used.
+     */
+    String ENABLED = "${flagforge.redis.enabled:false} or " +
+            "'${flagforge.cache-invalidation.transport:redis}' == 'postgres'";
+
+    /**
+     * Whether {@link #send} takes part in the current transaction, so a message sent before commit
+     * is delivered exactly when the transaction commits and not at all on rollback. Such transports
+     * need no outbox.
+     */
+    boolean transactional();
+
+    /**
+     * Send an already serialized event.
+     *
+     * @return Whether the message was accepted
+     */
+    boolean send(String message);
+}
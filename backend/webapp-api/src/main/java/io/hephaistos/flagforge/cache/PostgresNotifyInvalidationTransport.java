@@ -0,0 +1,56 @@
+package io.hephaistos.flagforge.cache;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends invalidations with Postgres NOTIFY on {@link CacheInvalidationEvent#NOTIFY_CHANNEL}, for
+ * deployments without Redis. Postgres queues a notification sent inside a transaction until that
+ * transaction commits and drops it on rollback, so invalidations reach listening customer-api
+ * instances exactly on commit. Listeners that are disconnected at that moment miss it and flush
+ * their cache when they reconnect.
+ */
+@Component
+@ConditionalOnProperty(name = "flagforge.cache-invalidation.transport", havingValue = "postgres")
+public class PostgresNotifyInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(PostgresNotifyInvalidationTransport.class);
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(:channel, :message)";
+
+    private final JdbcClient jdbcClient;
+
+    public PostgresNotifyInvalidationTransport(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+        LOGGER.info("Cache invalidations are sent with Postgres NOTIFY on channel {}",
+                CacheInvalidationEvent.NOTIFY_CHANNEL);
+    }
+
+    @Override
+    public boolean transactional() {
+        return true;
+    }
+
+    @Override
+    public boolean send(String message) {
+        try {
+            jdbcClient.sql(NOTIFY_SQL)
+                    .param("channel", CacheInvalidationEvent.NOTIFY_CHANNEL)
+                    .param("message", message)
+                    .query()
+                    .listOfRows();
+            LOGGER.debug("Notified cache invalidation: {}", message);
+            return true;
+        }
+        catch (DataAccessException e) {
+            LOGGER.warn("Failed to notify cache invalidation: {}", e.getMessage());
+            return false;
+        }
+    }
+}
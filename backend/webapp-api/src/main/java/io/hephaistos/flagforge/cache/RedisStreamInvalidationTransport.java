@@ -0,0 +1,68 @@
+package io.hephaistos.flagforge.cache;
+
+import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.configuration.CacheInvalidationProperties;
+import io.lettuce.core.ScriptOutputType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appends invalidations to the Redis invalidation stream. Entries are numbered from
+ * {@link CacheInvalidationEvent#SEQUENCE_KEY} so instances can replay what they missed and detect
+ * entries trimmed before they read them.
+ */
+@Component
+@ConditionalOnExpression("${flagforge.redis.enabled:false} and " +
+        "'${flagforge.cache-invalidation.transport:redis}' == 'redis'")
+public class RedisStreamInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(RedisStreamInvalidationTransport.class);
+
+    /**
+     * Numbers and appends the message in one step, so stream order and sequence order agree. Both
+     * keys share a hash tag, so this also runs on a Redis Cluster.
+     */
+    static final String APPEND_SCRIPT = """
+            local seq = redis.call('INCR', KEYS[2])
+            redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[2], '*', 'seq', seq, 'event', ARGV[1])
+            return seq
+            """;
+    static final String[] STREAM_KEYS =
+            {CacheInvalidationEvent.STREAM, CacheInvalidationEvent.SEQUENCE_KEY};
+
+    private final RedisEndpoint.Connection<String> redisConnection;
+    private final CacheInvalidationProperties properties;
+
+    public RedisStreamInvalidationTransport(
+            @Qualifier("cacheRedisConnection") RedisEndpoint.Connection<String> redisConnection,
+            CacheInvalidationProperties properties) {
+        this.redisConnection = redisConnection;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean transactional() {
+        return false;
+    }
+
+    @Override
+    public boolean send(String message) {
+        try {
+            Long sequence = redisConnection.sync()
+                    .eval(APPEND_SCRIPT, ScriptOutputType.INTEGER, STREAM_KEYS, message,
+                            String.valueOf(properties.streamMaxLength()));
+            LOGGER.debug("Published cache invalidation #{}: {}", sequence, message);
+            return true;
+        }
+        catch (Exception e) {
+            LOGGER.warn("Failed to publish cache invalidation: {}", e.getMessage());
+            // Fail-open: outbox entries are relayed later, the rest expires via TTL
+            return false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.hephaistos.flagforge.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for publishing cache invalidation events to customer-api.
+ *
+ * @param maxIdentifiersPerNamespace Identifier-specific events per (application, environment,
+ *                                   template type) a transaction publishes individually; more are
+ *                                   replaced by one event for the whole namespace (default: 16)
+ * @param outboxRelayAfter           Age after which an outbox entry is considered missed by the
+ *                                   after-commit publish and relayed again (default: 10s)
+ * @param outboxRelayBatchSize       Outbox entries relayed per run (default: 100)
+ * @param streamMaxLength            Approximate number of entries the invalidation stream retains
+ *                                   for replay; instances further behind flush their cache
+ *                                   (default: 100000)
+ */
+@ConfigurationProperties(prefix = "flagforge.cache-invalidation")
+public record CacheInvalidationProperties(int maxIdentifiersPerNamespace,
+                                          Duration outboxRelayAfter, int outboxRelayBatchSize,
+                                          int streamMaxLength) {
+    public CacheInvalidationProperties {
+        if (maxIdentifiersPerNamespace <= 0) {
+            maxIdentifiersPerNamespace = 16;
+        }
+        if (outboxRelayAfter == null) {
+            outboxRelayAfter = Duration.ofSeconds(10);
+        }
+        if (outboxRelayBatchSize <= 0) {
+            outboxRelayBatchSize = 100;
+        }
+        if (streamMaxLength <= 0) {
+            streamMaxLength = 100_000;
+        }
+    }
+}
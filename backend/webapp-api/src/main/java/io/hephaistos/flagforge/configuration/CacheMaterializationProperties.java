@@ -0,0 +1,23 @@
+package io.hephaistos.flagforge.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for writing merged SYSTEM responses into the customer-api template
+ * cache after a template change.
+ *
+ * @param enabled Whether changed responses are written to the cache; requires
+ *                flagforge.redis.enabled (default: false)
+ * @param ttl     TTL of written entries; keep it in line with the customer-api
+ *                flagforge.cache.ttl-seconds (default: 300s)
+ */
+@ConfigurationProperties(prefix = "flagforge.cache-materialization")
+public record CacheMaterializationProperties(boolean enabled, Duration ttl) {
+    public CacheMaterializationProperties {
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            ttl = Duration.ofSeconds(300);
+        }
+    }
+}
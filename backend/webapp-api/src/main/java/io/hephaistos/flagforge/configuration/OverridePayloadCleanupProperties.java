@@ -0,0 +1,24 @@
+package io.hephaistos.flagforge.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for removing shared user override payloads no user references anymore.
+ *
+ * @param gracePeriod Minimum age of a payload before it may be removed, so a payload written just
+ *                    before its first reference is not collected in between (default: 24h)
+ * @param batchSize   Payloads removed per statement (default: 1000)
+ */
+@ConfigurationProperties(prefix = "flagforge.override-payload-cleanup")
+public record OverridePayloadCleanupProperties(Duration gracePeriod, int batchSize) {
+    public OverridePayloadCleanupProperties {
+        if (gracePeriod == null) {
+            gracePeriod = Duration.ofHours(24);
+        }
+        if (batchSize <= 0) {
+            batchSize = 1000;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.hephaistos.flagforge.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for removing the Redis keys of deleted environments.
+ *
+ * @param batchSize     Cleanup jobs run per interval (default: 50)
+ * @param retryDelay    Delay before the first retry of a failed cleanup; it doubles with every
+ *                      further failure (default: 30s)
+ * @param maxRetryDelay Upper bound of the retry delay (default: 1h)
+ */
+@ConfigurationProperties(prefix = "flagforge.redis-cleanup")
+public record RedisCleanupProperties(int batchSize, Duration retryDelay, Duration maxRetryDelay) {
+    public RedisCleanupProperties {
+        if (batchSize <= 0) {
+            batchSize = 50;
+        }
+        if (retryDelay == null) {
+            retryDelay = Duration.ofSeconds(30);
+        }
+        if (maxRetryDelay == null) {
+            maxRetryDelay = Duration.ofHours(1);
+        }
+    }
+}
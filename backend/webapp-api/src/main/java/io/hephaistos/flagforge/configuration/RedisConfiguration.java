@@ -1,18 +1,26 @@
 package io.hephaistos.flagforge.configuration;
 
-import io.lettuce.core.RedisClient;
-import io.lettuce.core.RedisURI;
-import io.lettuce.core.api.StatefulRedisConnection;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * Redis configuration for reading usage tracking data. Only active when flagforge.redis.enabled is
- * true (default).
+ * Redis configuration, only active when flagforge.redis.enabled is true. customer-api may keep
+ * rate limiting and the template cache on separate Redis deployments, so there are two endpoints
+ * matching its own:
+ * <ul>
+ *     <li>flagforge.redis.uri, customer-api's rate limit Redis, which holds the usage counters
+ *     and the key registries of environments</li>
+ *     <li>flagforge.redis.cache-uri, customer-api's template cache Redis, which holds the cache
+ *     invalidation stream and cached responses; defaults to flagforge.redis.uri</li>
+ * </ul>
+ * Set flagforge.redis.cluster or flagforge.redis.cache-cluster when a URI points at a Redis
+ * Cluster.
  */
 @Configuration
 @ConditionalOnProperty(name = "flagforge.redis.enabled", havingValue = "true")
@@ -23,15 +31,46 @@ public class RedisConfiguration {
     @Value("${flagforge.redis.uri:redis://localhost:6379}")
     private String redisUri;
 
+    @Value("${flagforge.redis.cluster:false}")
+    private boolean redisCluster;
+
+    @Value("${flagforge.redis.cache-uri:${flagforge.redis.uri:redis://localhost:6379}}")
+    private String cacheRedisUri;
+
+    @Value("${flagforge.redis.cache-cluster:${flagforge.redis.cluster:false}}")
+    private boolean cacheRedisCluster;
+
     @Bean(destroyMethod = "shutdown")
-    public RedisClient redisClient() {
-        LOGGER.info("Creating Redis client with URI: {}", redisUri);
-        return RedisClient.create(RedisURI.create(redisUri));
+    public RedisEndpoint usageRedisEndpoint() {
+        LOGGER.info("Creating usage Redis client with URI: {} (cluster: {})", redisUri,
+                redisCluster);
+        return RedisEndpoint.create(redisUri, redisCluster);
     }
 
-    @Bean(destroyMethod = "close")
-    public StatefulRedisConnection<String, String> redisConnection(RedisClient redisClient) {
+    /**
+     * Connection for usage tracking and the cleanup of deleted environments.
+     */
+    @Bean(name = "usageRedisConnection", destroyMethod = "close")
+    public RedisEndpoint.Connection<String> usageRedisConnection(
+            @Qualifier("usageRedisEndpoint") RedisEndpoint endpoint) {
         LOGGER.info("Establishing Redis connection for usage tracking");
-        return redisClient.connect();
+        return endpoint.connect();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public RedisEndpoint cacheRedisEndpoint() {
+        LOGGER.info("Creating template cache Redis client with URI: {} (cluster: {})",
+                cacheRedisUri, cacheRedisCluster);
+        return RedisEndpoint.create(cacheRedisUri, cacheRedisCluster);
+    }
+
+    /**
+     * Connection for cache invalidations and materialized responses.
+     */
+    @Bean(name = "cacheRedisConnection", destroyMethod = "close")
+    public RedisEndpoint.Connection<String> cacheRedisConnection(
+            @Qualifier("cacheRedisEndpoint") RedisEndpoint endpoint) {
+        LOGGER.info("Establishing Redis connection for the template cache");
+        return endpoint.connect();
     }
 }
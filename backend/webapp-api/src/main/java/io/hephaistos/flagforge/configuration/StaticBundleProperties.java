@@ -0,0 +1,30 @@
+package io.hephaistos.flagforge.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for static SYSTEM template bundles.
+ *
+ * @param enabled    Whether bundles are rendered on template changes (default: false)
+ * @param directory  Directory the web server serves bundles from
+ * @param publicPath URL path the web server exposes the directory under (default: /static)
+ * @param retention  How long superseded bundles are kept for clients still holding an old pointer
+ *                   (default: 24h)
+ */
+@ConfigurationProperties(prefix = "flagforge.static-bundles")
+public record StaticBundleProperties(boolean enabled, String directory, String publicPath,
+                                     Duration retention) {
+    public StaticBundleProperties {
+        if (directory == null || directory.isBlank()) {
+            directory = "/var/lib/flagforge/static-bundles";
+        }
+        if (publicPath == null || publicPath.isBlank()) {
+            publicPath = "/static";
+        }
+        if (retention == null) {
+            retention = Duration.ofHours(24);
+        }
+    }
+}
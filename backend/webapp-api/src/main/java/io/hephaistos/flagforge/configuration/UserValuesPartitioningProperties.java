@@ -0,0 +1,22 @@
+package io.hephaistos.flagforge.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for copying existing user overrides into the partitioned
+ * user_template_values table (V1.0.27).
+ *
+ * @param batchSize     Rows copied per transaction (default: 1000)
+ * @param batchesPerRun Batches copied per run before yielding to the next interval (default: 10)
+ */
+@ConfigurationProperties(prefix = "flagforge.user-values-partitioning")
+public record UserValuesPartitioningProperties(int batchSize, int batchesPerRun) {
+    public UserValuesPartitioningProperties {
+        if (batchSize <= 0) {
+            batchSize = 1000;
+        }
+        if (batchesPerRun <= 0) {
+            batchesPerRun = 10;
+        }
+    }
+}
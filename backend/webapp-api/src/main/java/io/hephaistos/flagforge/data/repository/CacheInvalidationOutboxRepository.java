@@ -0,0 +1,82 @@
+package io.hephaistos.flagforge.data.repository;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC access to the cache invalidation outbox. Events are stored as the JSON messages that are
+ * published, so relaying them needs no deserialization.
+ */
+@Repository
+public class CacheInvalidationOutboxRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO cache_invalidation_outbox (event)
+            SELECT CAST(message AS jsonb)
+            FROM unnest(CAST(:messages AS text[])) AS message
+            RETURNING id
+            """;
+
+    /**
+     * Entries locked by a concurrent relay run are skipped rather than published twice.
+     */
+    private static final String FIND_STALE_SQL = """
+            SELECT id, event::text AS event
+            FROM cache_invalidation_outbox
+            WHERE created_at < :before
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String DELETE_SQL = """
+            DELETE FROM cache_invalidation_outbox
+            WHERE id = ANY (CAST(:ids AS bigint[]))
+            """;
+
+    private final JdbcClient jdbcClient;
+
+    public CacheInvalidationOutboxRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * @return The ids of the new entries
+     */
+    public List<Long> insert(Collection<String> messages) {
+        return jdbcClient.sql(INSERT_SQL)
+                .param("messages", messages.toArray(String[]::new))
+                .query(Long.class)
+                .list();
+    }
+
+    /**
+     * Locks up to {@code limit} entries created before {@code before}, oldest first, until the
+     * transaction ends.
+     */
+    public List<OutboxEntry> findStaleForUpdate(Instant before, int limit) {
+        return jdbcClient.sql(FIND_STALE_SQL)
+                .param("before", Timestamp.from(before))
+                .param("limit", limit)
+                .query((rs, rowNum) -> new OutboxEntry(rs.getLong("id"), rs.getString("event")))
+                .list();
+    }
+
+    public void delete(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            jdbcClient.sql(DELETE_SQL).param("ids", ids.toArray(Long[]::new)).update();
+        }
+    }
+
+    /**
+     * @param id      The entry id
+     * @param message The event as published
+     */
+    public record OutboxEntry(long id, String message) {
+    }
+}
@@ -0,0 +1,92 @@
+package io.hephaistos.flagforge.data.repository;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC access to the Redis cleanup jobs of deleted environments.
+ */
+@Repository
+public class RedisCleanupJobRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO redis_cleanup_job (environment_id)
+            VALUES (:environmentId)
+            ON CONFLICT (environment_id) DO NOTHING
+            """;
+
+    /**
+     * Jobs locked by a concurrent run are skipped rather than run twice.
+     */
+    private static final String FIND_DUE_SQL = """
+            SELECT environment_id, attempts
+            FROM redis_cleanup_job
+            WHERE next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String RESCHEDULE_SQL = """
+            UPDATE redis_cleanup_job
+            SET attempts = attempts + 1, next_attempt_at = :nextAttemptAt
+            WHERE environment_id = :environmentId
+            """;
+
+    private static final String DELETE_SQL = """
+            DELETE FROM redis_cleanup_job
+            WHERE environment_id = :environmentId
+            """;
+
+    private final JdbcClient jdbcClient;
+
+    public RedisCleanupJobRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Adds a job that is due immediately, unless the environment already has one.
+     */
+    public void insert(UUID environmentId) {
+        jdbcClient.sql(INSERT_SQL).param("environmentId", environmentId).update();
+    }
+
+    /**
+     * Locks up to {@code limit} jobs due at {@code now}, longest overdue first, until the
+     * transaction ends.
+     */
+    public List<CleanupJob> findDueForUpdate(Instant now, int limit) {
+        return jdbcClient.sql(FIND_DUE_SQL)
+                .param("now", Timestamp.from(now))
+                .param("limit", limit)
+                .query((rs, rowNum) -> new CleanupJob(rs.getObject("environment_id", UUID.class),
+                        rs.getInt("attempts")))
+                .list();
+    }
+
+    /**
+     * Records a failed attempt and when to try again.
+     */
+    public void reschedule(UUID environmentId, Instant nextAttemptAt) {
+        jdbcClient.sql(RESCHEDULE_SQL)
+                .param("environmentId", environmentId)
+                .param("nextAttemptAt", Timestamp.from(nextAttemptAt))
+                .update();
+    }
+
+    public void delete(UUID environmentId) {
+        jdbcClient.sql(DELETE_SQL).param("environmentId", environmentId).update();
+    }
+
+    /**
+     * @param environmentId The deleted environment
+     * @param attempts      Failed attempts so far
+     */
+    public record CleanupJob(UUID environmentId, int attempts) {
+    }
+}
@@ -0,0 +1,53 @@
+package io.hephaistos.flagforge.data.repository;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * JDBC access to the shared user override payloads written by the customer API. The table has no
+ * entity; webapp-api only ever removes rows from it.
+ */
+@Repository
+public class UserOverridePayloadRepository {
+
+    /**
+     * Locked rows belong to a concurrent cleanup run or to a customer-api write about to reference
+     * them, and are skipped. The foreign key from user_template_values still rejects the delete if
+     * a reference appears before commit.
+     */
+    private static final String DELETE_UNREFERENCED_SQL = """
+            DELETE FROM user_override_payload p
+            USING (SELECT c.application_id, c.hash
+                   FROM user_override_payload c
+                   WHERE c.created_at < :cutoff
+                     AND NOT EXISTS (SELECT 1
+                                     FROM user_template_values utv
+                                     WHERE utv.application_id = c.application_id
+                                       AND utv.payload_hash = c.hash)
+                   LIMIT :limit
+                   FOR UPDATE SKIP LOCKED) unreferenced
+            WHERE p.application_id = unreferenced.application_id
+              AND p.hash = unreferenced.hash
+            """;
+
+    private final JdbcClient jdbcClient;
+
+    public UserOverridePayloadRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Deletes up to {@code limit} payloads created before {@code cutoff} that no user references.
+     *
+     * @return Number of payloads deleted
+     */
+    public int deleteUnreferenced(Instant cutoff, int limit) {
+        return jdbcClient.sql(DELETE_UNREFERENCED_SQL)
+                .param("cutoff", Timestamp.from(cutoff))
+                .param("limit", limit)
+                .update();
+    }
+}
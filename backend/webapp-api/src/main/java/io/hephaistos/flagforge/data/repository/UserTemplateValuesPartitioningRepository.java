@@ -0,0 +1,34 @@
+package io.hephaistos.flagforge.data.repository;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC access to the online partitioning of user_template_values (V1.0.27), which copies the rows
+ * of the old table into the partitioned one and then swaps the two.
+ */
+@Repository
+public class UserTemplateValuesPartitioningRepository {
+
+    private static final String COPY_BATCH_SQL =
+            "SELECT copy_user_template_values_batch(:batchSize)";
+
+    private final JdbcClient jdbcClient;
+
+    public UserTemplateValuesPartitioningRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Copies the next {@code batchSize} rows in its own transaction. Once no row is left it swaps
+     * the tables instead, which waits up to the function's lock timeout for running queries.
+     *
+     * @return Number of rows copied; 0 once user_template_values is partitioned
+     */
+    public int copyBatch(int batchSize) {
+        return jdbcClient.sql(COPY_BATCH_SQL)
+                .param("batchSize", batchSize)
+                .query(Integer.class)
+                .single();
+    }
+}
@@ -4,6 +4,7 @@ import io.hephaistos.flagforge.common.data.UserTemplateValuesEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -13,5 +14,10 @@ import java.util.UUID;
 public interface UserTemplateValuesRepository
         extends JpaRepository<UserTemplateValuesEntity, UUID> {
 
-    long countByApplicationId(UUID applicationId);
+    /**
+     * Counts users across the given environments. user_template_values is partitioned by
+     * environment, so naming the environments limits the scan to their partitions.
+     */
+    long countByApplicationIdAndEnvironmentIdIn(UUID applicationId,
+            Collection<UUID> environmentIds);
 }
@@ -2,6 +2,7 @@ package io.hephaistos.flagforge.service;
 
 import io.hephaistos.flagforge.common.data.ApplicationEntity;
 import io.hephaistos.flagforge.common.data.CustomerEntity;
+import io.hephaistos.flagforge.common.data.EnvironmentEntity;
 import io.hephaistos.flagforge.controller.dto.ApplicationCreationRequest;
 import io.hephaistos.flagforge.controller.dto.ApplicationListResponse;
 import io.hephaistos.flagforge.controller.dto.ApplicationResponse;
@@ -97,7 +98,11 @@ public class DefaultApplicationService implements ApplicationService {
                 .orElseThrow(
                         () -> new NotFoundException("Application not found: " + applicationId));
 
-        long userCount = userTemplateValuesRepository.countByApplicationId(applicationId);
+        var environmentIds =
+                application.getEnvironments().stream().map(EnvironmentEntity::getId).toList();
+        long userCount =
+                userTemplateValuesRepository.countByApplicationIdAndEnvironmentIdIn(applicationId,
+                        environmentIds);
 
         // Sum hits across all environments
         long totalHits = application.getEnvironments()
@@ -175,11 +175,12 @@ public class DefaultEnvironmentService implements EnvironmentService {
             stripeService.removeSubscriptionItem(application.getCompanyId(), environmentId);
         }
 
-        // Delete from database
+        // Delete from database. Dropping the user_template_values partition holds an ACCESS
+        // EXCLUSIVE lock on the table until commit (V1.0.27), so nothing slow may follow.
         environmentRepository.deleteById(environmentId);
 
-        // Cleanup Redis keys (fail-open, non-blocking)
-        redisCleanupService.cleanupEnvironmentKeys(environmentId);
+        // Cleanup Redis keys after commit, retried until it succeeds
+        redisCleanupService.scheduleEnvironmentCleanup(environmentId);
 
         // Invalidate any cached templates for this environment
         cacheInvalidationPublisher.publishEnvironmentDeleted(applicationId, environmentId);
@@ -0,0 +1,56 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.configuration.OverridePayloadCleanupProperties;
+import io.hephaistos.flagforge.data.repository.UserOverridePayloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Deletes unreferenced override payloads in batches, each in its own statement so no run holds
+ * locks on many payloads at once.
+ */
+@Service
+@EnableConfigurationProperties(OverridePayloadCleanupProperties.class)
+public class DefaultOverridePayloadCleanupService implements OverridePayloadCleanupService {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DefaultOverridePayloadCleanupService.class);
+
+    private final UserOverridePayloadRepository payloadRepository;
+    private final OverridePayloadCleanupProperties properties;
+
+    public DefaultOverridePayloadCleanupService(UserOverridePayloadRepository payloadRepository,
+            OverridePayloadCleanupProperties properties) {
+        this.payloadRepository = payloadRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    @Scheduled(cron = "0 30 * * * *") // Every hour at :30
+    public int deleteUnreferencedPayloads() {
+        Instant cutoff = Instant.now().minus(properties.gracePeriod());
+        int total = 0;
+        try {
+            int deleted;
+            do {
+                deleted = payloadRepository.deleteUnreferenced(cutoff, properties.batchSize());
+                total += deleted;
+            } while (deleted == properties.batchSize());
+        }
+        catch (DataIntegrityViolationException e) {
+            // A user started referencing a payload of the batch; the rest is retried next run
+            LOGGER.warn("Override payload cleanup stopped early: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            LOGGER.info("Deleted {} unreferenced override payloads", total);
+        }
+        return total;
+    }
+}
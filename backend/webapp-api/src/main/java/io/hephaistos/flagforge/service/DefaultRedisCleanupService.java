@@ -1,95 +1,75 @@
 package io.hephaistos.flagforge.service;
 
-import io.lettuce.core.KeyScanCursor;
-import io.lettuce.core.ScanArgs;
-import io.lettuce.core.ScanCursor;
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.sync.RedisCommands;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
+import io.hephaistos.flagforge.data.repository.RedisCleanupJobRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 /**
- * Cleans up Redis keys when environments are deleted. Uses SCAN for pattern matching
- * (production-safe, non-blocking). Fails open: cleanup errors don't block environment deletion.
+ * Cleans up Redis keys when environments are deleted. The usage counters of an environment are
+ * listed in its key registry ({@link RedisKeys#environmentKeys(UUID)}), so a cleanup costs work
+ * proportional to that environment only. All keys share the environment's hash tag and are deleted
+ * in a few multi-key DELs, also on a Redis Cluster. Cleanups run as durable jobs (see
+ * {@link RedisCleanupJobRunner}), so they never block the delete request and failures are retried.
  */
 @Service
 @ConditionalOnProperty(name = "flagforge.redis.enabled", havingValue = "true")
 public class DefaultRedisCleanupService implements RedisCleanupService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultRedisCleanupService.class);
-    private static final int SCAN_BATCH_SIZE = 100;
+    private static final int DELETE_BATCH_SIZE = 100;
 
-    private final StatefulRedisConnection<String, String> redisConnection;
+    private final RedisEndpoint.Connection<String> redisConnection;
+    private final RedisCleanupJobRepository jobRepository;
 
-    public DefaultRedisCleanupService(StatefulRedisConnection<String, String> redisConnection) {
+    public DefaultRedisCleanupService(
+            @Qualifier("usageRedisConnection") RedisEndpoint.Connection<String> redisConnection,
+            RedisCleanupJobRepository jobRepository) {
         this.redisConnection = redisConnection;
+        this.jobRepository = jobRepository;
         LOGGER.info("Redis cleanup service initialized");
     }
 
     @Override
-    public void cleanupEnvironmentKeys(UUID environmentId) {
+    public void scheduleEnvironmentCleanup(UUID environmentId) {
+        jobRepository.insert(environmentId);
+    }
+
+    @Override
+    public boolean cleanupEnvironmentKeys(UUID environmentId) {
         try {
             var commands = redisConnection.sync();
-            String envId = environmentId.toString();
+            String registry = RedisKeys.environmentKeys(environmentId);
 
-            // All key patterns associated with an environment
-            List<String> patterns =
-                    List.of("rate-limit:env:" + envId, "usage:monthly:" + envId + ":*",
-                            "usage:daily:" + envId + ":*", "usage:peak:" + envId + ":*",
-                            "usage:rejected:" + envId + ":*", "usage:second:" + envId + ":*");
+            List<String> keys = new ArrayList<>(commands.zrange(registry, 0, -1));
+            keys.add(RedisKeys.rateLimit(environmentId));
+            // The registry goes last, so a failed cleanup still finds the remaining keys
+            keys.add(registry);
 
             int totalDeleted = 0;
-            for (String pattern : patterns) {
-                int deleted = deleteByPattern(commands, pattern);
-                totalDeleted += deleted;
+            for (int from = 0; from < keys.size(); from += DELETE_BATCH_SIZE) {
+                List<String> batch =
+                        keys.subList(from, Math.min(from + DELETE_BATCH_SIZE, keys.size()));
+                Long deleted = commands.del(batch.toArray(new String[0]));
+                totalDeleted += deleted != null ? deleted.intValue() : 0;
             }
 
             LOGGER.info("Cleaned up {} Redis keys for deleted environment: {}", totalDeleted,
-                    envId);
+                    environmentId);
+            return true;
         }
         catch (Exception e) {
-            // Fail-open: log warning but don't block environment deletion
             LOGGER.warn("Failed to cleanup Redis keys for environment {}: {}", environmentId,
                     e.getMessage());
+            return false;
         }
     }
-
-    /**
-     * Delete keys matching a pattern using SCAN (non-blocking, production-safe). Handles both exact
-     * keys and wildcard patterns.
-     *
-     * @param commands Redis commands interface
-     * @param pattern  Key pattern (may include wildcards)
-     * @return Number of keys deleted
-     */
-    private int deleteByPattern(RedisCommands<String, String> commands, String pattern) {
-        // For patterns without wildcards, try direct delete first
-        if (!pattern.contains("*")) {
-            Long deleted = commands.del(pattern);
-            return deleted != null ? deleted.intValue() : 0;
-        }
-
-        // For wildcard patterns, use SCAN
-        int deleted = 0;
-        ScanCursor cursor = ScanCursor.INITIAL;
-        ScanArgs args = ScanArgs.Builder.matches(pattern).limit(SCAN_BATCH_SIZE);
-
-        do {
-            KeyScanCursor<String> result = commands.scan(cursor, args);
-            if (!result.getKeys().isEmpty()) {
-                Long count = commands.del(result.getKeys().toArray(new String[0]));
-                if (count != null) {
-                    deleted += count.intValue();
-                }
-            }
-            cursor = result;
-        } while (!cursor.isFinished());
-
-        return deleted;
-    }
 }
@@ -0,0 +1,254 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.data.EnvironmentEntity;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.configuration.StaticBundleProperties;
+import io.hephaistos.flagforge.data.repository.EnvironmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes content-addressed SYSTEM bundles to a directory served by nginx. Layout per
+ * environment:
+ * <pre>
+ * {envId}/system/{sha256}.json          immutable merged document, cached forever
+ * {envId}/system/current/_.json         pointer to the defaults bundle
+ * {envId}/system/current/{sha256(identifier)}.json   pointer per override identifier
+ * </pre>
+ * Rebuilds run after commit on a single background thread and are coalesced per environment.
+ * Failures are logged and never affect the write that triggered them.
+ */
+@Service
+@ConditionalOnProperty(name = "flagforge.static-bundles.enabled", havingValue = "true")
+@EnableConfigurationProperties(StaticBundleProperties.class)
+public class DefaultStaticBundleService implements StaticBundleService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultStaticBundleService.class);
+    private static final String DEFAULTS_POINTER = "_";
+    private static final String JSON_SUFFIX = ".json";
+
+    private final StaticBundleProperties properties;
+    private final SystemTemplateRenderer renderer;
+    private final EnvironmentRepository environmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonMapper jsonMapper;
+    private final Path root;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("static-bundles").daemon().factory());
+    private final Set<UUID> pendingEnvironments = ConcurrentHashMap.newKeySet();
+
+    public DefaultStaticBundleService(StaticBundleProperties properties,
+            SystemTemplateRenderer renderer, EnvironmentRepository environmentRepository,
+            PlatformTransactionManager transactionManager, JsonMapper jsonMapper) {
+        this.properties = properties;
+        this.renderer = renderer;
+        this.environmentRepository = environmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonMapper = jsonMapper;
+        this.root = Path.of(properties.directory());
+        LOGGER.info("Static bundles enabled - writing to {}", root.toAbsolutePath());
+    }
+
+    @Override
+    public void scheduleRebuild(UUID applicationId, @Nullable UUID environmentId,
+            TemplateType type) {
+        if (type != TemplateType.SYSTEM) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            submit(applicationId, environmentId);
+                        }
+                    });
+        }
+        else {
+            submit(applicationId, environmentId);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void submit(UUID applicationId, @Nullable UUID environmentId) {
+        if (environmentId == null) {
+            executor.execute(() -> {
+                List<UUID> environmentIds = readOnlyTransaction.execute(
+                        status -> environmentRepository.findByApplication_Id(applicationId)
+                                .stream()
+                                .map(EnvironmentEntity::getId)
+                                .toList());
+                if (environmentIds != null) {
+                    environmentIds.forEach(id -> submit(applicationId, id));
+                }
+            });
+            return;
+        }
+
+        // A rebuild already queued for this environment will read the latest committed state
+        if (pendingEnvironments.add(environmentId)) {
+            executor.execute(() -> {
+                pendingEnvironments.remove(environmentId);
+                try {
+                    rebuild(applicationId, environmentId);
+                }
+                catch (Exception e) {
+                    LOGGER.warn("Failed to publish static bundles for environment {}: {}",
+                            environmentId, e.getMessage());
+                }
+            });
+        }
+    }
+
+    void rebuild(UUID applicationId, UUID environmentId) throws IOException {
+        var documents = readOnlyTransaction.execute(
+                status -> renderer.renderEnvironment(applicationId, environmentId));
+
+        Path systemDir = root.resolve(environmentId.toString()).resolve("system");
+        Path pointerDir = systemDir.resolve("current");
+        Files.createDirectories(pointerDir);
+
+        Set<String> livePointers = new HashSet<>();
+        Set<String> liveBundles = new HashSet<>();
+
+        if (documents != null) {
+            for (var entry : documents.entrySet()) {
+                byte[] bundle = jsonMapper.writeValueAsBytes(entry.getValue());
+                String version = sha256Hex(bundle);
+                String bundleName = version + JSON_SUFFIX;
+
+                Path bundlePath = systemDir.resolve(bundleName);
+                if (Files.notExists(bundlePath)) {
+                    writeAtomically(bundlePath, bundle);
+                }
+                liveBundles.add(bundleName);
+
+                String pointerName = pointerName(entry.getKey());
+                var pointer = new BundlePointer(version,
+                        properties.publicPath() + "/" + environmentId + "/system/" + bundleName);
+                updatePointer(systemDir, pointerDir.resolve(pointerName), pointer);
+                livePointers.add(pointerName);
+            }
+        }
+
+        int removedPointers = removeStale(pointerDir, livePointers, Instant.now());
+        int removedBundles = removeStale(systemDir, liveBundles,
+                Instant.now().minus(properties.retention()));
+
+        LOGGER.info(
+                "Published {} static bundle(s) for environment {} (removed {} pointer(s), {} bundle(s))",
+                liveBundles.size(), environmentId, removedPointers, removedBundles);
+    }
+
+    private void updatePointer(Path systemDir, Path pointerPath, BundlePointer pointer)
+            throws IOException {
+        byte[] content = jsonMapper.writeValueAsBytes(pointer);
+        if (Files.exists(pointerPath)) {
+            byte[] existing = Files.readAllBytes(pointerPath);
+            if (Arrays.equals(existing, content)) {
+                return;
+            }
+            // Start the retention clock of the superseded bundle now, not when it was written
+            var previous = jsonMapper.readValue(existing, BundlePointer.class);
+            Path previousBundle = systemDir.resolve(previous.version() + JSON_SUFFIX);
+            if (Files.exists(previousBundle)) {
+                Files.setLastModifiedTime(previousBundle, FileTime.from(Instant.now()));
+            }
+        }
+        writeAtomically(pointerPath, content);
+    }
+
+    private int removeStale(Path dir, Set<String> live, Instant olderThan) throws IOException {
+        int removed = 0;
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (!Files.isRegularFile(file) || !name.endsWith(JSON_SUFFIX) || live.contains(
+                        name)) {
+                    continue;
+                }
+                if (!Files.getLastModifiedTime(file).toInstant().isAfter(olderThan)) {
+                    Files.deleteIfExists(file);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".bundle-", ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Pointer file name for an identifier. Identifiers are hashed so arbitrary characters and
+     * lengths map to safe file names; SDKs compute the same SHA-256 to locate the pointer.
+     */
+    static String pointerName(String identifier) {
+        if (identifier.equals(SystemTemplateRenderer.DEFAULTS)) {
+            return DEFAULTS_POINTER + JSON_SUFFIX;
+        }
+        return sha256Hex(identifier.getBytes(StandardCharsets.UTF_8)) + JSON_SUFFIX;
+    }
+
+    private static String sha256Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Contents of a "current version" pointer file.
+     *
+     * @param version SHA-256 of the bundle the pointer refers to
+     * @param path    URL path of the immutable bundle
+     */
+    record BundlePointer(String version, String path) {
+    }
+}
@@ -0,0 +1,221 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.data.EnvironmentEntity;
+import io.hephaistos.flagforge.common.datasource.ReadYourWrites;
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
+import io.hephaistos.flagforge.common.types.MergedTemplateSnapshot;
+import io.hephaistos.flagforge.configuration.CacheMaterializationProperties;
+import io.hephaistos.flagforge.data.repository.EnvironmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes merged SYSTEM responses into the template cache under the keys and in the JSON format
+ * customer-api reads ({@link RedisKeys#templateCache}); the stale binary variants of each entry are
+ * deleted with it. Responses are rendered with {@link SystemTemplateRenderer} from the primary
+ * database, so a lagging replica cannot put an outdated response back into the cache.
+ * <p>
+ * Materialization is a best-effort step on top of the cache invalidation, which the template
+ * service publishes through the outbox in the same transaction as every change. Work runs after
+ * commit on a single background thread and is coalesced per environment, so renders never overtake
+ * each other within this instance; it is lost if the instance stops before running it. Should
+ * customer-api apply the invalidation after the write, the entry is merely loaded again on its next
+ * read. Renders of different instances are not ordered: one rendered before a later change of the
+ * same environment may land after that change's invalidation and is served until its TTL expires,
+ * which is why the TTL defaults to minutes. Failures are logged and never affect the write that
+ * triggered them.
+ */
+@Service
+@ConditionalOnExpression(DefaultSystemCacheMaterializer.ENABLED)
+@EnableConfigurationProperties(CacheMaterializationProperties.class)
+public class DefaultSystemCacheMaterializer implements SystemCacheMaterializer {
+
+    /**
+     * Materialization writes to the Redis instance customer-api caches in.
+     */
+    static final String ENABLED = "${flagforge.redis.enabled:false} and " +
+            "${flagforge.cache-materialization.enabled:false}";
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DefaultSystemCacheMaterializer.class);
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    private final RedisEndpoint.Connection<String> redisConnection;
+    private final SystemTemplateRenderer renderer;
+    private final EnvironmentRepository environmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonMapper jsonMapper;
+    private final long ttlSeconds;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("cache-materializer").daemon().factory());
+    /**
+     * Identifiers waiting to be written per environment; a null element stands for every response
+     * of the environment
+     */
+    private final Map<UUID, Set<@Nullable String>> pendingEnvironments = new ConcurrentHashMap<>();
+
+    public DefaultSystemCacheMaterializer(
+            @Qualifier("cacheRedisConnection") RedisEndpoint.Connection<String> redisConnection,
+            SystemTemplateRenderer renderer, EnvironmentRepository environmentRepository,
+            PlatformTransactionManager transactionManager, JsonMapper jsonMapper,
+            CacheMaterializationProperties properties) {
+        this.redisConnection = redisConnection;
+        this.renderer = renderer;
+        this.environmentRepository = environmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonMapper = jsonMapper;
+        this.ttlSeconds = properties.ttl().toSeconds();
+        LOGGER.info("Cache materialization enabled with TTL: {}s", ttlSeconds);
+    }
+
+    @Override
+    public void scheduleMaterialization(UUID applicationId, @Nullable UUID environmentId,
+            TemplateType type, @Nullable String identifier) {
+        if (type != TemplateType.SYSTEM) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            submit(applicationId, environmentId, identifier);
+                        }
+                    });
+        }
+        else {
+            submit(applicationId, environmentId, identifier);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void submit(UUID applicationId, @Nullable UUID environmentId,
+            @Nullable String identifier) {
+        if (environmentId == null) {
+            executor.execute(() -> {
+                List<UUID> environmentIds = ReadYourWrites.onPrimary(
+                        () -> readOnlyTransaction.execute(status -> environmentRepository
+                                .findByApplication_Id(applicationId)
+                                .stream()
+                                .map(EnvironmentEntity::getId)
+                                .toList()));
+                if (environmentIds != null) {
+                    environmentIds.forEach(id -> submit(applicationId, id, null));
+                }
+            });
+            return;
+        }
+
+        pendingEnvironments.compute(environmentId, (id, identifiers) -> {
+            Set<@Nullable String> pending = identifiers != null ? identifiers : new HashSet<>();
+            pending.add(identifier);
+            return pending;
+        });
+        // A task finding nothing pending was preceded by one that took over its identifiers
+        executor.execute(() -> {
+            Set<@Nullable String> identifiers = pendingEnvironments.remove(environmentId);
+            if (identifiers == null) {
+                return;
+            }
+            Set<String> changed = new HashSet<>();
+            for (String pending : identifiers) {
+                if (pending != null) {
+                    changed.add(pending);
+                }
+            }
+            try {
+                materialize(applicationId, environmentId, identifiers.contains(null), changed);
+            }
+            catch (Exception e) {
+                LOGGER.warn("Failed to materialize cached SYSTEM responses for environment {}: {}",
+                        environmentId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Renders and writes the given responses of an environment. Nothing is written when the
+     * application has no SYSTEM template.
+     *
+     * @param everyResponse Whether to write every response of the environment
+     * @param identifiers   Changed identifiers to write
+     * @return Number of responses written
+     */
+    int materialize(UUID applicationId, UUID environmentId, boolean everyResponse,
+            Set<String> identifiers) {
+        Map<String, MergedTemplateSnapshot> documents = ReadYourWrites.onPrimary(
+                () -> readOnlyTransaction.execute(
+                        status -> render(applicationId, environmentId, everyResponse,
+                                identifiers)));
+        if (documents == null || documents.isEmpty()) {
+            return 0;
+        }
+
+        var commands = redisConnection.sync();
+        List<String> variantKeys = new ArrayList<>(documents.size());
+        for (var entry : documents.entrySet()) {
+            String identifier = entry.getKey();
+            // ALWAYS set TTL - critical for volatile-lru eviction policy
+            commands.setex(RedisKeys.templateCache(environmentId, applicationId,
+                            TemplateType.SYSTEM, identifier), ttlSeconds,
+                    jsonMapper.writeValueAsString(entry.getValue()));
+            variantKeys.add(RedisKeys.templateVariants(environmentId, applicationId,
+                    TemplateType.SYSTEM, identifier));
+        }
+        // Variants were encoded from the previous response; customer-api encodes them again
+        for (int from = 0; from < variantKeys.size(); from += DELETE_BATCH_SIZE) {
+            commands.del(variantKeys.subList(from,
+                    Math.min(from + DELETE_BATCH_SIZE, variantKeys.size())).toArray(new String[0]));
+        }
+
+        LOGGER.debug("Materialized {} cached SYSTEM response(s) for environment {}",
+                documents.size(), environmentId);
+        return documents.size();
+    }
+
+    private Map<String, MergedTemplateSnapshot> render(UUID applicationId, UUID environmentId,
+            boolean everyResponse, Set<String> identifiers) {
+        if (!everyResponse) {
+            return renderer.renderIdentifiers(applicationId, environmentId, identifiers);
+        }
+        Map<String, MergedTemplateSnapshot> documents =
+                new LinkedHashMap<>(renderer.renderEnvironment(applicationId, environmentId));
+        // Identifiers whose override was deleted are no longer among the environment's responses
+        Set<String> missing = new HashSet<>(identifiers);
+        missing.removeAll(documents.keySet());
+        if (!documents.isEmpty() && !missing.isEmpty()) {
+            documents.putAll(renderer.renderIdentifiers(applicationId, environmentId, missing));
+        }
+        return documents;
+    }
+}
@@ -46,17 +46,23 @@ public class DefaultTemplateService implements TemplateService {
     private final ApplicationRepository applicationRepository;
     private final EnvironmentRepository environmentRepository;
     private final CacheInvalidationPublisher cacheInvalidationPublisher;
+    private final StaticBundleService staticBundleService;
+    private final SystemCacheMaterializer systemCacheMaterializer;
 
     public DefaultTemplateService(TemplateRepository templateRepository,
             TemplateValuesRepository templateValuesRepository,
             ApplicationRepository applicationRepository,
             EnvironmentRepository environmentRepository,
-            CacheInvalidationPublisher cacheInvalidationPublisher) {
+            CacheInvalidationPublisher cacheInvalidationPublisher,
+            StaticBundleService staticBundleService,
+            SystemCacheMaterializer systemCacheMaterializer) {
         this.templateRepository = templateRepository;
         this.templateValuesRepository = templateValuesRepository;
         this.applicationRepository = applicationRepository;
         this.environmentRepository = environmentRepository;
         this.cacheInvalidationPublisher = cacheInvalidationPublisher;
+        this.staticBundleService = staticBundleService;
+        this.systemCacheMaterializer = systemCacheMaterializer;
     }
 
     @Override
@@ -115,6 +121,8 @@ public class DefaultTemplateService implements TemplateService {
 
         // Invalidate cache for all environments of this template type
         cacheInvalidationPublisher.publishSchemaChange(applicationId, type);
+        staticBundleService.scheduleRebuild(applicationId, null, type);
+        systemCacheMaterializer.scheduleMaterialization(applicationId, null, type, null);
 
         return TemplateResponse.fromEntity(template);
     }
@@ -247,6 +255,9 @@ public class DefaultTemplateService implements TemplateService {
         // Invalidate cache for this override
         cacheInvalidationPublisher.publishOverrideChange(applicationId, environmentId, type,
                 identifier);
+        staticBundleService.scheduleRebuild(applicationId, environmentId, type);
+        systemCacheMaterializer.scheduleMaterialization(applicationId, environmentId, type,
+                identifier);
 
         return TemplateValuesResponse.fromEntity(override);
     }
@@ -271,6 +282,9 @@ public class DefaultTemplateService implements TemplateService {
         // Invalidate cache for this override
         cacheInvalidationPublisher.publishOverrideChange(applicationId, environmentId, type,
                 identifier);
+        staticBundleService.scheduleRebuild(applicationId, environmentId, type);
+        systemCacheMaterializer.scheduleMaterialization(applicationId, environmentId, type,
+                identifier);
     }
 
     @Override
@@ -324,11 +338,11 @@ public class DefaultTemplateService implements TemplateService {
                     continue;
                 }
 
-                // Copy the override
+                // Copy the override as raw JSONB - the values are never parsed
                 TemplateValuesEntity targetOverride;
                 if (existingTarget.isPresent()) {
                     targetOverride = existingTarget.get();
-                    targetOverride.setValues(new HashMap<>(sourceOverride.getValues()));
+                    targetOverride.setRawValues(sourceOverride.getRawValues());
                 }
                 else {
                     targetOverride = new TemplateValuesEntity();
@@ -336,7 +350,7 @@ public class DefaultTemplateService implements TemplateService {
                     targetOverride.setEnvironmentId(request.targetEnvironmentId());
                     targetOverride.setType(type);
                     targetOverride.setIdentifier(identifier);
-                    targetOverride.setValues(new HashMap<>(sourceOverride.getValues()));
+                    targetOverride.setRawValues(sourceOverride.getRawValues());
                 }
 
                 templateValuesRepository.save(targetOverride);
@@ -344,11 +358,20 @@ public class DefaultTemplateService implements TemplateService {
                 // Invalidate cache for copied override
                 cacheInvalidationPublisher.publishOverrideChange(applicationId,
                         request.targetEnvironmentId(), type, identifier);
+                systemCacheMaterializer.scheduleMaterialization(applicationId,
+                        request.targetEnvironmentId(), type, identifier);
 
                 copiedCount++;
             }
         }
 
+        if (copiedCount > 0) {
+            for (TemplateType type : typesToCopy) {
+                staticBundleService.scheduleRebuild(applicationId, request.targetEnvironmentId(),
+                        type);
+            }
+        }
+
         return new CopyOverridesResponse(copiedCount, skippedCount);
     }
 
@@ -476,4 +499,5 @@ public class DefaultTemplateService implements TemplateService {
             throw new NotFoundException("Environment not found: " + environmentId);
         }
     }
+
 }
@@ -2,11 +2,13 @@ package io.hephaistos.flagforge.service;
 
 import io.hephaistos.flagforge.common.data.EnvironmentEntity;
 import io.hephaistos.flagforge.common.data.UsageDailyStatisticsEntity;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
 import io.hephaistos.flagforge.data.repository.EnvironmentRepository;
 import io.hephaistos.flagforge.data.repository.UsageDailyStatisticsRepository;
-import io.lettuce.core.api.StatefulRedisConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -31,17 +33,14 @@ public class DefaultUsageAggregationService implements UsageAggregationService {
 
     private static final Logger LOGGER =
             LoggerFactory.getLogger(DefaultUsageAggregationService.class);
-    private static final String USAGE_DAILY_KEY_PREFIX = "usage:daily:";
-    private static final String USAGE_PEAK_KEY_PREFIX = "usage:peak:";
-    private static final String USAGE_REJECTED_KEY_PREFIX = "usage:rejected:";
 
     private final EnvironmentRepository environmentRepository;
     private final UsageDailyStatisticsRepository statsRepository;
-    private final StatefulRedisConnection<String, String> redisConnection;
+    private final RedisEndpoint.Connection<String> redisConnection;
 
     public DefaultUsageAggregationService(EnvironmentRepository environmentRepository,
             UsageDailyStatisticsRepository statsRepository,
-            StatefulRedisConnection<String, String> redisConnection) {
+            @Qualifier("usageRedisConnection") RedisEndpoint.Connection<String> redisConnection) {
         this.environmentRepository = environmentRepository;
         this.statsRepository = statsRepository;
         this.redisConnection = redisConnection;
@@ -77,17 +76,17 @@ public class DefaultUsageAggregationService implements UsageAggregationService {
         var commands = redisConnection.sync();
 
         // Read daily total from Redis
-        String dailyKey = USAGE_DAILY_KEY_PREFIX + envId + ":" + date;
+        String dailyKey = RedisKeys.usageDaily(envId, date);
         String dailyValue = commands.get(dailyKey);
         long totalRequests = dailyValue != null ? Long.parseLong(dailyValue) : 0;
 
         // Read peak burst from Redis
-        String peakKey = USAGE_PEAK_KEY_PREFIX + envId + ":" + date;
+        String peakKey = RedisKeys.usagePeak(envId, date);
         String peakValue = commands.get(peakKey);
         int peakRps = peakValue != null ? Integer.parseInt(peakValue) : 0;
 
         // Read rejected requests from Redis
-        String rejectedKey = USAGE_REJECTED_KEY_PREFIX + envId + ":" + date;
+        String rejectedKey = RedisKeys.usageRejected(envId, date);
         String rejectedValue = commands.get(rejectedKey);
         long rejectedRequests = rejectedValue != null ? Long.parseLong(rejectedValue) : 0;
 
@@ -1,10 +1,12 @@
 package io.hephaistos.flagforge.service;
 
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
 import io.hephaistos.flagforge.controller.dto.DailyUsageStatisticsResponse;
 import io.hephaistos.flagforge.data.repository.UsageDailyStatisticsRepository;
-import io.lettuce.core.api.StatefulRedisConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
@@ -23,12 +25,11 @@ import java.util.UUID;
 public class DefaultUsageTrackingService implements UsageTrackingService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultUsageTrackingService.class);
-    private static final String USAGE_KEY_PREFIX = "usage:monthly:";
-
-    private final StatefulRedisConnection<String, String> redisConnection;
+    private final RedisEndpoint.Connection<String> redisConnection;
     private final UsageDailyStatisticsRepository dailyStatsRepository;
 
-    public DefaultUsageTrackingService(StatefulRedisConnection<String, String> redisConnection,
+    public DefaultUsageTrackingService(
+            @Qualifier("usageRedisConnection") RedisEndpoint.Connection<String> redisConnection,
             UsageDailyStatisticsRepository dailyStatsRepository) {
         this.redisConnection = redisConnection;
         this.dailyStatsRepository = dailyStatsRepository;
@@ -58,7 +59,6 @@ public class DefaultUsageTrackingService implements UsageTrackingService {
     }
 
     private String getMonthlyUsageKey(UUID environmentId) {
-        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
-        return USAGE_KEY_PREFIX + environmentId + ":" + currentMonth;
+        return RedisKeys.usageMonthly(environmentId, YearMonth.now(ZoneOffset.UTC));
     }
 }
@@ -23,7 +23,13 @@ public class NoOpRedisCleanupService implements RedisCleanupService {
     }
 
     @Override
-    public void cleanupEnvironmentKeys(UUID environmentId) {
+    public void scheduleEnvironmentCleanup(UUID environmentId) {
         // No-op - Redis disabled
     }
+
+    @Override
+    public boolean cleanupEnvironmentKeys(UUID environmentId) {
+        // No-op - Redis disabled
+        return true;
+    }
 }
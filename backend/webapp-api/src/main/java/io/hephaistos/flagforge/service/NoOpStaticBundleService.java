@@ -0,0 +1,31 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * No-op implementation of StaticBundleService used when static bundles are disabled.
+ */
+@Service
+@ConditionalOnProperty(name = "flagforge.static-bundles.enabled", havingValue = "false",
+        matchIfMissing = true)
+public class NoOpStaticBundleService implements StaticBundleService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NoOpStaticBundleService.class);
+
+    public NoOpStaticBundleService() {
+        LOGGER.info("Static bundles are DISABLED - SYSTEM reads are served by customer-api only");
+    }
+
+    @Override
+    public void scheduleRebuild(UUID applicationId, @Nullable UUID environmentId,
+            TemplateType type) {
+        // No-op when static bundles are disabled
+    }
+}
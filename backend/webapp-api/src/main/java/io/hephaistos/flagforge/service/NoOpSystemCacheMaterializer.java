@@ -0,0 +1,33 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * No-op implementation of SystemCacheMaterializer used when cache materialization or Redis is
+ * disabled. Changed responses are then only invalidated and cached again on their next read.
+ */
+@Service
+@ConditionalOnExpression("!(" + DefaultSystemCacheMaterializer.ENABLED + ")")
+public class NoOpSystemCacheMaterializer implements SystemCacheMaterializer {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(NoOpSystemCacheMaterializer.class);
+
+    public NoOpSystemCacheMaterializer() {
+        LOGGER.info("Cache materialization is DISABLED - changed SYSTEM responses are only " +
+                "invalidated");
+    }
+
+    @Override
+    public void scheduleMaterialization(UUID applicationId, @Nullable UUID environmentId,
+            TemplateType type, @Nullable String identifier) {
+        // No-op when cache materialization is disabled
+    }
+}
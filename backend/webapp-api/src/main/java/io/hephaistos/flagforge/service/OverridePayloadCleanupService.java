@@ -0,0 +1,15 @@
+package io.hephaistos.flagforge.service;
+
+/**
+ * Service for removing shared user override payloads that no user references anymore. Users
+ * switching to other overrides leave their old payload behind, so it is collected periodically.
+ */
+public interface OverridePayloadCleanupService {
+
+    /**
+     * Delete unreferenced payloads older than the configured grace period.
+     *
+     * @return Number of payloads deleted
+     */
+    int deleteUnreferencedPayloads();
+}
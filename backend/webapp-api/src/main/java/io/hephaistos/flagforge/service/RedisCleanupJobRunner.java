@@ -0,0 +1,67 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.configuration.RedisCleanupProperties;
+import io.hephaistos.flagforge.data.repository.RedisCleanupJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Runs the Redis cleanup jobs of deleted environments. A failed cleanup is retried after
+ * {@link RedisCleanupProperties#retryDelay()}, doubling with every further failure up to
+ * {@link RedisCleanupProperties#maxRetryDelay()}.
+ */
+@Component
+@ConditionalOnProperty(name = "flagforge.redis.enabled", havingValue = "true")
+@EnableConfigurationProperties(RedisCleanupProperties.class)
+public class RedisCleanupJobRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisCleanupJobRunner.class);
+
+    private final RedisCleanupJobRepository jobRepository;
+    private final RedisCleanupService cleanupService;
+    private final RedisCleanupProperties properties;
+
+    public RedisCleanupJobRunner(RedisCleanupJobRepository jobRepository,
+            RedisCleanupService cleanupService, RedisCleanupProperties properties) {
+        this.jobRepository = jobRepository;
+        this.cleanupService = cleanupService;
+        this.properties = properties;
+    }
+
+    /**
+     * @return Number of environments cleaned up
+     */
+    @Scheduled(fixedDelayString = "${flagforge.redis-cleanup.interval:10s}")
+    @Transactional
+    public int run() {
+        Instant now = Instant.now();
+        int cleaned = 0;
+        for (var job : jobRepository.findDueForUpdate(now, properties.batchSize())) {
+            if (cleanupService.cleanupEnvironmentKeys(job.environmentId())) {
+                jobRepository.delete(job.environmentId());
+                cleaned++;
+            }
+            else {
+                Duration delay = retryDelay(job.attempts());
+                jobRepository.reschedule(job.environmentId(), now.plus(delay));
+                LOGGER.warn("Redis cleanup of environment {} failed, retrying in {}",
+                        job.environmentId(), delay);
+            }
+        }
+        return cleaned;
+    }
+
+    Duration retryDelay(int attempts) {
+        // Past 20 doublings any sensible maximum is reached
+        Duration delay = properties.retryDelay().multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(properties.maxRetryDelay()) < 0 ? delay : properties.maxRetryDelay();
+    }
+}
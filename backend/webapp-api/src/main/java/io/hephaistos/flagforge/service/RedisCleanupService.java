@@ -9,10 +9,19 @@ import java.util.UUID;
 public interface RedisCleanupService {
 
     /**
-     * Clean up all Redis keys associated with an environment. This includes rate limit buckets,
-     * usage counters, and cached templates.
+     * Schedule the removal of all Redis keys associated with an environment. The job is stored in
+     * the caller's transaction and run asynchronously, with retries, once it committed.
      *
      * @param environmentId The ID of the deleted environment
      */
-    void cleanupEnvironmentKeys(UUID environmentId);
+    void scheduleEnvironmentCleanup(UUID environmentId);
+
+    /**
+     * Clean up all Redis keys associated with an environment: its rate limit bucket and usage
+     * counters. Cached templates are removed by the environment's cache invalidation.
+     *
+     * @param environmentId The ID of the deleted environment
+     * @return Whether the keys are gone; false if the cleanup failed and should be retried
+     */
+    boolean cleanupEnvironmentKeys(UUID environmentId);
 }
@@ -0,0 +1,24 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.jspecify.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Publishes precompiled SYSTEM template bundles as static files so SDK reads can be served by the
+ * web server without touching customer-api.
+ */
+public interface StaticBundleService {
+
+    /**
+     * Rebuild the bundles affected by a template change once the current transaction commits.
+     * Only SYSTEM changes produce bundles; other types are ignored.
+     *
+     * @param applicationId The application whose template or override changed
+     * @param environmentId The environment that changed, or null for all environments (schema
+     *                      change)
+     * @param type          The template type that changed
+     */
+    void scheduleRebuild(UUID applicationId, @Nullable UUID environmentId, TemplateType type);
+}
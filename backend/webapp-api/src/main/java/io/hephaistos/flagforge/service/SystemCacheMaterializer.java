@@ -0,0 +1,30 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import org.jspecify.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Writes merged SYSTEM responses into the customer-api template cache after a template change, so
+ * frequently read configurations stay cached across edits instead of going through the miss path.
+ */
+public interface SystemCacheMaterializer {
+
+    /**
+     * Recompute the affected responses once the current transaction commits and write them to
+     * the cache. Only SYSTEM changes are materialized; other types are ignored.
+     * <p>
+     * This is best effort and does not replace the cache invalidation of the change, which is
+     * still published through the outbox: the work is kept in memory only and may be lost.
+     *
+     * @param applicationId The application whose template or override changed
+     * @param environmentId The environment that changed, or null for all environments (schema
+     *                      change)
+     * @param type          The template type that changed
+     * @param identifier    The override identifier that changed, or null for every response of
+     *                      the environment
+     */
+    void scheduleMaterialization(UUID applicationId, @Nullable UUID environmentId,
+            TemplateType type, @Nullable String identifier);
+}
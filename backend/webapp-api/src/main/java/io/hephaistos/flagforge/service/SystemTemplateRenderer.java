@@ -0,0 +1,97 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.MergedTemplateSnapshot;
+import io.hephaistos.flagforge.common.util.TemplateMerger;
+import io.hephaistos.flagforge.data.repository.TemplateRepository;
+import io.hephaistos.flagforge.data.repository.TemplateValuesRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Renders every SYSTEM response an environment can serve: the schema defaults plus one merged
+ * document per override identifier. Must be called inside a transaction.
+ */
+@Component
+public class SystemTemplateRenderer {
+
+    /**
+     * Key under which the schema-defaults document is returned.
+     */
+    public static final String DEFAULTS = "";
+
+    private final TemplateRepository templateRepository;
+    private final TemplateValuesRepository templateValuesRepository;
+
+    public SystemTemplateRenderer(TemplateRepository templateRepository,
+            TemplateValuesRepository templateValuesRepository) {
+        this.templateRepository = templateRepository;
+        this.templateValuesRepository = templateValuesRepository;
+    }
+
+    /**
+     * @return Merged documents keyed by identifier ({@link #DEFAULTS} for no identifier), or an
+     * empty map if the application has no SYSTEM template
+     */
+    public Map<String, MergedTemplateSnapshot> renderEnvironment(UUID applicationId,
+            UUID environmentId) {
+        var template =
+                templateRepository.findByApplicationIdAndType(applicationId, TemplateType.SYSTEM);
+        if (template.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        var schema = template.get().getSchema();
+        Map<String, MergedTemplateSnapshot> rendered = new LinkedHashMap<>();
+        rendered.put(DEFAULTS, new MergedTemplateSnapshot(TemplateType.SYSTEM, schema,
+                TemplateMerger.merge(schema, null), null));
+
+        for (var override : templateValuesRepository.findByApplicationIdAndEnvironmentIdAndType(
+                applicationId, environmentId, TemplateType.SYSTEM)) {
+            rendered.put(override.getIdentifier(),
+                    new MergedTemplateSnapshot(TemplateType.SYSTEM, schema,
+                            TemplateMerger.merge(schema, override.getValues()),
+                            override.getIdentifier()));
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders the documents of the given identifiers only. An identifier without an override gets
+     * the schema defaults, as customer-api serves it.
+     *
+     * @return Merged documents keyed by identifier, or an empty map if the application has no
+     * SYSTEM template
+     */
+    public Map<String, MergedTemplateSnapshot> renderIdentifiers(UUID applicationId,
+            UUID environmentId, Collection<String> identifiers) {
+        var template =
+                templateRepository.findByApplicationIdAndType(applicationId, TemplateType.SYSTEM);
+        if (template.isEmpty() || identifiers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        var schema = template.get().getSchema();
+        Map<String, MergedTemplateSnapshot> rendered = new LinkedHashMap<>();
+        for (String identifier : identifiers) {
+            rendered.put(identifier, new MergedTemplateSnapshot(TemplateType.SYSTEM, schema,
+                    TemplateMerger.merge(schema, null), null));
+        }
+
+        for (var override : templateValuesRepository
+                .findByApplicationIdAndEnvironmentIdAndTypeAndIdentifierIn(applicationId,
+                        environmentId, TemplateType.SYSTEM, List.copyOf(identifiers))) {
+            rendered.put(override.getIdentifier(),
+                    new MergedTemplateSnapshot(TemplateType.SYSTEM, schema,
+                            TemplateMerger.merge(schema, override.getValues()),
+                            override.getIdentifier()));
+        }
+        return rendered;
+    }
+}
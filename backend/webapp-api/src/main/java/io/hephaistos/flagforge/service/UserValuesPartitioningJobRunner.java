@@ -0,0 +1,67 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.configuration.UserValuesPartitioningProperties;
+import io.hephaistos.flagforge.data.repository.UserTemplateValuesPartitioningRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the user overrides that existed before user_template_values was partitioned (V1.0.27)
+ * into the partitioned table, one short transaction per batch, until the database swaps the
+ * tables. Instances take turns on the copy progress row, so every instance may run it. Once the
+ * swap is done each instance stops after a single check.
+ */
+@Component
+@EnableConfigurationProperties(UserValuesPartitioningProperties.class)
+public class UserValuesPartitioningJobRunner {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(UserValuesPartitioningJobRunner.class);
+
+    private final UserTemplateValuesPartitioningRepository partitioningRepository;
+    private final UserValuesPartitioningProperties properties;
+
+    private volatile boolean finished;
+
+    public UserValuesPartitioningJobRunner(
+            UserTemplateValuesPartitioningRepository partitioningRepository,
+            UserValuesPartitioningProperties properties) {
+        this.partitioningRepository = partitioningRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * @return Number of rows copied
+     */
+    @Scheduled(fixedDelayString = "${flagforge.user-values-partitioning.interval:1s}")
+    public int run() {
+        if (finished) {
+            return 0;
+        }
+        int total = 0;
+        try {
+            for (int batch = 0; batch < properties.batchesPerRun(); batch++) {
+                int copied = partitioningRepository.copyBatch(properties.batchSize());
+                if (copied == 0) {
+                    finished = true;
+                    LOGGER.info("user_template_values is partitioned by environment");
+                    break;
+                }
+                total += copied;
+            }
+        }
+        catch (DataAccessException e) {
+            // Lock timeouts, or another instance swapping the tables; retried next run
+            LOGGER.warn("Copying user overrides into partitions failed: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            LOGGER.info("Copied {} user overrides into partitions", total);
+        }
+        return total;
+    }
+}
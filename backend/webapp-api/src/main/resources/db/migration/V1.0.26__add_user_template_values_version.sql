@@ -0,0 +1,4 @@
+-- Row version for user overrides. Bumped on every change so the customer-api can detect no-op
+-- writes and support conditional writes (If-Match) without an extra read.
+ALTER TABLE user_template_values
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,271 @@
+-- Partition user overrides by environment (LIST on environment_id). Every environment gets its
+-- own partition, so vacuum and index maintenance stay per environment, lookups prune to one
+-- partition and deleting an environment drops its partition instead of cascading row by row.
+-- Replaces the duplicate idx_user_template_values_lookup index from V1.0.18: the unique
+-- constraint already covers those lookups.
+--
+-- Existing rows are moved online rather than in this migration's transaction. The partitioned
+-- table is created next to user_template_values as user_template_values_partitioned, and a
+-- trigger mirrors every write to the old table into it. The webapp-api partitioning job then
+-- copies the rows that existed before in small batches (copy_user_template_values_batch) and,
+-- once they are all copied, swaps the tables in one short transaction. An empty table is swapped
+-- right away, so new databases never see the intermediate state.
+--
+-- Until the swap, migrations changing user_template_values must change
+-- user_template_values_partitioned the same way if it still exists, keeping the column order
+-- identical, and name its constraints and indexes after user_template_values_partitioned so the
+-- swap renames them to the names on user_template_values.
+--
+-- Locks: CREATE TABLE ... PARTITION OF takes ACCESS EXCLUSIVE on the parent, which would block
+-- every customer-api read and write of user overrides until the environment transaction commits.
+-- Creating the table first and then attaching it only takes SHARE UPDATE EXCLUSIVE on the parent,
+-- which does not conflict with reads and writes. There is no DEFAULT partition: attaching would
+-- scan and lock it exclusively, and each environment gets a partition when it is inserted, so no
+-- row can lack one. Dropping a partition always takes ACCESS EXCLUSIVE on the parent, bounded by
+-- lock_timeout so environment deletes fail rather than queue every user override query behind a
+-- long-running one. Transactions deleting environments or applications must therefore not do
+-- anything slow after the delete.
+
+DROP INDEX idx_user_template_values_lookup;
+
+-- Primary and unique keys of a partitioned table must include the partition key. LIKE keeps the
+-- column order of user_template_values, which the mirroring trigger and the copy rely on.
+CREATE TABLE user_template_values_partitioned
+(
+    LIKE user_template_values INCLUDING DEFAULTS,
+    CONSTRAINT user_template_values_partitioned_pkey PRIMARY KEY (environment_id, id),
+    CONSTRAINT uq_user_template_values_partitioned UNIQUE (application_id, environment_id, user_id),
+    CONSTRAINT user_template_values_partitioned_application_id_fkey
+        FOREIGN KEY (application_id) REFERENCES application (id) ON DELETE CASCADE,
+    CONSTRAINT user_template_values_partitioned_environment_id_fkey
+        FOREIGN KEY (environment_id) REFERENCES environment (id) ON DELETE CASCADE
+) PARTITION BY LIST (environment_id);
+
+CREATE FUNCTION user_template_values_partition_name(env_id UUID) RETURNS TEXT
+    LANGUAGE sql
+    IMMUTABLE
+AS
+$$
+SELECT 'user_template_values_' || replace(env_id::text, '-', '')
+$$;
+
+-- The partitioned table, which keeps its temporary name until the swap
+CREATE FUNCTION user_template_values_parent() RETURNS TEXT
+    LANGUAGE sql
+    STABLE
+AS
+$$
+SELECT COALESCE(to_regclass('user_template_values_partitioned')::text, 'user_template_values')
+$$;
+
+-- SECURITY DEFINER: partitions are created and dropped as the table owner, whoever writes the
+-- environment row. ATTACH creates the indexes and foreign keys of the parent on the new table.
+CREATE FUNCTION create_user_template_values_partition() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    SECURITY DEFINER
+    SET search_path = public
+    SET lock_timeout = '5s'
+AS
+$$
+DECLARE
+    parent TEXT := user_template_values_parent();
+BEGIN
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                   user_template_values_partition_name(NEW.id), parent);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES IN (%L)',
+                   parent, user_template_values_partition_name(NEW.id), NEW.id);
+    RETURN NEW;
+END;
+$$;
+
+-- Runs before the row delete, so the ON DELETE CASCADE of the foreign key finds nothing left
+CREATE FUNCTION drop_user_template_values_partition() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    SECURITY DEFINER
+    SET search_path = public
+    SET lock_timeout = '5s'
+AS
+$$
+BEGIN
+    EXECUTE format('DROP TABLE IF EXISTS %I', user_template_values_partition_name(OLD.id));
+    RETURN OLD;
+END;
+$$;
+
+COMMENT ON FUNCTION create_user_template_values_partition() IS
+    'Holds SHARE UPDATE EXCLUSIVE on user_template_values until the environment insert commits';
+COMMENT ON FUNCTION drop_user_template_values_partition() IS
+    'Holds ACCESS EXCLUSIVE on user_template_values until the environment delete commits';
+
+CREATE TRIGGER trg_environment_create_user_template_values_partition
+    AFTER INSERT
+    ON environment
+    FOR EACH ROW
+EXECUTE FUNCTION create_user_template_values_partition();
+
+CREATE TRIGGER trg_environment_drop_user_template_values_partition
+    BEFORE DELETE
+    ON environment
+    FOR EACH ROW
+EXECUTE FUNCTION drop_user_template_values_partition();
+
+-- Partitions for existing environments; the table is still empty, so nothing waits on them
+DO
+$$
+    DECLARE
+        env_id UUID;
+    BEGIN
+        FOR env_id IN SELECT id FROM environment
+            LOOP
+                EXECUTE format(
+                        'CREATE TABLE %I PARTITION OF user_template_values_partitioned FOR VALUES IN (%L)',
+                        user_template_values_partition_name(env_id), env_id);
+            END LOOP;
+    END;
+$$;
+
+-- Keeps the copies current until the swap. SECURITY DEFINER: customer-api may not delete from
+-- user_template_values_partitioned.
+CREATE FUNCTION mirror_user_template_values() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    SECURITY DEFINER
+    SET search_path = public
+AS
+$$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        DELETE
+        FROM user_template_values_partitioned
+        WHERE environment_id = OLD.environment_id
+          AND id = OLD.id;
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        INSERT INTO user_template_values_partitioned SELECT NEW.*;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_user_template_values_mirror
+    AFTER INSERT OR UPDATE OR DELETE
+    ON user_template_values
+    FOR EACH ROW
+EXECUTE FUNCTION mirror_user_template_values();
+
+-- Copy progress. Rows up to copy_until existed before the mirroring trigger; the ones up to
+-- copied_until are copied. Single row, locked by each batch so instances take turns.
+CREATE TABLE user_template_values_partitioning
+(
+    copied_until UUID NOT NULL DEFAULT '00000000-0000-0000-0000-000000000000',
+    copy_until   UUID
+);
+
+INSERT INTO user_template_values_partitioning (copy_until)
+VALUES ((SELECT id FROM user_template_values ORDER BY id DESC LIMIT 1));
+
+-- Swaps the tables once every row is copied; returns false while rows are left. Locks environment
+-- first, so no partition is created or dropped under the old name, then both tables, which waits
+-- for running user override queries but only for the duration of the renames.
+CREATE FUNCTION finish_user_template_values_partitioning() RETURNS BOOLEAN
+    LANGUAGE plpgsql
+    SECURITY DEFINER
+    SET search_path = public
+    SET lock_timeout = '5s'
+AS
+$$
+DECLARE
+    name TEXT;
+BEGIN
+    IF to_regclass('user_template_values_partitioned') IS NULL THEN
+        RETURN TRUE;
+    END IF;
+    LOCK TABLE environment IN SHARE MODE;
+    LOCK TABLE user_template_values, user_template_values_partitioned IN ACCESS EXCLUSIVE MODE;
+    IF EXISTS (SELECT 1
+               FROM user_template_values v,
+                    user_template_values_partitioning p
+               WHERE v.id > p.copied_until
+                 AND v.id <= p.copy_until) THEN
+        RETURN FALSE;
+    END IF;
+
+    DROP TABLE user_template_values;
+    DROP TABLE user_template_values_partitioning;
+    DROP FUNCTION mirror_user_template_values();
+
+    FOR name IN SELECT conname
+                FROM pg_constraint
+                WHERE conrelid = 'user_template_values_partitioned'::regclass
+                  AND conname LIKE '%user_template_values_partitioned%'
+        LOOP
+            EXECUTE format('ALTER TABLE user_template_values_partitioned RENAME CONSTRAINT %I TO %I',
+                           name, replace(name, 'user_template_values_partitioned',
+                                         'user_template_values'));
+        END LOOP;
+    -- Indexes not backing a constraint; ALTER INDEX on the parent leaves partition indexes alone
+    FOR name IN SELECT c.relname
+                FROM pg_index i
+                         JOIN pg_class c ON c.oid = i.indexrelid
+                WHERE i.indrelid = 'user_template_values_partitioned'::regclass
+                  AND c.relname LIKE '%user_template_values_partitioned%'
+        LOOP
+            EXECUTE format('ALTER INDEX %I RENAME TO %I',
+                           name, replace(name, 'user_template_values_partitioned',
+                                         'user_template_values'));
+        END LOOP;
+    ALTER TABLE user_template_values_partitioned RENAME TO user_template_values;
+    RETURN TRUE;
+END;
+$$;
+
+-- Copies the next batch_size pre-existing rows and returns how many it copied, swapping the tables
+-- and returning 0 once none are left. Every call is its own short transaction.
+CREATE FUNCTION copy_user_template_values_batch(batch_size INTEGER) RETURNS INTEGER
+    LANGUAGE plpgsql
+    SECURITY DEFINER
+    SET search_path = public
+    SET lock_timeout = '5s'
+AS
+$$
+DECLARE
+    progress user_template_values_partitioning%ROWTYPE;
+    copied   INTEGER;
+    last_id  UUID;
+BEGIN
+    IF to_regclass('user_template_values_partitioning') IS NULL THEN
+        RETURN 0;
+    END IF;
+    SELECT * INTO progress FROM user_template_values_partitioning FOR UPDATE;
+
+    -- FOR SHARE makes concurrent updates and deletes of these rows wait for the copy to commit, so
+    -- their mirroring replaces the copies. Rows they changed first are already mirrored.
+    WITH batch AS MATERIALIZED (SELECT *
+                                FROM user_template_values
+                                WHERE id > progress.copied_until
+                                  AND id <= progress.copy_until
+                                ORDER BY id
+                                LIMIT batch_size FOR SHARE),
+         inserted AS (INSERT INTO user_template_values_partitioned
+             SELECT * FROM batch
+             ON CONFLICT DO NOTHING)
+    SELECT COUNT(*), (SELECT id FROM batch ORDER BY id DESC LIMIT 1)
+    INTO copied, last_id
+    FROM batch;
+
+    IF copied > 0 THEN
+        UPDATE user_template_values_partitioning SET copied_until = last_id;
+        RETURN copied;
+    END IF;
+    PERFORM finish_user_template_values_partitioning();
+    RETURN 0;
+END;
+$$;
+
+-- Only the table owner moves the data
+REVOKE EXECUTE ON FUNCTION finish_user_template_values_partitioning() FROM PUBLIC;
+REVOKE EXECUTE ON FUNCTION copy_user_template_values_batch(INTEGER) FROM PUBLIC;
+
+-- Same grants as V1.0.19; partitions are only accessed through the parent table
+GRANT INSERT, UPDATE ON user_template_values_partitioned TO "customer-flagforge";
+
+SELECT finish_user_template_values_partitioning();
@@ -0,0 +1,76 @@
+-- Optional compact encoding of user overrides (customer-api flagforge.storage.user-values-format).
+-- Binary values address fields by ordinal instead of repeating every key string per row.
+
+-- Append-only key-to-ordinal mapping per (application, template type). Ordinals are never reused or
+-- renumbered, so rows encoded against an older schema stay decodable after fields are added or
+-- removed. Keyed by application rather than template id so recreating a template keeps them.
+CREATE TABLE template_field_ordinal
+(
+    application_id UUID          NOT NULL REFERENCES application (id) ON DELETE CASCADE,
+    type           template_type NOT NULL,
+    field_key      VARCHAR(255)  NOT NULL,
+    ordinal        INTEGER       NOT NULL,
+    CONSTRAINT pk_template_field_ordinal PRIMARY KEY (application_id, type, field_key),
+    CONSTRAINT uq_template_field_ordinal UNIQUE (application_id, type, ordinal)
+);
+
+-- Assigns the next ordinals to keys the schema has not had before, in schema field order. Updates
+-- of the same template serialize on its row lock, so ordinals cannot collide.
+CREATE FUNCTION assign_template_field_ordinals() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    SECURITY DEFINER
+    SET search_path = public
+AS
+$$
+BEGIN
+    INSERT INTO template_field_ordinal (application_id, type, field_key, ordinal)
+    SELECT NEW.application_id,
+           NEW.type,
+           new_keys.field_key,
+           (SELECT COALESCE(MAX(o.ordinal), -1)
+            FROM template_field_ordinal o
+            WHERE o.application_id = NEW.application_id
+              AND o.type = NEW.type) + ROW_NUMBER() OVER (ORDER BY new_keys.position)
+    FROM (SELECT DISTINCT ON (f.field ->> 'key') f.field ->> 'key' AS field_key, f.position
+          FROM jsonb_array_elements(COALESCE(NEW.schema -> 'fields', '[]'::jsonb))
+                   WITH ORDINALITY AS f(field, position)
+          WHERE f.field ->> 'key' IS NOT NULL
+            AND NOT EXISTS (SELECT 1
+                            FROM template_field_ordinal o
+                            WHERE o.application_id = NEW.application_id
+                              AND o.type = NEW.type
+                              AND o.field_key = f.field ->> 'key')
+          ORDER BY f.field ->> 'key', f.position) new_keys;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_template_assign_field_ordinals
+    AFTER INSERT OR UPDATE OF schema
+    ON template
+    FOR EACH ROW
+EXECUTE FUNCTION assign_template_field_ordinals();
+
+-- Ordinals for existing templates, in current schema order
+INSERT INTO template_field_ordinal (application_id, type, field_key, ordinal)
+SELECT keys.application_id,
+       keys.type,
+       keys.field_key,
+       ROW_NUMBER() OVER (PARTITION BY keys.application_id, keys.type ORDER BY keys.position) - 1
+FROM (SELECT DISTINCT ON (t.application_id, t.type, f.field ->> 'key') t.application_id,
+                                                                      t.type,
+                                                                      f.field ->> 'key' AS field_key,
+                                                                      f.position
+      FROM template t,
+           jsonb_array_elements(COALESCE(t.schema -> 'fields', '[]'::jsonb))
+               WITH ORDINALITY AS f(field, position)
+      WHERE f.field ->> 'key' IS NOT NULL
+      ORDER BY t.application_id, t.type, f.field ->> 'key', f.position) keys;
+
+-- When set, holds the overrides and values is '{}'. Full JSON writes clear it again.
+ALTER TABLE user_template_values
+    ADD COLUMN values_bin BYTEA;
+
+-- Same column on the partitioned table while its rows are still being copied (V1.0.27)
+ALTER TABLE IF EXISTS user_template_values_partitioned
+    ADD COLUMN values_bin BYTEA;
@@ -0,0 +1,57 @@
+-- Content-addressed storage of user overrides (customer-api flagforge.storage.deduplicate-user-values).
+-- Many users carry the exact same override document, so each distinct document is stored once per
+-- application and user rows only reference it by hash.
+
+-- One row per distinct override document. The hash is the SHA-256 of the binary encoding, or of the
+-- canonical jsonb text for JSON documents, so equal documents always land on the same row.
+CREATE TABLE user_override_payload
+(
+    application_id UUID      NOT NULL REFERENCES application (id) ON DELETE CASCADE,
+    hash           BYTEA     NOT NULL,
+    values         JSONB     NOT NULL DEFAULT '{}',
+    values_bin     BYTEA,
+    created_at     TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT pk_user_override_payload PRIMARY KEY (application_id, hash)
+);
+
+-- Rows with a payload hash keep an empty document in values and NULL in values_bin. NO ACTION lets
+-- an application delete cascade through both tables in one statement, while the payload cleanup
+-- job cannot remove a payload that is still referenced.
+ALTER TABLE user_template_values
+    ADD COLUMN payload_hash BYTEA;
+
+ALTER TABLE user_template_values
+    ADD CONSTRAINT fk_user_template_values_payload
+        FOREIGN KEY (application_id, payload_hash)
+            REFERENCES user_override_payload (application_id, hash);
+
+-- Backs the foreign key check and the unreferenced-payload lookup of the cleanup job
+CREATE INDEX idx_user_template_values_payload
+    ON user_template_values (application_id, payload_hash)
+    WHERE payload_hash IS NOT NULL;
+
+-- Same column, foreign key and index on the partitioned table while its rows are still being
+-- copied (V1.0.27); the swap drops the _partitioned from their names
+ALTER TABLE IF EXISTS user_template_values_partitioned
+    ADD COLUMN payload_hash BYTEA;
+
+ALTER TABLE IF EXISTS user_template_values_partitioned
+    ADD CONSTRAINT fk_user_template_values_partitioned_payload
+        FOREIGN KEY (application_id, payload_hash)
+            REFERENCES user_override_payload (application_id, hash);
+
+DO
+$$
+    BEGIN
+        IF to_regclass('user_template_values_partitioned') IS NOT NULL THEN
+            CREATE INDEX idx_user_template_values_partitioned_payload
+                ON user_template_values_partitioned (application_id, payload_hash)
+                WHERE payload_hash IS NOT NULL;
+        END IF;
+    END;
+$$;
+
+CREATE INDEX idx_user_override_payload_created_at ON user_override_payload (created_at);
+
+-- customer-api writes payloads; the webapp-api cleanup job (table owner) deletes them
+GRANT INSERT ON user_override_payload TO "customer-flagforge";
@@ -0,0 +1,9 @@
+-- Transactional outbox for cache invalidation events. Rows are written in the same transaction as
+-- the template change and deleted once the event reached Redis, so an event survives Redis being
+-- unavailable at commit time. Only webapp-api (the table owner) reads and writes it.
+CREATE TABLE cache_invalidation_outbox
+(
+    id         BIGSERIAL PRIMARY KEY,
+    event      JSONB     NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,12 @@
+-- Redis keys of deleted environments that are still to be removed. A row is written in the same
+-- transaction as the environment delete and removed once its keys are gone; failed attempts are
+-- retried with growing delay. Only webapp-api (the table owner) reads and writes it.
+CREATE TABLE redis_cleanup_job
+(
+    environment_id  UUID PRIMARY KEY,
+    attempts        INT       NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    created_at      TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_redis_cleanup_job_next_attempt_at ON redis_cleanup_job (next_attempt_at);
@@ -0,0 +1,3 @@
+-- customer-api locks a payload it reuses (FOR KEY SHARE) so the cleanup job skips it until the
+-- referencing row commits. Row locks require UPDATE on at least one column; nothing updates it.
+GRANT UPDATE (created_at) ON user_override_payload TO "customer-flagforge";
@@ -1,19 +1,16 @@
 package io.hephaistos.flagforge;
 
 import com.redis.testcontainers.RedisContainer;
-import io.lettuce.core.RedisClient;
-import io.lettuce.core.RedisURI;
-import io.lettuce.core.api.StatefulRedisConnection;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Primary;
 
 /**
  * Test configuration that provides a Redis Testcontainer for integration tests.
  * <p>
  * The container is shared across all tests for performance.
  * <p>
- * Sets flagforge.redis.enabled=true to enable Redis-dependent beans.
+ * Sets flagforge.redis.enabled=true to enable Redis-dependent beans and points both Redis
+ * endpoints at the container.
  */
 @TestConfiguration(proxyBeanMethods = false)
 public class RedisTestContainerConfiguration {
@@ -24,23 +21,11 @@ public class RedisTestContainerConfiguration {
         // Enable Redis beans in tests that import this configuration
         System.setProperty("flagforge.redis.enabled", "true");
         REDIS.start();
+        System.setProperty("flagforge.redis.uri", REDIS.getRedisURI());
     }
 
     @Bean
     public RedisContainer redisContainer() {
         return REDIS;
     }
-
-    @Bean
-    @Primary
-    public RedisClient testRedisClient() {
-        return RedisClient.create(RedisURI.create(REDIS.getRedisURI()));
-    }
-
-    @Bean
-    @Primary
-    public StatefulRedisConnection<String, String> testRedisConnection(
-            RedisClient testRedisClient) {
-        return testRedisClient.connect();
-    }
 }
@@ -0,0 +1,64 @@
+package io.hephaistos.flagforge.cache;
+
+import io.hephaistos.flagforge.configuration.CacheInvalidationProperties;
+import io.hephaistos.flagforge.data.repository.CacheInvalidationOutboxRepository;
+import io.hephaistos.flagforge.data.repository.CacheInvalidationOutboxRepository.OutboxEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationOutboxRelayTest {
+
+    @Mock
+    private CacheInvalidationOutboxRepository outboxRepository;
+
+    @Mock
+    private CacheInvalidationPublisher publisher;
+
+    private CacheInvalidationOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new CacheInvalidationOutboxRelay(outboxRepository, publisher,
+                new CacheInvalidationProperties(0, null, 0, 0));
+    }
+
+    @Test
+    void deletesRelayedEntries() {
+        when(outboxRepository.findStaleForUpdate(any(), eq(100))).thenReturn(
+                List.of(new OutboxEntry(1, "{\"a\":1}"), new OutboxEntry(2, "{\"b\":2}")));
+        when(publisher.send(any())).thenReturn(true);
+
+        int relayed = relay.relay();
+
+        assertThat(relayed).isEqualTo(2);
+        verify(outboxRepository).delete(List.of(1L, 2L));
+    }
+
+    @Test
+    void stopsAtFirstFailedEntry() {
+        when(outboxRepository.findStaleForUpdate(any(), eq(100))).thenReturn(
+                List.of(new OutboxEntry(1, "{\"a\":1}"), new OutboxEntry(2, "{\"b\":2}")));
+        when(publisher.send("{\"a\":1}")).thenReturn(false);
+
+        int relayed = relay.relay();
+
+        assertThat(relayed).isZero();
+        verify(publisher, never()).send("{\"b\":2}");
+        verify(outboxRepository).delete(List.of());
+    }
+}
@@ -3,8 +3,12 @@ package io.hephaistos.flagforge.cache;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationEvent;
 import io.hephaistos.flagforge.common.cache.CacheInvalidationType;
 import io.hephaistos.flagforge.common.enums.TemplateType;
-import io.lettuce.core.api.StatefulRedisConnection;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.configuration.CacheInvalidationProperties;
+import io.hephaistos.flagforge.data.repository.CacheInvalidationOutboxRepository;
+import io.lettuce.core.ScriptOutputType;
 import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Tag;
@@ -13,14 +17,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.OngoingStubbing;
+import org.mockito.verification.VerificationMode;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -30,11 +44,17 @@ import static org.mockito.Mockito.when;
 class CacheInvalidationPublisherTest {
 
     @Mock
-    private StatefulRedisConnection<String, String> redisConnection;
+    private RedisEndpoint.Connection<String> redisConnection;
 
     @Mock
     private RedisCommands<String, String> redisCommands;
 
+    @Mock
+    private CacheInvalidationOutboxRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private JsonMapper jsonMapper;
     private CacheInvalidationPublisher publisher;
 
@@ -44,24 +64,39 @@ class CacheInvalidationPublisherTest {
     @BeforeEach
     void setUp() {
         jsonMapper = JsonMapper.builder().build();
-        when(redisConnection.sync()).thenReturn(redisCommands);
-        publisher = new CacheInvalidationPublisher(redisConnection, jsonMapper);
+        lenient().when(redisConnection.sync()).thenReturn(redisCommands);
+        var properties = new CacheInvalidationProperties(2, null, 0, 0);
+        publisher = new CacheInvalidationPublisher(
+                new RedisStreamInvalidationTransport(redisConnection, properties), jsonMapper,
+                outboxRepository, transactionManager, properties);
         appId = UUID.randomUUID();
         envId = UUID.randomUUID();
     }
 
+    private void verifyAppended(VerificationMode mode) {
+        verifyAppended(mode, ArgumentCaptor.forClass(String.class));
+    }
+
+    private void verifyAppended(VerificationMode mode, ArgumentCaptor<String> messages) {
+        verify(redisCommands, mode).eval(eq(RedisStreamInvalidationTransport.APPEND_SCRIPT),
+                eq(ScriptOutputType.INTEGER), eq(RedisStreamInvalidationTransport.STREAM_KEYS),
+                messages.capture(), anyString());
+    }
+
+    private OngoingStubbing<Object> whenAppending() {
+        return when(redisCommands.<Object>eval(anyString(), any(ScriptOutputType.class),
+                any(String[].class), anyString(), anyString()));
+    }
+
     @Nested
     class PublishSchemaChangeTests {
 
         @Test
         void publishesSchemaChangeEventForSystemType() throws JacksonException {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishSchemaChange(appId, TemplateType.SYSTEM);
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    messageCaptor.capture());
+            verifyAppended(times(1), messageCaptor);
 
             CacheInvalidationEvent event =
                     jsonMapper.readValue(messageCaptor.getValue(), CacheInvalidationEvent.class);
@@ -74,13 +109,10 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void publishesSchemaChangeEventForUserType() throws JacksonException {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishSchemaChange(appId, TemplateType.USER);
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    messageCaptor.capture());
+            verifyAppended(times(1), messageCaptor);
 
             CacheInvalidationEvent event =
                     jsonMapper.readValue(messageCaptor.getValue(), CacheInvalidationEvent.class);
@@ -88,17 +120,17 @@ class CacheInvalidationPublisherTest {
         }
 
         @Test
-        void publishesToCorrectChannel() {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
+        void appendsToInvalidationStreamWithSequence() {
             publisher.publishSchemaChange(appId, TemplateType.SYSTEM);
 
-            verify(redisCommands).publish(eq("template:invalidate"), anyString());
+            verify(redisCommands).eval(anyString(), eq(ScriptOutputType.INTEGER),
+                    eq(new String[]{"template:{invalidate}", "template:{invalidate}:seq"}),
+                    anyString(), eq("100000"));
         }
 
         @Test
         void handlesRedisErrorGracefully() {
-            when(redisCommands.publish(anyString(), anyString())).thenThrow(
+            whenAppending().thenThrow(
                     new RuntimeException("Redis connection failed"));
 
             // Should not throw exception - fail-open behavior
@@ -112,13 +144,10 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void publishesOverrideChangeEventWithIdentifier() throws JacksonException {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishOverrideChange(appId, envId, TemplateType.SYSTEM, "region-eu");
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    messageCaptor.capture());
+            verifyAppended(times(1), messageCaptor);
 
             CacheInvalidationEvent event =
                     jsonMapper.readValue(messageCaptor.getValue(), CacheInvalidationEvent.class);
@@ -131,13 +160,10 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void publishesOverrideChangeEventForUserTypeWithUserId() throws JacksonException {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishOverrideChange(appId, envId, TemplateType.USER, "user-abc123");
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    messageCaptor.capture());
+            verifyAppended(times(1), messageCaptor);
 
             CacheInvalidationEvent event =
                     jsonMapper.readValue(messageCaptor.getValue(), CacheInvalidationEvent.class);
@@ -148,13 +174,10 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void publishesOverrideChangeEventWithNullIdentifier() throws JacksonException {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishOverrideChange(appId, envId, TemplateType.USER, null);
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    messageCaptor.capture());
+            verifyAppended(times(1), messageCaptor);
 
             CacheInvalidationEvent event =
                     jsonMapper.readValue(messageCaptor.getValue(), CacheInvalidationEvent.class);
@@ -163,7 +186,7 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void handlesRedisErrorGracefully() {
-            when(redisCommands.publish(anyString(), anyString())).thenThrow(
+            whenAppending().thenThrow(
                     new RuntimeException("Redis connection failed"));
 
             // Should not throw exception - fail-open behavior
@@ -177,24 +200,18 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void publishesBothSystemAndUserEvents() {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishEnvironmentDeleted(appId, envId);
 
             // Should publish two events - one for SYSTEM and one for USER
-            verify(redisCommands, times(2)).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    anyString());
+            verifyAppended(times(2));
         }
 
         @Test
         void publishesSystemEventForEnvironmentDeletion() throws JacksonException {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishEnvironmentDeleted(appId, envId);
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands, times(2)).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    messageCaptor.capture());
+            verifyAppended(times(2), messageCaptor);
 
             // First event should be SYSTEM
             CacheInvalidationEvent systemEvent =
@@ -209,13 +226,10 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void publishesUserEventForEnvironmentDeletion() throws JacksonException {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishEnvironmentDeleted(appId, envId);
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands, times(2)).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    messageCaptor.capture());
+            verifyAppended(times(2), messageCaptor);
 
             // Second event should be USER
             CacheInvalidationEvent userEvent =
@@ -230,7 +244,7 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void handlesRedisErrorGracefullyForFirstEvent() {
-            when(redisCommands.publish(anyString(), anyString())).thenThrow(
+            whenAppending().thenThrow(
                     new RuntimeException("Redis connection failed"));
 
             // Should not throw exception - fail-open behavior
@@ -240,15 +254,14 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void handlesRedisErrorGracefullyForSecondEvent() {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L)  // First succeeds
+            whenAppending().thenReturn(1L)  // First succeeds
                     .thenThrow(new RuntimeException("Redis connection failed"));  // Second fails
 
             // Should not throw exception - fail-open behavior
             publisher.publishEnvironmentDeleted(appId, envId);
 
             // Verify first event was still published
-            verify(redisCommands, times(2)).publish(eq(CacheInvalidationEvent.CHANNEL),
-                    anyString());
+            verifyAppended(times(2));
         }
     }
 
@@ -258,12 +271,10 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void serializesEventToValidJson() {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishSchemaChange(appId, TemplateType.SYSTEM);
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands).publish(anyString(), messageCaptor.capture());
+            verifyAppended(times(1), messageCaptor);
 
             String json = messageCaptor.getValue();
             assertThat(json).contains("\"type\":");
@@ -273,14 +284,119 @@ class CacheInvalidationPublisherTest {
 
         @Test
         void includesCorrectAppIdInJson() {
-            when(redisCommands.publish(anyString(), anyString())).thenReturn(1L);
-
             publisher.publishSchemaChange(appId, TemplateType.SYSTEM);
 
             ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
-            verify(redisCommands).publish(anyString(), messageCaptor.capture());
+            verifyAppended(times(1), messageCaptor);
 
             assertThat(messageCaptor.getValue()).contains(appId.toString());
         }
     }
+
+
+    @Nested
+    class TransactionalPublishTests {
+
+        @BeforeEach
+        void beginTransaction() {
+            TransactionSynchronizationManager.initSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+        }
+
+        @AfterEach
+        void endTransaction() {
+            TransactionSynchronizationManager.clear();
+        }
+
+        @Test
+        void publishesOnlyAfterCommit() {
+            when(outboxRepository.insert(any())).thenReturn(List.of(1L));
+
+            publisher.publishOverrideChange(appId, envId, TemplateType.SYSTEM, "region-eu");
+            verifyAppended(never());
+
+            commit();
+
+            verifyAppended(times(1));
+            verify(outboxRepository).delete(List.of(1L));
+        }
+
+        @Test
+        void writesCoalescedEventsToOutboxBeforeCommit() throws JacksonException {
+            when(outboxRepository.insert(any())).thenReturn(List.of(1L));
+
+            // Three identifiers exceed the namespace limit of two
+            publisher.publishOverrideChange(appId, envId, TemplateType.SYSTEM, "a");
+            publisher.publishOverrideChange(appId, envId, TemplateType.SYSTEM, "b");
+            publisher.publishOverrideChange(appId, envId, TemplateType.SYSTEM, "c");
+            commit();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<String>> messages = ArgumentCaptor.forClass(List.class);
+            verify(outboxRepository).insert(messages.capture());
+            assertThat(messages.getValue()).hasSize(1);
+            CacheInvalidationEvent event =
+                    jsonMapper.readValue(messages.getValue().getFirst(),
+                            CacheInvalidationEvent.class);
+            assertThat(event.envId()).isEqualTo(envId);
+            assertThat(event.identifier()).isNull();
+            verifyAppended(times(1));
+        }
+
+        @Test
+        void keepsOutboxEntriesWhenPublishFails() {
+            when(outboxRepository.insert(any())).thenReturn(List.of(1L));
+            whenAppending().thenThrow(
+                    new RuntimeException("Redis connection failed"));
+
+            publisher.publishSchemaChange(appId, TemplateType.USER);
+            commit();
+
+            verify(outboxRepository, never()).delete(any());
+        }
+
+        @Test
+        void transactionalTransportSendsBeforeCommitWithoutOutbox() {
+            var transport = mock(CacheInvalidationTransport.class);
+            when(transport.transactional()).thenReturn(true);
+            var notifyingPublisher = new CacheInvalidationPublisher(transport, jsonMapper,
+                    outboxRepository, transactionManager,
+                    new CacheInvalidationProperties(2, null, 0, 0));
+
+            notifyingPublisher.publishOverrideChange(appId, envId, TemplateType.SYSTEM, "a");
+            notifyingPublisher.publishOverrideChange(appId, envId, TemplateType.SYSTEM, "a");
+            var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+
+            verify(transport).send(anyString());
+            verify(outboxRepository, never()).insert(any());
+
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            verify(transport).send(anyString());
+        }
+
+        @Test
+        void transactionalTransportSendsAfterReadOnlyCommit() {
+            var transport = mock(CacheInvalidationTransport.class);
+            when(transport.transactional()).thenReturn(true);
+            var notifyingPublisher = new CacheInvalidationPublisher(transport, jsonMapper,
+                    outboxRepository, transactionManager,
+                    new CacheInvalidationProperties(2, null, 0, 0));
+
+            notifyingPublisher.publishSchemaChange(appId, TemplateType.USER);
+            var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(true));
+            verify(transport, never()).send(anyString());
+
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            verify(transport).send(anyString());
+        }
+
+        private void commit() {
+            List<TransactionSynchronization> synchronizations =
+                    TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+    }
 }
@@ -0,0 +1,231 @@
+package io.hephaistos.flagforge.data;
+
+import io.hephaistos.flagforge.MailpitTestConfiguration;
+import io.hephaistos.flagforge.PostgresTestContainerConfiguration;
+import io.hephaistos.flagforge.RedisTestContainerConfiguration;
+import io.hephaistos.flagforge.data.repository.UserTemplateValuesPartitioningRepository;
+import org.flywaydb.core.Flyway;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the partitioning of user overrides by environment (V1.0.27): the environment triggers
+ * that create and drop partitions, the online copy of existing rows and the cascade of application
+ * deletes.
+ */
+@SpringBootTest
+@Import({PostgresTestContainerConfiguration.class, RedisTestContainerConfiguration.class,
+        MailpitTestConfiguration.class})
+@Tag("integration")
+class UserTemplateValuesPartitionIntegrationTest {
+
+    private static final String MIGRATION_DATABASE = "flagforge_partition_migration";
+
+    @Autowired
+    private JdbcClient jdbcClient;
+
+    @Autowired
+    private PostgreSQLContainer postgresContainer;
+
+    private UUID companyId;
+    private UUID applicationId;
+
+    @BeforeEach
+    void setUp() {
+        companyId = insertCompany(jdbcClient);
+        applicationId = insertApplication(jdbcClient, companyId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcClient.sql("DELETE FROM application WHERE id = ?").param(applicationId).update();
+        jdbcClient.sql("DELETE FROM company WHERE id = ?").param(companyId).update();
+        dropMigrationDatabase();
+    }
+
+    @Test
+    void insertingEnvironmentAttachesItsPartition() {
+        UUID environmentId = insertEnvironment(jdbcClient, applicationId);
+
+        insertUserValues(jdbcClient, applicationId, environmentId, null);
+
+        assertThat(partitionOf(environmentId)).isEqualTo(partitionName(environmentId));
+        assertThat(tableExists(jdbcClient, "user_template_values_default")).isFalse();
+    }
+
+    @Test
+    void deletingEnvironmentDropsItsPartition() {
+        UUID environmentId = insertEnvironment(jdbcClient, applicationId);
+        insertUserValues(jdbcClient, applicationId, environmentId, null);
+        String partition = partitionName(environmentId);
+
+        jdbcClient.sql("DELETE FROM environment WHERE id = ?").param(environmentId).update();
+
+        assertThat(tableExists(jdbcClient, partition)).isFalse();
+        assertThat(countUserValues(jdbcClient, applicationId)).isZero();
+    }
+
+    @Test
+    void deletingApplicationCascadesToUserTemplateValues() {
+        UUID environmentId = insertEnvironment(jdbcClient, applicationId);
+        UUID otherEnvironmentId = insertEnvironment(jdbcClient, applicationId);
+        byte[] hash = {1, 2, 3};
+        jdbcClient.sql("INSERT INTO user_override_payload (application_id, hash) VALUES (?, ?)")
+                .params(applicationId, hash)
+                .update();
+        insertUserValues(jdbcClient, applicationId, environmentId, hash);
+        insertUserValues(jdbcClient, applicationId, otherEnvironmentId, null);
+
+        jdbcClient.sql("DELETE FROM application WHERE id = ?").param(applicationId).update();
+
+        assertThat(countUserValues(jdbcClient, applicationId)).isZero();
+        assertThat(tableExists(jdbcClient, partitionName(environmentId))).isFalse();
+        assertThat(tableExists(jdbcClient, partitionName(otherEnvironmentId))).isFalse();
+    }
+
+    @Test
+    void partitioningCopiesExistingUserValuesOnline() {
+        dropMigrationDatabase();
+        jdbcClient.sql("CREATE DATABASE " + MIGRATION_DATABASE).update();
+        var dataSource = new DriverManagerDataSource(
+                postgresContainer.getJdbcUrl().replace("/flagforge", "/" + MIGRATION_DATABASE),
+                postgresContainer.getUsername(), postgresContainer.getPassword());
+        var migrationClient = JdbcClient.create(dataSource);
+
+        migrate(dataSource, "1.0.26");
+        UUID migrationCompanyId = insertCompany(migrationClient);
+        UUID migrationApplicationId = insertApplication(migrationClient, migrationCompanyId);
+        UUID environmentId = insertEnvironment(migrationClient, migrationApplicationId);
+        UUID userId = UUID.randomUUID();
+        UUID deletedUserId = UUID.randomUUID();
+        for (UUID id : new UUID[]{userId, deletedUserId}) {
+            migrationClient.sql("""
+                            INSERT INTO user_template_values
+                                (application_id, environment_id, user_id, values, version)
+                            VALUES (?, ?, ?, '{"theme": "dark"}'::jsonb, 3)""")
+                    .params(migrationApplicationId, environmentId, id)
+                    .update();
+        }
+
+        migrate(dataSource, "latest");
+        assertThat(tableExists(migrationClient, "user_template_values_partitioned")).isTrue();
+
+        // Writes before the copy are mirrored and the copy leaves them alone
+        migrationClient.sql("""
+                        UPDATE user_template_values
+                        SET values = '{"theme": "light"}'::jsonb, version = 4
+                        WHERE user_id = ?""")
+                .param(userId)
+                .update();
+        migrationClient.sql("DELETE FROM user_template_values WHERE user_id = ?")
+                .param(deletedUserId)
+                .update();
+        var partitioningRepository = new UserTemplateValuesPartitioningRepository(migrationClient);
+        while (partitioningRepository.copyBatch(1) > 0) {
+            // copies one row per transaction until the tables are swapped
+        }
+
+        assertThat(migrationClient.sql("""
+                        SELECT tableoid::regclass::text || ' ' || (values ->> 'theme') || ' ' ||
+                               version
+                        FROM user_template_values
+                        WHERE environment_id = ?""")
+                .param(environmentId)
+                .query(String.class)
+                .single()).isEqualTo(partitionName(environmentId) + " light 4");
+        assertThat(tableExists(migrationClient, "user_template_values_partitioned")).isFalse();
+        assertThat(tableExists(migrationClient, "user_template_values_partitioning")).isFalse();
+    }
+
+    private void dropMigrationDatabase() {
+        jdbcClient.sql("DROP DATABASE IF EXISTS " + MIGRATION_DATABASE + " WITH (FORCE)")
+                .update();
+    }
+
+    private void migrate(DriverManagerDataSource dataSource, String target) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(target)
+                .load()
+                .migrate();
+    }
+
+    private static UUID insertCompany(JdbcClient client) {
+        return client.sql("INSERT INTO company (name) VALUES ('Partition Company') RETURNING id")
+                .query(UUID.class)
+                .single();
+    }
+
+    private static UUID insertApplication(JdbcClient client, UUID companyId) {
+        return client.sql("""
+                        INSERT INTO application (name, company_id)
+                        VALUES ('Partition App', ?) RETURNING id""")
+                .param(companyId)
+                .query(UUID.class)
+                .single();
+    }
+
+    private static UUID insertEnvironment(JdbcClient client, UUID applicationId) {
+        return client.sql("""
+                        INSERT INTO environment (name, application_id)
+                        VALUES (?, ?) RETURNING id""")
+                .params("Environment " + UUID.randomUUID(), applicationId)
+                .query(UUID.class)
+                .single();
+    }
+
+    private static void insertUserValues(JdbcClient client, UUID applicationId,
+            UUID environmentId, byte @Nullable [] payloadHash) {
+        client.sql("""
+                        INSERT INTO user_template_values
+                            (application_id, environment_id, user_id, payload_hash)
+                        VALUES (?, ?, ?, ?)""")
+                .params(applicationId, environmentId, UUID.randomUUID(), payloadHash)
+                .update();
+    }
+
+    private static long countUserValues(JdbcClient client, UUID applicationId) {
+        return client.sql("SELECT COUNT(*) FROM user_template_values WHERE application_id = ?")
+                .param(applicationId)
+                .query(Long.class)
+                .single();
+    }
+
+    private String partitionOf(UUID environmentId) {
+        return jdbcClient.sql("""
+                        SELECT DISTINCT tableoid::regclass::text
+                        FROM user_template_values
+                        WHERE environment_id = ?""")
+                .param(environmentId)
+                .query(String.class)
+                .single();
+    }
+
+    private String partitionName(UUID environmentId) {
+        return jdbcClient.sql("SELECT user_template_values_partition_name(?)")
+                .param(environmentId)
+                .query(String.class)
+                .single();
+    }
+
+    private static boolean tableExists(JdbcClient client, String name) {
+        return client.sql("SELECT to_regclass(?) IS NOT NULL")
+                .param(name)
+                .query(Boolean.class)
+                .single();
+    }
+}
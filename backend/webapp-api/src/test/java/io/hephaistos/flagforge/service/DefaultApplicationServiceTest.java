@@ -124,7 +124,8 @@ class DefaultApplicationServiceTest {
 
         when(applicationRepository.findByIdFiltered(applicationId)).thenReturn(
                 Optional.of(application));
-        when(userTemplateValuesRepository.countByApplicationId(applicationId)).thenReturn(0L);
+        when(userTemplateValuesRepository.countByApplicationIdAndEnvironmentIdIn(applicationId,
+                List.of())).thenReturn(0L);
 
         var result = applicationService.getApplicationStatistics(applicationId);
 
@@ -140,7 +141,8 @@ class DefaultApplicationServiceTest {
 
         when(applicationRepository.findByIdFiltered(applicationId)).thenReturn(
                 Optional.of(application));
-        when(userTemplateValuesRepository.countByApplicationId(applicationId)).thenReturn(42L);
+        when(userTemplateValuesRepository.countByApplicationIdAndEnvironmentIdIn(applicationId,
+                List.of())).thenReturn(42L);
 
         var result = applicationService.getApplicationStatistics(applicationId);
 
@@ -165,7 +167,8 @@ class DefaultApplicationServiceTest {
 
         when(applicationRepository.findByIdFiltered(applicationId)).thenReturn(
                 Optional.of(application));
-        when(userTemplateValuesRepository.countByApplicationId(applicationId)).thenReturn(10L);
+        when(userTemplateValuesRepository.countByApplicationIdAndEnvironmentIdIn(applicationId,
+                List.of(env1Id, env2Id))).thenReturn(10L);
         when(usageTrackingService.getMonthlyUsage(env1Id)).thenReturn(100L);
         when(usageTrackingService.getMonthlyUsage(env2Id)).thenReturn(200L);
 
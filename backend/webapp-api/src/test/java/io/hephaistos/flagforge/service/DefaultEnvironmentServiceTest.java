@@ -292,7 +292,7 @@ class DefaultEnvironmentServiceTest {
         // Verify subscription item is removed for paid tier
         verify(stripeService).removeSubscriptionItem(testCompanyId, environmentId);
         verify(environmentRepository).deleteById(environmentId);
-        verify(redisCleanupService).cleanupEnvironmentKeys(environmentId);
+        verify(redisCleanupService).scheduleEnvironmentCleanup(environmentId);
         verify(cacheInvalidationPublisher).publishEnvironmentDeleted(testApplicationId,
                 environmentId);
     }
@@ -313,7 +313,7 @@ class DefaultEnvironmentServiceTest {
         // Verify subscription item is NOT removed for free tier
         verify(stripeService, never()).removeSubscriptionItem(any(), any());
         verify(environmentRepository).deleteById(environmentId);
-        verify(redisCleanupService).cleanupEnvironmentKeys(environmentId);
+        verify(redisCleanupService).scheduleEnvironmentCleanup(environmentId);
         verify(cacheInvalidationPublisher).publishEnvironmentDeleted(testApplicationId,
                 environmentId);
     }
@@ -386,7 +386,7 @@ class DefaultEnvironmentServiceTest {
 
         verify(stripeService, never()).removeSubscriptionItem(any(), any());
         verify(environmentRepository, never()).deleteById(any());
-        verify(redisCleanupService, never()).cleanupEnvironmentKeys(any());
+        verify(redisCleanupService, never()).scheduleEnvironmentCleanup(any());
         verify(cacheInvalidationPublisher, never()).publishEnvironmentDeleted(any(), any());
     }
 
@@ -0,0 +1,70 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.configuration.OverridePayloadCleanupProperties;
+import io.hephaistos.flagforge.data.repository.UserOverridePayloadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class DefaultOverridePayloadCleanupServiceTest {
+
+    @Mock
+    private UserOverridePayloadRepository payloadRepository;
+
+    private DefaultOverridePayloadCleanupService cleanupService;
+
+    @BeforeEach
+    void setUp() {
+        cleanupService = new DefaultOverridePayloadCleanupService(payloadRepository,
+                new OverridePayloadCleanupProperties(Duration.ofHours(24), 2));
+    }
+
+    @Test
+    void deletesInBatchesUntilBatchIsNotFull() {
+        when(payloadRepository.deleteUnreferenced(any(), eq(2))).thenReturn(2, 2, 1);
+
+        int deleted = cleanupService.deleteUnreferencedPayloads();
+
+        assertThat(deleted).isEqualTo(5);
+        verify(payloadRepository, times(3)).deleteUnreferenced(any(), eq(2));
+    }
+
+    @Test
+    void onlyDeletesPayloadsOlderThanGracePeriod() {
+        when(payloadRepository.deleteUnreferenced(any(), eq(2))).thenReturn(0);
+        Instant before = Instant.now();
+
+        cleanupService.deleteUnreferencedPayloads();
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(payloadRepository).deleteUnreferenced(cutoff.capture(), eq(2));
+        assertThat(cutoff.getValue()).isBeforeOrEqualTo(before.minus(Duration.ofHours(23)));
+    }
+
+    @Test
+    void stopsWhenPayloadGainsReferenceDuringDelete() {
+        when(payloadRepository.deleteUnreferenced(any(), eq(2))).thenReturn(2)
+                .thenThrow(new DataIntegrityViolationException("fk_user_template_values_payload"));
+
+        int deleted = cleanupService.deleteUnreferencedPayloads();
+
+        assertThat(deleted).isEqualTo(2);
+    }
+}
@@ -1,27 +1,32 @@
 package io.hephaistos.flagforge.service;
 
-import io.lettuce.core.KeyScanCursor;
-import io.lettuce.core.ScanArgs;
-import io.lettuce.core.ScanCursor;
-import io.lettuce.core.api.StatefulRedisConnection;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
+import io.hephaistos.flagforge.data.repository.RedisCleanupJobRepository;
 import io.lettuce.core.api.sync.RedisCommands;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Collections;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @Tag("unit")
@@ -29,153 +34,97 @@ import static org.mockito.Mockito.when;
 class DefaultRedisCleanupServiceTest {
 
     @Mock
-    private StatefulRedisConnection<String, String> redisConnection;
+    private RedisEndpoint.Connection<String> redisConnection;
 
     @Mock
     private RedisCommands<String, String> redisCommands;
 
+    @Mock
+    private RedisCleanupJobRepository jobRepository;
+
     private DefaultRedisCleanupService cleanupService;
 
     private UUID environmentId;
 
     @BeforeEach
     void setUp() {
-        when(redisConnection.sync()).thenReturn(redisCommands);
-        cleanupService = new DefaultRedisCleanupService(redisConnection);
+        cleanupService = new DefaultRedisCleanupService(redisConnection, jobRepository);
         environmentId = UUID.randomUUID();
     }
 
-    private void setupEmptyScanMock() {
-        @SuppressWarnings("unchecked")
-        KeyScanCursor<String> mockCursor = mock(KeyScanCursor.class);
-        when(mockCursor.getKeys()).thenReturn(Collections.emptyList());
-        when(mockCursor.isFinished()).thenReturn(true);
-        when(redisCommands.scan(any(ScanCursor.class), any(ScanArgs.class))).thenReturn(mockCursor);
-    }
+    @Nested
+    class ScheduleTests {
 
-    private void setupScanMockWithKeys(List<String> keys) {
-        @SuppressWarnings("unchecked")
-        KeyScanCursor<String> cursorWithKeys = mock(KeyScanCursor.class);
-        when(cursorWithKeys.getKeys()).thenReturn(keys);
-        when(cursorWithKeys.isFinished()).thenReturn(true);
+        @Test
+        void storesJobWithoutTouchingRedis() {
+            cleanupService.scheduleEnvironmentCleanup(environmentId);
 
-        when(redisCommands.scan(any(ScanCursor.class), any(ScanArgs.class))).thenReturn(
-                cursorWithKeys);
+            verify(jobRepository).insert(environmentId);
+            verifyNoInteractions(redisConnection);
+        }
     }
 
-    // ========== Helper Methods ==========
-
 
     @Nested
     class CleanupEnvironmentKeysTests {
 
-        @Test
-        void deletesRateLimitBucketDirectly() {
-            // Rate limit bucket has no wildcards, so del is called directly
-            when(redisCommands.del(anyString())).thenReturn(1L);
-            setupEmptyScanMock();
-
-            cleanupService.cleanupEnvironmentKeys(environmentId);
-
-            String expectedKey = "rate-limit:env:" + environmentId;
-            verify(redisCommands).del(expectedKey);
+        @BeforeEach
+        void setUp() {
+            when(redisConnection.sync()).thenReturn(redisCommands);
         }
 
         @Test
-        void scansForWildcardPatterns() {
-            when(redisCommands.del(anyString())).thenReturn(1L);
-            setupEmptyScanMock();
-
-            cleanupService.cleanupEnvironmentKeys(environmentId);
-
-            // Verify scan was called for all wildcard patterns (5 patterns)
-            verify(redisCommands, times(5)).scan(any(ScanCursor.class), any(ScanArgs.class));
+        void deletesRegisteredKeysBucketAndRegistry() {
+            String registry = RedisKeys.environmentKeys(environmentId);
+            List<String> registered =
+                    List.of(RedisKeys.usageMonthly(environmentId, YearMonth.of(2026, 10)),
+                            RedisKeys.usageDaily(environmentId, LocalDate.of(2026, 10, 19)));
+            when(redisCommands.zrange(registry, 0, -1)).thenReturn(registered);
+            when(redisCommands.del(any(String[].class))).thenReturn(4L);
+
+            boolean cleaned = cleanupService.cleanupEnvironmentKeys(environmentId);
+
+            assertThat(cleaned).isTrue();
+            verify(redisCommands).del(registered.get(0), registered.get(1),
+                    RedisKeys.rateLimit(environmentId), registry);
         }
 
         @Test
-        void cleansUpAllPatterns() {
-            when(redisCommands.del(anyString())).thenReturn(1L);
-            setupEmptyScanMock();
+        void deletesLargeRegistriesInBatchesWithRegistryLast() {
+            String registry = RedisKeys.environmentKeys(environmentId);
+            List<String> registered = new ArrayList<>();
+            for (int day = 1; day <= 150; day++) {
+                registered.add(RedisKeys.usageDaily(environmentId,
+                        LocalDate.of(2026, 1, 1).plusDays(day)));
+            }
+            when(redisCommands.zrange(registry, 0, -1)).thenReturn(registered);
+            when(redisCommands.del(any(String[].class))).thenReturn(100L, 52L);
 
             cleanupService.cleanupEnvironmentKeys(environmentId);
 
-            // Verify direct delete for rate-limit
-            verify(redisCommands).del("rate-limit:env:" + environmentId);
-
-            // Verify scan was called for wildcard patterns (5 patterns with wildcards)
-            verify(redisCommands, times(5)).scan(any(ScanCursor.class), any(ScanArgs.class));
+            ArgumentCaptor<String[]> batches = ArgumentCaptor.forClass(String[].class);
+            verify(redisCommands, times(2)).del(batches.capture());
+            assertThat(batches.getAllValues().get(0)).hasSize(100);
+            assertThat(batches.getAllValues().get(1)).hasSize(52).endsWith(registry);
         }
 
         @Test
-        void handlesRedisErrorGracefully() {
-            when(redisCommands.del(anyString())).thenThrow(
+        void reportsFailureForRetry() {
+            when(redisCommands.zrange(anyString(), eq(0L), eq(-1L))).thenThrow(
                     new RuntimeException("Redis connection failed"));
 
-            // Should not throw exception - fail-open behavior
-            cleanupService.cleanupEnvironmentKeys(environmentId);
-        }
-
-        @Test
-        void handlesEmptyScanResultsGracefully() {
-            when(redisCommands.del(anyString())).thenReturn(0L);
-            setupEmptyScanMock();
-
-            // Should not throw exception even when no keys found
-            cleanupService.cleanupEnvironmentKeys(environmentId);
-
-            // Verify del was called for rate-limit
-            verify(redisCommands).del("rate-limit:env:" + environmentId);
-        }
-
-        @Test
-        void deletesKeysFoundByScan() {
-            // Set up scan to return keys for all patterns
-            List<String> keysToDelete = List.of("usage:daily:" + environmentId + ":2024-01-01",
-                    "usage:daily:" + environmentId + ":2024-01-02");
-            setupScanMockWithKeys(keysToDelete);
-            when(redisCommands.del(any(String[].class))).thenReturn(2L);
+            // Should not throw exception - the job is retried instead
+            boolean cleaned = cleanupService.cleanupEnvironmentKeys(environmentId);
 
-            cleanupService.cleanupEnvironmentKeys(environmentId);
-
-            // Verify batch delete was called when keys were found
-            verify(redisCommands, org.mockito.Mockito.atLeast(1)).del(any(String[].class));
+            assertThat(cleaned).isFalse();
         }
 
         @Test
         void handlesNullDeleteResponse() {
-            when(redisCommands.del(anyString())).thenReturn(null);
-            setupEmptyScanMock();
-
-            // Should not throw exception
-            cleanupService.cleanupEnvironmentKeys(environmentId);
-        }
-    }
-
-
-    @Nested
-    class PatternTests {
-
-        @Test
-        void rateLimitPatternIsExact() {
-            when(redisCommands.del(anyString())).thenReturn(0L);
-            setupEmptyScanMock();
-
-            cleanupService.cleanupEnvironmentKeys(environmentId);
-
-            // Rate limit should be direct delete (no wildcard)
-            verify(redisCommands).del("rate-limit:env:" + environmentId);
-        }
-
-        @Test
-        void usagePatternsUseWildcards() {
-            when(redisCommands.del(anyString())).thenReturn(0L);
-            setupEmptyScanMock();
-
-            cleanupService.cleanupEnvironmentKeys(environmentId);
+            when(redisCommands.zrange(anyString(), anyLong(), anyLong())).thenReturn(List.of());
+            when(redisCommands.del(any(String[].class))).thenReturn(null);
 
-            // Verify scan was called 5 times (for 5 wildcard patterns)
-            // usage:monthly, usage:daily, usage:peak, usage:rejected, usage:second
-            verify(redisCommands, times(5)).scan(any(ScanCursor.class), any(ScanArgs.class));
+            assertThat(cleanupService.cleanupEnvironmentKeys(environmentId)).isTrue();
         }
     }
 }
@@ -0,0 +1,146 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.types.MergedTemplateSnapshot;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.configuration.StaticBundleProperties;
+import io.hephaistos.flagforge.data.repository.EnvironmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class DefaultStaticBundleServiceTest {
+
+    private static final TemplateSchema SCHEMA = new TemplateSchema(List.of(
+            new StringTemplateField("region", "Region", false, "us-east", 0, 50)));
+
+    @TempDir
+    private Path bundleDir;
+
+    @Mock
+    private SystemTemplateRenderer renderer;
+
+    @Mock
+    private EnvironmentRepository environmentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private DefaultStaticBundleService bundleService;
+    private UUID applicationId;
+    private UUID environmentId;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new StaticBundleProperties(true, bundleDir.toString(), "/static",
+                Duration.ZERO);
+        bundleService =
+                new DefaultStaticBundleService(properties, renderer, environmentRepository,
+                        transactionManager, jsonMapper);
+        applicationId = UUID.randomUUID();
+        environmentId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bundleService.shutdown();
+    }
+
+    @Test
+    void rebuildWritesContentAddressedBundleAndDefaultsPointer() throws Exception {
+        when(renderer.renderEnvironment(applicationId, environmentId)).thenReturn(
+                Map.of(SystemTemplateRenderer.DEFAULTS, snapshot("us-east", null)));
+
+        bundleService.rebuild(applicationId, environmentId);
+
+        var pointer = readPointer(SystemTemplateRenderer.DEFAULTS);
+        assertThat(pointer.path()).isEqualTo(
+                "/static/" + environmentId + "/system/" + pointer.version() + ".json");
+        var bundle = jsonMapper.readValue(
+                systemDir().resolve(pointer.version() + ".json").toFile(),
+                MergedTemplateSnapshot.class);
+        assertThat(bundle.values()).containsEntry("region", "us-east");
+        assertThat(bundle.appliedIdentifier()).isNull();
+    }
+
+    @Test
+    void rebuildWritesPointerPerIdentifier() throws Exception {
+        Map<String, MergedTemplateSnapshot> documents = new LinkedHashMap<>();
+        documents.put(SystemTemplateRenderer.DEFAULTS, snapshot("us-east", null));
+        documents.put("region-eu", snapshot("eu-west", "region-eu"));
+        when(renderer.renderEnvironment(applicationId, environmentId)).thenReturn(documents);
+
+        bundleService.rebuild(applicationId, environmentId);
+
+        var defaults = readPointer(SystemTemplateRenderer.DEFAULTS);
+        var override = readPointer("region-eu");
+        assertThat(override.version()).isNotEqualTo(defaults.version());
+    }
+
+    @Test
+    void rebuildRemovesPointerOfDeletedOverrideAndSupersededBundle() throws Exception {
+        Map<String, MergedTemplateSnapshot> before = new LinkedHashMap<>();
+        before.put(SystemTemplateRenderer.DEFAULTS, snapshot("us-east", null));
+        before.put("region-eu", snapshot("eu-west", "region-eu"));
+        when(renderer.renderEnvironment(applicationId, environmentId)).thenReturn(before)
+                .thenReturn(Map.of(SystemTemplateRenderer.DEFAULTS, snapshot("us-east", null)));
+
+        bundleService.rebuild(applicationId, environmentId);
+        var removedVersion = readPointer("region-eu").version();
+        bundleService.rebuild(applicationId, environmentId);
+
+        assertThat(pointerPath("region-eu")).doesNotExist();
+        assertThat(pointerPath(SystemTemplateRenderer.DEFAULTS)).exists();
+        assertThat(systemDir().resolve(removedVersion + ".json")).doesNotExist();
+    }
+
+    @Test
+    void pointerNameHashesIdentifiers() {
+        assertThat(DefaultStaticBundleService.pointerName(SystemTemplateRenderer.DEFAULTS))
+                .isEqualTo("_.json");
+        assertThat(DefaultStaticBundleService.pointerName("../../etc/passwd")).matches(
+                "[0-9a-f]{64}\\.json");
+    }
+
+    private MergedTemplateSnapshot snapshot(String region, String identifier) {
+        return new MergedTemplateSnapshot(TemplateType.SYSTEM, SCHEMA, Map.of("region", region),
+                identifier);
+    }
+
+    private Path systemDir() {
+        return bundleDir.resolve(environmentId.toString()).resolve("system");
+    }
+
+    private Path pointerPath(String identifier) {
+        return systemDir().resolve("current")
+                .resolve(DefaultStaticBundleService.pointerName(identifier));
+    }
+
+    private DefaultStaticBundleService.BundlePointer readPointer(String identifier)
+            throws Exception {
+        return jsonMapper.readValue(Files.readAllBytes(pointerPath(identifier)),
+                DefaultStaticBundleService.BundlePointer.class);
+    }
+}
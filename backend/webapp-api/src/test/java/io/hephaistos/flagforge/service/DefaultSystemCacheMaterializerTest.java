@@ -0,0 +1,162 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.common.enums.TemplateType;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
+import io.hephaistos.flagforge.common.types.MergedTemplateSnapshot;
+import io.hephaistos.flagforge.common.types.StringTemplateField;
+import io.hephaistos.flagforge.common.types.TemplateSchema;
+import io.hephaistos.flagforge.configuration.CacheMaterializationProperties;
+import io.hephaistos.flagforge.data.repository.EnvironmentRepository;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class DefaultSystemCacheMaterializerTest {
+
+    private static final TemplateSchema SCHEMA = new TemplateSchema(List.of(
+            new StringTemplateField("region", "Region", false, "us-east", 0, 50)));
+
+    @Mock
+    private RedisEndpoint.Connection<String> redisConnection;
+
+    @Mock
+    private RedisCommands<String, String> redisCommands;
+
+    @Mock
+    private SystemTemplateRenderer renderer;
+
+    @Mock
+    private EnvironmentRepository environmentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private DefaultSystemCacheMaterializer materializer;
+    private UUID applicationId;
+    private UUID environmentId;
+
+    @BeforeEach
+    void setUp() {
+        materializer = new DefaultSystemCacheMaterializer(redisConnection, renderer,
+                environmentRepository, transactionManager, jsonMapper,
+                new CacheMaterializationProperties(true, null));
+        applicationId = UUID.randomUUID();
+        environmentId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        materializer.shutdown();
+    }
+
+    @Test
+    void writesChangedIdentifierInCustomerApiFormat() {
+        when(renderer.renderIdentifiers(applicationId, environmentId,
+                Set.of("device-1"))).thenReturn(
+                Map.of("device-1", snapshot("eu-west", "device-1")));
+        when(redisConnection.sync()).thenReturn(redisCommands);
+
+        int written = materializer.materialize(applicationId, environmentId, false,
+                Set.of("device-1"));
+
+        assertThat(written).isEqualTo(1);
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(redisCommands).setex(eq(RedisKeys.templateCache(environmentId, applicationId,
+                TemplateType.SYSTEM, "device-1")), eq(300L), json.capture());
+        var cached = jsonMapper.readValue(json.getValue(), MergedTemplateSnapshot.class);
+        assertThat(cached.values()).containsEntry("region", "eu-west");
+        assertThat(cached.appliedIdentifier()).isEqualTo("device-1");
+        verify(redisCommands).del(RedisKeys.templateVariants(environmentId, applicationId,
+                TemplateType.SYSTEM, "device-1"));
+    }
+
+    @Test
+    void writesEveryResponseOfTheEnvironmentIncludingDefaults() {
+        Map<String, MergedTemplateSnapshot> documents = new LinkedHashMap<>();
+        documents.put(SystemTemplateRenderer.DEFAULTS, snapshot("us-east", null));
+        documents.put("device-1", snapshot("eu-west", "device-1"));
+        when(renderer.renderEnvironment(applicationId, environmentId)).thenReturn(documents);
+        when(redisConnection.sync()).thenReturn(redisCommands);
+
+        int written = materializer.materialize(applicationId, environmentId, true, Set.of());
+
+        assertThat(written).isEqualTo(2);
+        // customer-api caches requests without identifier under the empty identifier
+        verify(redisCommands).setex(eq(RedisKeys.templateCache(environmentId, applicationId,
+                TemplateType.SYSTEM, null)), eq(300L), anyString());
+        verify(redisCommands).del(
+                RedisKeys.templateVariants(environmentId, applicationId, TemplateType.SYSTEM,
+                        null),
+                RedisKeys.templateVariants(environmentId, applicationId, TemplateType.SYSTEM,
+                        "device-1"));
+    }
+
+    @Test
+    void writesDeletedOverrideAlongWithTheEnvironment() {
+        Map<String, MergedTemplateSnapshot> documents = new LinkedHashMap<>();
+        documents.put(SystemTemplateRenderer.DEFAULTS, snapshot("us-east", null));
+        when(renderer.renderEnvironment(applicationId, environmentId)).thenReturn(documents);
+        when(renderer.renderIdentifiers(applicationId, environmentId,
+                Set.of("device-1"))).thenReturn(
+                Map.of("device-1", snapshot("us-east", null)));
+        when(redisConnection.sync()).thenReturn(redisCommands);
+
+        int written = materializer.materialize(applicationId, environmentId, true,
+                Set.of("device-1"));
+
+        assertThat(written).isEqualTo(2);
+        verify(redisCommands).setex(eq(RedisKeys.templateCache(environmentId, applicationId,
+                TemplateType.SYSTEM, "device-1")), eq(300L), anyString());
+    }
+
+    @Test
+    void writesNothingWithoutSystemTemplate() {
+        when(renderer.renderIdentifiers(applicationId, environmentId,
+                Set.of("device-1"))).thenReturn(Map.of());
+
+        int written = materializer.materialize(applicationId, environmentId, false,
+                Set.of("device-1"));
+
+        assertThat(written).isZero();
+        verifyNoInteractions(redisConnection);
+    }
+
+    @Test
+    void ignoresUserTemplateChanges() {
+        materializer.scheduleMaterialization(applicationId, environmentId, TemplateType.USER,
+                "user-1");
+
+        verifyNoInteractions(renderer, redisConnection);
+    }
+
+    private static MergedTemplateSnapshot snapshot(String region, @Nullable String identifier) {
+        return new MergedTemplateSnapshot(TemplateType.SYSTEM, SCHEMA, Map.of("region", region),
+                identifier);
+    }
+}
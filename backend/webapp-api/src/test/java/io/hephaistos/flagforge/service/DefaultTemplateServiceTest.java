@@ -62,6 +62,12 @@ class DefaultTemplateServiceTest {
     @Mock
     private CacheInvalidationPublisher cacheInvalidationPublisher;
 
+    @Mock
+    private StaticBundleService staticBundleService;
+
+    @Mock
+    private SystemCacheMaterializer systemCacheMaterializer;
+
     private DefaultTemplateService templateService;
     private UUID testCompanyId;
     private UUID testApplicationId;
@@ -70,7 +76,8 @@ class DefaultTemplateServiceTest {
     @BeforeEach
     void setUp() {
         templateService = new DefaultTemplateService(templateRepository, templateValuesRepository,
-                applicationRepository, environmentRepository, cacheInvalidationPublisher);
+                applicationRepository, environmentRepository, cacheInvalidationPublisher,
+                staticBundleService, systemCacheMaterializer);
         testCompanyId = UUID.randomUUID();
         UUID testCustomerId = UUID.randomUUID();
         testApplicationId = UUID.randomUUID();
@@ -176,6 +183,25 @@ class DefaultTemplateServiceTest {
         assertThat(response.schema().fields().getFirst().key()).isEqualTo("updated_field");
     }
 
+    @Test
+    void updateTemplateSchedulesStaticBundleRebuildForAllEnvironments() {
+        var existingTemplate = createTemplateEntity(TemplateType.SYSTEM);
+        var request = new TemplateUpdateRequest(existingTemplate.getSchema());
+
+        when(applicationRepository.existsByIdFiltered(testApplicationId)).thenReturn(true);
+        when(templateRepository.findByApplicationIdAndType(testApplicationId,
+                TemplateType.SYSTEM)).thenReturn(Optional.of(existingTemplate));
+        when(templateRepository.save(any(TemplateEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        templateService.updateTemplate(testApplicationId, TemplateType.SYSTEM, request);
+
+        verify(staticBundleService).scheduleRebuild(testApplicationId, null, TemplateType.SYSTEM);
+        verify(systemCacheMaterializer).scheduleMaterialization(testApplicationId, null,
+                TemplateType.SYSTEM, null);
+        verify(cacheInvalidationPublisher).publishSchemaChange(testApplicationId,
+                TemplateType.SYSTEM);
+    }
+
     // ========== getMergedValues Tests ==========
 
     @Test
@@ -271,6 +297,29 @@ class DefaultTemplateServiceTest {
         assertThat(captor.getValue().getType()).isEqualTo(TemplateType.USER);
     }
 
+    @Test
+    void setOverrideInvalidatesAndMaterializesTheIdentifier() {
+        var template = createTemplateEntity(TemplateType.SYSTEM);
+        var request = new TemplateValuesRequest(Map.of("test_key", "override_value"));
+
+        when(applicationRepository.existsByIdFiltered(testApplicationId)).thenReturn(true);
+        when(environmentRepository.existsById(testEnvironmentId)).thenReturn(true);
+        when(templateRepository.findByApplicationIdAndType(testApplicationId,
+                TemplateType.SYSTEM)).thenReturn(Optional.of(template));
+        when(templateValuesRepository.findByApplicationIdAndEnvironmentIdAndTypeAndIdentifier(
+                testApplicationId, testEnvironmentId, TemplateType.SYSTEM, "device-1")).thenReturn(
+                Optional.empty());
+
+        templateService.setOverride(testApplicationId, testEnvironmentId, TemplateType.SYSTEM,
+                "device-1", request);
+
+        // Materialization is best effort, the invalidation is always published
+        verify(cacheInvalidationPublisher).publishOverrideChange(testApplicationId,
+                testEnvironmentId, TemplateType.SYSTEM, "device-1");
+        verify(systemCacheMaterializer).scheduleMaterialization(testApplicationId,
+                testEnvironmentId, TemplateType.SYSTEM, "device-1");
+    }
+
     @Test
     void setOverrideUpdatesExistingOverride() {
         var template = createTemplateEntity(TemplateType.USER);
@@ -2,9 +2,10 @@ package io.hephaistos.flagforge.service;
 
 import io.hephaistos.flagforge.common.data.EnvironmentEntity;
 import io.hephaistos.flagforge.common.data.UsageDailyStatisticsEntity;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
+import io.hephaistos.flagforge.common.redis.RedisKeys;
 import io.hephaistos.flagforge.data.repository.EnvironmentRepository;
 import io.hephaistos.flagforge.data.repository.UsageDailyStatisticsRepository;
-import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.sync.RedisCommands;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -39,7 +40,7 @@ class DefaultUsageAggregationServiceTest {
     private UsageDailyStatisticsRepository statsRepository;
 
     @Mock
-    private StatefulRedisConnection<String, String> redisConnection;
+    private RedisEndpoint.Connection<String> redisConnection;
 
     @Mock
     private RedisCommands<String, String> redisCommands;
@@ -84,8 +85,8 @@ class DefaultUsageAggregationServiceTest {
         UUID envId = UUID.randomUUID();
         var env = createEnvironmentEntity(envId);
         LocalDate today = LocalDate.now(ZoneOffset.UTC);
-        String expectedDailyKey = "usage:daily:" + envId + ":" + today;
-        String expectedPeakKey = "usage:peak:" + envId + ":" + today;
+        String expectedDailyKey = RedisKeys.usageDaily(envId, today);
+        String expectedPeakKey = RedisKeys.usagePeak(envId, today);
 
         when(environmentRepository.findAll()).thenReturn(List.of(env));
         when(redisCommands.get(expectedDailyKey)).thenReturn("1000");
@@ -106,8 +107,8 @@ class DefaultUsageAggregationServiceTest {
         LocalDate today = LocalDate.now(ZoneOffset.UTC);
 
         when(environmentRepository.findAll()).thenReturn(List.of(env));
-        when(redisCommands.get("usage:daily:" + envId + ":" + today)).thenReturn("5000");
-        when(redisCommands.get("usage:peak:" + envId + ":" + today)).thenReturn("75");
+        when(redisCommands.get(RedisKeys.usageDaily(envId, today))).thenReturn("5000");
+        when(redisCommands.get(RedisKeys.usagePeak(envId, today))).thenReturn("75");
         when(statsRepository.findByEnvironmentIdAndDate(any(), any())).thenReturn(Optional.empty());
         when(statsRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -165,8 +166,8 @@ class DefaultUsageAggregationServiceTest {
         existingStats.setAvgRequestsPerSecond(BigDecimal.valueOf(0.5));
 
         when(environmentRepository.findAll()).thenReturn(List.of(env));
-        when(redisCommands.get("usage:daily:" + envId + ":" + today)).thenReturn("2000");
-        when(redisCommands.get("usage:peak:" + envId + ":" + today)).thenReturn("30");
+        when(redisCommands.get(RedisKeys.usageDaily(envId, today))).thenReturn("2000");
+        when(redisCommands.get(RedisKeys.usagePeak(envId, today))).thenReturn("30");
         when(statsRepository.findByEnvironmentIdAndDate(envId, today)).thenReturn(
                 Optional.of(existingStats));
         when(statsRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
@@ -193,11 +194,11 @@ class DefaultUsageAggregationServiceTest {
 
         when(environmentRepository.findAll()).thenReturn(List.of(env1, env2));
         // First environment throws exception
-        when(redisCommands.get("usage:daily:" + envId1 + ":" + today)).thenThrow(
+        when(redisCommands.get(RedisKeys.usageDaily(envId1, today))).thenThrow(
                 new RuntimeException("Redis error"));
         // Second environment succeeds
-        when(redisCommands.get("usage:daily:" + envId2 + ":" + today)).thenReturn("100");
-        when(redisCommands.get("usage:peak:" + envId2 + ":" + today)).thenReturn("5");
+        when(redisCommands.get(RedisKeys.usageDaily(envId2, today))).thenReturn("100");
+        when(redisCommands.get(RedisKeys.usagePeak(envId2, today))).thenReturn("5");
         when(statsRepository.findByEnvironmentIdAndDate(envId2, today)).thenReturn(
                 Optional.empty());
         when(statsRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
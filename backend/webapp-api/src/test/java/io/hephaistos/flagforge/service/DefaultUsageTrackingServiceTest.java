@@ -1,9 +1,9 @@
 package io.hephaistos.flagforge.service;
 
 import io.hephaistos.flagforge.common.data.UsageDailyStatisticsEntity;
+import io.hephaistos.flagforge.common.redis.RedisEndpoint;
 import io.hephaistos.flagforge.controller.dto.DailyUsageStatisticsResponse;
 import io.hephaistos.flagforge.data.repository.UsageDailyStatisticsRepository;
-import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.sync.RedisCommands;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -31,7 +31,7 @@ import static org.mockito.Mockito.when;
 class DefaultUsageTrackingServiceTest {
 
     @Mock
-    private StatefulRedisConnection<String, String> redisConnection;
+    private RedisEndpoint.Connection<String> redisConnection;
 
     @Mock
     private RedisCommands<String, String> redisCommands;
@@ -0,0 +1,82 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.configuration.RedisCleanupProperties;
+import io.hephaistos.flagforge.data.repository.RedisCleanupJobRepository;
+import io.hephaistos.flagforge.data.repository.RedisCleanupJobRepository.CleanupJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class RedisCleanupJobRunnerTest {
+
+    @Mock
+    private RedisCleanupJobRepository jobRepository;
+
+    @Mock
+    private RedisCleanupService cleanupService;
+
+    private RedisCleanupJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        runner = new RedisCleanupJobRunner(jobRepository, cleanupService,
+                new RedisCleanupProperties(0, null, null));
+    }
+
+    @Test
+    void deletesJobOnceKeysAreGone() {
+        UUID environmentId = UUID.randomUUID();
+        when(jobRepository.findDueForUpdate(any(), eq(50))).thenReturn(
+                List.of(new CleanupJob(environmentId, 0)));
+        when(cleanupService.cleanupEnvironmentKeys(environmentId)).thenReturn(true);
+
+        int cleaned = runner.run();
+
+        assertThat(cleaned).isEqualTo(1);
+        verify(jobRepository).delete(environmentId);
+        verify(jobRepository, never()).reschedule(any(), any());
+    }
+
+    @Test
+    void reschedulesFailedJobWithBackoff() {
+        UUID environmentId = UUID.randomUUID();
+        when(jobRepository.findDueForUpdate(any(), eq(50))).thenReturn(
+                List.of(new CleanupJob(environmentId, 2)));
+        when(cleanupService.cleanupEnvironmentKeys(environmentId)).thenReturn(false);
+        Instant before = Instant.now();
+
+        int cleaned = runner.run();
+
+        assertThat(cleaned).isZero();
+        ArgumentCaptor<Instant> nextAttempt = ArgumentCaptor.forClass(Instant.class);
+        verify(jobRepository).reschedule(eq(environmentId), nextAttempt.capture());
+        assertThat(nextAttempt.getValue()).isAfterOrEqualTo(before.plus(Duration.ofMinutes(2)));
+        verify(jobRepository, never()).delete(any());
+    }
+
+    @Test
+    void retryDelayDoublesUpToTheMaximum() {
+        assertThat(runner.retryDelay(0)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(runner.retryDelay(1)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(runner.retryDelay(10)).isEqualTo(Duration.ofHours(1));
+        assertThat(runner.retryDelay(Integer.MAX_VALUE)).isEqualTo(Duration.ofHours(1));
+    }
+}
@@ -0,0 +1,65 @@
+package io.hephaistos.flagforge.service;
+
+import io.hephaistos.flagforge.configuration.UserValuesPartitioningProperties;
+import io.hephaistos.flagforge.data.repository.UserTemplateValuesPartitioningRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class UserValuesPartitioningJobRunnerTest {
+
+    @Mock
+    private UserTemplateValuesPartitioningRepository partitioningRepository;
+
+    private UserValuesPartitioningJobRunner jobRunner;
+
+    @BeforeEach
+    void setUp() {
+        jobRunner = new UserValuesPartitioningJobRunner(partitioningRepository,
+                new UserValuesPartitioningProperties(2, 3));
+    }
+
+    @Test
+    void copiesAtMostBatchesPerRun() {
+        when(partitioningRepository.copyBatch(2)).thenReturn(2);
+
+        int copied = jobRunner.run();
+
+        assertThat(copied).isEqualTo(6);
+        verify(partitioningRepository, times(3)).copyBatch(2);
+    }
+
+    @Test
+    void stopsCheckingOnceTablesAreSwapped() {
+        when(partitioningRepository.copyBatch(2)).thenReturn(2, 0);
+
+        assertThat(jobRunner.run()).isEqualTo(2);
+        assertThat(jobRunner.run()).isZero();
+
+        verify(partitioningRepository, times(2)).copyBatch(2);
+        verifyNoMoreInteractions(partitioningRepository);
+    }
+
+    @Test
+    void retriesNextRunWhenBatchFails() {
+        when(partitioningRepository.copyBatch(2)).thenThrow(
+                new CannotAcquireLockException("lock timeout")).thenReturn(0);
+
+        assertThat(jobRunner.run()).isZero();
+        jobRunner.run();
+
+        verify(partitioningRepository, times(2)).copyBatch(2);
+    }
+}
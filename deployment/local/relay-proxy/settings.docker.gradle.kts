@@ -0,0 +1,6 @@
+// Docker-specific settings for relay-proxy build
+// Maintains backend: hierarchy for proper project references
+rootProject.name = "flagforge"
+
+include("backend:backend-common")
+include("backend:relay-proxy")
@@ -3,4 +3,5 @@ rootProject.name = "flagforge"
 include("backend:backend-common")
 include("backend:webapp-api")
 include("backend:customer-api")
+include("backend:relay-proxy")
 include("webapp")